@@ -15,10 +15,17 @@
  */
 package io.stargate.auth.table;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.datastax.oss.driver.shaded.guava.common.base.Strings;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
 import io.stargate.auth.AuthenticationService;
 import io.stargate.auth.StoredCredentials;
 import io.stargate.auth.UnauthorizedException;
+import io.stargate.core.metrics.api.Metrics;
 import io.stargate.db.Persistence;
 import io.stargate.db.datastore.DataStore;
 import io.stargate.db.datastore.ResultSet;
@@ -26,7 +33,10 @@ import io.stargate.db.datastore.Row;
 import io.stargate.db.datastore.query.WhereCondition;
 import java.time.Instant;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.cassandra.stargate.db.ConsistencyLevel;
 import org.mindrot.jbcrypt.BCrypt;
 import org.slf4j.Logger;
@@ -38,6 +48,7 @@ public class AuthTableBasedService implements AuthenticationService {
 
   private Persistence persistence;
   private DataStore dataStore;
+  private Metrics metrics;
   private static final String AUTH_KEYSPACE =
       System.getProperty("stargate.auth_keyspace", "data_endpoint_auth");
   private static final String AUTH_TABLE = System.getProperty("stargate.auth_table", "token");
@@ -45,6 +56,48 @@ public class AuthTableBasedService implements AuthenticationService {
       Integer.parseInt(System.getProperty("stargate.auth_tokenttl", "1800"));
   private static final boolean shouldInitializeAuthKeyspace =
       Boolean.parseBoolean(System.getProperty("stargate.auth_tablebased_init", "true"));
+  private static final int tokenCacheSize =
+      Integer.parseInt(System.getProperty("stargate.auth_token_cache_size", "10000"));
+  // How often (in seconds) the TTL of a token that keeps being used is pushed back to the table.
+  // Refreshes in between are served from the cache, so a token that is validated continuously
+  // costs at most one read and one write per interval instead of per request. The refresh reads
+  // the token row again first and rejects the token if it was deleted, so this is also how long a
+  // token that was deleted from the table can still be accepted from the cache.
+  private static final int tokenRefreshInterval =
+      Math.min(
+          tokenTTL,
+          Integer.parseInt(System.getProperty("stargate.auth_token_refresh_interval", "60")));
+
+  private static final String SELECT_TOKEN =
+      String.format(
+          "SELECT username, created_timestamp FROM %s.\"%s\" WHERE auth_token = ?",
+          AUTH_KEYSPACE, AUTH_TABLE);
+  private static final String REFRESH_TOKEN =
+      String.format(
+          "UPDATE %s.\"%s\" USING TTL ? SET username = ?, created_timestamp = ?"
+              + " WHERE auth_token = ?",
+          AUTH_KEYSPACE, AUTH_TABLE);
+
+  private final Ticker ticker;
+  // Entries expire with the same TTL as the rows in the token table: each time we write the row
+  // (creation or TTL refresh), the entry is put again, which resets its expiration.
+  private final Cache<UUID, CachedToken> tokenCache;
+  private final Meter tokenRefreshes = new Meter();
+
+  public AuthTableBasedService() {
+    this(Ticker.systemTicker());
+  }
+
+  AuthTableBasedService(Ticker ticker) {
+    this.ticker = ticker;
+    this.tokenCache =
+        Caffeine.newBuilder()
+            .maximumSize(tokenCacheSize)
+            .expireAfterWrite(tokenTTL, TimeUnit.SECONDS)
+            .ticker(ticker)
+            .recordStats()
+            .build();
+  }
 
   public Persistence getPersistence() {
     return persistence;
@@ -59,6 +112,27 @@ public class AuthTableBasedService implements AuthenticationService {
     }
   }
 
+  // For tests, which don't go through the initialization of the auth table
+  void setDataStore(DataStore dataStore) {
+    this.dataStore = dataStore;
+  }
+
+  public void setMetrics(Metrics metrics) {
+    if (this.metrics != null) {
+      return;
+    }
+    this.metrics = metrics;
+
+    MetricRegistry registry = metrics.getRegistry("authTableBasedService");
+    registry.register("tokenCache.hits", (Gauge<Long>) () -> tokenCache.stats().hitCount());
+    registry.register("tokenCache.misses", (Gauge<Long>) () -> tokenCache.stats().missCount());
+    registry.register("tokenCache.hitRate", (Gauge<Double>) () -> tokenCache.stats().hitRate());
+    registry.register(
+        "tokenCache.evictions", (Gauge<Long>) () -> tokenCache.stats().evictionCount());
+    registry.register("tokenCache.size", (Gauge<Long>) tokenCache::estimatedSize);
+    registry.register("tokenRefreshes", tokenRefreshes);
+  }
+
   private void initAuthTable(DataStore dataStore) {
     try {
       logger.info(
@@ -128,16 +202,19 @@ public class AuthTableBasedService implements AuthenticationService {
   private void saveToken(String key, UUID token) {
     try {
       Instant instant = Instant.now();
+      int timestamp = Math.toIntExact(instant.getEpochSecond());
 
       dataStore
           .query()
           .insertInto(AUTH_KEYSPACE, AUTH_TABLE)
           .value("username", key)
           .value("auth_token", token)
-          .value("created_timestamp", Math.toIntExact(instant.getEpochSecond()))
+          .value("created_timestamp", timestamp)
           .ttl(tokenTTL)
           .consistencyLevel(ConsistencyLevel.LOCAL_QUORUM)
           .execute();
+
+      tokenCache.put(token, new CachedToken(key, timestamp, ticker.read()));
     } catch (Exception e) {
       logger.error("Failed to add new token", e);
       throw new RuntimeException(e);
@@ -214,48 +291,106 @@ public class AuthTableBasedService implements AuthenticationService {
       throw new UnauthorizedException("authorization failed - bad token");
     }
 
-    StoredCredentials storedCredentials = new StoredCredentials();
+    CachedToken cachedToken;
     try {
-      ResultSet resultSet =
-          dataStore
-              .query()
-              .select()
-              .star()
-              .from(AUTH_KEYSPACE, AUTH_TABLE)
-              .where("auth_token", WhereCondition.Predicate.Eq, uuid)
-              .execute();
-
-      if (resultSet.hasNoMoreFetchedRows()) {
-        throw new UnauthorizedException("authorization failed");
-      }
-
-      Row row = resultSet.one();
-      if (row.isNull("username")) {
-        throw new RuntimeException("unable to get username from token table");
+      // Concurrent misses for the same token wait for a single read of the table
+      cachedToken = tokenCache.get(uuid, this::loadToken);
+      if (cachedToken.claimRefresh(ticker.read(), tokenRefreshInterval)) {
+        try {
+          cachedToken = readAndRefreshToken(uuid);
+          tokenCache.put(uuid, cachedToken);
+        } catch (UnauthorizedException uae) {
+          tokenCache.invalidate(uuid);
+          throw uae;
+        }
       }
-
-      int timestamp = row.getInt("created_timestamp");
-      String username = row.getString("username");
-
-      storedCredentials.setRoleName(username);
-
-      final ResultSet r =
-          dataStore
-              .query()
-              .update(AUTH_KEYSPACE, AUTH_TABLE)
-              .ttl(tokenTTL)
-              .value("username", username)
-              .value("created_timestamp", timestamp)
-              .where("auth_token", WhereCondition.Predicate.Eq, UUID.fromString(token))
-              .consistencyLevel(ConsistencyLevel.LOCAL_QUORUM)
-              .execute();
     } catch (UnauthorizedException uae) {
       throw uae;
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UnauthorizedException) {
+        throw (UnauthorizedException) e.getCause();
+      }
+      logger.error("Failed to validate token", e.getCause());
+      throw new RuntimeException(e.getCause());
     } catch (InterruptedException | ExecutionException e) {
       logger.error("Failed to validate token", e);
       throw new RuntimeException(e);
     }
 
+    StoredCredentials storedCredentials = new StoredCredentials();
+    storedCredentials.setRoleName(cachedToken.username);
     return storedCredentials;
   }
+
+  private CachedToken queryToken(UUID uuid)
+      throws UnauthorizedException, ExecutionException, InterruptedException {
+    ResultSet resultSet = dataStore.query(SELECT_TOKEN, ConsistencyLevel.LOCAL_QUORUM, uuid).get();
+
+    if (resultSet.hasNoMoreFetchedRows()) {
+      throw new UnauthorizedException("authorization failed");
+    }
+
+    Row row = resultSet.one();
+    if (row.isNull("username")) {
+      throw new RuntimeException("unable to get username from token table");
+    }
+
+    return new CachedToken(row.getString("username"), row.getInt("created_timestamp"), 0);
+  }
+
+  /** Loads a token missing from the cache, with its checked exceptions wrapped. */
+  private CachedToken loadToken(UUID uuid) {
+    try {
+      return readAndRefreshToken(uuid);
+    } catch (UnauthorizedException | ExecutionException | InterruptedException e) {
+      throw new CompletionException(e);
+    }
+  }
+
+  /**
+   * Reads the token row, which rejects the token if it was deleted, and slides its TTL.
+   *
+   * <p>The update isn't conditional, to keep it a single write: a row deleted between the read and
+   * the update is recreated, and the token is only rejected once it expires.
+   */
+  private CachedToken readAndRefreshToken(UUID uuid)
+      throws UnauthorizedException, ExecutionException, InterruptedException {
+    CachedToken token = queryToken(uuid);
+    dataStore
+        .query(
+            REFRESH_TOKEN,
+            ConsistencyLevel.LOCAL_QUORUM,
+            tokenTTL,
+            token.username,
+            token.createdTimestamp,
+            uuid)
+        .get();
+    tokenRefreshes.mark();
+
+    token.lastRefreshNanos.set(ticker.read());
+    return token;
+  }
+
+  private static class CachedToken {
+    private final String username;
+    private final int createdTimestamp;
+    private final AtomicLong lastRefreshNanos;
+
+    private CachedToken(String username, int createdTimestamp, long lastRefreshNanos) {
+      this.username = username;
+      this.createdTimestamp = createdTimestamp;
+      this.lastRefreshNanos = new AtomicLong(lastRefreshNanos);
+    }
+
+    /**
+     * Returns true if the TTL of this token is due for a refresh, in which case the caller is
+     * responsible for it. Concurrent callers observing the same due refresh will only get true
+     * once, so refreshes are coalesced into a single write.
+     */
+    boolean claimRefresh(long now, int intervalSeconds) {
+      long last = lastRefreshNanos.get();
+      return now - last >= TimeUnit.SECONDS.toNanos(intervalSeconds)
+          && lastRefreshNanos.compareAndSet(last, now);
+    }
+  }
 }
@@ -16,6 +16,7 @@
 package io.stargate.auth.table;
 
 import io.stargate.auth.AuthenticationService;
+import io.stargate.core.metrics.api.Metrics;
 import io.stargate.db.Persistence;
 import java.util.Hashtable;
 import org.osgi.framework.BundleActivator;
@@ -34,6 +35,7 @@ public class AuthTableBasedServiceActivator implements BundleActivator, ServiceL
   private BundleContext context;
   private final AuthTableBasedService authTableBasedService = new AuthTableBasedService();
   private ServiceReference persistenceReference;
+  private ServiceReference<?> metricsReference;
   private ServiceRegistration<?> registration;
   static Hashtable<String, String> props = new Hashtable<>();
   static String PERSISTENCE_IDENTIFIER =
@@ -50,7 +52,11 @@ public class AuthTableBasedServiceActivator implements BundleActivator, ServiceL
 
     synchronized (authTableBasedService) {
       try {
-        context.addServiceListener(this, String.format("(Identifier=%s)", PERSISTENCE_IDENTIFIER));
+        context.addServiceListener(
+            this,
+            String.format(
+                "(|(Identifier=%s)(objectClass=%s))",
+                PERSISTENCE_IDENTIFIER, Metrics.class.getName()));
       } catch (InvalidSyntaxException ise) {
         throw new RuntimeException(ise);
       }
@@ -63,6 +69,12 @@ public class AuthTableBasedServiceActivator implements BundleActivator, ServiceL
             (Persistence) context.getService(persistenceReference));
       }
 
+      metricsReference = context.getServiceReference(Metrics.class.getName());
+      if (metricsReference != null) {
+        log.info("Setting metrics in AuthTableBasedServiceActivator");
+        this.authTableBasedService.setMetrics((Metrics) context.getService(metricsReference));
+      }
+
       if (persistenceReference != null) {
         log.info("Registering authTableBasedService in AuthTableBasedServiceActivator");
         registration =
@@ -77,6 +89,10 @@ public class AuthTableBasedServiceActivator implements BundleActivator, ServiceL
     if (persistenceReference != null) {
       context.ungetService(persistenceReference);
     }
+
+    if (metricsReference != null) {
+      context.ungetService(metricsReference);
+    }
     // Do not need to unregister the service, because the OSGi framework will automatically do so
   }
 
@@ -93,6 +109,9 @@ public class AuthTableBasedServiceActivator implements BundleActivator, ServiceL
           if (service instanceof Persistence) {
             log.info("Setting persistence in RestApiActivator");
             this.authTableBasedService.setPersistence((Persistence) service);
+          } else if (service instanceof Metrics) {
+            log.info("Setting metrics in AuthTableBasedServiceActivator");
+            this.authTableBasedService.setMetrics((Metrics) service);
           }
 
           if (this.authTableBasedService.getPersistence() != null && registration == null) {
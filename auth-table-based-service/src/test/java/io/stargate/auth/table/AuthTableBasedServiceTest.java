@@ -0,0 +1,218 @@
+package io.stargate.auth.table;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.stargate.auth.StoredCredentials;
+import io.stargate.auth.UnauthorizedException;
+import io.stargate.db.datastore.DataStore;
+import io.stargate.db.datastore.ResultSet;
+import io.stargate.db.datastore.Row;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.cassandra.stargate.db.ConsistencyLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AuthTableBasedServiceTest {
+
+  private static final UUID TOKEN = UUID.randomUUID();
+
+  private final AtomicLong nanos = new AtomicLong();
+  private final DataStore dataStore = mock(DataStore.class);
+  private AuthTableBasedService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new AuthTableBasedService(nanos::get);
+    service.setDataStore(dataStore);
+  }
+
+  @Test
+  void validatesUnknownTokenFromTable() throws UnauthorizedException {
+    tokenRow("alice");
+    refreshes();
+
+    assertThat(service.validateToken(TOKEN.toString()).getRoleName()).isEqualTo("alice");
+    verifySelects(1);
+    verifyRefreshes(1);
+  }
+
+  @Test
+  void servesCachedTokenWithinRefreshInterval() throws UnauthorizedException {
+    tokenRow("alice");
+    refreshes();
+    service.validateToken(TOKEN.toString());
+
+    advanceSeconds(30);
+    assertThat(service.validateToken(TOKEN.toString()).getRoleName()).isEqualTo("alice");
+    verifySelects(1);
+    verifyRefreshes(1);
+  }
+
+  @Test
+  void refreshesCachedTokenAfterRefreshInterval() throws UnauthorizedException {
+    tokenRow("alice");
+    refreshes();
+    service.validateToken(TOKEN.toString());
+
+    advanceSeconds(61);
+    assertThat(service.validateToken(TOKEN.toString()).getRoleName()).isEqualTo("alice");
+    // Read again, to find out if the token was deleted
+    verifySelects(2);
+    verifyRefreshes(2);
+  }
+
+  @Test
+  void rejectsTokenDeletedFromTable() throws UnauthorizedException {
+    tokenRow("alice");
+    refreshes();
+    service.validateToken(TOKEN.toString());
+
+    // The token row is deleted: the next refresh doesn't find it, and the token is evicted
+    noTokenRow();
+    advanceSeconds(61);
+    assertThatThrownBy(() -> service.validateToken(TOKEN.toString()))
+        .isInstanceOf(UnauthorizedException.class);
+    assertThatThrownBy(() -> service.validateToken(TOKEN.toString()))
+        .isInstanceOf(UnauthorizedException.class);
+    verifySelects(3);
+    verifyRefreshes(1);
+  }
+
+  @Test
+  void rejectsUnknownTokenWithoutCachingIt() {
+    noTokenRow();
+
+    assertThatThrownBy(() -> service.validateToken(TOKEN.toString()))
+        .isInstanceOf(UnauthorizedException.class)
+        .hasMessage("authorization failed");
+    assertThatThrownBy(() -> service.validateToken(TOKEN.toString()))
+        .isInstanceOf(UnauthorizedException.class);
+    verifySelects(2);
+    verifyRefreshes(0);
+  }
+
+  @Test
+  void readsTokenOnceForConcurrentMisses() throws Exception {
+    CompletableFuture<ResultSet> select = new CompletableFuture<>();
+    when(dataStore.query(startsWith("SELECT"), eq(ConsistencyLevel.LOCAL_QUORUM), eq(TOKEN)))
+        .thenReturn(select);
+    refreshes();
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<StoredCredentials> first = executor.submit(() -> validate());
+      verify(dataStore, timeout(10_000))
+          .query(startsWith("SELECT"), eq(ConsistencyLevel.LOCAL_QUORUM), eq(TOKEN));
+      Future<StoredCredentials> second = executor.submit(() -> validate());
+      // Gives the second miss the time to wait for the first one
+      TimeUnit.MILLISECONDS.sleep(100);
+
+      select.complete(tokenResultSet("alice"));
+      assertThat(first.get(10, TimeUnit.SECONDS).getRoleName()).isEqualTo("alice");
+      assertThat(second.get(10, TimeUnit.SECONDS).getRoleName()).isEqualTo("alice");
+    } finally {
+      executor.shutdownNow();
+    }
+    verifySelects(1);
+    verifyRefreshes(1);
+  }
+
+  @Test
+  void readsTokenAgainAfterExpiration() throws UnauthorizedException {
+    tokenRow("alice");
+    refreshes();
+    service.validateToken(TOKEN.toString());
+
+    advanceSeconds(1801);
+    service.validateToken(TOKEN.toString());
+    verifySelects(2);
+  }
+
+  @Test
+  void rejectsMissingOrMalformedToken() {
+    assertThatThrownBy(() -> service.validateToken(""))
+        .isInstanceOf(UnauthorizedException.class)
+        .hasMessage("authorization failed - missing token");
+    assertThatThrownBy(() -> service.validateToken("not-a-uuid"))
+        .isInstanceOf(UnauthorizedException.class)
+        .hasMessage("authorization failed - bad token");
+    verifySelects(0);
+  }
+
+  private void advanceSeconds(long seconds) {
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+  }
+
+  private StoredCredentials validate() throws UnauthorizedException {
+    return service.validateToken(TOKEN.toString());
+  }
+
+  private void tokenRow(String username) {
+    stubSelect(tokenResultSet(username));
+  }
+
+  private static ResultSet tokenResultSet(String username) {
+    Row row = mock(Row.class);
+    when(row.isNull("username")).thenReturn(false);
+    when(row.getString("username")).thenReturn(username);
+    when(row.getInt("created_timestamp")).thenReturn(1);
+    ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.hasNoMoreFetchedRows()).thenReturn(false);
+    when(resultSet.one()).thenReturn(row);
+    return resultSet;
+  }
+
+  private void noTokenRow() {
+    ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.hasNoMoreFetchedRows()).thenReturn(true);
+    stubSelect(resultSet);
+  }
+
+  private void stubSelect(ResultSet resultSet) {
+    when(dataStore.query(startsWith("SELECT"), eq(ConsistencyLevel.LOCAL_QUORUM), eq(TOKEN)))
+        .thenReturn(CompletableFuture.completedFuture(resultSet));
+  }
+
+  private void refreshes() {
+    when(dataStore.query(
+            startsWith("UPDATE"),
+            eq(ConsistencyLevel.LOCAL_QUORUM),
+            anyInt(),
+            anyString(),
+            anyInt(),
+            eq(TOKEN)))
+        .thenReturn(CompletableFuture.completedFuture(ResultSet.empty()));
+  }
+
+  private void verifySelects(int count) {
+    verify(dataStore, times(count))
+        .query(startsWith("SELECT"), eq(ConsistencyLevel.LOCAL_QUORUM), eq(TOKEN));
+  }
+
+  private void verifyRefreshes(int count) {
+    verify(dataStore, times(count))
+        .query(
+            startsWith("UPDATE"),
+            eq(ConsistencyLevel.LOCAL_QUORUM),
+            anyInt(),
+            anyString(),
+            anyInt(),
+            eq(TOKEN));
+  }
+}
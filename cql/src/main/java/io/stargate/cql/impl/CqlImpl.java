@@ -28,6 +28,7 @@ import java.util.Collection;
 import java.util.Collections;
 import org.apache.cassandra.config.Config;
 import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.apache.cassandra.stargate.metrics.RequestMetrics;
 import org.apache.cassandra.stargate.transport.internal.Server;
 import org.apache.cassandra.stargate.transport.internal.TransportDescriptor;
 import org.apache.cassandra.utils.NativeLibrary;
@@ -81,6 +82,7 @@ public class CqlImpl {
     }
 
     ClientMetrics.instance.init(servers, metrics.getRegistry("cql"));
+    RequestMetrics.instance.init(metrics.getRegistry("cql"));
     servers.forEach(Server::start);
   }
 
@@ -22,6 +22,7 @@ package org.apache.cassandra.stargate.metrics;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -29,9 +30,11 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.cassandra.metrics.DefaultNameFactory;
 import org.apache.cassandra.metrics.MetricNameFactory;
+import org.apache.cassandra.stargate.transport.internal.AuthenticationExecutor;
 import org.apache.cassandra.stargate.transport.internal.ClientStat;
 import org.apache.cassandra.stargate.transport.internal.ConnectedClient;
 import org.apache.cassandra.stargate.transport.internal.Server;
@@ -47,6 +50,8 @@ public final class ClientMetrics {
 
   private Meter authSuccess;
   private Meter authFailure;
+  private Meter authRejected;
+  private Timer authLatency;
 
   private AtomicInteger pausedConnections;
   private Gauge<Integer> pausedConnectionsGauge;
@@ -62,6 +67,14 @@ public final class ClientMetrics {
     authFailure.mark();
   }
 
+  public void markAuthRejected() {
+    authRejected.mark();
+  }
+
+  public void recordAuthLatency(long latencyNanos) {
+    authLatency.update(latencyNanos, TimeUnit.NANOSECONDS);
+  }
+
   public void pauseConnection() {
     pausedConnections.incrementAndGet();
   }
@@ -95,6 +108,9 @@ public final class ClientMetrics {
 
     authSuccess = registerMeter("AuthSuccess");
     authFailure = registerMeter("AuthFailure");
+    authRejected = registerMeter("AuthRejected");
+    authLatency = registerTimer("AuthLatency");
+    registerGauge("AuthPending", AuthenticationExecutor::pendingTasks);
 
     pausedConnections = new AtomicInteger();
     pausedConnectionsGauge = registerGauge("PausedConnections", pausedConnections::get);
@@ -151,4 +167,8 @@ public final class ClientMetrics {
   private Meter registerMeter(String name) {
     return metricRegistry.meter(factory.createMetricName(name).getMetricName());
   }
+
+  private Timer registerTimer(String name) {
+    return metricRegistry.timer(factory.createMetricName(name).getMetricName());
+  }
 }
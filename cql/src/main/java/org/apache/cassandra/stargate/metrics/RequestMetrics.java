@@ -0,0 +1,231 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.stargate.db.Result;
+import io.stargate.db.schema.Column;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.apache.cassandra.metrics.DecayingEstimatedHistogramReservoir;
+import org.apache.cassandra.metrics.DefaultNameFactory;
+import org.apache.cassandra.stargate.exceptions.ExceptionCode;
+import org.apache.cassandra.stargate.transport.internal.Message;
+import org.apache.cassandra.stargate.transport.internal.messages.ExecuteMessage;
+import org.apache.cassandra.stargate.transport.internal.messages.ResultMessage;
+import org.apache.cassandra.stargate.utils.MD5Digest;
+
+/**
+ * Latency and error metrics for the requests processed by the CQL transport.
+ *
+ * <p>Latencies are measured from the reception of a request to its response being ready to flush,
+ * so they include the time spent in the persistence layer. They use the same decaying histograms
+ * as Cassandra's own request latencies, so that the two can be compared directly.
+ *
+ * <p>A per-table breakdown of EXECUTE latencies can be enabled with {@code
+ * -Dstargate.cql.table_request_metrics=true}. The table of a statement is taken from its prepared
+ * metadata, so it is only known for statements prepared through this node since it started.
+ *
+ * <p>The flushes of responses are also recorded, with the number of responses they send and how
+ * long the oldest of those was held before being flushed, to help tune the {@link
+ * org.apache.cassandra.stargate.transport.internal.Message.Dispatcher.FlushStrategy}, as well as
+ * the time it takes to send server push events to all the connections registered for them.
+ */
+public final class RequestMetrics {
+  public static final RequestMetrics instance = new RequestMetrics();
+
+  private static final int MAX_TRACKED_STATEMENTS =
+      Integer.getInteger("stargate.cql.table_request_metrics_max_statements", 10_000);
+
+  private static final Message.Type[] TIMED_TYPES = {
+    Message.Type.QUERY, Message.Type.PREPARE, Message.Type.EXECUTE, Message.Type.BATCH
+  };
+
+  private volatile boolean initialized = false;
+  private MetricRegistry metricRegistry;
+  private boolean tableMetricsEnabled;
+
+  private final Map<Message.Type, Timer> latencies = new EnumMap<>(Message.Type.class);
+  private final Map<ExceptionCode, Meter> errors = new EnumMap<>(ExceptionCode.class);
+  private Histogram flushSizes;
+  private Timer flushDelays;
+  private Timer eventFanOuts;
+
+  // The "keyspace.table" of prepared statements, and the EXECUTE latency of those tables
+  private final Cache<MD5Digest, String> statementTables =
+      Caffeine.newBuilder().maximumSize(MAX_TRACKED_STATEMENTS).build();
+  private final Map<String, Timer> tableLatencies = new ConcurrentHashMap<>();
+
+  private RequestMetrics() {}
+
+  public synchronized void init(MetricRegistry metricRegistry) {
+    if (initialized) return;
+
+    this.metricRegistry = metricRegistry;
+    this.tableMetricsEnabled = Boolean.getBoolean("stargate.cql.table_request_metrics");
+
+    for (Message.Type type : TIMED_TYPES) {
+      latencies.put(type, registerTimer("Requests", type.name()));
+    }
+    for (ExceptionCode code : ExceptionCode.values()) {
+      errors.put(
+          code,
+          metricRegistry.meter(
+              new DefaultNameFactory("RequestErrors", code.name())
+                  .createMetricName("Count")
+                  .getMetricName()));
+    }
+
+    DefaultNameFactory flushes = new DefaultNameFactory("Flushes");
+    flushSizes =
+        metricRegistry.register(
+            flushes.createMetricName("Size").getMetricName(),
+            new Histogram(new DecayingEstimatedHistogramReservoir()));
+    flushDelays =
+        metricRegistry.register(
+            flushes.createMetricName("Delay").getMetricName(),
+            new Timer(new DecayingEstimatedHistogramReservoir()));
+    eventFanOuts =
+        metricRegistry.register(
+            new DefaultNameFactory("Events").createMetricName("FanOut").getMetricName(),
+            new Timer(new DecayingEstimatedHistogramReservoir()));
+
+    initialized = true;
+  }
+
+  /**
+   * Records the latency of a request that completed (successfully or not).
+   *
+   * @param response the response to the request, or {@code null} if it failed.
+   */
+  public void recordRequest(
+      Message.Request request, @Nullable Message.Response response, long latencyNanos) {
+    if (!initialized) return;
+
+    Timer timer = latencies.get(request.type);
+    if (timer == null) return;
+    timer.update(latencyNanos, TimeUnit.NANOSECONDS);
+
+    if (!tableMetricsEnabled) return;
+
+    if (request.type == Message.Type.EXECUTE) {
+      String table = statementTables.getIfPresent(((ExecuteMessage) request).statementId);
+      if (table != null) {
+        tableLatencies
+            .computeIfAbsent(table, t -> registerTimer("TableRequests", t))
+            .update(latencyNanos, TimeUnit.NANOSECONDS);
+      }
+    } else if (request.type == Message.Type.PREPARE && response instanceof ResultMessage) {
+      Result result = ((ResultMessage) response).result;
+      if (result instanceof Result.Prepared) {
+        Result.Prepared prepared = (Result.Prepared) result;
+        String table = tableOf(prepared);
+        if (table != null) {
+          statementTables.put(prepared.statementId, table);
+        }
+      }
+    }
+  }
+
+  /**
+   * Records a flush of responses to the network.
+   *
+   * @param responses the number of responses flushed.
+   * @param delayNanos how long the oldest of those responses waited to be flushed.
+   */
+  public void recordFlush(int responses, long delayNanos) {
+    if (!initialized) return;
+
+    flushSizes.update(responses);
+    flushDelays.update(delayNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records the broadcast of a server push event.
+   *
+   * @param durationNanos the time until the event was written to all the registered channels.
+   */
+  public void recordEventFanOut(long durationNanos) {
+    if (!initialized) return;
+
+    eventFanOuts.update(durationNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void markError(ExceptionCode code) {
+    if (!initialized) return;
+
+    errors.get(code).mark();
+  }
+
+  /**
+   * Registers the queue depth gauges of a tenant of the {@link
+   * org.apache.cassandra.stargate.transport.internal.FairRequestScheduler}.
+   *
+   * @return the meter on which the requests rejected for that tenant should be marked.
+   */
+  public Meter registerSchedulerTenant(
+      String tenant, Gauge<Integer> queued, Gauge<Integer> running) {
+    if (!initialized) return new Meter();
+
+    DefaultNameFactory factory = new DefaultNameFactory("RequestScheduler", tenant);
+    metricRegistry.register(factory.createMetricName("Queued").getMetricName(), queued);
+    metricRegistry.register(factory.createMetricName("Running").getMetricName(), running);
+    return metricRegistry.meter(factory.createMetricName("Rejected").getMetricName());
+  }
+
+  /** Removes the metrics registered by {@link #registerSchedulerTenant}, once a tenant expires. */
+  public void unregisterSchedulerTenant(String tenant) {
+    if (!initialized) return;
+
+    DefaultNameFactory factory = new DefaultNameFactory("RequestScheduler", tenant);
+    metricRegistry.remove(factory.createMetricName("Queued").getMetricName());
+    metricRegistry.remove(factory.createMetricName("Running").getMetricName());
+    metricRegistry.remove(factory.createMetricName("Rejected").getMetricName());
+  }
+
+  private static @Nullable String tableOf(Result.Prepared prepared) {
+    String table = prepared.metadata == null ? null : tableOf(prepared.metadata.columns);
+    if (table == null && prepared.resultMetadata != null) {
+      table = tableOf(prepared.resultMetadata.columns);
+    }
+    return table;
+  }
+
+  private static @Nullable String tableOf(@Nullable List<Column> columns) {
+    if (columns == null || columns.isEmpty()) return null;
+
+    Column column = columns.get(0);
+    if (column.keyspace() == null || column.table() == null) return null;
+
+    return column.keyspace() + "." + column.table();
+  }
+
+  private Timer registerTimer(String type, String scope) {
+    return metricRegistry.register(
+        new DefaultNameFactory(type, scope).createMetricName("Latency").getMetricName(),
+        new Timer(new DecayingEstimatedHistogramReservoir()));
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.transport.internal;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.cassandra.stargate.exceptions.OverloadedException;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+
+/**
+ * Runs SASL authentication steps off the netty event loop.
+ *
+ * <p>Evaluating a SASL response may block (BCrypt for password authentication, a round trip to the
+ * token table for token authentication), so doing it on the event loop would stall every other
+ * connection served by that loop. Authentication tasks are instead run on a dedicated, bounded
+ * pool; when its queue is full, new authentication attempts fail fast with an {@link
+ * OverloadedException} so that clients back off.
+ */
+public class AuthenticationExecutor {
+  private static final int THREADS =
+      Integer.getInteger(
+          "stargate.cql.auth_executor_threads", Runtime.getRuntime().availableProcessors());
+  private static final int MAX_QUEUED =
+      Integer.getInteger("stargate.cql.auth_executor_max_queued", 1024);
+
+  private static final ThreadPoolExecutor EXECUTOR =
+      new ThreadPoolExecutor(
+          THREADS,
+          THREADS,
+          60,
+          TimeUnit.SECONDS,
+          new ArrayBlockingQueue<>(MAX_QUEUED),
+          new DefaultThreadFactory("cql-authentication", true));
+
+  static {
+    EXECUTOR.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Runs the given authentication step on the authentication pool.
+   *
+   * <p>The returned future is completed on the pool thread, or immediately with an {@link
+   * OverloadedException} if the pool is saturated.
+   */
+  public static <T> CompletableFuture<T> submit(Supplier<T> task) {
+    long startNanos = System.nanoTime();
+    CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      EXECUTOR.execute(
+          () -> {
+            try {
+              future.complete(task.get());
+            } catch (Throwable t) {
+              future.completeExceptionally(t);
+            } finally {
+              ClientMetrics.instance.recordAuthLatency(System.nanoTime() - startNanos);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      ClientMetrics.instance.markAuthRejected();
+      future.completeExceptionally(
+          new OverloadedException(
+              "Too many pending authentication requests. Cannot accept more at this point"));
+    }
+    return future;
+  }
+
+  /** The number of authentication steps waiting for a thread. */
+  public static int pendingTasks() {
+    return EXECUTOR.getQueue().size();
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.transport.internal;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.cassandra.stargate.metrics.RequestMetrics;
+import org.apache.cassandra.stargate.transport.ProtocolVersion;
+import org.apache.cassandra.stargate.transport.internal.messages.EventMessage;
+
+/**
+ * Sends a server push event to a group of channels, encoding it once per protocol version rather
+ * than once per channel.
+ *
+ * <p>Each channel is written a frame whose body is a retained duplicate of the shared encoded
+ * body. Those frames bypass the message encoder but still go through the frame transformer, so
+ * that they get compressed for the connections that negotiated it.
+ *
+ * <p>The channels are grouped by event loop, and each event loop writes to its own channels, at
+ * most {@code stargate.cql.event_fanout_batch_size} (256 by default) at a time, giving its other
+ * tasks a chance to run in between. The time until the event has been written to all channels is
+ * recorded by the {@link RequestMetrics}.
+ */
+class EventBroadcaster {
+  private static final int BATCH_SIZE =
+      Integer.getInteger("stargate.cql.event_fanout_batch_size", 256);
+
+  private final Map<ProtocolVersion, ByteBuf> bodies;
+  private final AtomicInteger remainingLoops;
+  private final long startNanos;
+
+  private EventBroadcaster(Map<ProtocolVersion, ByteBuf> bodies, int loops, long startNanos) {
+    this.bodies = bodies;
+    this.remainingLoops = new AtomicInteger(loops);
+    this.startNanos = startNanos;
+  }
+
+  /** Sends {@code event} to all of {@code channels}, asynchronously. */
+  static void broadcast(Event event, Iterable<Channel> channels) {
+    long startNanos = System.nanoTime();
+
+    // The bodies are all encoded upfront, so they are safely published to the event loops
+    Map<ProtocolVersion, ByteBuf> bodies = new EnumMap<>(ProtocolVersion.class);
+    Map<EventLoop, List<Channel>> channelsByLoop = new HashMap<>();
+    for (Channel channel : channels) {
+      bodies.computeIfAbsent(version(channel), v -> encode(event, v));
+      channelsByLoop.computeIfAbsent(channel.eventLoop(), l -> new ArrayList<>()).add(channel);
+    }
+    if (channelsByLoop.isEmpty()) {
+      return;
+    }
+
+    EventBroadcaster broadcaster = new EventBroadcaster(bodies, channelsByLoop.size(), startNanos);
+    channelsByLoop.forEach((loop, loopChannels) -> broadcaster.execute(loop, loopChannels, 0));
+  }
+
+  private static ProtocolVersion version(Channel channel) {
+    Connection connection = channel.attr(Connection.attributeKey).get();
+    return connection == null ? ProtocolVersion.CURRENT : connection.getVersion();
+  }
+
+  private static ByteBuf encode(Event event, ProtocolVersion version) {
+    EventMessage message = new EventMessage(event);
+    ByteBuf body = CBUtil.allocator.buffer(EventMessage.codec.encodedSize(message, version));
+    EventMessage.codec.encode(message, body, version);
+    return body;
+  }
+
+  private void execute(EventLoop loop, List<Channel> channels, int from) {
+    try {
+      loop.execute(() -> write(channels, from));
+    } catch (RejectedExecutionException e) {
+      // The event loop is shutting down, and so are the channels left to write to
+      loopDone();
+    }
+  }
+
+  private void write(List<Channel> channels, int from) {
+    int to = Math.min(from + BATCH_SIZE, channels.size());
+    for (int i = from; i < to; i++) {
+      Channel channel = channels.get(i);
+      if (channel.isActive()) {
+        channel.writeAndFlush(frame(version(channel)));
+      }
+    }
+
+    if (to < channels.size()) {
+      execute(channels.get(0).eventLoop(), channels, to);
+    } else {
+      loopDone();
+    }
+  }
+
+  private void loopDone() {
+    if (remainingLoops.decrementAndGet() == 0) {
+      bodies.values().forEach(ByteBuf::release);
+      RequestMetrics.instance.recordEventFanOut(System.nanoTime() - startNanos);
+    }
+  }
+
+  private Frame frame(ProtocolVersion version) {
+    // Each frame needs its own flags, since the frame transformer adds to them
+    EnumSet<Frame.Header.Flag> flags = EnumSet.noneOf(Frame.Header.Flag.class);
+    if (version.isBeta()) flags.add(Frame.Header.Flag.USE_BETA);
+    return Frame.create(
+        Message.Type.EVENT, -1, version, flags, bodies.get(version).retainedDuplicate());
+  }
+}
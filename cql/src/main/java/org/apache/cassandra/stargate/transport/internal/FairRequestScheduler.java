@@ -0,0 +1,394 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.transport.internal;
+
+import com.codahale.metrics.Meter;
+import com.google.common.annotations.VisibleForTesting;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.stargate.db.AuthenticatedUser;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.apache.cassandra.stargate.exceptions.OverloadedException;
+import org.apache.cassandra.stargate.metrics.RequestMetrics;
+
+/**
+ * A {@link RequestScheduler} that shares the persistence layer between tenants, a tenant being
+ * either the authenticated user of a connection or the keyspace it uses.
+ *
+ * <p>Each tenant gets its own queue, and queued requests are started in weighted fair order
+ * (start-time fair queuing): over time, each tenant with pending requests gets a share of the
+ * started requests proportional to its weight, regardless of how many requests it sends. At most
+ * {@code max_concurrent} requests run at once overall, and at most {@code tenant_max_concurrent}
+ * for any single tenant. When a tenant already has {@code tenant_max_queued} requests waiting, its
+ * new requests are rejected with an {@link OverloadedException}, unless they can start right away.
+ *
+ * <p>When a request completes, the queued requests it makes room for are started on a small
+ * dedicated pool rather than on the completing thread, since a request that completes
+ * synchronously would otherwise start the next one recursively. The state and metrics of a tenant
+ * are dropped once it has had no running or queued request for {@code tenant_idle_timeout_ms}.
+ *
+ * <p>It is configured with the following system properties, all prefixed by {@code
+ * stargate.cql.request_scheduler_}:
+ *
+ * <ul>
+ *   <li>{@code tenant_key}: {@code user} (the default) or {@code keyspace}. The keyspace is the
+ *       one selected on the connection with a {@code USE} statement.
+ *   <li>{@code max_concurrent}: defaults to 1024.
+ *   <li>{@code tenant_max_concurrent}: defaults to {@code max_concurrent}.
+ *   <li>{@code tenant_max_queued}: defaults to 1024. With 0, requests that cannot start right
+ *       away are rejected.
+ *   <li>{@code tenant_idle_timeout_ms}: defaults to 10 minutes.
+ *   <li>{@code weights}: the weights of tenants that should not have the default weight of 1, as
+ *       {@code tenant1:weight1,tenant2:weight2}.
+ * </ul>
+ *
+ * <p>Only QUERY, PREPARE, EXECUTE and BATCH requests are scheduled, the others are executed right
+ * away.
+ */
+public class FairRequestScheduler implements RequestScheduler {
+  private static final String PROPERTY_PREFIX = "stargate.cql.request_scheduler_";
+
+  private static final Set<Message.Type> SCHEDULED_TYPES =
+      EnumSet.of(
+          Message.Type.QUERY, Message.Type.PREPARE, Message.Type.EXECUTE, Message.Type.BATCH);
+
+  private static final int START_THREADS = Runtime.getRuntime().availableProcessors();
+
+  static final String ANONYMOUS_USER = "_anonymous";
+  static final String NO_KEYSPACE = "_none";
+
+  public enum TenantKey {
+    USER,
+    KEYSPACE
+  }
+
+  private final TenantKey tenantKey;
+  private final int maxRunning;
+  private final int tenantMaxRunning;
+  private final int tenantMaxQueued;
+  private final Map<String, Integer> weights;
+  private final long tenantIdleNanos;
+  private final Executor startExecutor;
+  private final LongSupplier nanoClock;
+
+  // Everything below is guarded by this.
+  private final Map<String, Tenant> tenants = new HashMap<>();
+  // The tenants with queued requests.
+  private final Set<Tenant> backlogged = new LinkedHashSet<>();
+  private int running;
+  private double virtualTime;
+  private long lastExpirationNanos;
+
+  public FairRequestScheduler(
+      TenantKey tenantKey,
+      int maxRunning,
+      int tenantMaxRunning,
+      int tenantMaxQueued,
+      Map<String, Integer> weights) {
+    this(
+        tenantKey,
+        maxRunning,
+        tenantMaxRunning,
+        tenantMaxQueued,
+        weights,
+        TimeUnit.MINUTES.toMillis(10),
+        newStartExecutor(),
+        System::nanoTime);
+  }
+
+  @VisibleForTesting
+  FairRequestScheduler(
+      TenantKey tenantKey,
+      int maxRunning,
+      int tenantMaxRunning,
+      int tenantMaxQueued,
+      Map<String, Integer> weights,
+      long tenantIdleTimeoutMillis,
+      Executor startExecutor,
+      LongSupplier nanoClock) {
+    if (maxRunning <= 0 || tenantMaxRunning <= 0 || tenantMaxQueued < 0) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Invalid request scheduler limits: max_concurrent=%d, tenant_max_concurrent=%d, "
+                  + "tenant_max_queued=%d",
+              maxRunning, tenantMaxRunning, tenantMaxQueued));
+    }
+    for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+      if (entry.getValue() <= 0) {
+        throw new IllegalArgumentException(
+            String.format("Invalid weight %d for tenant %s", entry.getValue(), entry.getKey()));
+      }
+    }
+    this.tenantKey = tenantKey;
+    this.maxRunning = maxRunning;
+    this.tenantMaxRunning = tenantMaxRunning;
+    this.tenantMaxQueued = tenantMaxQueued;
+    this.weights = weights;
+    this.tenantIdleNanos = TimeUnit.MILLISECONDS.toNanos(tenantIdleTimeoutMillis);
+    this.startExecutor = startExecutor;
+    this.nanoClock = nanoClock;
+    this.lastExpirationNanos = nanoClock.getAsLong();
+  }
+
+  private static Executor newStartExecutor() {
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            START_THREADS,
+            START_THREADS,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new DefaultThreadFactory("cql-request-scheduler", true));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  static FairRequestScheduler fromSystemProperties() {
+    int maxRunning = Integer.getInteger(PROPERTY_PREFIX + "max_concurrent", 1024);
+    return new FairRequestScheduler(
+        TenantKey.valueOf(System.getProperty(PROPERTY_PREFIX + "tenant_key", "user").toUpperCase()),
+        maxRunning,
+        Integer.getInteger(PROPERTY_PREFIX + "tenant_max_concurrent", maxRunning),
+        Integer.getInteger(PROPERTY_PREFIX + "tenant_max_queued", 1024),
+        parseWeights(System.getProperty(PROPERTY_PREFIX + "weights", "")),
+        Long.getLong(PROPERTY_PREFIX + "tenant_idle_timeout_ms", TimeUnit.MINUTES.toMillis(10)),
+        newStartExecutor(),
+        System::nanoTime);
+  }
+
+  @VisibleForTesting
+  static Map<String, Integer> parseWeights(String weights) {
+    Map<String, Integer> parsed = new HashMap<>();
+    for (String entry : weights.split(",")) {
+      entry = entry.trim();
+      if (entry.isEmpty()) continue;
+
+      int separator = entry.lastIndexOf(':');
+      if (separator <= 0) {
+        throw new IllegalArgumentException(
+            String.format("Invalid tenant weight '%s', expected 'tenant:weight'", entry));
+      }
+      parsed.put(
+          entry.substring(0, separator).trim(),
+          Integer.parseInt(entry.substring(separator + 1).trim()));
+    }
+    return parsed;
+  }
+
+  @Override
+  public CompletableFuture<? extends Message.Response> schedule(
+      Message.Request request, Supplier<CompletableFuture<? extends Message.Response>> execution) {
+    if (!SCHEDULED_TYPES.contains(request.type)) return execution.get();
+
+    return schedule(tenantOf(request), execution);
+  }
+
+  private String tenantOf(Message.Request request) {
+    switch (tenantKey) {
+      case KEYSPACE:
+        return request.persistenceConnection().usedKeyspace().orElse(NO_KEYSPACE);
+      case USER:
+      default:
+        return request
+            .persistenceConnection()
+            .loggedUser()
+            .map(AuthenticatedUser::name)
+            .orElse(ANONYMOUS_USER);
+    }
+  }
+
+  @VisibleForTesting
+  CompletableFuture<Message.Response> schedule(
+      String tenantName, Supplier<CompletableFuture<? extends Message.Response>> execution) {
+    CompletableFuture<Message.Response> result = new CompletableFuture<>();
+    List<Runnable> toStart;
+    synchronized (this) {
+      long now = nanoClock.getAsLong();
+      maybeExpireIdleTenants(now);
+      Tenant tenant = tenants.computeIfAbsent(tenantName, this::newTenant);
+      tenant.lastActiveNanos = now;
+      // Any other backlogged tenant is at its own limit (or it would have been started), so a
+      // request starts right away if it is under both limits and has nothing queued ahead of it.
+      boolean startsNow =
+          running < maxRunning && tenant.running < tenantMaxRunning && tenant.queue.isEmpty();
+      if (!startsNow && tenant.queue.size() >= tenantMaxQueued) {
+        tenant.rejected.mark();
+        result.completeExceptionally(
+            new OverloadedException(
+                String.format(
+                    "Too many requests queued for %s, cannot accept more requests at this point",
+                    tenantName)));
+        return result;
+      }
+
+      // A tenant that was idle starts at the current virtual time, so it gets no credit for the
+      // time it didn't use; a busy one is pushed back by 1/weight for each of its requests.
+      double startTag = Math.max(virtualTime, tenant.finishTag);
+      tenant.finishTag = startTag + 1.0 / tenant.weight;
+      tenant.queue.add(new Queued(startTag, () -> start(tenant, execution, result)));
+      tenant.queued = tenant.queue.size();
+      backlogged.add(tenant);
+
+      toStart = dispatch();
+    }
+    // Started outside of the lock, as the execution might complete (and release) synchronously.
+    toStart.forEach(Runnable::run);
+    return result;
+  }
+
+  private void start(
+      Tenant tenant,
+      Supplier<CompletableFuture<? extends Message.Response>> execution,
+      CompletableFuture<Message.Response> result) {
+    CompletableFuture<? extends Message.Response> future;
+    try {
+      future = execution.get();
+    } catch (Throwable t) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(t);
+    }
+    future.whenComplete(
+        (value, error) -> {
+          release(tenant);
+          if (error != null) {
+            result.completeExceptionally(error);
+          } else {
+            result.complete(value);
+          }
+        });
+  }
+
+  private void release(Tenant tenant) {
+    List<Runnable> toStart;
+    synchronized (this) {
+      tenant.running--;
+      running--;
+      tenant.lastActiveNanos = nanoClock.getAsLong();
+      toStart = dispatch();
+    }
+    // Not started on this thread, as this may itself run within the start of a request.
+    toStart.forEach(startExecutor::execute);
+  }
+
+  /**
+   * Drops the tenants that have been idle for the idle timeout. This only checks all the tenants
+   * once per timeout period.
+   */
+  private void maybeExpireIdleTenants(long now) {
+    assert Thread.holdsLock(this);
+
+    if (now - lastExpirationNanos < tenantIdleNanos) return;
+    lastExpirationNanos = now;
+
+    Iterator<Map.Entry<String, Tenant>> iterator = tenants.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, Tenant> entry = iterator.next();
+      Tenant tenant = entry.getValue();
+      if (tenant.running == 0
+          && tenant.queue.isEmpty()
+          && now - tenant.lastActiveNanos >= tenantIdleNanos) {
+        iterator.remove();
+        RequestMetrics.instance.unregisterSchedulerTenant(entry.getKey());
+      }
+    }
+  }
+
+  @VisibleForTesting
+  synchronized Set<String> tenants() {
+    return new HashSet<>(tenants.keySet());
+  }
+
+  /**
+   * Picks the queued requests that can be started, in start tag order, and returns them so they
+   * can be started once the lock is released.
+   */
+  private List<Runnable> dispatch() {
+    assert Thread.holdsLock(this);
+
+    List<Runnable> toStart = null;
+    while (running < maxRunning) {
+      Tenant next = null;
+      for (Tenant tenant : backlogged) {
+        if (tenant.running < tenantMaxRunning
+            && (next == null || tenant.queue.peek().startTag < next.queue.peek().startTag)) {
+          next = tenant;
+        }
+      }
+      if (next == null) break;
+
+      Queued queued = next.queue.poll();
+      if (next.queue.isEmpty()) backlogged.remove(next);
+      next.queued = next.queue.size();
+      next.running++;
+      running++;
+      virtualTime = Math.max(virtualTime, queued.startTag);
+
+      if (toStart == null) toStart = new ArrayList<>();
+      toStart.add(queued.task);
+    }
+    return toStart == null ? Collections.emptyList() : toStart;
+  }
+
+  private Tenant newTenant(String name) {
+    Tenant tenant = new Tenant(weights.getOrDefault(name, 1));
+    tenant.rejected =
+        RequestMetrics.instance.registerSchedulerTenant(
+            name, () -> tenant.queued, () -> tenant.running);
+    return tenant;
+  }
+
+  private static class Queued {
+    private final double startTag;
+    private final Runnable task;
+
+    private Queued(double startTag, Runnable task) {
+      this.startTag = startTag;
+      this.task = task;
+    }
+  }
+
+  private static class Tenant {
+    private final int weight;
+    private final ArrayDeque<Queued> queue = new ArrayDeque<>();
+    private double finishTag;
+    private long lastActiveNanos;
+    private Meter rejected;
+
+    // Only modified with the scheduler lock held, volatile for the metrics.
+    private volatile int queued;
+    private volatile int running;
+
+    private Tenant(int weight) {
+      this.weight = weight;
+    }
+  }
+}
@@ -17,6 +17,7 @@
  */
 package org.apache.cassandra.stargate.transport.internal;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableSet;
 import io.netty.buffer.ByteBuf;
@@ -55,10 +56,12 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
 import org.apache.cassandra.net.ResourceLimits;
 import org.apache.cassandra.service.ClientWarn;
 import org.apache.cassandra.stargate.exceptions.OverloadedException;
 import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.apache.cassandra.stargate.metrics.RequestMetrics;
 import org.apache.cassandra.stargate.transport.ProtocolException;
 import org.apache.cassandra.stargate.transport.ProtocolVersion;
 import org.apache.cassandra.stargate.transport.internal.messages.AuthChallenge;
@@ -443,13 +446,26 @@ public abstract class Message {
 
     private boolean paused;
 
-    private static class FlushItem {
+    /** How the responses written by the dispatcher are flushed to the network. */
+    public enum FlushStrategy {
+      /** Flushes every 50 responses, or after 3 runs of the flusher (about 30 microseconds). */
+      LEGACY,
+      /** Flushes on every run of the flusher, that is on every pass of the event loop. */
+      IMMEDIATE,
+      /**
+       * Flushes on every pass of the event loop when responses are sparse, and coalesces them,
+       * within a latency budget, when they arrive fast enough (see {@link AdaptiveFlusher}).
+       */
+      ADAPTIVE
+    }
+
+    static class FlushItem {
       final ChannelHandlerContext ctx;
       final Object response;
       final Frame sourceFrame;
       final Dispatcher dispatcher;
 
-      private FlushItem(
+      FlushItem(
           ChannelHandlerContext ctx, Object response, Frame sourceFrame, Dispatcher dispatcher) {
         this.ctx = ctx;
         this.sourceFrame = sourceFrame;
@@ -462,8 +478,10 @@ public abstract class Message {
       }
     }
 
-    private abstract static class Flusher implements Runnable {
+    @VisibleForTesting
+    abstract static class Flusher implements Runnable {
       final EventLoop eventLoop;
+      final LongSupplier nanoClock;
       final ConcurrentLinkedQueue<FlushItem> queued = new ConcurrentLinkedQueue<>();
       final AtomicBoolean scheduled = new AtomicBoolean(false);
       final HashSet<ChannelHandlerContext> channels = new HashSet<>();
@@ -475,8 +493,52 @@ public abstract class Message {
         }
       }
 
+      // When the oldest of the written, but not yet flushed, items was written
+      long firstWrittenNanos;
+
       public Flusher(EventLoop eventLoop) {
+        this(eventLoop, System::nanoTime);
+      }
+
+      Flusher(EventLoop eventLoop, LongSupplier nanoClock) {
         this.eventLoop = eventLoop;
+        this.nanoClock = nanoClock;
+      }
+
+      /** Writes, without flushing them, the queued items, and returns how many there were. */
+      int writeQueued() {
+        int written = 0;
+        FlushItem flush;
+        while (null != (flush = queued.poll())) {
+          if (flushed.isEmpty()) firstWrittenNanos = nanoClock.getAsLong();
+          channels.add(flush.ctx);
+          flush.ctx.write(flush.response, flush.ctx.voidPromise());
+          flushed.add(flush);
+          written++;
+        }
+        return written;
+      }
+
+      /** Flushes the items written since the last flush, if any. */
+      void flushWritten() {
+        if (flushed.isEmpty()) return;
+
+        RequestMetrics.instance.recordFlush(
+            flushed.size(), nanoClock.getAsLong() - firstWrittenNanos);
+        for (ChannelHandlerContext channel : channels) channel.flush();
+        for (FlushItem item : flushed) item.release();
+
+        channels.clear();
+        flushed.clear();
+      }
+
+      /**
+       * Stops running until new items are queued. Returns {@code false} if some already were, in
+       * which case the flusher should keep running.
+       */
+      boolean stop() {
+        scheduled.set(false);
+        return queued.isEmpty() || !scheduled.compareAndSet(false, true);
       }
     }
 
@@ -490,23 +552,12 @@ public abstract class Message {
 
       public void run() {
 
-        boolean doneWork = false;
-        FlushItem flush;
-        while (null != (flush = queued.poll())) {
-          channels.add(flush.ctx);
-          flush.ctx.write(flush.response, flush.ctx.voidPromise());
-          flushed.add(flush);
-          doneWork = true;
-        }
+        boolean doneWork = writeQueued() > 0;
 
         runsSinceFlush++;
 
         if (!doneWork || runsSinceFlush > 2 || flushed.size() > 50) {
-          for (ChannelHandlerContext channel : channels) channel.flush();
-          for (FlushItem item : flushed) item.release();
-
-          channels.clear();
-          flushed.clear();
+          flushWritten();
           runsSinceFlush = 0;
         }
 
@@ -514,10 +565,7 @@ public abstract class Message {
           runsWithNoWork = 0;
         } else {
           // either reschedule or cancel
-          if (++runsWithNoWork > 5) {
-            scheduled.set(false);
-            if (queued.isEmpty() || !scheduled.compareAndSet(false, true)) return;
-          }
+          if (++runsWithNoWork > 5 && stop()) return;
         }
 
         eventLoop.schedule(this, 10000, TimeUnit.NANOSECONDS);
@@ -530,37 +578,104 @@ public abstract class Message {
       }
 
       public void run() {
-        boolean doneWork = false;
-        FlushItem flush;
         scheduled.set(false);
+        writeQueued();
+        flushWritten();
+      }
+    }
 
-        while (null != (flush = queued.poll())) {
-          channels.add(flush.ctx);
-          flush.ctx.write(flush.response, flush.ctx.voidPromise());
-          flushed.add(flush);
-          doneWork = true;
+    /**
+     * A flusher that adapts how long it holds written responses to the rate at which they arrive.
+     *
+     * <p>It keeps a moving average of the arrival rate of responses on its event loop. On each run,
+     * it flushes right away if no more than one response is expected to arrive within what's left
+     * of the latency budget ({@code stargate.cql.flush_max_delay_us}, 100 by default), so a lightly
+     * loaded loop behaves like {@link ImmediateFlusher}. Otherwise it runs again when the next
+     * response is expected, so that it flushes batches of responses under load. It always flushes
+     * once the budget is spent, when {@code stargate.cql.flush_max_batch} responses (64 by default)
+     * are pending, when more than {@code stargate.cql.flush_max_pending_bytes} (64KiB by default)
+     * are pending on one of its channels or one of them is no longer writable, or when a run finds
+     * no new responses.
+     */
+    @VisibleForTesting
+    static final class AdaptiveFlusher extends Flusher {
+      @VisibleForTesting
+      static final long MAX_DELAY_NANOS =
+          TimeUnit.MICROSECONDS.toNanos(Integer.getInteger("stargate.cql.flush_max_delay_us", 100));
+      @VisibleForTesting
+      static final int MAX_BATCH = Integer.getInteger("stargate.cql.flush_max_batch", 64);
+      @VisibleForTesting
+      static final long MAX_PENDING_BYTES =
+          Integer.getInteger("stargate.cql.flush_max_pending_bytes", 64 * 1024);
+
+      // The weight of the latest run in the arrival rate average
+      private static final double ALPHA = 0.25;
+
+      // The average arrival rate of responses, per nanosecond
+      private double arrivalRate;
+      private long lastRunNanos;
+
+      private AdaptiveFlusher(EventLoop eventLoop) {
+        this(eventLoop, System::nanoTime);
+      }
+
+      @VisibleForTesting
+      AdaptiveFlusher(EventLoop eventLoop, LongSupplier nanoClock) {
+        super(eventLoop, nanoClock);
+        this.lastRunNanos = nanoClock.getAsLong();
+      }
+
+      public void run() {
+        long now = nanoClock.getAsLong();
+        int written = writeQueued();
+        arrivalRate += ALPHA * ((double) written / Math.max(1, now - lastRunNanos) - arrivalRate);
+        lastRunNanos = now;
+
+        long remainingNanos = MAX_DELAY_NANOS - (now - firstWrittenNanos);
+        if (written == 0
+            || flushed.isEmpty()
+            || remainingNanos <= 0
+            || arrivalRate * remainingNanos < 1
+            || flushed.size() >= MAX_BATCH
+            || hasTooManyPendingBytes()) {
+          flushWritten();
+          if (stop()) return;
+          eventLoop.execute(this);
+        } else {
+          // Wait for the next response, but no longer than the budget allows
+          long delayNanos = Math.min(remainingNanos, (long) (1 / arrivalRate));
+          eventLoop.schedule(this, delayNanos, TimeUnit.NANOSECONDS);
         }
+      }
 
-        if (doneWork) {
-          for (ChannelHandlerContext channel : channels) channel.flush();
-          for (FlushItem item : flushed) item.release();
+      private boolean hasTooManyPendingBytes() {
+        for (ChannelHandlerContext ctx : channels) {
+          Channel channel = ctx.channel();
+          if (!channel.isWritable()) return true;
 
-          channels.clear();
-          flushed.clear();
+          // What was written but not flushed yet is what separates the channel from its high mark
+          long pendingBytes =
+              channel.config().getWriteBufferHighWaterMark() - channel.bytesBeforeUnwritable();
+          if (pendingBytes >= MAX_PENDING_BYTES) return true;
         }
+        return false;
       }
     }
 
     private static final ConcurrentMap<EventLoop, Flusher> flusherLookup =
         new ConcurrentHashMap<>();
 
-    private final boolean useLegacyFlusher;
+    private final FlushStrategy flushStrategy;
+    private final RequestScheduler requestScheduler;
 
     public Dispatcher(
-        boolean useLegacyFlusher, Server.EndpointPayloadTracker endpointPayloadTracker) {
+        FlushStrategy flushStrategy,
+        Server.EndpointPayloadTracker endpointPayloadTracker,
+        RequestScheduler requestScheduler) {
       super(false);
-      this.useLegacyFlusher = useLegacyFlusher;
+      this.flushStrategy = flushStrategy;
       this.endpointPayloadTracker = endpointPayloadTracker;
+      this.requestScheduler = requestScheduler;
     }
 
     @Override
@@ -661,13 +776,20 @@ public abstract class Message {
         logger.trace("Received: {}, v={}", request, connection.getVersion());
         connection.requests.inc();
 
-        CompletableFuture<? extends Response> req = request.execute(queryStartNanoTime);
+        CompletableFuture<? extends Response> req =
+            requestScheduler.schedule(request, () -> request.execute(queryStartNanoTime));
 
         req.whenComplete(
             (response, err) -> {
+              RequestMetrics.instance.recordRequest(
+                  request, response, System.nanoTime() - queryStartNanoTime);
               if (err != null) {
                 handleError(ctx, request, err);
               } else {
+                // Some requests, like AUTH_RESPONSE, answer their failures with an error message
+                if (response instanceof ErrorMessage) {
+                  RequestMetrics.instance.markError(((ErrorMessage) response).error.code());
+                }
                 try {
                   response.setStreamId(request.getStreamId());
                   response.attach(connection);
@@ -689,6 +811,8 @@ public abstract class Message {
               }
             });
       } catch (Throwable t) {
+        RequestMetrics.instance.recordRequest(
+            request, null, System.nanoTime() - queryStartNanoTime);
         handleError(ctx, request, t);
       }
     }
@@ -707,10 +831,12 @@ public abstract class Message {
             new UnexpectedChannelExceptionHandler(ctx.channel(), true);
         if (error instanceof ExecutionException) error = error.getCause();
         if (error instanceof CompletionException) error = error.getCause();
+        ErrorMessage errorMessage = ErrorMessage.fromException(error, handler);
+        RequestMetrics.instance.markError(errorMessage.error.code());
         flush(
             new Message.Dispatcher.FlushItem(
                 ctx,
-                ErrorMessage.fromException(error, handler).setStreamId(request.getStreamId()),
+                errorMessage.setStreamId(request.getStreamId()),
                 request.getSourceFrame(),
                 this));
       } catch (Throwable t) {
@@ -739,11 +865,11 @@ public abstract class Message {
       ctx.fireChannelInactive();
     }
 
-    private void flush(FlushItem item) {
+    void flush(FlushItem item) {
       EventLoop loop = item.ctx.channel().eventLoop();
       Flusher flusher = flusherLookup.get(loop);
       if (flusher == null) {
-        Flusher created = useLegacyFlusher ? new LegacyFlusher(loop) : new ImmediateFlusher(loop);
+        Flusher created = newFlusher(loop);
         Flusher alt = flusherLookup.putIfAbsent(loop, flusher = created);
         if (alt != null) flusher = alt;
       }
@@ -752,6 +878,18 @@ public abstract class Message {
       flusher.start();
     }
 
+    private Flusher newFlusher(EventLoop loop) {
+      switch (flushStrategy) {
+        case LEGACY:
+          return new LegacyFlusher(loop);
+        case ADAPTIVE:
+          return new AdaptiveFlusher(loop);
+        case IMMEDIATE:
+        default:
+          return new ImmediateFlusher(loop);
+      }
+    }
+
     public static void shutdown() {}
   }
 
@@ -0,0 +1,80 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.stargate.transport.internal;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Decides when the requests received by the CQL transport are executed against the persistence
+ * layer.
+ *
+ * <p>The scheduler sits between the {@link Message.Dispatcher} and {@link Message.Request#execute}:
+ * the dispatcher hands it every request along with the means to execute it, and the scheduler
+ * either starts that execution right away or defers it, for instance to share the persistence
+ * layer fairly between tenants (see {@link FairRequestScheduler}).
+ *
+ * <p>The scheduler to use is selected with {@code -Dstargate.cql.request_scheduler}, which can be
+ * {@code none} (the default), {@code fair}, or the name of a class implementing this interface
+ * and having a public no-arg constructor.
+ */
+public interface RequestScheduler {
+
+  /** A scheduler that executes every request as soon as it is received. */
+  RequestScheduler NONE =
+      new RequestScheduler() {
+        @Override
+        public CompletableFuture<? extends Message.Response> schedule(
+            Message.Request request,
+            Supplier<CompletableFuture<? extends Message.Response>> execution) {
+          return execution.get();
+        }
+      };
+
+  /**
+   * Schedules the execution of a request.
+   *
+   * <p>This is called on the netty event loop, so it must not block.
+   *
+   * @param request the request to schedule.
+   * @param execution starts the execution of the request when called, and returns its result.
+   * @return a future completed with the result of {@code execution}, or failed if the request
+   *     could not be scheduled (typically with an {@link
+   *     org.apache.cassandra.stargate.exceptions.OverloadedException}).
+   */
+  CompletableFuture<? extends Message.Response> schedule(
+      Message.Request request, Supplier<CompletableFuture<? extends Message.Response>> execution);
+
+  static RequestScheduler fromSystemProperties() {
+    String scheduler = System.getProperty("stargate.cql.request_scheduler", "none");
+    switch (scheduler) {
+      case "none":
+        return NONE;
+      case "fair":
+        return FairRequestScheduler.fromSystemProperties();
+      default:
+        try {
+          return Class.forName(scheduler)
+              .asSubclass(RequestScheduler.class)
+              .getConstructor()
+              .newInstance();
+        } catch (Exception e) {
+          throw new IllegalArgumentException(
+              String.format("Cannot create request scheduler '%s'", scheduler), e);
+        }
+    }
+  }
+}
@@ -73,7 +73,6 @@ import org.apache.cassandra.security.SSLFactory;
 import org.apache.cassandra.service.CassandraDaemon;
 import org.apache.cassandra.stargate.locator.InetAddressAndPort;
 import org.apache.cassandra.stargate.transport.ProtocolVersion;
-import org.apache.cassandra.stargate.transport.internal.messages.EventMessage;
 import org.apache.cassandra.utils.FBUtilities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -100,6 +99,7 @@ public class Server implements CassandraDaemon.Server {
   public final InetSocketAddress socket;
   public final Persistence persistence;
   public final AuthenticationService authentication;
+  public final RequestScheduler requestScheduler;
   public boolean useSSL = false;
   private final AtomicBoolean isRunning = new AtomicBoolean(false);
 
@@ -108,6 +108,7 @@ public class Server implements CassandraDaemon.Server {
   private Server(Builder builder) {
     this.persistence = builder.persistence;
     this.authentication = builder.authentication;
+    this.requestScheduler = builder.requestScheduler;
     this.socket = builder.getSocket();
     this.useSSL = builder.useSSL;
     if (builder.workerGroup != null) {
@@ -215,6 +216,7 @@ public class Server implements CassandraDaemon.Server {
   public static class Builder {
     private final Persistence persistence;
     private final AuthenticationService authentication;
+    private RequestScheduler requestScheduler = RequestScheduler.fromSystemProperties();
     private EventLoopGroup workerGroup;
     private EventExecutor eventExecutorGroup;
     private boolean useSSL = false;
@@ -233,6 +235,15 @@ public class Server implements CassandraDaemon.Server {
       return this;
     }
 
+    /**
+     * Sets the scheduler of the requests of the server. Servers built from the same builder share
+     * the same scheduler, and so the same limits.
+     */
+    public Builder withRequestScheduler(RequestScheduler requestScheduler) {
+      this.requestScheduler = requestScheduler;
+      return this;
+    }
+
     public Builder withEventLoopGroup(EventLoopGroup eventLoopGroup) {
       this.workerGroup = eventLoopGroup;
       return this;
@@ -289,7 +300,7 @@ public class Server implements CassandraDaemon.Server {
     }
 
     public void send(Event event) {
-      groups.get(event.type).writeAndFlush(new EventMessage(event));
+      EventBroadcaster.broadcast(event, groups.get(event.type));
     }
 
     void closeAll() {
@@ -474,9 +485,10 @@ public class Server implements CassandraDaemon.Server {
       pipeline.addLast(
           "executor",
           new Message.Dispatcher(
-              TransportDescriptor.useNativeTransportLegacyFlusher(),
+              TransportDescriptor.getNativeTransportFlushStrategy(),
               EndpointPayloadTracker.get(
-                  ((InetSocketAddress) channel.remoteAddress()).getAddress())));
+                  ((InetSocketAddress) channel.remoteAddress()).getAddress()),
+              server.requestScheduler));
 
       // The exceptionHandler will take care of handling exceptionCaught(...) events while still
       // running
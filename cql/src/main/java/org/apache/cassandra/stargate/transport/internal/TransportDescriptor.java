@@ -130,6 +130,21 @@ public class TransportDescriptor {
     return conf.native_transport_flush_in_batches_legacy;
   }
 
+  /**
+   * The flush strategy set with {@code -Dstargate.cql.native_transport_flusher} (legacy,
+   * immediate or adaptive) if any, or the one selected by {@code
+   * native_transport_flush_in_batches_legacy} otherwise.
+   */
+  public static Message.Dispatcher.FlushStrategy getNativeTransportFlushStrategy() {
+    String strategy = System.getProperty("stargate.cql.native_transport_flusher");
+    if (strategy != null) {
+      return Message.Dispatcher.FlushStrategy.valueOf(strategy.toUpperCase());
+    }
+    return useNativeTransportLegacyFlusher()
+        ? Message.Dispatcher.FlushStrategy.LEGACY
+        : Message.Dispatcher.FlushStrategy.IMMEDIATE;
+  }
+
   public static int getNativeTransportFrameBlockSize() {
     return (int) ByteUnit.KIBI_BYTES.toBytes(conf.native_transport_frame_block_size_in_kb);
   }
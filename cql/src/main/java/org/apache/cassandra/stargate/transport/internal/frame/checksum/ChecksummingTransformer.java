@@ -20,8 +20,9 @@ package org.apache.cassandra.stargate.transport.internal.frame.checksum;
 
 import com.google.common.collect.ImmutableTable;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.FastThreadLocal;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.EnumSet;
 import org.apache.cassandra.stargate.transport.ProtocolException;
 import org.apache.cassandra.stargate.transport.internal.CBUtil;
@@ -107,6 +108,17 @@ public class ChecksummingTransformer implements FrameBodyTransformer {
   private static final int CHUNK_HEADER_OVERHEAD =
       Integer.BYTES + Integer.BYTES + Integer.BYTES + Integer.BYTES;
 
+  // Used to hand chunks of non-direct bodies to the compressors, which work on direct buffers.
+  // Transformations run on the event loops, so this is effectively one buffer per event loop.
+  private static final FastThreadLocal<ByteBuffer> TL_SCRATCH_BUFFER = new FastThreadLocal<>();
+  private static final FastThreadLocal<byte[]> TL_CHUNK_LENGTHS =
+      new FastThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+          return new byte[8];
+        }
+      };
+
   private static final ChecksummingTransformer CRC32_NO_COMPRESSION =
       new ChecksummingTransformer(ChecksumType.CRC32, null);
   private static final ChecksummingTransformer ADLER32_NO_COMPRESSION =
@@ -178,147 +190,129 @@ public class ChecksummingTransformer implements FrameBodyTransformer {
     int expectedChunks = (int) Math.ceil((double) maxTotalCompressedLength / blockSize);
     int expectedMaxSerializedLength =
         Short.BYTES + (expectedChunks * CHUNK_HEADER_OVERHEAD) + maxTotalCompressedLength;
-    byte[] retBuf = new byte[expectedMaxSerializedLength];
-    ByteBuf ret = Unpooled.wrappedBuffer(retBuf);
-    ret.writerIndex(0);
-    ret.readerIndex(0);
-
-    // write out bogus short to start with as we'll encode one at the end
-    // when we finalize the number of compressed chunks to expect and this
-    // sets the writer index correctly for starting the first chunk
-    ret.writeShort((short) 0);
-
-    byte[] inBuf = new byte[blockSize];
-    byte[] outBuf = new byte[maxCompressedLength(blockSize)];
-    byte[] chunkLengths = new byte[8];
-
-    int numCompressedChunks = 0;
-    int readableBytes;
-    int lengthsChecksum;
-    while ((readableBytes = inputBuf.readableBytes()) > 0) {
-      int lengthToRead = Math.min(blockSize, readableBytes);
-      inputBuf.readBytes(inBuf, 0, lengthToRead);
-      int uncompressedChunkChecksum = (int) checksum.of(inBuf, 0, lengthToRead);
-      int compressedSize = maybeCompress(inBuf, lengthToRead, outBuf);
-
-      if (compressedSize < lengthToRead) {
-        // there was some benefit to compression so write out the compressed
-        // and uncompressed sizes of the chunk
-        ret.writeInt(compressedSize);
-        ret.writeInt(lengthToRead);
-        putInt(compressedSize, chunkLengths, 0);
-      } else {
-        // if no compression was possible, there's no need to write two lengths, so
-        // just write the size of the original content (or block size), with its
-        // sign flipped to signal no compression.
-        ret.writeInt(-lengthToRead);
-        putInt(-lengthToRead, chunkLengths, 0);
-      }
-
-      putInt(lengthToRead, chunkLengths, 4);
-
-      // calculate the checksum of the compressed and decompressed lengths
-      // protect us against a bogus length causing potential havoc on deserialization
-      lengthsChecksum = (int) checksum.of(chunkLengths, 0, chunkLengths.length);
-      ret.writeInt(lengthsChecksum);
-
-      // figure out how many actual bytes we're going to write and make sure we have capacity
-      int toWrite = Math.min(compressedSize, lengthToRead);
-      if (ret.writableBytes() < (CHUNK_HEADER_OVERHEAD + toWrite)) {
-        // this really shouldn't ever happen -- it means we either mis-calculated the number of
-        // chunks we
-        // expected to create, we gave some input to the compressor that caused the output to be
-        // much
-        // larger than the input.. or some other edge condition. Regardless -- resize if necessary.
-        byte[] resizedRetBuf =
-            new byte[(retBuf.length + (CHUNK_HEADER_OVERHEAD + toWrite)) * 3 / 2];
-        System.arraycopy(retBuf, 0, resizedRetBuf, 0, retBuf.length);
-        retBuf = resizedRetBuf;
-        ByteBuf resizedRetByteBuf = Unpooled.wrappedBuffer(retBuf);
-        resizedRetByteBuf.writerIndex(ret.writerIndex());
-        ret = resizedRetByteBuf;
+    ByteBuf ret = CBUtil.allocator.directBuffer(expectedMaxSerializedLength);
+    try {
+      // write out bogus short to start with as we'll encode one at the end
+      // when we finalize the number of compressed chunks to expect and this
+      // sets the writer index correctly for starting the first chunk
+      ret.writeShort((short) 0);
+
+      byte[] chunkLengths = TL_CHUNK_LENGTHS.get();
+      int numCompressedChunks = 0;
+      int readableBytes;
+      while ((readableBytes = inputBuf.readableBytes()) > 0) {
+        int lengthToRead = Math.min(blockSize, readableBytes);
+        ByteBuffer chunk = readChunk(inputBuf, lengthToRead);
+        int uncompressedChunkChecksum = (int) checksum.of(chunk.duplicate());
+
+        // the buffer only grows if the compressor output is larger than what we expected, which
+        // shouldn't really happen
+        ret.ensureWritable(CHUNK_HEADER_OVERHEAD + maxCompressedLength(lengthToRead));
+        int chunkStart = ret.writerIndex();
+        // compress directly at the place the compressed bytes go; if that turns out not to be
+        // beneficial, they are overwritten by the uncompressed ones below
+        int compressedSize =
+            maybeCompress(chunk.duplicate(), ret, chunkStart + 3 * Integer.BYTES, lengthToRead);
+
+        if (compressedSize < lengthToRead) {
+          // there was some benefit to compression so write out the compressed
+          // and uncompressed sizes of the chunk
+          ret.writeInt(compressedSize);
+          ret.writeInt(lengthToRead);
+          putInt(compressedSize, chunkLengths, 0);
+        } else {
+          // if no compression was possible, there's no need to write two lengths, so
+          // just write the size of the original content (or block size), with its
+          // sign flipped to signal no compression.
+          ret.writeInt(-lengthToRead);
+          putInt(-lengthToRead, chunkLengths, 0);
+        }
+
+        putInt(lengthToRead, chunkLengths, 4);
+
+        // calculate the checksum of the compressed and decompressed lengths
+        // protect us against a bogus length causing potential havoc on deserialization
+        ret.writeInt((int) checksum.of(chunkLengths, 0, chunkLengths.length));
+
+        // write the bytes, either compressed (already in place) or uncompressed
+        if (compressedSize < lengthToRead) ret.writerIndex(ret.writerIndex() + compressedSize);
+        else ret.writeBytes(chunk);
+
+        // checksum of the uncompressed chunk
+        ret.writeInt(uncompressedChunkChecksum);
+
+        numCompressedChunks++;
       }
 
-      // write the bytes, either compressed or uncompressed
-      if (compressedSize < lengthToRead) ret.writeBytes(outBuf, 0, toWrite); // compressed
-      else ret.writeBytes(inBuf, 0, toWrite); // uncompressed
-
-      // checksum of the uncompressed chunk
-      ret.writeInt(uncompressedChunkChecksum);
-
-      numCompressedChunks++;
+      // now update the number of chunks
+      ret.setShort(0, (short) numCompressedChunks);
+      return ret;
+    } catch (Throwable t) {
+      ret.release();
+      throw t;
     }
-
-    // now update the number of chunks
-    ret.setShort(0, (short) numCompressedChunks);
-    return ret;
   }
 
   public ByteBuf transformInbound(ByteBuf inputBuf, EnumSet<Frame.Header.Flag> flags) {
     int numChunks = CBUtil.readUnsignedShort(inputBuf);
 
-    int currentPosition = 0;
     int decompressedLength;
     int lengthsChecksum;
 
-    byte[] buf = null;
-    byte[] retBuf = new byte[inputBuf.readableBytes()];
-    byte[] chunkLengths = new byte[8];
-    for (int i = 0; i < numChunks; i++) {
-      int compressedLength = inputBuf.readInt();
-      // if the input was actually compressed, then the writer should have written a decompressed
-      // length. If not, then we can infer that the compressed length has had its sign bit flipped
-      // and can derive the decompressed length from that
-      decompressedLength = compressedLength >= 0 ? inputBuf.readInt() : Math.abs(compressedLength);
-
-      putInt(compressedLength, chunkLengths, 0);
-      putInt(decompressedLength, chunkLengths, 4);
-      lengthsChecksum = inputBuf.readInt();
-      // calculate checksum on lengths (decompressed and compressed) and make sure it matches
-      int calculatedLengthsChecksum = (int) checksum.of(chunkLengths, 0, chunkLengths.length);
-      if (lengthsChecksum != calculatedLengthsChecksum) {
-        throw new ProtocolException(
-            String.format(
-                "Checksum invalid on chunk bytes lengths. Deserialized compressed "
-                    + "length: %d decompressed length: %d. %d != %d",
-                compressedLength, decompressedLength, lengthsChecksum, calculatedLengthsChecksum));
-      }
-
-      // do we have enough space in the decompression buffer?
-      if (currentPosition + decompressedLength > retBuf.length) {
-        byte[] resizedBuf = new byte[retBuf.length + decompressedLength * 3 / 2];
-        System.arraycopy(retBuf, 0, resizedBuf, 0, retBuf.length);
-        retBuf = resizedBuf;
-      }
-
-      // now we've validated the lengths checksum, we can abs the compressed length
-      // to figure out the actual number of bytes we're going to read
-      int toRead = Math.abs(compressedLength);
-      if (buf == null || buf.length < toRead) buf = new byte[toRead];
-
-      // get the (possibly) compressed bytes for this chunk
-      inputBuf.readBytes(buf, 0, toRead);
-
-      // decompress using the original compressed length, so it's a no-op if that's < 0
-      byte[] decompressedChunk = maybeDecompress(buf, compressedLength, decompressedLength, flags);
-
-      // add the decompressed bytes into the ret buf
-      System.arraycopy(decompressedChunk, 0, retBuf, currentPosition, decompressedLength);
-      currentPosition += decompressedLength;
-
-      // get the checksum of the original source bytes and compare against what we read
-      int expectedDecompressedChecksum = inputBuf.readInt();
-      int calculatedDecompressedChecksum =
-          (int) checksum.of(decompressedChunk, 0, decompressedLength);
-      if (expectedDecompressedChecksum != calculatedDecompressedChecksum) {
-        throw new ProtocolException(
-            "Decompressed checksum for chunk does not match expected checksum");
+    // sized for the common case; grows if the body decompresses to something larger
+    ByteBuf ret = CBUtil.allocator.directBuffer(inputBuf.readableBytes());
+    try {
+      byte[] chunkLengths = TL_CHUNK_LENGTHS.get();
+      for (int i = 0; i < numChunks; i++) {
+        int compressedLength = inputBuf.readInt();
+        // if the input was actually compressed, then the writer should have written a
+        // decompressed length. If not, then we can infer that the compressed length has had its
+        // sign bit flipped and can derive the decompressed length from that
+        decompressedLength =
+            compressedLength >= 0 ? inputBuf.readInt() : Math.abs(compressedLength);
+
+        putInt(compressedLength, chunkLengths, 0);
+        putInt(decompressedLength, chunkLengths, 4);
+        lengthsChecksum = inputBuf.readInt();
+        // calculate checksum on lengths (decompressed and compressed) and make sure it matches
+        int calculatedLengthsChecksum = (int) checksum.of(chunkLengths, 0, chunkLengths.length);
+        if (lengthsChecksum != calculatedLengthsChecksum) {
+          throw new ProtocolException(
+              String.format(
+                  "Checksum invalid on chunk bytes lengths. Deserialized compressed "
+                      + "length: %d decompressed length: %d. %d != %d",
+                  compressedLength,
+                  decompressedLength,
+                  lengthsChecksum,
+                  calculatedLengthsChecksum));
+        }
+
+        // now we've validated the lengths checksum, we can abs the compressed length
+        // to figure out the actual number of bytes we're going to read
+        int toRead = Math.abs(compressedLength);
+        ByteBuffer chunk = readChunk(inputBuf, toRead);
+
+        // decompress (or copy) the chunk straight into the returned buffer, using the original
+        // compressed length so it's a plain copy if that's < 0
+        ret.ensureWritable(decompressedLength);
+        int chunkStart = ret.writerIndex();
+        maybeDecompress(chunk, compressedLength, ret, decompressedLength, flags);
+        ret.writerIndex(chunkStart + decompressedLength);
+
+        // get the checksum of the original source bytes and compare against what we read
+        int expectedDecompressedChecksum = inputBuf.readInt();
+        int calculatedDecompressedChecksum =
+            (int) checksum.of(ret.nioBuffer(chunkStart, decompressedLength));
+        if (expectedDecompressedChecksum != calculatedDecompressedChecksum) {
+          throw new ProtocolException(
+              "Decompressed checksum for chunk does not match expected checksum");
+        }
       }
+      return ret;
+    } catch (Throwable t) {
+      ret.release();
+      throw t;
     }
-
-    ByteBuf ret = Unpooled.wrappedBuffer(retBuf, 0, currentPosition);
-    ret.writerIndex(currentPosition);
-    return ret;
   }
 
   private int maxCompressedLength(int uncompressedLength) {
@@ -327,31 +321,83 @@ public class ChecksummingTransformer implements FrameBodyTransformer {
         : compressor.maxCompressedLength(uncompressedLength);
   }
 
-  private int maybeCompress(byte[] input, int length, byte[] output) {
-    if (null == compressor) {
-      System.arraycopy(input, 0, output, 0, length);
-      return length;
+  /**
+   * Returns a view of the next {@code length} readable bytes of {@code buf} (skipping them), that
+   * is direct so it can be handed to the compressors. Bodies are normally pooled direct buffers, so
+   * this is usually a view on the body itself; otherwise the bytes are copied to a per-thread
+   * scratch buffer, which is only valid until the next call.
+   */
+  private ByteBuffer readChunk(ByteBuf buf, int length) {
+    ByteBuffer chunk;
+    if (buf.isDirect() && buf.nioBufferCount() == 1) {
+      chunk = buf.nioBuffer(buf.readerIndex(), length);
+    } else {
+      chunk = scratchBuffer(length);
+      buf.getBytes(buf.readerIndex(), chunk);
+      chunk.flip();
     }
+    buf.skipBytes(length);
+    return chunk;
+  }
+
+  private ByteBuffer scratchBuffer(int length) {
+    ByteBuffer scratch = TL_SCRATCH_BUFFER.get();
+    if (scratch == null || scratch.capacity() < length) {
+      scratch = ByteBuffer.allocateDirect(Math.max(length, blockSize));
+      TL_SCRATCH_BUFFER.set(scratch);
+    }
+    scratch.clear().limit(length);
+    return scratch;
+  }
+
+  /**
+   * Compresses {@code input} into {@code output} at the provided index (without moving its indexes)
+   * and returns the compressed size, or returns {@code length} without writing anything if there is
+   * no compressor.
+   */
+  private int maybeCompress(ByteBuffer input, ByteBuf output, int outputIndex, int length) {
+    if (null == compressor) return length;
 
     try {
-      return compressor.compress(input, 0, length, output, 0);
+      return compressor.compress(
+          input, output.nioBuffer(outputIndex, compressor.maxCompressedLength(length)));
     } catch (IOException e) {
       logger.info("IO error during compression of frame body chunk", e);
       throw new ProtocolException("Error compressing frame body chunk");
     }
   }
 
-  private byte[] maybeDecompress(
-      byte[] input, int length, int expectedLength, EnumSet<Frame.Header.Flag> flags) {
-    if (null == compressor || !flags.contains(Frame.Header.Flag.COMPRESSED) || length < 0)
-      return input;
+  /**
+   * Writes the decompressed {@code input} into {@code output}, at its writer index but without
+   * moving it.
+   */
+  private void maybeDecompress(
+      ByteBuffer input,
+      int length,
+      ByteBuf output,
+      int expectedLength,
+      EnumSet<Frame.Header.Flag> flags) {
+    if (null == compressor || !flags.contains(Frame.Header.Flag.COMPRESSED) || length < 0) {
+      if (input.remaining() != expectedLength)
+        throw new ProtocolException(
+            "Uncompressed chunk length does not match its expected decompressed length");
+      output.setBytes(output.writerIndex(), input);
+      return;
+    }
 
+    int decompressed;
     try {
-      return compressor.decompress(input, 0, length, expectedLength);
+      decompressed =
+          compressor.decompress(input, output.nioBuffer(output.writerIndex(), expectedLength));
     } catch (IOException e) {
       logger.info("IO error during decompression of frame body chunk", e);
       throw new ProtocolException("Error decompressing frame body chunk");
     }
+    if (decompressed != expectedLength)
+      throw new ProtocolException(
+          String.format(
+              "Chunk decompressed to %d bytes, but %d were expected",
+              decompressed, expectedLength));
   }
 
   private void putInt(int val, byte[] dest, int offset) {
@@ -20,6 +20,7 @@ package org.apache.cassandra.stargate.transport.internal.frame.compress;
 
 import io.netty.buffer.ByteBuf;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.EnumSet;
 import org.apache.cassandra.stargate.transport.ProtocolException;
 import org.apache.cassandra.stargate.transport.internal.CBUtil;
@@ -60,12 +61,44 @@ public abstract class CompressingTransformer implements FrameBodyTransformer {
 
   abstract ByteBuf transformInbound(ByteBuf inputBuf) throws IOException;
 
+  /**
+   * Whether the provided frame body can be handed to the {@link ByteBuffer} variants of the
+   * compressors, which avoids copying it to an array (and allocating the output as an array).
+   * Bodies are normally pooled direct buffers, but composite or heap ones (if the heap allocator is
+   * forced) use the array variants.
+   */
+  static boolean isSingleDirectBuffer(ByteBuf buf) {
+    return buf.isDirect() && buf.nioBufferCount() == 1;
+  }
+
   // Simple LZ4 encoding prefixes the compressed bytes with the
   // length of the uncompressed bytes. This length is explicitly big-endian
   // as the native protocol is entirely big-endian, so it feels like putting
   // little-endian here would be a annoying trap for client writer
   private static class LZ4 extends CompressingTransformer {
     public ByteBuf transformOutbound(ByteBuf inputBuf) throws IOException {
+      if (!isSingleDirectBuffer(inputBuf)) {
+        return transformOutboundFromArray(inputBuf);
+      }
+      int inputLength = inputBuf.readableBytes();
+      int maxCompressedLength = LZ4Compressor.INSTANCE.maxCompressedLength(inputLength);
+      ByteBuf outputBuf = CBUtil.allocator.directBuffer(Integer.BYTES + maxCompressedLength);
+      try {
+        outputBuf.writeInt(inputLength);
+        int written =
+            LZ4Compressor.INSTANCE.compress(
+                inputBuf.nioBuffer(inputBuf.readerIndex(), inputLength),
+                outputBuf.nioBuffer(Integer.BYTES, maxCompressedLength));
+        outputBuf.writerIndex(Integer.BYTES + written);
+        inputBuf.skipBytes(inputLength);
+        return outputBuf;
+      } catch (IOException e) {
+        outputBuf.release();
+        throw e;
+      }
+    }
+
+    private ByteBuf transformOutboundFromArray(ByteBuf inputBuf) throws IOException {
       byte[] input = CBUtil.readRawBytes(inputBuf);
       int maxCompressedLength = LZ4Compressor.INSTANCE.maxCompressedLength(input.length);
       ByteBuf outputBuf = CBUtil.allocator.heapBuffer(Integer.BYTES + maxCompressedLength);
@@ -88,6 +121,26 @@ public abstract class CompressingTransformer implements FrameBodyTransformer {
     }
 
     ByteBuf transformInbound(ByteBuf inputBuf) throws IOException {
+      if (!isSingleDirectBuffer(inputBuf)) {
+        return transformInboundFromArray(inputBuf);
+      }
+      int uncompressedLength = inputBuf.readInt();
+      ByteBuf outputBuf = CBUtil.allocator.directBuffer(uncompressedLength);
+      try {
+        int written =
+            LZ4Compressor.INSTANCE.decompress(
+                inputBuf.nioBuffer(inputBuf.readerIndex(), inputBuf.readableBytes()),
+                outputBuf.nioBuffer(0, uncompressedLength));
+        outputBuf.writerIndex(written);
+        inputBuf.skipBytes(inputBuf.readableBytes());
+        return outputBuf;
+      } catch (IOException e) {
+        outputBuf.release();
+        throw e;
+      }
+    }
+
+    private ByteBuf transformInboundFromArray(ByteBuf inputBuf) throws IOException {
       byte[] input = CBUtil.readRawBytes(inputBuf);
       int uncompressedLength =
           ((input[0] & 0xFF) << 24)
@@ -110,6 +163,27 @@ public abstract class CompressingTransformer implements FrameBodyTransformer {
   // Simple Snappy encoding simply writes the compressed bytes, without the preceding length
   private static class Snappy extends CompressingTransformer {
     public ByteBuf transformOutbound(ByteBuf inputBuf) throws IOException {
+      if (!isSingleDirectBuffer(inputBuf)) {
+        return transformOutboundFromArray(inputBuf);
+      }
+      int uncompressedLength = inputBuf.readableBytes();
+      int maxCompressedLength = SnappyCompressor.INSTANCE.maxCompressedLength(uncompressedLength);
+      ByteBuf outputBuf = CBUtil.allocator.directBuffer(maxCompressedLength);
+      try {
+        int written =
+            SnappyCompressor.INSTANCE.compress(
+                inputBuf.nioBuffer(inputBuf.readerIndex(), uncompressedLength),
+                outputBuf.nioBuffer(0, maxCompressedLength));
+        outputBuf.writerIndex(written);
+        inputBuf.skipBytes(uncompressedLength);
+        return outputBuf;
+      } catch (IOException e) {
+        outputBuf.release();
+        throw e;
+      }
+    }
+
+    private ByteBuf transformOutboundFromArray(ByteBuf inputBuf) throws IOException {
       byte[] input = CBUtil.readRawBytes(inputBuf);
       int uncompressedLength = input.length;
       int maxCompressedLength = SnappyCompressor.INSTANCE.maxCompressedLength(uncompressedLength);
@@ -127,6 +201,25 @@ public abstract class CompressingTransformer implements FrameBodyTransformer {
     }
 
     ByteBuf transformInbound(ByteBuf inputBuf) throws IOException {
+      if (!isSingleDirectBuffer(inputBuf)) {
+        return transformInboundFromArray(inputBuf);
+      }
+      ByteBuffer input = inputBuf.nioBuffer(inputBuf.readerIndex(), inputBuf.readableBytes());
+      int uncompressedLength = SnappyCompressor.INSTANCE.uncompressedLength(input);
+      ByteBuf outputBuf = CBUtil.allocator.directBuffer(uncompressedLength);
+      try {
+        int written =
+            SnappyCompressor.INSTANCE.decompress(input, outputBuf.nioBuffer(0, uncompressedLength));
+        outputBuf.writerIndex(written);
+        inputBuf.skipBytes(inputBuf.readableBytes());
+        return outputBuf;
+      } catch (IOException e) {
+        outputBuf.release();
+        throw e;
+      }
+    }
+
+    private ByteBuf transformInboundFromArray(ByteBuf inputBuf) throws IOException {
       byte[] input = CBUtil.readRawBytes(inputBuf);
       int uncompressedLength = org.xerial.snappy.Snappy.uncompressedLength(input);
       ByteBuf outputBuf = CBUtil.allocator.heapBuffer(uncompressedLength);
@@ -19,6 +19,7 @@
 package org.apache.cassandra.stargate.transport.internal.frame.compress;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Analogous to {@link org.apache.cassandra.io.compress.ICompressor}, but different enough that it's
@@ -33,6 +34,10 @@ import java.io.IOException;
  * </ul>
  *
  * In future it may be worth revisiting to unify the interfaces.
+ *
+ * <p>The {@link ByteBuffer} variants allow compressing and decompressing frames directly from and
+ * into (pooled, direct) netty buffers, without copying them to and from arrays. The array variants
+ * are used as a fallback when a frame body is not backed by a single direct buffer.
  */
 public interface Compressor {
   /**
@@ -62,4 +67,26 @@ public interface Compressor {
    */
   byte[] decompress(byte[] src, int srcOffset, int length, int expectedDecompressedLength)
       throws IOException;
+
+  /**
+   * @param src the input bytes to be compressed, between its position and limit. Must be direct.
+   * @param dest the output buffer to write the compressed bytes to, from its position. Must be
+   *     direct and have at least {@link #maxCompressedLength} bytes remaining.
+   * @return the length of resulting compressed bytes written into the dest buffer. The positions
+   *     of the buffers are left unchanged.
+   * @throws IOException if the compression implementation failed while compressing the input bytes
+   */
+  int compress(ByteBuffer src, ByteBuffer dest) throws IOException;
+
+  /**
+   * @param src the compressed bytes to be decompressed, between its position and limit. Must be
+   *     direct.
+   * @param dest the output buffer to write the decompressed bytes to, from its position. Must be
+   *     direct and have enough bytes remaining for the decompressed bytes.
+   * @return the length of resulting decompressed bytes written into the dest buffer. The positions
+   *     of the buffers are left unchanged.
+   * @throws IOException thrown if the compression implementation failed to decompress the provided
+   *     input bytes
+   */
+  int decompress(ByteBuffer src, ByteBuffer dest) throws IOException;
 }
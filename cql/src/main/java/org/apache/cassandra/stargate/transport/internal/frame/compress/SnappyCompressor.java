@@ -19,6 +19,7 @@
 package org.apache.cassandra.stargate.transport.internal.frame.compress;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import org.xerial.snappy.Snappy;
 import org.xerial.snappy.SnappyError;
 
@@ -66,4 +67,23 @@ public class SnappyCompressor implements Compressor {
     Snappy.uncompress(src, offset, length, output, 0);
     return output;
   }
+
+  @Override
+  public int compress(ByteBuffer src, ByteBuffer dest) throws IOException {
+    // Snappy moves the limit of dest to the end of the compressed bytes, so work on a duplicate
+    return Snappy.compress(src, dest.duplicate());
+  }
+
+  @Override
+  public int decompress(ByteBuffer src, ByteBuffer dest) throws IOException {
+    if (!Snappy.isValidCompressedBuffer(src))
+      throw new IOException("Provided frame does not appear to be Snappy compressed");
+
+    return Snappy.uncompress(src, dest.duplicate());
+  }
+
+  /** The length of the remaining bytes of {@code src} once decompressed. It must be direct. */
+  public int uncompressedLength(ByteBuffer src) throws IOException {
+    return Snappy.uncompressedLength(src);
+  }
 }
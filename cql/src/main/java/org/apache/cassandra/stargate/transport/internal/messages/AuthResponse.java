@@ -25,6 +25,7 @@ import org.apache.cassandra.stargate.exceptions.AuthenticationException;
 import org.apache.cassandra.stargate.metrics.ClientMetrics;
 import org.apache.cassandra.stargate.transport.ProtocolException;
 import org.apache.cassandra.stargate.transport.ProtocolVersion;
+import org.apache.cassandra.stargate.transport.internal.AuthenticationExecutor;
 import org.apache.cassandra.stargate.transport.internal.CBUtil;
 import org.apache.cassandra.stargate.transport.internal.Message;
 import org.apache.cassandra.stargate.transport.internal.ServerConnection;
@@ -66,6 +67,12 @@ public class AuthResponse extends Message.Request {
 
   @Override
   protected CompletableFuture<? extends Response> execute(long queryStartNanoTime) {
+    // Evaluating the response may block (password hashing, token lookups), so it must not run on
+    // the netty event loop. The response is flushed by the dispatcher once the future completes.
+    return AuthenticationExecutor.submit(this::authenticate);
+  }
+
+  private Response authenticate() {
     try {
       Authenticator.SaslNegotiator negotiator = ((ServerConnection) connection).getSaslNegotiator();
       byte[] challenge = negotiator.evaluateResponse(token);
@@ -73,13 +80,13 @@ public class AuthResponse extends Message.Request {
         persistenceConnection().login(negotiator.getAuthenticatedUser());
         ClientMetrics.instance.markAuthSuccess();
         // authentication is complete, send a ready message to the client
-        return CompletableFuture.completedFuture(new AuthSuccess(challenge));
+        return new AuthSuccess(challenge);
       } else {
-        return CompletableFuture.completedFuture(new AuthChallenge(challenge));
+        return new AuthChallenge(challenge);
       }
     } catch (AuthenticationException e) {
       ClientMetrics.instance.markAuthFailure();
-      return CompletableFuture.completedFuture(ErrorMessage.fromException(e));
+      return ErrorMessage.fromException(e);
     }
   }
 }
@@ -73,6 +73,8 @@ public class ExecuteMessage extends Message.Request {
         }
       };
 
+  private static final String APPLIED_COLUMN = "[applied]";
+
   public final MD5Digest statementId;
   public final MD5Digest resultMetadataId;
   public final QueryOptions options;
@@ -88,11 +90,47 @@ public class ExecuteMessage extends Message.Request {
   protected CompletableFuture<? extends Response> execute(long queryStartNanoTime) {
 
     BoundStatement statement =
-        new BoundStatement(statementId, options.getValues(), options.getNames());
+        new BoundStatement(
+            statementId, options.getValues(), options.getNames(), resultMetadataId);
     CompletableFuture<? extends Result> future =
         persistenceConnection().execute(statement, makeParameters(options), queryStartNanoTime);
     return SchemaAgreement.maybeWaitForAgreement(future, persistence())
-        .thenApply(ResultMessage::new);
+        .thenApply(result -> new ResultMessage(withResultMetadataFlags(result)));
+  }
+
+  /**
+   * Sets the flags that tell the client whether the result metadata is sent: it is skipped if the
+   * client asked for it and, from protocol v5, if it still has the same id as the metadata the
+   * client has. Otherwise, v5 clients are told that it changed (say, after a column was added to a
+   * table selected with {@code *}), so they stop sending the outdated id.
+   *
+   * <p>Persistence implementations that handle this themselves have already set those flags, in
+   * which case the result is left as is.
+   */
+  private Result withResultMetadataFlags(Result result) {
+    if (result.kind != Result.Kind.Rows) return result;
+
+    Result.Rows rows = (Result.Rows) result;
+    Result.ResultMetadata metadata = rows.resultMetadata;
+    if (metadata.flags.contains(Result.Flag.NO_METADATA)
+        || metadata.flags.contains(Result.Flag.METADATA_CHANGED)
+        || isConditionalUpdate(metadata)) {
+      return result;
+    }
+
+    if (options.getProtocolVersion().isGreaterOrEqualTo(ProtocolVersion.V5)
+        && !metadata.resultMetadataId().equals(resultMetadataId)) {
+      return rows.withResultMetadata(metadata.withMetadataChanged());
+    }
+    return options.skipMetadata() ? rows.withResultMetadata(metadata.withoutColumns()) : result;
+  }
+
+  /**
+   * Whether the result is that of a conditional update, whose columns depend on whether it was
+   * applied. Like Cassandra, those always get their metadata but never change the client's id.
+   */
+  private static boolean isConditionalUpdate(Result.ResultMetadata metadata) {
+    return !metadata.columns.isEmpty() && APPLIED_COLUMN.equals(metadata.columns.get(0).name());
   }
 
   @Override
@@ -81,7 +81,27 @@ public class PrepareMessage extends Message.Request {
   protected CompletableFuture<? extends Response> execute(long queryStartNanoTime) {
     CompletableFuture<Result.Prepared> future =
         persistenceConnection().prepare(query, makeParameters());
-    return future.thenApply(ResultMessage::new);
+    return future.thenApply(prepared -> new ResultMessage(withResultMetadataId(prepared)));
+  }
+
+  /**
+   * Protocol v5 clients need the id of the result metadata, which not all persistence
+   * implementations provide. It is then computed the same way as for the EXECUTE results.
+   */
+  private static Result.Prepared withResultMetadataId(Result.Prepared prepared) {
+    if (prepared.resultMetadataId != null) return prepared;
+
+    Result.Prepared withId =
+        new Result.Prepared(
+            prepared.statementId,
+            prepared.resultMetadata == null
+                ? Result.ResultMetadata.EMPTY.resultMetadataId()
+                : prepared.resultMetadata.resultMetadataId(),
+            prepared.resultMetadata,
+            prepared.metadata);
+    withId.setTracingId(prepared.getTracingId());
+    withId.setWarnings(prepared.getWarnings());
+    return withId;
   }
 
   @Override
@@ -244,6 +244,7 @@ public class ResultMessage extends Message.Response {
       assert result instanceof Result.Rows;
       Result.Rows rows = (Result.Rows) result;
       METADATA_CODEC.encode(rows.resultMetadata, dest, version);
+
       dest.writeInt(rows.rows.size());
       for (List<ByteBuffer> row : rows.rows) {
         for (int i = 0; i < rows.resultMetadata.columnCount; ++i)
@@ -251,11 +252,15 @@ public class ResultMessage extends Message.Response {
       }
     }
 
+    /**
+     * The exact size of the body, so that the buffer allocated for it never grows while the values
+     * are written. Only the length of the values is read here, not their content.
+     */
     @Override
     public int encodedSize(Result result, ProtocolVersion version) {
       assert result instanceof Result.Rows;
       Result.Rows rows = (Result.Rows) result;
-      int size = METADATA_CODEC.encodedSize(rows.resultMetadata, version);
+      int size = METADATA_CODEC.encodedSize(rows.resultMetadata, version) + Integer.BYTES;
       for (List<ByteBuffer> row : rows.rows) {
         for (int i = 0; i < rows.resultMetadata.columnCount; ++i)
           size += CBUtil.sizeOfValue(row.get(i));
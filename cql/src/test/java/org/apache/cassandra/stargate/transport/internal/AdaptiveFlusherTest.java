@@ -0,0 +1,160 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.net.InetAddress;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.cassandra.stargate.transport.ProtocolVersion;
+import org.apache.cassandra.stargate.transport.internal.Message.Dispatcher.AdaptiveFlusher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveFlusherTest {
+  private static final int RESPONSE_SIZE = 16;
+
+  private final AtomicLong nanos = new AtomicLong();
+  // Not a real loop: the runs of the flusher are triggered by the tests
+  private final EventLoop eventLoop = mock(EventLoop.class);
+
+  private EmbeddedChannel channel;
+  private ChannelHandlerContext ctx;
+  private Message.Dispatcher dispatcher;
+  private AdaptiveFlusher flusher;
+
+  @BeforeEach
+  public void setUp() {
+    channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+    ctx = channel.pipeline().firstContext();
+    dispatcher =
+        new Message.Dispatcher(
+            Message.Dispatcher.FlushStrategy.ADAPTIVE,
+            Server.EndpointPayloadTracker.get(InetAddress.getLoopbackAddress()),
+            RequestScheduler.NONE);
+    flusher = new AdaptiveFlusher(eventLoop, nanos::get);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  public void flushesRightAwayWhenResponsesAreSparse() {
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+    queue(1, RESPONSE_SIZE);
+
+    flusher.run();
+
+    assertThat(channel.outboundMessages()).hasSize(1);
+    verify(eventLoop, never()).schedule(same(flusher), anyLong(), eq(TimeUnit.NANOSECONDS));
+  }
+
+  @Test
+  public void batchesResponsesArrivingFast() {
+    nanos.addAndGet(TimeUnit.MICROSECONDS.toNanos(1));
+    queue(10, RESPONSE_SIZE);
+
+    flusher.run();
+
+    assertThat(channel.outboundMessages()).isEmpty();
+    verify(eventLoop).schedule(same(flusher), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+    // The next run finds no new responses
+    nanos.addAndGet(TimeUnit.MICROSECONDS.toNanos(1));
+    flusher.run();
+
+    assertThat(channel.outboundMessages()).hasSize(10);
+  }
+
+  @Test
+  public void flushesOnceDelayBudgetIsSpent() {
+    nanos.addAndGet(TimeUnit.MICROSECONDS.toNanos(1));
+    queue(10, RESPONSE_SIZE);
+    flusher.run();
+    assertThat(channel.outboundMessages()).isEmpty();
+
+    nanos.addAndGet(AdaptiveFlusher.MAX_DELAY_NANOS);
+    queue(10, RESPONSE_SIZE);
+    flusher.run();
+
+    assertThat(channel.outboundMessages()).hasSize(20);
+  }
+
+  @Test
+  public void flushesAtMaxBatch() {
+    nanos.addAndGet(TimeUnit.MICROSECONDS.toNanos(1));
+    queue(AdaptiveFlusher.MAX_BATCH - 1, RESPONSE_SIZE);
+    flusher.run();
+    assertThat(channel.outboundMessages()).isEmpty();
+
+    nanos.addAndGet(TimeUnit.MICROSECONDS.toNanos(1));
+    queue(1, RESPONSE_SIZE);
+    flusher.run();
+
+    assertThat(channel.outboundMessages()).hasSize(AdaptiveFlusher.MAX_BATCH);
+  }
+
+  @Test
+  public void flushesWhenPendingBytesReachLimit() {
+    // So that the channel stays writable, and only the limit of the flusher applies
+    long highWaterMark = 4 * AdaptiveFlusher.MAX_PENDING_BYTES;
+    channel
+        .config()
+        .setWriteBufferWaterMark(new WriteBufferWaterMark(0, Math.toIntExact(highWaterMark)));
+    int halfLimit = Math.toIntExact(AdaptiveFlusher.MAX_PENDING_BYTES / 2);
+
+    nanos.addAndGet(TimeUnit.MICROSECONDS.toNanos(1));
+    queue(1, halfLimit);
+    flusher.run();
+    assertThat(channel.outboundMessages()).isEmpty();
+
+    nanos.addAndGet(TimeUnit.MICROSECONDS.toNanos(1));
+    queue(1, halfLimit);
+    flusher.run();
+
+    assertThat(channel.isWritable()).isTrue();
+    assertThat(channel.outboundMessages()).hasSize(2);
+  }
+
+  @Test
+  public void flushesWhenChannelIsNoLongerWritable() {
+    channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(0, 4 * RESPONSE_SIZE));
+
+    nanos.addAndGet(TimeUnit.MICROSECONDS.toNanos(1));
+    queue(10, RESPONSE_SIZE);
+    flusher.run();
+
+    assertThat(channel.outboundMessages()).hasSize(10);
+    verify(eventLoop, never()).schedule(same(flusher), anyLong(), eq(TimeUnit.NANOSECONDS));
+  }
+
+  private void queue(int count, int size) {
+    for (int i = 0; i < count; i++) {
+      Frame sourceFrame =
+          Frame.create(
+              Message.Type.QUERY,
+              i,
+              ProtocolVersion.V4,
+              EnumSet.noneOf(Frame.Header.Flag.class),
+              Unpooled.buffer(0));
+      flusher.queued.add(
+          new Message.Dispatcher.FlushItem(
+              ctx, Unpooled.wrappedBuffer(new byte[size]), sourceFrame, dispatcher));
+    }
+  }
+}
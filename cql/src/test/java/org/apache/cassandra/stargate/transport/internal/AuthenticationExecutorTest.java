@@ -0,0 +1,61 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.codahale.metrics.MetricRegistry;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.cassandra.stargate.exceptions.AuthenticationException;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class AuthenticationExecutorTest {
+
+  @BeforeAll
+  public static void initMetrics() {
+    ClientMetrics.instance.init(Collections.emptyList(), new MetricRegistry());
+  }
+
+  @Test
+  public void runsOffTheEventLoop() throws Exception {
+    EventLoop eventLoop = new DefaultEventLoop();
+    try {
+      // Submitted from the event loop, like AuthResponse.execute()
+      CompletableFuture<Thread> authThread =
+          eventLoop.submit(() -> AuthenticationExecutor.submit(Thread::currentThread)).get();
+
+      Thread thread = authThread.get(10, TimeUnit.SECONDS);
+      assertThat(eventLoop.inEventLoop(thread)).isFalse();
+      assertThat(thread.getName()).startsWith("cql-authentication");
+    } finally {
+      eventLoop.shutdownGracefully();
+    }
+  }
+
+  @Test
+  public void returnsResultToCaller() throws Exception {
+    CompletableFuture<String> future = AuthenticationExecutor.submit(() -> "authenticated");
+
+    assertThat(future.get(10, TimeUnit.SECONDS)).isEqualTo("authenticated");
+  }
+
+  @Test
+  public void propagatesFailureToCaller() {
+    AuthenticationException failure = new AuthenticationException("bad credentials");
+    CompletableFuture<String> future =
+        AuthenticationExecutor.submit(
+            () -> {
+              throw failure;
+            });
+
+    assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCause(failure);
+  }
+}
@@ -0,0 +1,220 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.codahale.metrics.MetricRegistry;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.stargate.db.Persistence;
+import io.stargate.db.Result;
+import io.stargate.db.schema.Column;
+import io.stargate.db.schema.ImmutableColumn;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.concurrent.CompletableFuture;
+import org.apache.cassandra.metrics.DefaultNameFactory;
+import org.apache.cassandra.stargate.exceptions.AuthenticationException;
+import org.apache.cassandra.stargate.exceptions.ExceptionCode;
+import org.apache.cassandra.stargate.exceptions.InvalidRequestException;
+import org.apache.cassandra.stargate.metrics.ClientMetrics;
+import org.apache.cassandra.stargate.metrics.RequestMetrics;
+import org.apache.cassandra.stargate.transport.ProtocolVersion;
+import org.apache.cassandra.stargate.transport.internal.messages.ErrorMessage;
+import org.apache.cassandra.stargate.transport.internal.messages.ExecuteMessage;
+import org.apache.cassandra.stargate.transport.internal.messages.ResultMessage;
+import org.apache.cassandra.stargate.utils.MD5Digest;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DispatcherMetricsTest {
+  private static final MetricRegistry REGISTRY = new MetricRegistry();
+
+  private EmbeddedChannel channel;
+  private ServerConnection connection;
+
+  @BeforeAll
+  public static void initMetrics() {
+    System.setProperty("stargate.cql.table_request_metrics", "true");
+    ClientMetrics.instance.init(Collections.emptyList(), new MetricRegistry());
+    RequestMetrics.instance.init(REGISTRY);
+  }
+
+  @BeforeEach
+  public void setUp() {
+    channel = new ClientChannel();
+    channel
+        .pipeline()
+        .addLast(
+            new Message.Dispatcher(
+                Message.Dispatcher.FlushStrategy.IMMEDIATE,
+                Server.EndpointPayloadTracker.get(InetAddress.getLoopbackAddress()),
+                RequestScheduler.NONE));
+    connection =
+        new ServerConnection(
+            channel,
+            null,
+            ProtocolVersion.V4,
+            (ch, c) -> {},
+            mock(Persistence.class),
+            null);
+    connection.applyStateTransition(Message.Type.STARTUP, Message.Type.READY);
+  }
+
+  @Test
+  public void recordsLatencyOfSuccessfulRequest() {
+    long queries = timerCount("Requests", "QUERY");
+    long batches = timerCount("Requests", "BATCH");
+
+    Message.Response response = dispatch(request(Message.Type.QUERY, voidResult()));
+
+    assertThat(response).isInstanceOf(ResultMessage.class);
+    assertThat(timerCount("Requests", "QUERY")).isEqualTo(queries + 1);
+    assertThat(timerCount("Requests", "BATCH")).isEqualTo(batches);
+  }
+
+  @Test
+  public void recordsLatencyAndErrorOfFailedRequest() {
+    long batches = timerCount("Requests", "BATCH");
+    long invalid = errorCount(ExceptionCode.INVALID);
+    long serverErrors = errorCount(ExceptionCode.SERVER_ERROR);
+
+    CompletableFuture<Message.Response> failure = new CompletableFuture<>();
+    failure.completeExceptionally(new InvalidRequestException("invalid batch"));
+    Message.Response response = dispatch(request(Message.Type.BATCH, failure));
+
+    assertThat(response).isInstanceOf(ErrorMessage.class);
+    assertThat(timerCount("Requests", "BATCH")).isEqualTo(batches + 1);
+    assertThat(errorCount(ExceptionCode.INVALID)).isEqualTo(invalid + 1);
+    assertThat(errorCount(ExceptionCode.SERVER_ERROR)).isEqualTo(serverErrors);
+  }
+
+  @Test
+  public void recordsErrorOfRequestAnsweredWithErrorMessage() {
+    long badCredentials = errorCount(ExceptionCode.BAD_CREDENTIALS);
+
+    // Authentication failures complete normally, with the error as response
+    Message.Response response =
+        dispatch(
+            request(
+                Message.Type.AUTH_RESPONSE,
+                CompletableFuture.completedFuture(
+                    ErrorMessage.fromException(new AuthenticationException("bad credentials")))));
+
+    assertThat(response).isInstanceOf(ErrorMessage.class);
+    assertThat(errorCount(ExceptionCode.BAD_CREDENTIALS)).isEqualTo(badCredentials + 1);
+  }
+
+  @Test
+  public void recordsErrorOfRequestRejectedBeforeExecution() {
+    long protocolErrors = errorCount(ExceptionCode.PROTOCOL_ERROR);
+
+    // STARTUP is not allowed once the connection is ready, so this fails in processRequest itself
+    Message.Response response = dispatch(request(Message.Type.STARTUP, voidResult()));
+
+    assertThat(response).isInstanceOf(ErrorMessage.class);
+    assertThat(errorCount(ExceptionCode.PROTOCOL_ERROR)).isEqualTo(protocolErrors + 1);
+  }
+
+  @Test
+  public void recordsExecuteLatencyPerTable() {
+    MD5Digest statementId = MD5Digest.compute("SELECT * FROM ks.tbl WHERE k = ?");
+    long executes = timerCount("Requests", "EXECUTE");
+
+    dispatch(request(Message.Type.PREPARE, prepared(statementId, "ks", "tbl")));
+    dispatch(execute(statementId));
+    dispatch(execute(statementId));
+    // Not prepared through this node, so its table is unknown
+    dispatch(execute(MD5Digest.compute("SELECT * FROM ks.other")));
+
+    assertThat(timerCount("Requests", "EXECUTE")).isEqualTo(executes + 3);
+    assertThat(timerCount("TableRequests", "ks.tbl")).isEqualTo(2);
+    assertThat(timerCount("TableRequests", "ks.other")).isZero();
+  }
+
+  private Message.Response dispatch(Message.Request request) {
+    request.attach(connection);
+    request.setStreamId(1);
+    request.setSourceFrame(
+        Frame.create(
+            request.type,
+            1,
+            ProtocolVersion.V4,
+            EnumSet.noneOf(Frame.Header.Flag.class),
+            Unpooled.buffer(0)));
+    channel.writeInbound(request);
+    channel.runPendingTasks();
+    Message.Response response = channel.readOutbound();
+    assertThat(response).isNotNull();
+    return response;
+  }
+
+  private static Message.Request request(
+      Message.Type type, CompletableFuture<? extends Message.Response> response) {
+    return new Message.Request(type) {
+      @Override
+      protected CompletableFuture<? extends Message.Response> execute(long queryStartNanoTime) {
+        return response;
+      }
+    };
+  }
+
+  private static ExecuteMessage execute(MD5Digest statementId) {
+    return new ExecuteMessage(statementId, null, null) {
+      @Override
+      protected CompletableFuture<? extends Message.Response> execute(long queryStartNanoTime) {
+        return voidResult();
+      }
+    };
+  }
+
+  private static CompletableFuture<Message.Response> voidResult() {
+    return CompletableFuture.completedFuture(new ResultMessage(new Result.Void()) {});
+  }
+
+  private static CompletableFuture<Message.Response> prepared(
+      MD5Digest statementId, String keyspace, String table) {
+    Column column =
+        ImmutableColumn.builder()
+            .keyspace(keyspace)
+            .table(table)
+            .name("k")
+            .type(Column.Type.Int)
+            .kind(Column.Kind.PartitionKey)
+            .build();
+    Result.Prepared prepared =
+        new Result.Prepared(
+            statementId,
+            null,
+            null,
+            new Result.PreparedMetadata(
+                EnumSet.noneOf(Result.Flag.class),
+                Collections.singletonList(column),
+                new short[] {0}));
+    return CompletableFuture.completedFuture(new ResultMessage(prepared) {});
+  }
+
+  private static long timerCount(String type, String scope) {
+    return REGISTRY.timer(metricName(type, scope, "Latency")).getCount();
+  }
+
+  private static long errorCount(ExceptionCode code) {
+    return REGISTRY.meter(metricName("RequestErrors", code.name(), "Count")).getCount();
+  }
+
+  private static String metricName(String type, String scope, String name) {
+    return new DefaultNameFactory(type, scope).createMetricName(name).getMetricName();
+  }
+
+  // ServerConnection needs the address of the client
+  private static class ClientChannel extends EmbeddedChannel {
+    @Override
+    public SocketAddress remoteAddress() {
+      return new InetSocketAddress(InetAddress.getLoopbackAddress(), 50000);
+    }
+  }
+}
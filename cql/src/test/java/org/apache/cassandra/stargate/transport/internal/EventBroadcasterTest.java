@@ -0,0 +1,110 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.Attribute;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import org.apache.cassandra.stargate.transport.ProtocolVersion;
+import org.apache.cassandra.stargate.transport.internal.messages.EventMessage;
+import org.junit.jupiter.api.Test;
+
+public class EventBroadcasterTest {
+  private static final Event EVENT =
+      new Event.SchemaChange(
+          Event.SchemaChange.Change.CREATED, Event.SchemaChange.Target.TABLE, "ks", "t");
+
+  @Test
+  public void encodesOncePerProtocolVersion() {
+    EmbeddedChannel v4a = channel(ProtocolVersion.V4);
+    EmbeddedChannel v4b = channel(ProtocolVersion.V4);
+    EmbeddedChannel v5 = channel(ProtocolVersion.V5);
+    List<Channel> channels = Arrays.asList(v4a, v4b, v5);
+
+    EventBroadcaster.broadcast(EVENT, channels);
+
+    Frame frameA = sentFrame(v4a);
+    Frame frameB = sentFrame(v4b);
+    Frame frame5 = sentFrame(v5);
+    assertThat(frameA.header.version).isEqualTo(ProtocolVersion.V4);
+    assertThat(frame5.header.version).isEqualTo(ProtocolVersion.V5);
+    assertThat(frame5.header.flags).contains(Frame.Header.Flag.USE_BETA);
+    // Same encoded body, but not the same frame
+    assertThat(frameA.body.unwrap()).isSameAs(frameB.body.unwrap());
+    assertThat(frameA.header.flags).isNotSameAs(frameB.header.flags);
+
+    for (Frame frame : Arrays.asList(frameA, frameB, frame5)) {
+      assertThat(frame.header.type).isEqualTo(Message.Type.EVENT);
+      assertThat(frame.header.streamId).isEqualTo(-1);
+      EventMessage message =
+          EventMessage.codec.decode(frame.body.duplicate(), frame.header.version);
+      assertThat(message.event).isEqualTo(EVENT);
+      frame.release();
+    }
+    // Only the retained duplicates kept the shared bodies alive
+    assertThat(frameA.body.unwrap().refCnt()).isZero();
+  }
+
+  @Test
+  public void skipsClosedChannels() {
+    EmbeddedChannel open = channel(ProtocolVersion.V4);
+    EmbeddedChannel closed = channel(ProtocolVersion.V4);
+    closed.close();
+
+    EventBroadcaster.broadcast(EVENT, Arrays.asList(open, closed));
+
+    sentFrame(open).release();
+    closed.runPendingTasks();
+    assertThat((Object) closed.readOutbound()).isNull();
+  }
+
+  @Test
+  public void releasesBodiesWhenEventLoopRejectsWrites() {
+    EmbeddedChannel open = channel(ProtocolVersion.V4);
+    Channel shuttingDown = shuttingDownChannel();
+
+    EventBroadcaster.broadcast(EVENT, Arrays.asList(open, shuttingDown));
+
+    Frame frame = sentFrame(open);
+    frame.release();
+    // The event loop shutting down doesn't keep the shared bodies alive
+    assertThat(frame.body.unwrap().refCnt()).isZero();
+  }
+
+  // A channel of an event loop that is shutting down
+  @SuppressWarnings("unchecked")
+  private static Channel shuttingDownChannel() {
+    EventLoop loop = mock(EventLoop.class);
+    doThrow(new RejectedExecutionException("shutting down")).when(loop).execute(any());
+    Attribute<Connection> connection = mock(Attribute.class);
+    when(connection.get())
+        .thenReturn(new Connection(new EmbeddedChannel(), ProtocolVersion.V4, (ch, c) -> {}));
+    Channel channel = mock(Channel.class);
+    when(channel.eventLoop()).thenReturn(loop);
+    when(channel.attr(Connection.attributeKey)).thenReturn(connection);
+    return channel;
+  }
+
+  private static EmbeddedChannel channel(ProtocolVersion version) {
+    EmbeddedChannel channel = new EmbeddedChannel();
+    channel
+        .attr(Connection.attributeKey)
+        .set(new Connection(channel, version, (ch, connection) -> {}));
+    return channel;
+  }
+
+  private static Frame sentFrame(EmbeddedChannel channel) {
+    channel.runPendingTasks();
+    Frame frame = channel.readOutbound();
+    assertThat(frame).isNotNull();
+    return frame;
+  }
+}
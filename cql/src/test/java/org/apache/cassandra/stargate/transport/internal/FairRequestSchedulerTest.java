@@ -0,0 +1,189 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.cassandra.stargate.exceptions.OverloadedException;
+import org.apache.cassandra.stargate.transport.internal.FairRequestScheduler.TenantKey;
+import org.junit.jupiter.api.Test;
+
+public class FairRequestSchedulerTest {
+
+  /** The requests started by the scheduler, in order, with the means to complete them. */
+  private final List<String> started = new ArrayList<>();
+
+  private final List<CompletableFuture<Message.Response>> running = new ArrayList<>();
+
+  /** The tasks submitted to the executor of the scheduler, run by {@link #runStartTasks()}. */
+  private final List<Runnable> startTasks = new ArrayList<>();
+
+  private final AtomicLong nanos = new AtomicLong();
+
+  private FairRequestScheduler scheduler(
+      int maxRunning, int tenantMaxRunning, int tenantMaxQueued, Map<String, Integer> weights) {
+    return new FairRequestScheduler(
+        TenantKey.USER,
+        maxRunning,
+        tenantMaxRunning,
+        tenantMaxQueued,
+        weights,
+        TimeUnit.MINUTES.toMillis(1),
+        startTasks::add,
+        nanos::get);
+  }
+
+  private CompletableFuture<Message.Response> schedule(
+      FairRequestScheduler scheduler, String tenant) {
+    return scheduler.schedule(
+        tenant,
+        () -> {
+          CompletableFuture<Message.Response> future = new CompletableFuture<>();
+          started.add(tenant);
+          running.add(future);
+          return future;
+        });
+  }
+
+  private void completeOldest() {
+    running.remove(0).complete(null);
+    runStartTasks();
+  }
+
+  private void runStartTasks() {
+    while (!startTasks.isEmpty()) {
+      startTasks.remove(0).run();
+    }
+  }
+
+  @Test
+  public void sharesConcurrencyAccordingToWeights() {
+    Map<String, Integer> weights = FairRequestScheduler.parseWeights("heavy:2, light:1");
+    FairRequestScheduler scheduler = scheduler(1, 1, 100, weights);
+
+    // The first request starts right away, the others queue behind it.
+    schedule(scheduler, "light");
+    for (int i = 0; i < 8; i++) {
+      schedule(scheduler, "light");
+    }
+    for (int i = 0; i < 6; i++) {
+      schedule(scheduler, "heavy");
+    }
+    assertThat(started).containsExactly("light");
+
+    for (int i = 0; i < 8; i++) {
+      completeOldest();
+    }
+    // Even though its requests were queued last, "heavy" gets 2 slots for each one of "light".
+    assertThat(started.subList(1, 9))
+        .containsExactly("heavy", "heavy", "light", "heavy", "heavy", "light", "heavy", "heavy");
+  }
+
+  @Test
+  public void limitsConcurrencyPerTenant() {
+    FairRequestScheduler scheduler = scheduler(10, 2, 100, Collections.emptyMap());
+
+    for (int i = 0; i < 3; i++) {
+      schedule(scheduler, "a");
+    }
+    schedule(scheduler, "b");
+    assertThat(started).containsExactly("a", "a", "b");
+
+    completeOldest();
+    assertThat(started).containsExactly("a", "a", "b", "a");
+  }
+
+  @Test
+  public void rejectsRequestsOverTenantQueueDepth() {
+    FairRequestScheduler scheduler = scheduler(1, 1, 1, Collections.emptyMap());
+
+    CompletableFuture<Message.Response> first = schedule(scheduler, "a");
+    CompletableFuture<Message.Response> queued = schedule(scheduler, "a");
+    CompletableFuture<Message.Response> rejected = schedule(scheduler, "a");
+    // Other tenants have their own queue.
+    CompletableFuture<Message.Response> other = schedule(scheduler, "b");
+
+    assertThat(rejected).isCompletedExceptionally();
+    assertThat(rejected.handle((r, t) -> t).join()).isInstanceOf(OverloadedException.class);
+    assertThat(queued).isNotDone();
+    assertThat(other).isNotDone();
+
+    completeOldest();
+    assertThat(first).isCompleted();
+    assertThat(started).containsExactly("a", "b");
+  }
+
+  @Test
+  public void startsRequestsThatDoNotQueueWithZeroQueueDepth() {
+    FairRequestScheduler scheduler = scheduler(1, 1, 0, Collections.emptyMap());
+
+    CompletableFuture<Message.Response> first = schedule(scheduler, "a");
+    CompletableFuture<Message.Response> rejected = schedule(scheduler, "a");
+    assertThat(started).containsExactly("a");
+    assertThat(rejected.handle((r, t) -> t).join()).isInstanceOf(OverloadedException.class);
+
+    completeOldest();
+    assertThat(first).isCompleted();
+    CompletableFuture<Message.Response> next = schedule(scheduler, "a");
+    assertThat(started).containsExactly("a", "a");
+    assertThat(next).isNotDone();
+  }
+
+  @Test
+  public void startsNextRequestOnExecutorWhenOneCompletes() {
+    FairRequestScheduler scheduler = scheduler(1, 1, 100, Collections.emptyMap());
+    schedule(scheduler, "a");
+    schedule(scheduler, "a");
+
+    running.remove(0).complete(null);
+    // Not started by the completing thread
+    assertThat(started).containsExactly("a");
+
+    runStartTasks();
+    assertThat(started).containsExactly("a", "a");
+  }
+
+  @Test
+  public void doesNotRecurseOnSynchronouslyCompletingRequests() {
+    FairRequestScheduler scheduler = scheduler(1, 1, 100_000, Collections.emptyMap());
+    CompletableFuture<Message.Response> first = schedule(scheduler, "a");
+    List<CompletableFuture<Message.Response>> results = new ArrayList<>();
+    for (int i = 0; i < 50_000; i++) {
+      results.add(scheduler.schedule("a", () -> CompletableFuture.completedFuture(null)));
+    }
+
+    // Each completion hands the next request to the executor, so this doesn't overflow the stack
+    first.complete(null);
+    runStartTasks();
+
+    assertThat(results).allMatch(CompletableFuture::isDone);
+  }
+
+  @Test
+  public void expiresIdleTenants() {
+    FairRequestScheduler scheduler = scheduler(10, 10, 100, Collections.emptyMap());
+    schedule(scheduler, "idle");
+    schedule(scheduler, "busy");
+    completeOldest();
+    assertThat(scheduler.tenants()).containsOnly("idle", "busy");
+
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(30));
+    schedule(scheduler, "other");
+    assertThat(scheduler.tenants()).containsOnly("idle", "busy", "other");
+
+    // "busy" still has a running request, "other" was active 30 seconds ago
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+    schedule(scheduler, "busy");
+    assertThat(scheduler.tenants()).containsOnly("busy", "other");
+
+    // An expired tenant starts over when it comes back
+    schedule(scheduler, "idle");
+    assertThat(scheduler.tenants()).containsOnly("idle", "busy", "other");
+    assertThat(started).containsExactly("idle", "busy", "other", "busy", "idle");
+  }
+}
@@ -0,0 +1,130 @@
+package org.apache.cassandra.stargate.transport.internal;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.net.InetAddress;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import org.apache.cassandra.stargate.transport.ProtocolVersion;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the {@link Message.Dispatcher.FlushStrategy flush strategies} of the dispatcher on an
+ * embedded channel.
+ *
+ * <p>Each invocation hands a burst of responses to the dispatcher, then runs the channel's event
+ * loop until all of them have been flushed. The time per invocation is the latency of the burst,
+ * and the {@code flushes} counter (compared to {@code responses}) shows how much each strategy
+ * coalesces, that is how many syscalls it would cost on a real socket.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.apache.cassandra.stargate.transport.internal.FlusherBenchmark} (or through
+ * your IDE).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FlusherBenchmark {
+  private static final Object RESPONSE = new Object();
+
+  @Param({"LEGACY", "IMMEDIATE", "ADAPTIVE"})
+  public Message.Dispatcher.FlushStrategy strategy;
+
+  @Param({"1", "16", "256"})
+  public int burst;
+
+  private EmbeddedChannel channel;
+  private Message.Dispatcher dispatcher;
+  private ChannelHandlerContext ctx;
+  private Frame sourceFrame;
+  private FlushCounter counter;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    counter = new FlushCounter();
+    dispatcher =
+        new Message.Dispatcher(
+            strategy,
+            Server.EndpointPayloadTracker.get(InetAddress.getLoopbackAddress()),
+            RequestScheduler.NONE);
+    channel = new EmbeddedChannel(counter, dispatcher);
+    ctx = channel.pipeline().context(dispatcher);
+    // An empty frame, so that releasing it doesn't affect the in-flight payload tracking
+    sourceFrame =
+        Frame.create(
+            Message.Type.QUERY,
+            0,
+            ProtocolVersion.CURRENT,
+            EnumSet.noneOf(Frame.Header.Flag.class),
+            Unpooled.EMPTY_BUFFER);
+  }
+
+  @Benchmark
+  public void flushBurst(Counters counters) {
+    long target = counter.responses + burst;
+    long flushes = counter.flushes;
+    for (int i = 0; i < burst; i++) {
+      dispatcher.flush(new Message.Dispatcher.FlushItem(ctx, RESPONSE, sourceFrame, dispatcher));
+    }
+    while (counter.responses < target) {
+      channel.runPendingTasks();
+    }
+    counters.responses += burst;
+    counters.flushes += counter.flushes - flushes;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(FlusherBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Counters {
+    public long responses;
+    public long flushes;
+  }
+
+  /** Stands for the socket: swallows the responses and counts the flushes. */
+  private static class FlushCounter extends ChannelOutboundHandlerAdapter {
+    private long written;
+    private long responses;
+    private long flushes;
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+      written++;
+      promise.trySuccess();
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+      if (written == 0) return;
+
+      flushes++;
+      responses += written;
+      written = 0;
+    }
+  }
+}
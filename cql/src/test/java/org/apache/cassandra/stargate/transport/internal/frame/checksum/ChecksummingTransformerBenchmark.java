@@ -0,0 +1,255 @@
+package org.apache.cassandra.stargate.transport.internal.frame.checksum;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.cassandra.stargate.transport.internal.CBUtil;
+import org.apache.cassandra.stargate.transport.internal.Frame;
+import org.apache.cassandra.stargate.transport.internal.frame.compress.Compressor;
+import org.apache.cassandra.stargate.transport.internal.frame.compress.LZ4Compressor;
+import org.apache.cassandra.utils.ChecksumType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares {@link ChecksummingTransformer} with the array-based implementation it replaced (kept
+ * below as {@link Legacy}), across block and payload sizes, with and without LZ4 compression.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.apache.cassandra.stargate.transport.internal.frame.checksum.ChecksummingTransformerBenchmark}
+ * (or through your IDE). Add {@code -prof gc} to the JMH options to compare allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ChecksummingTransformerBenchmark {
+  private static final EnumSet<Frame.Header.Flag> COMPRESSED =
+      EnumSet.of(Frame.Header.Flag.CHECKSUMMED, Frame.Header.Flag.COMPRESSED);
+
+  @Param({"16384", "32768", "131072"})
+  public int blockSize;
+
+  @Param({"512", "65536", "1048576"})
+  public int payloadSize;
+
+  @Param({"true", "false"})
+  public boolean lz4;
+
+  private ChecksummingTransformer transformer;
+  private Compressor compressor;
+  private ByteBuf payload;
+  private ByteBuf encoded;
+
+  @Setup
+  public void setup() {
+    compressor = lz4 ? LZ4Compressor.INSTANCE : null;
+    transformer = new ChecksummingTransformer(ChecksumType.CRC32, blockSize, compressor);
+
+    // Somewhat compressible content, like actual result rows
+    Random random = new Random(42);
+    payload = CBUtil.allocator.directBuffer(payloadSize);
+    while (payload.writableBytes() > 0) {
+      payload.writeByte(random.nextInt(16) < 12 ? 'a' + random.nextInt(4) : random.nextInt(256));
+    }
+    encoded = transformer.transformOutbound(payload.duplicate());
+  }
+
+  @TearDown
+  public void tearDown() {
+    payload.release();
+    encoded.release();
+  }
+
+  @Benchmark
+  public void outbound() {
+    transformer.transformOutbound(payload.duplicate()).release();
+  }
+
+  @Benchmark
+  public void legacyOutbound() {
+    Legacy.transformOutbound(payload.duplicate(), ChecksumType.CRC32, blockSize, compressor)
+        .release();
+  }
+
+  @Benchmark
+  public void inbound() {
+    transformer.transformInbound(encoded.duplicate(), COMPRESSED).release();
+  }
+
+  @Benchmark
+  public void legacyInbound() {
+    Legacy.transformInbound(encoded.duplicate(), COMPRESSED, ChecksumType.CRC32, compressor)
+        .release();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(ChecksummingTransformerBenchmark.class.getSimpleName())
+                .build())
+        .run();
+  }
+
+  /** The implementation of ChecksummingTransformer before it wrote directly to pooled buffers. */
+  private static class Legacy {
+    private static final int CHUNK_HEADER_OVERHEAD = 4 * Integer.BYTES;
+
+    static ByteBuf transformOutbound(
+        ByteBuf inputBuf, ChecksumType checksum, int blockSize, Compressor compressor) {
+      int maxTotalCompressedLength = maxCompressedLength(compressor, inputBuf.readableBytes());
+      int expectedChunks = (int) Math.ceil((double) maxTotalCompressedLength / blockSize);
+      int expectedMaxSerializedLength =
+          Short.BYTES + (expectedChunks * CHUNK_HEADER_OVERHEAD) + maxTotalCompressedLength;
+      byte[] retBuf = new byte[expectedMaxSerializedLength];
+      ByteBuf ret = Unpooled.wrappedBuffer(retBuf);
+      ret.writerIndex(0);
+      ret.readerIndex(0);
+      ret.writeShort((short) 0);
+
+      byte[] inBuf = new byte[blockSize];
+      byte[] outBuf = new byte[maxCompressedLength(compressor, blockSize)];
+      byte[] chunkLengths = new byte[8];
+
+      int numCompressedChunks = 0;
+      int readableBytes;
+      while ((readableBytes = inputBuf.readableBytes()) > 0) {
+        int lengthToRead = Math.min(blockSize, readableBytes);
+        inputBuf.readBytes(inBuf, 0, lengthToRead);
+        int uncompressedChunkChecksum = (int) checksum.of(inBuf, 0, lengthToRead);
+        int compressedSize = maybeCompress(compressor, inBuf, lengthToRead, outBuf);
+
+        if (compressedSize < lengthToRead) {
+          ret.writeInt(compressedSize);
+          ret.writeInt(lengthToRead);
+          putInt(compressedSize, chunkLengths, 0);
+        } else {
+          ret.writeInt(-lengthToRead);
+          putInt(-lengthToRead, chunkLengths, 0);
+        }
+        putInt(lengthToRead, chunkLengths, 4);
+        ret.writeInt((int) checksum.of(chunkLengths, 0, chunkLengths.length));
+
+        int toWrite = Math.min(compressedSize, lengthToRead);
+        if (ret.writableBytes() < (CHUNK_HEADER_OVERHEAD + toWrite)) {
+          byte[] resizedRetBuf =
+              new byte[(retBuf.length + (CHUNK_HEADER_OVERHEAD + toWrite)) * 3 / 2];
+          System.arraycopy(retBuf, 0, resizedRetBuf, 0, retBuf.length);
+          retBuf = resizedRetBuf;
+          ByteBuf resizedRetByteBuf = Unpooled.wrappedBuffer(retBuf);
+          resizedRetByteBuf.writerIndex(ret.writerIndex());
+          ret = resizedRetByteBuf;
+        }
+
+        if (compressedSize < lengthToRead) ret.writeBytes(outBuf, 0, toWrite);
+        else ret.writeBytes(inBuf, 0, toWrite);
+        ret.writeInt(uncompressedChunkChecksum);
+        numCompressedChunks++;
+      }
+
+      ret.setShort(0, (short) numCompressedChunks);
+      return ret;
+    }
+
+    static ByteBuf transformInbound(
+        ByteBuf inputBuf,
+        EnumSet<Frame.Header.Flag> flags,
+        ChecksumType checksum,
+        Compressor compressor) {
+      int numChunks = CBUtil.readUnsignedShort(inputBuf);
+      int currentPosition = 0;
+      byte[] buf = null;
+      byte[] retBuf = new byte[inputBuf.readableBytes()];
+      byte[] chunkLengths = new byte[8];
+      for (int i = 0; i < numChunks; i++) {
+        int compressedLength = inputBuf.readInt();
+        int decompressedLength =
+            compressedLength >= 0 ? inputBuf.readInt() : Math.abs(compressedLength);
+        putInt(compressedLength, chunkLengths, 0);
+        putInt(decompressedLength, chunkLengths, 4);
+        int lengthsChecksum = inputBuf.readInt();
+        if (lengthsChecksum != (int) checksum.of(chunkLengths, 0, chunkLengths.length)) {
+          throw new IllegalStateException("Invalid lengths checksum");
+        }
+
+        if (currentPosition + decompressedLength > retBuf.length) {
+          byte[] resizedBuf = new byte[retBuf.length + decompressedLength * 3 / 2];
+          System.arraycopy(retBuf, 0, resizedBuf, 0, retBuf.length);
+          retBuf = resizedBuf;
+        }
+
+        int toRead = Math.abs(compressedLength);
+        if (buf == null || buf.length < toRead) buf = new byte[toRead];
+        inputBuf.readBytes(buf, 0, toRead);
+
+        byte[] decompressedChunk;
+        if (null == compressor
+            || !flags.contains(Frame.Header.Flag.COMPRESSED)
+            || compressedLength < 0) {
+          decompressedChunk = buf;
+        } else {
+          try {
+            decompressedChunk = compressor.decompress(buf, 0, toRead, decompressedLength);
+          } catch (IOException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+
+        System.arraycopy(decompressedChunk, 0, retBuf, currentPosition, decompressedLength);
+        currentPosition += decompressedLength;
+
+        if (inputBuf.readInt() != (int) checksum.of(decompressedChunk, 0, decompressedLength)) {
+          throw new IllegalStateException("Invalid chunk checksum");
+        }
+      }
+
+      ByteBuf ret = Unpooled.wrappedBuffer(retBuf, 0, currentPosition);
+      ret.writerIndex(currentPosition);
+      return ret;
+    }
+
+    private static int maxCompressedLength(Compressor compressor, int uncompressedLength) {
+      return null == compressor
+          ? uncompressedLength
+          : compressor.maxCompressedLength(uncompressedLength);
+    }
+
+    private static int maybeCompress(
+        Compressor compressor, byte[] input, int length, byte[] output) {
+      if (null == compressor) {
+        System.arraycopy(input, 0, output, 0, length);
+        return length;
+      }
+      try {
+        return compressor.compress(input, 0, length, output, 0);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private static void putInt(int val, byte[] dest, int offset) {
+      dest[offset] = (byte) (val >>> 24);
+      dest[offset + 1] = (byte) (val >>> 16);
+      dest[offset + 2] = (byte) (val >>> 8);
+      dest[offset + 3] = (byte) (val);
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package org.apache.cassandra.stargate.transport.internal.frame.checksum;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.EnumSet;
+import java.util.Random;
+import org.apache.cassandra.stargate.transport.ProtocolException;
+import org.apache.cassandra.stargate.transport.internal.Frame;
+import org.apache.cassandra.stargate.transport.internal.frame.compress.LZ4Compressor;
+import org.apache.cassandra.utils.ChecksumType;
+import org.junit.jupiter.api.Test;
+
+public class ChecksummingTransformerTest {
+  private static final int BLOCK_SIZE = 1024;
+  private static final EnumSet<Frame.Header.Flag> COMPRESSED =
+      EnumSet.of(Frame.Header.Flag.CHECKSUMMED, Frame.Header.Flag.COMPRESSED);
+
+  private final ChecksummingTransformer lz4 =
+      new ChecksummingTransformer(ChecksumType.CRC32, BLOCK_SIZE, LZ4Compressor.INSTANCE);
+  private final ChecksummingTransformer uncompressed =
+      new ChecksummingTransformer(ChecksumType.ADLER32, BLOCK_SIZE, null);
+
+  @Test
+  public void roundTripsDirectBodies() {
+    // Compressible and incompressible blocks, and a last partial block
+    byte[] body = body(5 * BLOCK_SIZE + 17);
+    assertThat(roundTrip(lz4, direct(body))).isEqualTo(body);
+    assertThat(roundTrip(uncompressed, direct(body))).isEqualTo(body);
+  }
+
+  @Test
+  public void roundTripsHeapBodies() {
+    byte[] body = body(3 * BLOCK_SIZE + 1);
+    assertThat(roundTrip(lz4, Unpooled.wrappedBuffer(body))).isEqualTo(body);
+    assertThat(roundTrip(uncompressed, Unpooled.wrappedBuffer(body))).isEqualTo(body);
+  }
+
+  @Test
+  public void detectsCorruptedChunks() {
+    ByteBuf encoded = lz4.transformOutbound(direct(body(2 * BLOCK_SIZE)));
+    int last = encoded.writerIndex() - Integer.BYTES - 1;
+    encoded.setByte(last, encoded.getByte(last) ^ 1);
+    assertThatThrownBy(() -> lz4.transformInbound(encoded, COMPRESSED))
+        .isInstanceOf(ProtocolException.class);
+  }
+
+  private static byte[] roundTrip(ChecksummingTransformer transformer, ByteBuf input) {
+    ByteBuf encoded = transformer.transformOutbound(input);
+    ByteBuf decoded = transformer.transformInbound(encoded, COMPRESSED);
+    byte[] bytes = new byte[decoded.readableBytes()];
+    decoded.readBytes(bytes);
+    encoded.release();
+    decoded.release();
+    return bytes;
+  }
+
+  private static byte[] body(int length) {
+    Random random = new Random(length);
+    byte[] body = new byte[length];
+    for (int i = 0; i < length; i++) {
+      // The first half compresses well, the second doesn't
+      body[i] = (byte) (i < length / 2 ? 'a' + (i % 3) : random.nextInt(256));
+    }
+    return body;
+  }
+
+  private static ByteBuf direct(byte[] bytes) {
+    ByteBuf buf = Unpooled.directBuffer(bytes.length);
+    buf.writeBytes(bytes);
+    return buf;
+  }
+}
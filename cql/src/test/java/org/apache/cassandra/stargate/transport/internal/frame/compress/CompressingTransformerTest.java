@@ -0,0 +1,105 @@
+package org.apache.cassandra.stargate.transport.internal.frame.compress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public class CompressingTransformerTest {
+  private static final CompressingTransformer LZ4 =
+      CompressingTransformer.getTransformer(LZ4Compressor.INSTANCE);
+  private static final byte[] BODY = body();
+
+  private static byte[] body() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      sb.append("row-").append(i % 17).append(',');
+    }
+    return sb.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void lz4DirectRoundTrip() throws IOException {
+    ByteBuf compressed = LZ4.transformOutbound(direct(BODY));
+    assertThat(compressed.isDirect()).isTrue();
+    assertThat(compressed.readableBytes()).isLessThan(BODY.length);
+
+    ByteBuf decompressed = LZ4.transformInbound(compressed);
+    assertThat(bytes(decompressed)).isEqualTo(BODY);
+  }
+
+  @Test
+  public void lz4DirectAndArrayPathsAreInterchangeable() throws IOException {
+    ByteBuf fromDirect = LZ4.transformOutbound(direct(BODY));
+    ByteBuf fromHeap = LZ4.transformOutbound(Unpooled.wrappedBuffer(BODY));
+    assertThat(bytes(LZ4.transformInbound(Unpooled.wrappedBuffer(bytes(fromDirect)))))
+        .isEqualTo(BODY);
+    assertThat(bytes(LZ4.transformInbound(direct(bytes(fromHeap))))).isEqualTo(BODY);
+  }
+
+  @Test
+  public void lz4HeapRoundTrip() throws IOException {
+    ByteBuf compressed = LZ4.transformOutbound(Unpooled.wrappedBuffer(BODY));
+    assertThat(compressed.isDirect()).isFalse();
+
+    ByteBuf decompressed = LZ4.transformInbound(compressed);
+    assertThat(decompressed.isDirect()).isFalse();
+    assertThat(bytes(decompressed)).isEqualTo(BODY);
+  }
+
+  @Test
+  public void snappyDirectRoundTrip() throws IOException {
+    CompressingTransformer snappy = snappy();
+    ByteBuf compressed = snappy.transformOutbound(direct(BODY));
+    assertThat(compressed.isDirect()).isTrue();
+    assertThat(compressed.readableBytes()).isLessThan(BODY.length);
+
+    ByteBuf decompressed = snappy.transformInbound(compressed);
+    assertThat(decompressed.isDirect()).isTrue();
+    assertThat(bytes(decompressed)).isEqualTo(BODY);
+  }
+
+  @Test
+  public void snappyHeapRoundTrip() throws IOException {
+    CompressingTransformer snappy = snappy();
+    ByteBuf compressed = snappy.transformOutbound(Unpooled.wrappedBuffer(BODY));
+    assertThat(compressed.isDirect()).isFalse();
+    assertThat(compressed.readableBytes()).isLessThan(BODY.length);
+
+    ByteBuf decompressed = snappy.transformInbound(compressed);
+    assertThat(decompressed.isDirect()).isFalse();
+    assertThat(bytes(decompressed)).isEqualTo(BODY);
+  }
+
+  @Test
+  public void snappyDirectAndArrayPathsAreInterchangeable() throws IOException {
+    CompressingTransformer snappy = snappy();
+    byte[] fromDirect = bytes(snappy.transformOutbound(direct(BODY)));
+    byte[] fromHeap = bytes(snappy.transformOutbound(Unpooled.wrappedBuffer(BODY)));
+    assertThat(fromDirect).isEqualTo(fromHeap);
+    assertThat(bytes(snappy.transformInbound(Unpooled.wrappedBuffer(fromDirect)))).isEqualTo(BODY);
+    assertThat(bytes(snappy.transformInbound(direct(fromHeap)))).isEqualTo(BODY);
+  }
+
+  // Snappy relies on a native library, which may not be available on every platform.
+  private static CompressingTransformer snappy() {
+    assumeTrue(SnappyCompressor.INSTANCE != null, "Snappy is not available on this platform");
+    return CompressingTransformer.getTransformer(SnappyCompressor.INSTANCE);
+  }
+
+  private static ByteBuf direct(byte[] bytes) {
+    ByteBuf buf = Unpooled.directBuffer(bytes.length);
+    buf.writeBytes(bytes);
+    return buf;
+  }
+
+  private static byte[] bytes(ByteBuf buf) {
+    byte[] bytes = new byte[buf.readableBytes()];
+    buf.readBytes(bytes);
+    return bytes;
+  }
+}
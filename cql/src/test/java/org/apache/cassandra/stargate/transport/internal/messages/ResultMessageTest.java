@@ -0,0 +1,141 @@
+package org.apache.cassandra.stargate.transport.internal.messages;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.stargate.db.Result;
+import io.stargate.db.schema.Column;
+import io.stargate.db.schema.ImmutableColumn;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import org.apache.cassandra.stargate.transport.ProtocolVersion;
+import org.apache.cassandra.stargate.transport.internal.CBCodec;
+import org.junit.jupiter.api.Test;
+
+public class ResultMessageTest {
+  private static final CBCodec<Result> ROWS_CODEC = ResultMessage.SUBCODECS.get(Result.Kind.Rows);
+  private static final ProtocolVersion VERSION = ProtocolVersion.V4;
+
+  @Test
+  public void encodesRowsLikeValueByValueEncoder() {
+    Result.Rows rows = rows(100);
+
+    ByteBuf dest = Unpooled.buffer(ROWS_CODEC.encodedSize(rows, VERSION));
+    ROWS_CODEC.encode(rows, dest, VERSION);
+
+    assertThat(bytes(dest)).isEqualTo(legacyEncode(rows));
+  }
+
+  @Test
+  public void encodesRowsIntoDirectBuffer() {
+    Result.Rows rows = rows(100);
+
+    ByteBuf dest = Unpooled.directBuffer(ROWS_CODEC.encodedSize(rows, VERSION));
+    ROWS_CODEC.encode(rows, dest, VERSION);
+
+    assertThat(bytes(dest)).isEqualTo(legacyEncode(rows));
+  }
+
+  @Test
+  public void encodesEmptyRows() {
+    Result.Rows rows = rows(0);
+
+    ByteBuf dest = Unpooled.buffer(ROWS_CODEC.encodedSize(rows, VERSION));
+    ROWS_CODEC.encode(rows, dest, VERSION);
+
+    byte[] expected = legacyEncode(rows);
+    assertThat(bytes(dest)).isEqualTo(expected);
+    assertThat(ROWS_CODEC.encodedSize(rows, VERSION)).isEqualTo(expected.length);
+  }
+
+  @Test
+  public void encodedSizeIsExact() {
+    Result.Rows rows = rows(100);
+    ByteBuf dest = Unpooled.buffer(ROWS_CODEC.encodedSize(rows, VERSION));
+
+    ROWS_CODEC.encode(rows, dest, VERSION);
+
+    // So the buffer never grew
+    assertThat(dest.capacity()).isEqualTo(dest.readableBytes());
+    assertThat(ROWS_CODEC.encodedSize(rows, VERSION)).isEqualTo(legacyEncode(rows).length);
+  }
+
+  @Test
+  public void leavesValuesUntouched() {
+    Result.Rows rows = rows(10);
+    ByteBuffer value = rows.rows.get(3).get(2);
+    int position = value.position();
+
+    ROWS_CODEC.encode(rows, Unpooled.buffer(), VERSION);
+
+    assertThat(value.position()).isEqualTo(position);
+  }
+
+  @Test
+  public void decodesEncodedRows() {
+    Result.Rows rows = rows(10);
+    ByteBuf dest = Unpooled.buffer();
+    ROWS_CODEC.encode(rows, dest, VERSION);
+
+    Result.Rows decoded = (Result.Rows) ROWS_CODEC.decode(dest, VERSION);
+
+    assertThat(decoded.rows).isEqualTo(rows.rows);
+    assertThat(dest.readableBytes()).isZero();
+  }
+
+  // Rows with a text, a nullable int and a (sometimes empty) blob column. The blobs don't start at
+  // the beginning of their buffer.
+  private static Result.Rows rows(int count) {
+    List<List<ByteBuffer>> rows = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      ByteBuffer blob = ByteBuffer.allocate(16 + i % 5);
+      blob.position(16);
+      rows.add(
+          Arrays.asList(
+              ByteBuffer.wrap(("key-" + i).getBytes(StandardCharsets.UTF_8)),
+              i % 3 == 0 ? null : ByteBuffer.allocate(4).putInt(0, i),
+              blob));
+    }
+    List<Column> columns =
+        Arrays.asList(
+            column("k", Column.Type.Text),
+            column("v", Column.Type.Int),
+            column("b", Column.Type.Blob));
+    return new Result.Rows(
+        rows,
+        new Result.ResultMetadata(EnumSet.noneOf(Result.Flag.class), columns, null, null));
+  }
+
+  private static Column column(String name, Column.Type type) {
+    return ImmutableColumn.builder().keyspace("ks").table("t").name(name).type(type).build();
+  }
+
+  // The rows body, encoded value by value.
+  private static byte[] legacyEncode(Result.Rows rows) {
+    ByteBuf dest = Unpooled.buffer();
+    ResultMessage.RowsSubCodec.METADATA_CODEC.encode(rows.resultMetadata, dest, VERSION);
+    dest.writeInt(rows.rows.size());
+    for (List<ByteBuffer> row : rows.rows) {
+      for (ByteBuffer value : row) {
+        if (value == null) {
+          dest.writeInt(-1);
+        } else {
+          dest.writeInt(value.remaining());
+          dest.writeBytes(value.duplicate());
+        }
+      }
+    }
+    return bytes(dest);
+  }
+
+  private static byte[] bytes(ByteBuf buf) {
+    byte[] bytes = new byte[buf.readableBytes()];
+    buf.readBytes(bytes);
+    return bytes;
+  }
+}
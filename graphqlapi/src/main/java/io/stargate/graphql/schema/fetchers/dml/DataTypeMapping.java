@@ -17,9 +17,6 @@ package io.stargate.graphql.schema.fetchers.dml;
 
 import com.datastax.oss.driver.api.core.CqlIdentifier;
 import com.datastax.oss.driver.api.core.data.UdtValue;
-import com.datastax.oss.driver.api.core.type.codec.TypeCodec;
-import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
-import com.datastax.oss.driver.api.querybuilder.term.Term;
 import io.stargate.db.datastore.Row;
 import io.stargate.db.schema.Column;
 import io.stargate.db.schema.Table;
@@ -27,106 +24,77 @@ import io.stargate.db.schema.UserDefinedType;
 import io.stargate.graphql.schema.NameMapping;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /** Provides the logic for adapting values from graphql to DB and vice versa. */
 class DataTypeMapping {
 
   /**
-   * Converts a value coming from the GraphQL runtime into a term that can be used with {@link
-   * QueryBuilder}.
+   * Converts a value coming from the GraphQL runtime into an object that can be bound to a
+   * prepared statement through the {@link io.stargate.db.datastore.DataStore} API.
    */
-  static Term toCqlTerm(Column.ColumnType type, Object value, NameMapping nameMapping) {
-    StringBuilder raw = new StringBuilder();
-    format(type, value, nameMapping, raw);
-    return QueryBuilder.raw(raw.toString());
-  }
-
-  private static void format(
-      Column.ColumnType type, Object value, NameMapping nameMapping, StringBuilder out) {
-    if (type.isCollection()) {
+  static Object toDBValue(Column.ColumnType type, Object value, NameMapping nameMapping) {
+    if (value == null) {
+      return null;
+    } else if (type.isCollection()) {
       if (type.rawType() == Column.Type.List) {
-        formatElements(type.parameters().get(0), (Collection<?>) value, '[', ']', nameMapping, out);
+        return toDBElements(type.parameters().get(0), (Collection<?>) value, nameMapping)
+            .collect(Collectors.toList());
       } else if (type.rawType() == Column.Type.Set) {
-        formatElements(type.parameters().get(0), (Collection<?>) value, '{', '}', nameMapping, out);
+        return toDBElements(type.parameters().get(0), (Collection<?>) value, nameMapping)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
       } else if (type.rawType() == Column.Type.Map) {
-        formatMap(type, value, nameMapping, out);
+        return toDBMap(type, value, nameMapping);
       } else {
         throw new AssertionError("Invalid collection type " + type);
       }
     } else if (type.isUserDefined()) {
-      formatUdt((UserDefinedType) type, value, nameMapping, out);
+      return toDBUdt((UserDefinedType) type, value, nameMapping);
     } else if (type.isTuple()) {
       throw new UnsupportedOperationException("Tuple support is not implemented yet");
     } else { // primitive
-      @SuppressWarnings("unchecked")
-      TypeCodec<Object> codec = type.codec();
-      out.append(codec.format(value));
+      return value;
     }
   }
 
-  private static void formatElements(
-      Column.ColumnType elementType,
-      Collection<?> elements,
-      char startChar,
-      char endChar,
-      NameMapping nameMapping,
-      StringBuilder out) {
-    out.append(startChar);
-    boolean first = true;
-    for (Object element : elements) {
-      if (first) {
-        first = false;
-      } else {
-        out.append(',');
-      }
-      format(elementType, element, nameMapping, out);
-    }
-    out.append(endChar);
+  private static Stream<Object> toDBElements(
+      Column.ColumnType elementType, Collection<?> elements, NameMapping nameMapping) {
+    return elements.stream().map(element -> toDBValue(elementType, element, nameMapping));
   }
 
-  private static void formatMap(
-      Column.ColumnType type, Object value, NameMapping nameMapping, StringBuilder out) {
-    out.append('{');
+  private static Map<Object, Object> toDBMap(
+      Column.ColumnType type, Object value, NameMapping nameMapping) {
     @SuppressWarnings("unchecked")
     Collection<Map<String, Object>> entries = (Collection<Map<String, Object>>) value;
     Column.ColumnType keyType = type.parameters().get(0);
     Column.ColumnType valueType = type.parameters().get(1);
-    boolean first = true;
+    Map<Object, Object> map = new LinkedHashMap<>(entries.size());
     for (Map<String, Object> entry : entries) {
-      if (first) {
-        first = false;
-      } else {
-        out.append(',');
-      }
-      format(keyType, entry.get("key"), nameMapping, out);
-      out.append(':');
-      format(valueType, entry.get("value"), nameMapping, out);
+      map.put(
+          toDBValue(keyType, entry.get("key"), nameMapping),
+          toDBValue(valueType, entry.get("value"), nameMapping));
     }
-    out.append('}');
+    return map;
   }
 
-  private static void formatUdt(
-      UserDefinedType type, Object value, NameMapping nameMapping, StringBuilder out) {
-    type = type.frozen(false);
-    out.append('{');
+  private static UdtValue toDBUdt(UserDefinedType type, Object value, NameMapping nameMapping) {
+    // The name mapping is keyed by the non-frozen type, but the value must be created with the
+    // actual type, as codecs check that it matches exactly.
+    UserDefinedType mappedType = type.frozen(false);
     @SuppressWarnings("unchecked")
     Map<String, Object> object = (Map<String, Object>) value;
-    boolean first = true;
+    List<Column> fields = mappedType.columns();
+    Object[] fieldValues = new Object[fields.size()];
     for (Map.Entry<String, Object> entry : object.entrySet()) {
-      if (first) {
-        first = false;
-      } else {
-        out.append(',');
-      }
-      Column field = nameMapping.getFieldNames(type).inverse().get(entry.getKey());
-      Column.ColumnType fieldType = field.type();
-      out.append('"').append(field.name()).append("\":");
-      format(fieldType, entry.getValue(), nameMapping, out);
+      Column field = nameMapping.getFieldNames(mappedType).inverse().get(entry.getKey());
+      fieldValues[fields.indexOf(field)] = toDBValue(field.type(), entry.getValue(), nameMapping);
     }
-    out.append('}');
+    return type.create(fieldValues);
   }
 
   /** Converts result Row into a map suitable to serve it via GraphQL. */
@@ -8,6 +8,7 @@ import io.stargate.db.Persistence;
 import io.stargate.db.datastore.DataStore;
 import io.stargate.db.schema.Table;
 import io.stargate.graphql.schema.NameMapping;
+import java.util.List;
 
 public class DeleteMutationFetcher extends MutationFetcher {
 
@@ -20,11 +21,12 @@ public class DeleteMutationFetcher extends MutationFetcher {
   }
 
   @Override
-  protected String buildStatement(DataFetchingEnvironment environment, DataStore dataStore) {
+  protected String buildStatement(
+      DataFetchingEnvironment environment, DataStore dataStore, List<Object> values) {
     Delete delete =
         QueryBuilder.deleteFrom(table.keyspace(), table.name())
-            .where(buildClause(table, environment))
-            .if_(buildIfConditions(table, environment.getArgument("ifCondition")));
+            .where(buildClause(table, environment, values))
+            .if_(buildIfConditions(table, environment.getArgument("ifCondition"), values));
 
     if (environment.containsArgument("ifExists")
         && environment.getArgument("ifExists") != null
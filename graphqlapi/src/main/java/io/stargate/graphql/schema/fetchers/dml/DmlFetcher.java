@@ -1,5 +1,6 @@
 package io.stargate.graphql.schema.fetchers.dml;
 
+import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
 import com.datastax.oss.driver.api.querybuilder.condition.Condition;
 import com.datastax.oss.driver.api.querybuilder.relation.ColumnRelationBuilder;
 import com.datastax.oss.driver.api.querybuilder.relation.Relation;
@@ -35,7 +36,7 @@ public abstract class DmlFetcher extends CassandraFetcher<Map<String, Object>> {
   }
 
   protected List<Condition> buildIfConditions(
-      Table table, Map<String, Map<String, Object>> columnList) {
+      Table table, Map<String, Map<String, Object>> columnList, List<Object> values) {
     if (columnList == null) {
       return ImmutableList.of();
     }
@@ -46,11 +47,12 @@ public abstract class DmlFetcher extends CassandraFetcher<Map<String, Object>> {
       for (Map.Entry<String, Object> condition : clauseEntry.getValue().entrySet()) {
         if (condition.getKey().equals("in")) {
           clause.add(
-              Condition.column(column.name()).in(buildListLiterals(column, condition.getValue())));
+              Condition.column(column.name())
+                  .in(bindListValues(column, condition.getValue(), values)));
           continue;
         }
 
-        Term dbValue = toCqlTerm(column, condition.getValue());
+        Term dbValue = bindValue(column, condition.getValue(), values);
         switch (condition.getKey()) {
           case "eq":
             clause.add(Condition.column(column.name()).isEqualTo(dbValue));
@@ -78,17 +80,19 @@ public abstract class DmlFetcher extends CassandraFetcher<Map<String, Object>> {
     return clause;
   }
 
-  private List<Term> buildListLiterals(Column column, Object o) {
+  private List<Term> bindListValues(Column column, Object o, List<Object> values) {
     if (o instanceof Collection<?>) {
-      Collection<?> values = (Collection<?>) o;
-      return values.stream().map(item -> toCqlTerm(column, item)).collect(Collectors.toList());
+      Collection<?> items = (Collection<?>) o;
+      return items.stream()
+          .map(item -> bindValue(column, item, values))
+          .collect(Collectors.toList());
     }
 
-    return Collections.singletonList(toCqlTerm(column, o));
+    return Collections.singletonList(bindValue(column, o, values));
   }
 
   protected List<Relation> buildFilterConditions(
-      Table table, Map<String, Map<String, Object>> columnList) {
+      Table table, Map<String, Map<String, Object>> columnList, List<Object> values) {
     if (columnList == null) {
       return ImmutableList.of();
     }
@@ -100,9 +104,9 @@ public abstract class DmlFetcher extends CassandraFetcher<Map<String, Object>> {
         ColumnRelationBuilder<Relation> relationStart = Relation.column(column.name());
         Relation relation;
         if (condition.getKey().equals("in")) {
-          relation = relationStart.in(buildListLiterals(column, condition.getValue()));
+          relation = relationStart.in(bindListValues(column, condition.getValue(), values));
         } else {
-          Term rightTerm = toCqlTerm(column, condition.getValue());
+          Term rightTerm = bindValue(column, condition.getValue(), values);
           switch (condition.getKey()) {
             case "eq":
               relation = relationStart.isEqualTo(rightTerm);
@@ -132,10 +136,11 @@ public abstract class DmlFetcher extends CassandraFetcher<Map<String, Object>> {
     return relations;
   }
 
-  protected List<Relation> buildClause(Table table, DataFetchingEnvironment environment) {
+  protected List<Relation> buildClause(
+      Table table, DataFetchingEnvironment environment, List<Object> values) {
     if (environment.containsArgument("filter")) {
       Map<String, Map<String, Object>> columnList = environment.getArgument("filter");
-      return buildFilterConditions(table, columnList);
+      return buildFilterConditions(table, columnList, values);
     } else {
       Map<String, Object> value = environment.getArgument("value");
       List<Relation> relations = new ArrayList<>();
@@ -144,7 +149,7 @@ public abstract class DmlFetcher extends CassandraFetcher<Map<String, Object>> {
       for (Map.Entry<String, Object> entry : value.entrySet()) {
         Column column = getColumn(table, entry.getKey());
         relations.add(
-            Relation.column(column.name()).isEqualTo(toCqlTerm(column, entry.getValue())));
+            Relation.column(column.name()).isEqualTo(bindValue(column, entry.getValue(), values)));
       }
       return relations;
     }
@@ -162,7 +167,17 @@ public abstract class DmlFetcher extends CassandraFetcher<Map<String, Object>> {
     return nameMapping.getColumnNames(table).inverse().get(fieldName);
   }
 
-  protected Term toCqlTerm(Column column, Object value) {
-    return DataTypeMapping.toCqlTerm(column.type(), value, nameMapping);
+  /**
+   * Converts a GraphQL value to the corresponding DB value, appends it to {@code values}, and
+   * returns the bind marker to use in its place in the query.
+   *
+   * <p>Values are always bound rather than inlined, so that the query string only depends on the
+   * "shape" of the GraphQL operation. That way, it can be prepared once and then reused (see
+   * {@link io.stargate.db.datastore.DataStore#prepare(String)}). Note that this implies that
+   * markers must be created in the order in which they appear in the query.
+   */
+  protected Term bindValue(Column column, Object value, List<Object> values) {
+    values.add(DataTypeMapping.toDBValue(column.type(), value, nameMapping));
+    return QueryBuilder.bindMarker();
   }
 }
@@ -7,6 +7,8 @@ import io.stargate.db.Persistence;
 import io.stargate.db.datastore.DataStore;
 import io.stargate.db.schema.Table;
 import io.stargate.graphql.schema.NameMapping;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public abstract class MutationFetcher extends DmlFetcher {
@@ -22,11 +24,18 @@ public abstract class MutationFetcher extends DmlFetcher {
   @Override
   protected Map<String, Object> get(DataFetchingEnvironment environment, DataStore dataStore)
       throws Exception {
-    String statement = buildStatement(environment, dataStore);
-    dataStore.query(statement).get();
+    List<Object> values = new ArrayList<>();
+    String statement = buildStatement(environment, dataStore, values);
+    dataStore.query(statement, values.toArray()).get();
     return ImmutableMap.of("value", environment.getArgument("value"));
   }
 
+  /**
+   * Builds the CQL statement for the mutation.
+   *
+   * @param values the list to which the values for the statement's bind markers must be added (in
+   *     the order of the markers).
+   */
   protected abstract String buildStatement(
-      DataFetchingEnvironment environment, DataStore dataStore);
+      DataFetchingEnvironment environment, DataStore dataStore, List<Object> values);
 }
@@ -51,8 +51,9 @@ public class QueryFetcher extends DmlFetcher {
   @Override
   protected Map<String, Object> get(DataFetchingEnvironment environment, DataStore dataStore)
       throws Exception {
-    String statement = buildQuery(environment);
-    CompletableFuture<ResultSet> rs = dataStore.query(statement);
+    List<Object> values = new ArrayList<>();
+    String statement = buildQuery(environment, values);
+    CompletableFuture<ResultSet> rs = dataStore.query(statement, values.toArray());
     ResultSet resultSet = rs.get();
 
     Map<String, Object> result = new HashMap<>();
@@ -70,18 +71,19 @@ public class QueryFetcher extends DmlFetcher {
     return result;
   }
 
-  private String buildQuery(DataFetchingEnvironment environment) {
+  private String buildQuery(DataFetchingEnvironment environment, List<Object> values) {
     Select select =
         QueryBuilder.selectFrom(table.keyspace(), table.name())
             .columns(buildQueryColumns(environment))
-            .where(buildClause(table, environment))
+            .where(buildClause(table, environment, values))
             .orderBy(buildOrderBy(environment));
 
     if (environment.containsArgument("options")) {
       Map<String, Object> options = environment.getArgument("options");
       Object limit = options.get("limit");
       if (limit != null) {
-        select = select.limit((Integer) limit);
+        values.add(limit);
+        select = select.limit(QueryBuilder.bindMarker());
       }
     }
 
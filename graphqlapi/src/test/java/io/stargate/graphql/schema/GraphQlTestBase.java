@@ -48,6 +48,8 @@ public abstract class GraphQlTestBase {
 
   @Captor protected ArgumentCaptor<String> queryCaptor;
 
+  @Captor protected ArgumentCaptor<Object> valuesCaptor;
+
   @Captor protected ArgumentCaptor<Parameters> parametersCaptor;
 
   private MockedStatic<DataStore> dataStoreCreateMock;
@@ -81,7 +83,7 @@ public abstract class GraphQlTestBase {
     // a bit overkill and brittle. The integration tests in the 'testing' module fill that gap.
     ResultSet resultSet = mock(ResultSet.class);
     when(resultSet.rows()).thenReturn(Collections.emptyList());
-    when(dataStore.query(queryCaptor.capture()))
+    when(dataStore.query(queryCaptor.capture(), valuesCaptor.capture()))
         .thenReturn(CompletableFuture.completedFuture(resultSet));
 
     graphQlSchema = createGraphQlSchema();
@@ -106,12 +108,15 @@ public abstract class GraphQlTestBase {
   }
 
   /**
-   * Convenience method to execute a GraphQL query and assert that it generates the given CQL query.
+   * Convenience method to execute a GraphQL query and assert that it generates the given CQL query,
+   * executed with the given bound values.
    */
-  protected void assertSuccess(String graphQlQuery, String expectedCqlQuery) {
+  protected void assertSuccess(
+      String graphQlQuery, String expectedCqlQuery, Object... expectedValues) {
     ExecutionResult result = executeGraphQl(graphQlQuery);
     assertThat(result.getErrors()).isEmpty();
     assertThat(queryCaptor.getValue()).isEqualTo(expectedCqlQuery);
+    assertThat(valuesCaptor.getAllValues()).containsExactly(expectedValues);
   }
 
   /**
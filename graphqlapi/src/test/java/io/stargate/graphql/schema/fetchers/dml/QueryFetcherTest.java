@@ -27,19 +27,29 @@ public class QueryFetcherTest extends DmlTestBase {
   @ParameterizedTest
   @MethodSource("successfulQueries")
   @DisplayName("Should execute GraphQL and generate expected CQL query")
-  public void queryTest(String graphQlQuery, String expectedCqlQuery) {
-    assertSuccess(String.format("query { %s }", graphQlQuery), expectedCqlQuery);
+  public void queryTest(String graphQlQuery, String expectedCqlQuery, Object[] expectedValues) {
+    assertSuccess(String.format("query { %s }", graphQlQuery), expectedCqlQuery, expectedValues);
   }
 
   public static Arguments[] successfulQueries() {
     return new Arguments[] {
-      arguments("books { values { title, author } }", "SELECT title,author FROM library.books"),
+      arguments(
+          "books { values { title, author } }",
+          "SELECT title,author FROM library.books",
+          new Object[] {}),
       arguments(
           "books(options: { limit: 10 }) { values { title, author } }",
-          "SELECT title,author FROM library.books LIMIT 10"),
+          "SELECT title,author FROM library.books LIMIT ?",
+          new Object[] {10}),
       arguments(
           "books(filter: { title: { eq: \"The Road\" } }) { values { title, author } }",
-          "SELECT title,author FROM library.books WHERE title='The Road'"),
+          "SELECT title,author FROM library.books WHERE title=?",
+          new Object[] {"The Road"}),
+      arguments(
+          "books(filter: { title: { in: [\"The Road\", \"Dune\"] } }, options: { limit: 5 }) "
+              + "{ values { title } }",
+          "SELECT title FROM library.books WHERE title IN (?,?) LIMIT ?",
+          new Object[] {"The Road", "Dune", 5}),
     };
   }
 
@@ -2,7 +2,9 @@ package io.stargate.graphql.schema.fetchers.dml;
 
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
+import com.datastax.oss.driver.api.core.data.UdtValue;
 import io.stargate.db.schema.Keyspace;
+import io.stargate.db.schema.UserDefinedType;
 import io.stargate.graphql.schema.DmlTestBase;
 import io.stargate.graphql.schema.SampleKeyspaces;
 import org.junit.jupiter.api.DisplayName;
@@ -20,21 +22,30 @@ public class QueryFetcherUdtsTest extends DmlTestBase {
   @ParameterizedTest
   @MethodSource("successfulQueries")
   @DisplayName("Should execute GraphQL with UDTs and generate expected CQL query")
-  public void udtTest(String graphQlQuery, String expectedCqlQuery) {
-    assertSuccess(String.format("query { %s }", graphQlQuery), expectedCqlQuery);
+  public void udtTest(String graphQlQuery, String expectedCqlQuery, Object[] expectedValues) {
+    assertSuccess(String.format("query { %s }", graphQlQuery), expectedCqlQuery, expectedValues);
   }
 
   public static Arguments[] successfulQueries() {
     return new Arguments[] {
       arguments(
           "testTable(value: { a: { b: {i:1} } }) { values { a{b{i}} } }",
-          "SELECT a FROM udts.test_table WHERE a={\"b\":{\"i\":1}}"),
+          "SELECT a FROM udts.test_table WHERE a=?",
+          new Object[] {a(1)}),
       arguments(
           "testTable(filter: { a: {eq: { b: {i:1} } } }) { values { a{b{i}} } }",
-          "SELECT a FROM udts.test_table WHERE a={\"b\":{\"i\":1}}"),
+          "SELECT a FROM udts.test_table WHERE a=?",
+          new Object[] {a(1)}),
       arguments(
           "testTable(filter: { a: {in: [{ b: {i:1} }, { b: {i:2} }] } }) { values { a{b{i}} } }",
-          "SELECT a FROM udts.test_table WHERE a IN ({\"b\":{\"i\":1}},{\"b\":{\"i\":2}})"),
+          "SELECT a FROM udts.test_table WHERE a IN (?,?)",
+          new Object[] {a(1), a(2)}),
     };
   }
+
+  private static UdtValue a(int i) {
+    UserDefinedType aType = SampleKeyspaces.UDTS.userDefinedType("a").frozen(true);
+    UserDefinedType bType = SampleKeyspaces.UDTS.userDefinedType("b").frozen(true);
+    return aType.create(bType.create(i));
+  }
 }
@@ -2,21 +2,41 @@ package io.stargate.db;
 
 import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Optional;
 import javax.annotation.Nullable;
 import org.apache.cassandra.stargate.utils.MD5Digest;
 
 public class BoundStatement extends Statement {
   private final MD5Digest id;
+  private final @Nullable MD5Digest resultMetadataId;
 
   public BoundStatement(MD5Digest id, List<ByteBuffer> values, @Nullable List<String> boundNames) {
+    this(id, values, boundNames, null);
+  }
+
+  /**
+   * @param resultMetadataId the id of the result metadata that the client has for this statement
+   *     (protocol v5 and above), if any. Persistence implementations that support it use it to only
+   *     send the result metadata when it changed.
+   */
+  public BoundStatement(
+      MD5Digest id,
+      List<ByteBuffer> values,
+      @Nullable List<String> boundNames,
+      @Nullable MD5Digest resultMetadataId) {
     super(values, boundNames);
     this.id = id;
+    this.resultMetadataId = resultMetadataId;
   }
 
   public MD5Digest preparedId() {
     return id;
   }
 
+  public Optional<MD5Digest> resultMetadataId() {
+    return Optional.ofNullable(resultMetadataId);
+  }
+
   @Override
   public String toString() {
     return String.format("Prepared %s (with %d values)", preparedId(), values().size());
@@ -90,6 +90,19 @@ public interface Persistence {
     throw new IllegalStateException("Failed to reach schema agreement after 20 seconds.");
   }
 
+  /**
+   * Returns a future that completes once the schema agrees across the cluster, or completes
+   * exceptionally with an {@link IllegalStateException} if that doesn't happen within the provided
+   * timeout.
+   *
+   * <p>The default implementation polls {@link #isInSchemaAgreement()} from a shared scheduled
+   * executor, without blocking any thread in between. Implementations that can be notified of
+   * schema version changes should override it (and {@link #waitForSchemaAgreement()}).
+   */
+  default CompletableFuture<Void> waitForSchemaAgreementAsync(long timeout, TimeUnit unit) {
+    return SchemaAgreementPoller.poll(this::isInSchemaAgreement, timeout, unit);
+  }
+
   /**
    * A connection to the persistence.
    *
@@ -18,6 +18,8 @@ package io.stargate.db;
 import com.datastax.oss.driver.shaded.guava.common.base.Preconditions;
 import io.stargate.db.schema.Column;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
@@ -85,6 +87,16 @@ public abstract class Result {
       this.resultMetadata = resultMetadata;
     }
 
+    /**
+     * A copy of this result with different metadata, but the same rows, tracing id and warnings.
+     */
+    public Rows withResultMetadata(ResultMetadata resultMetadata) {
+      Rows copy = new Rows(rows, resultMetadata);
+      copy.setTracingId(getTracingId());
+      copy.setWarnings(getWarnings());
+      return copy;
+    }
+
     @Override
     public String toString() {
       return "ROWS " + resultMetadata;
@@ -255,6 +267,56 @@ public abstract class Result {
       this.resultMetadataId = resultMetadataId;
       this.pagingState = pagingState;
     }
+
+    /**
+     * The id of this metadata, as sent to protocol v5 clients in PREPARE and EXECUTE responses. If
+     * the persistence didn't provide one, it is computed from the columns.
+     */
+    public MD5Digest resultMetadataId() {
+      return resultMetadataId != null ? resultMetadataId : computeResultMetadataId(columns);
+    }
+
+    /** A copy of this metadata with the {@link Flag#NO_METADATA} flag, to skip the columns. */
+    public ResultMetadata withoutColumns() {
+      EnumSet<Flag> newFlags = EnumSet.copyOf(flags);
+      newFlags.remove(Flag.METADATA_CHANGED);
+      newFlags.add(Flag.NO_METADATA);
+      return new ResultMetadata(newFlags, columnCount, columns, resultMetadataId, pagingState);
+    }
+
+    /**
+     * A copy of this metadata with the {@link Flag#METADATA_CHANGED} flag, which tells the client
+     * to replace the metadata it got when preparing the statement by this one.
+     */
+    public ResultMetadata withMetadataChanged() {
+      EnumSet<Flag> newFlags = EnumSet.copyOf(flags);
+      newFlags.remove(Flag.NO_METADATA);
+      newFlags.add(Flag.METADATA_CHANGED);
+      return new ResultMetadata(newFlags, columnCount, columns, resultMetadataId(), pagingState);
+    }
+
+    /**
+     * Computes the id of the metadata of results with the given columns. It only depends on what
+     * clients see of those columns: their keyspace, table, name and type.
+     */
+    public static MD5Digest computeResultMetadataId(@Nullable List<Column> columns) {
+      MessageDigest md5 = MD5Digest.threadLocalMD5Digest();
+      if (columns != null) {
+        for (Column column : columns) {
+          updateDigest(md5, column.keyspace());
+          updateDigest(md5, column.table());
+          updateDigest(md5, column.name());
+          updateDigest(md5, column.type() == null ? null : column.type().cqlDefinition());
+        }
+      }
+      return MD5Digest.wrap(md5.digest());
+    }
+
+    private static void updateDigest(MessageDigest md5, @Nullable String value) {
+      if (value != null) md5.update(value.getBytes(StandardCharsets.UTF_8));
+      // Separates the values, so that ("ab", "c") and ("a", "bc") don't collide
+      md5.update((byte) 0);
+    }
   }
 
   public static class PreparedMetadata {
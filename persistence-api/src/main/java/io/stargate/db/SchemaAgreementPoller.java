@@ -0,0 +1,93 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.db;
+
+import com.datastax.oss.driver.shaded.guava.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Backs the default {@link Persistence#waitForSchemaAgreementAsync}: each check is a task on a
+ * shared scheduled executor, which schedules the next one until agreement or the timeout, so no
+ * thread is blocked while waiting.
+ */
+class SchemaAgreementPoller implements Runnable {
+  private static final long INTERVAL_MILLIS = 200;
+
+  private static final ScheduledExecutorService EXECUTOR =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder()
+              .setNameFormat("schema-agreement-poller")
+              .setDaemon(true)
+              .build());
+
+  private final BooleanSupplier isInAgreement;
+  private final ScheduledExecutorService executor;
+  private final long intervalMillis;
+  private final long deadlineNanos;
+  private final long timeoutSeconds;
+  private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+  private SchemaAgreementPoller(
+      BooleanSupplier isInAgreement,
+      ScheduledExecutorService executor,
+      long intervalMillis,
+      long timeout,
+      TimeUnit unit) {
+    this.isInAgreement = isInAgreement;
+    this.executor = executor;
+    this.intervalMillis = intervalMillis;
+    this.deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+    this.timeoutSeconds = unit.toSeconds(timeout);
+  }
+
+  static CompletableFuture<Void> poll(BooleanSupplier isInAgreement, long timeout, TimeUnit unit) {
+    return poll(isInAgreement, EXECUTOR, INTERVAL_MILLIS, timeout, unit);
+  }
+
+  static CompletableFuture<Void> poll(
+      BooleanSupplier isInAgreement,
+      ScheduledExecutorService executor,
+      long intervalMillis,
+      long timeout,
+      TimeUnit unit) {
+    SchemaAgreementPoller poller =
+        new SchemaAgreementPoller(isInAgreement, executor, intervalMillis, timeout, unit);
+    executor.execute(poller);
+    return poller.future;
+  }
+
+  @Override
+  public void run() {
+    try {
+      if (isInAgreement.getAsBoolean()) {
+        future.complete(null);
+      } else if (System.nanoTime() - deadlineNanos < 0) {
+        executor.schedule(this, intervalMillis, TimeUnit.MILLISECONDS);
+      } else {
+        future.completeExceptionally(
+            new IllegalStateException(
+                String.format(
+                    "Failed to reach schema agreement after %d seconds.", timeoutSeconds)));
+      }
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+    }
+  }
+}
@@ -14,12 +14,21 @@ import javax.annotation.Nullable;
 
 public class ArrayListBackedRow implements Row {
 
-  private final List<Column> columns;
+  private final ColumnIndex columns;
   private final List<ByteBuffer> values;
   private final ProtocolVersion protocolVersion;
 
   public ArrayListBackedRow(
       List<Column> columns, List<ByteBuffer> values, ProtocolVersion protocolVersion) {
+    this(new ColumnIndex(columns), values, protocolVersion);
+  }
+
+  /**
+   * Creates a new row whose columns are described by the provided index. Rows of the same result
+   * set should share the same index.
+   */
+  public ArrayListBackedRow(
+      ColumnIndex columns, List<ByteBuffer> values, ProtocolVersion protocolVersion) {
     assert columns.size() == values.size();
     this.columns = columns;
     this.values = values;
@@ -28,7 +37,7 @@ public class ArrayListBackedRow implements Row {
 
   @Override
   public List<Column> columns() {
-    return columns;
+    return columns.columns();
   }
 
   private void checkIndex(int index) {
@@ -40,13 +49,7 @@ public class ArrayListBackedRow implements Row {
 
   @Override
   public int firstIndexOf(@Nonnull String column) {
-    for (int i = 0; i < columns.size(); i++) {
-      if (columns.get(i).name().equals(column)) {
-        return i;
-      }
-    }
-    throw new IllegalArgumentException(
-        format("Column '%s' is not defined in the Row's metadata.", column));
+    return columns.firstIndexOf(column);
   }
 
   @Nonnull
@@ -59,7 +62,7 @@ public class ArrayListBackedRow implements Row {
   @Override
   public DataType getType(int i) {
     checkIndex(i);
-    return columns.get(i).type().codec().getCqlType();
+    return columns.columns().get(i).type().codec().getCqlType();
   }
 
   @Nullable
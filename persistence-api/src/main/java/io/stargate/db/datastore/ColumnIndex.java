@@ -0,0 +1,66 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.db.datastore;
+
+import static java.lang.String.format;
+
+import io.stargate.db.schema.Column;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+/**
+ * The columns of a set of rows, along with the position of each column name.
+ *
+ * <p>This is built once per result set (from its metadata) and shared by all its rows, so that
+ * by-name accesses on a row are constant time instead of a scan of the columns.
+ */
+public class ColumnIndex {
+  private final List<Column> columns;
+  private final Map<String, Integer> indexByName;
+
+  public ColumnIndex(List<Column> columns) {
+    this.columns = columns;
+    this.indexByName = new HashMap<>(Math.max(16, columns.size() * 2));
+    for (int i = 0; i < columns.size(); i++) {
+      // The same name can appear multiple times in a selection: keep the first one.
+      indexByName.putIfAbsent(columns.get(i).name(), i);
+    }
+  }
+
+  public List<Column> columns() {
+    return columns;
+  }
+
+  public int size() {
+    return columns.size();
+  }
+
+  /**
+   * Returns the index of the first column with the provided name.
+   *
+   * @throws IllegalArgumentException if there is no column with that name.
+   */
+  public int firstIndexOf(@Nonnull String column) {
+    Integer index = indexByName.get(column);
+    if (index == null) {
+      throw new IllegalArgumentException(
+          format("Column '%s' is not defined in the Row's metadata.", column));
+    }
+    return index;
+  }
+}
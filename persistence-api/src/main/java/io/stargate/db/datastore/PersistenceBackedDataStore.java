@@ -18,10 +18,12 @@ import org.apache.cassandra.stargate.transport.ProtocolException;
 class PersistenceBackedDataStore implements DataStore {
   private final Persistence.Connection connection;
   private final Parameters parameters;
+  private final PreparedStatementCache preparedCache;
 
   PersistenceBackedDataStore(Persistence.Connection connection, Parameters parameters) {
     this.connection = connection;
     this.parameters = parameters;
+    this.preparedCache = PreparedStatementCache.of(connection.persistence());
   }
 
   static ProtocolVersion toDriverVersion(
@@ -50,12 +52,24 @@ class PersistenceBackedDataStore implements DataStore {
 
   @Override
   public CompletableFuture<PreparedStatement> prepare(String queryString) {
+    String keyspace = parameters.defaultKeyspace().orElse(connection.usedKeyspace().orElse(null));
+    PreparedInfo cached = preparedCache.get(queryString, keyspace);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(
+          new PersistenceBackedPreparedStatement(
+              connection, parameters, cached, queryString, preparedCache, keyspace));
+    }
+
+    long cacheVersion = preparedCache.version();
     return connection
         .prepare(queryString, parameters)
         .thenApply(
-            prepared ->
-                new PersistenceBackedPreparedStatement(
-                    connection, parameters, new PreparedInfo(prepared), queryString));
+            prepared -> {
+              PreparedInfo info = new PreparedInfo(prepared);
+              preparedCache.put(queryString, keyspace, info, cacheVersion);
+              return new PersistenceBackedPreparedStatement(
+                  connection, parameters, info, queryString, preparedCache, keyspace);
+            });
   }
 
   @Override
@@ -20,6 +20,7 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
+import javax.annotation.Nullable;
 import org.apache.cassandra.stargate.exceptions.PreparedQueryNotFoundException;
 import org.apache.cassandra.stargate.transport.ProtocolVersion;
 import org.apache.cassandra.stargate.utils.MD5Digest;
@@ -35,17 +36,23 @@ class PersistenceBackedPreparedStatement implements PreparedStatement {
   private volatile PreparedInfo info;
   private final String queryString;
   private final ByteBuffer unset;
+  private final PreparedStatementCache cache;
+  @Nullable private final String cacheKeyspace;
 
   PersistenceBackedPreparedStatement(
       Persistence.Connection connection,
       Parameters parameters,
       PreparedInfo info,
-      String queryString) {
+      String queryString,
+      PreparedStatementCache cache,
+      @Nullable String cacheKeyspace) {
     this.connection = connection;
     this.parameters = parameters;
     this.info = info;
     this.queryString = queryString;
     this.unset = connection.persistence().unsetValue();
+    this.cache = cache;
+    this.cacheKeyspace = cacheKeyspace;
   }
 
   @Override
@@ -70,10 +77,25 @@ class PersistenceBackedPreparedStatement implements PreparedStatement {
   static class PreparedInfo {
     private final MD5Digest id;
     private final List<Column> bindMarkerDefinitions;
+    // The keyspace the statement operates on, if the metadata tells us (used for cache
+    // invalidation on schema changes).
+    @Nullable final String keyspace;
 
     PreparedInfo(Result.Prepared prepared) {
       this.id = prepared.statementId;
       this.bindMarkerDefinitions = prepared.metadata.columns;
+      this.keyspace = keyspaceOf(prepared);
+    }
+
+    @Nullable
+    private static String keyspaceOf(Result.Prepared prepared) {
+      if (!prepared.metadata.columns.isEmpty()) {
+        return prepared.metadata.columns.get(0).keyspace();
+      }
+      if (prepared.resultMetadata != null && !prepared.resultMetadata.columns.isEmpty()) {
+        return prepared.resultMetadata.columns.get(0).keyspace();
+      }
+      return null;
     }
   }
 
@@ -156,11 +178,14 @@ class PersistenceBackedPreparedStatement implements PreparedStatement {
           "Prepared statement (id={}) was invalid when executed. This can happen due to a "
               + "conflicting schema change. Will re-prepare and retry.",
           info.id);
+      long cacheVersion = cache.version();
       connection
           .prepare(queryString, parameters)
           .thenAccept(
               prepared -> {
-                PersistenceBackedPreparedStatement.this.info = new PreparedInfo(prepared);
+                PreparedInfo newInfo = new PreparedInfo(prepared);
+                PersistenceBackedPreparedStatement.this.info = newInfo;
+                cache.put(queryString, cacheKeyspace, newInfo, cacheVersion);
                 executeWithRetry(executeParameters, queryStartNanos, future);
               })
           .exceptionally(
@@ -1,6 +1,8 @@
 package io.stargate.db.datastore;
 
 import com.datastax.oss.driver.api.core.ProtocolVersion;
+import com.datastax.oss.driver.shaded.guava.common.cache.Cache;
+import com.datastax.oss.driver.shaded.guava.common.cache.CacheBuilder;
 import io.stargate.db.BoundStatement;
 import io.stargate.db.Parameters;
 import io.stargate.db.Persistence;
@@ -17,21 +19,30 @@ import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import javax.annotation.Nullable;
 
 class PersistenceBackedResultSet implements ResultSet {
 
+  // The result of processColumns, by the result metadata columns it was computed from. Persistence
+  // implementations return the same list of columns for all the results of a given statement, so
+  // this avoids resolving (and indexing) those columns again for every result set. Keys are weak
+  // and compared by identity, and entries are only used with the schema they were computed for.
+  private static final Cache<List<Column>, ProcessedColumns> processedColumnsCache =
+      CacheBuilder.newBuilder().weakKeys().build();
+
   private final Persistence.Connection connection;
   private final Parameters parameters;
   // Can be null when we know there is a single page
   private final @Nullable Statement statement;
   private final ProtocolVersion driverProtocolVersion;
   private final Deque<Row> fetchedRows;
-  private final List<Column> columns;
+  private final ColumnIndex columns;
 
-  // Paging state to fetch the next page, or null is we've fetched all pages.
-  private ByteBuffer nextPagingState;
+  // Paging state to fetch the next page, or null is we've fetched all pages. Volatile because it is
+  // updated by the thread completing an asynchronous page fetch.
+  private volatile ByteBuffer nextPagingState;
 
   PersistenceBackedResultSet(
       Persistence.Connection connection,
@@ -45,7 +56,7 @@ class PersistenceBackedResultSet implements ResultSet {
     this.driverProtocolVersion =
         PersistenceBackedDataStore.toDriverVersion(parameters.protocolVersion());
     this.fetchedRows = new ArrayDeque<>(parameters.pageSize().orElse(32));
-    this.columns = processColumns(initialPage.resultMetadata.columns);
+    this.columns = columnIndex(initialPage.resultMetadata.columns);
     processNewPage(initialPage);
     if (nextPagingState != null && this.statement == null) {
       throw new IllegalStateException(
@@ -76,14 +87,23 @@ class PersistenceBackedResultSet implements ResultSet {
     }
   }
 
+  private ColumnIndex columnIndex(List<Column> columns) {
+    Schema schema = connection.persistence().schema();
+    ProcessedColumns processed = processedColumnsCache.getIfPresent(columns);
+    if (processed == null || processed.schema != schema) {
+      processed = new ProcessedColumns(schema, new ColumnIndex(processColumns(schema, columns)));
+      processedColumnsCache.put(columns, processed);
+    }
+    return processed.index;
+  }
+
   // We have the slight abstraction issue that the columns from Result.Rows "abuse" the Column
   // class a bit by returning instances that 1) may not represent genuine columns and 2) even when
   // they represents genuine column, maybe not not be "exactly" those column (in term of object
   // equality). See Result.Rows#columns javadoc for details.
   // Here, there is little we can do about non-genuine columns, but we can at least ensure that
   // for genuine columns, the object we use in the result set will full formed.
-  private List<Column> processColumns(List<Column> columns) {
-    Schema schema = connection.persistence().schema();
+  private static List<Column> processColumns(Schema schema, List<Column> columns) {
     List<Column> processed = new ArrayList<>(columns.size());
     for (Column c : columns) {
       Column inSchema = columnInSchema(schema, c);
@@ -109,28 +129,41 @@ class PersistenceBackedResultSet implements ResultSet {
     nextPagingState = page.resultMetadata.pagingState;
   }
 
-  private void fetchNextPage() {
+  private void processPageResult(Result result) {
+    switch (result.kind) {
+      case Void:
+        nextPagingState = null;
+        break;
+      case Rows:
+        processNewPage((Result.Rows) result);
+        break;
+      default:
+        throw new IllegalStateException(
+            String.format("Unexpected %s result received for a result set page", result.kind));
+    }
+  }
+
+  @Override
+  public CompletableFuture<ResultSet> fetchNextPage() {
+    if (nextPagingState == null) {
+      return CompletableFuture.completedFuture(this);
+    }
+    return connection
+        .execute(statement, parameters.withPagingState(nextPagingState), System.nanoTime())
+        .thenApply(
+            result -> {
+              processPageResult(result);
+              return this;
+            });
+  }
+
+  private void fetchNextPageBlocking() {
     assert nextPagingState != null;
     try {
       // Note: we could have add a timeout on that get() for security. That said, we don't want
       // to pull a random number, and adding a new config for that should probably be discussed.
       // But it's probably good enough to rely on the persistence layer query timeout.
-      Result result =
-          connection
-              .execute(statement, parameters.withPagingState(nextPagingState), System.nanoTime())
-              .get();
-
-      switch (result.kind) {
-        case Void:
-          nextPagingState = null;
-          break;
-        case Rows:
-          processNewPage((Result.Rows) result);
-          break;
-        default:
-          throw new IllegalStateException(
-              String.format("Unexpected %s result received for a result set page", result.kind));
-      }
+      fetchNextPage().get();
     } catch (InterruptedException e) {
       // We don't play with interruptions, so hopefully this never happen
       throw new RuntimeException("Interrupted while waiting on new page results");
@@ -152,7 +185,7 @@ class PersistenceBackedResultSet implements ResultSet {
       if (nextPagingState == null) {
         return false;
       }
-      fetchNextPage();
+      fetchNextPageBlocking();
     }
   }
 
@@ -165,7 +198,7 @@ class PersistenceBackedResultSet implements ResultSet {
       if (nextPagingState == null) {
         throw new NoSuchElementException();
       }
-      fetchNextPage();
+      fetchNextPageBlocking();
     }
   }
 
@@ -221,4 +254,14 @@ class PersistenceBackedResultSet implements ResultSet {
   public boolean waitedForSchemaAgreement() {
     return false;
   }
+
+  private static class ProcessedColumns {
+    private final Schema schema;
+    private final ColumnIndex index;
+
+    private ProcessedColumns(Schema schema, ColumnIndex index) {
+      this.schema = schema;
+      this.index = index;
+    }
+  }
 }
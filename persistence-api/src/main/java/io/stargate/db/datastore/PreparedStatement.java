@@ -117,7 +117,8 @@ public interface PreparedStatement {
      *     <pre>
      *   query(...).thenAccept(rs -> { for (Row r : rs) {...} });
      * </pre>
-     *     Use {@link CompletableFuture#thenAcceptAsync} instead in that case.
+     *     Use {@link CompletableFuture#thenAcceptAsync} instead in that case, or consume the rows
+     *     through {@link ResultSet#publisher()}, which fetches further pages without blocking.
      */
     CompletableFuture<ResultSet> execute(UnaryOperator<Parameters> parametersModifier);
 
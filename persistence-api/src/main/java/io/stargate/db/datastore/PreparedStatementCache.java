@@ -0,0 +1,216 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.db.datastore;
+
+import com.datastax.oss.driver.shaded.guava.common.cache.Cache;
+import com.datastax.oss.driver.shaded.guava.common.cache.CacheBuilder;
+import io.stargate.db.EventListener;
+import io.stargate.db.Persistence;
+import io.stargate.db.datastore.PersistenceBackedPreparedStatement.PreparedInfo;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * A client-side cache of the statements prepared through {@link DataStore}s.
+ *
+ * <p>Data stores are usually short-lived (typically one per API request), but prepared statement
+ * ids are not tied to a particular connection, so a single cache is shared by all the data stores
+ * of a given {@link Persistence}. This allows repeated queries to skip the preparation round-trip
+ * entirely.
+ *
+ * <p>Entries are evicted in LRU order once the cache reaches its maximum size, and invalidated
+ * when the schema of the keyspace they target changes. If an entry is stale anyway (because the
+ * persistence evicted the statement on its side, for instance), execution fails with a {@link
+ * org.apache.cassandra.stargate.exceptions.PreparedQueryNotFoundException} and the statement is
+ * re-prepared and {@link #put re-cached}.
+ *
+ * <p>A statement being prepared while its keyspace changes may have been prepared against the old
+ * schema. So the cache has a version, incremented by each invalidation: a prepared statement is
+ * only cached if no invalidation happened since its preparation started (see {@link #version()}).
+ */
+class PreparedStatementCache implements EventListener {
+  private static final int MAX_SIZE =
+      Integer.getInteger("stargate.datastore.prepared_statement_cache_size", 5000);
+
+  private static final Map<Persistence, PreparedStatementCache> caches =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  private final Cache<Key, PreparedInfo> cache =
+      CacheBuilder.newBuilder().maximumSize(MAX_SIZE).build();
+
+  // Guarded by this, like the updates of the cache (but not its reads)
+  private long version;
+
+  PreparedStatementCache() {}
+
+  /** Returns the cache for the provided persistence, creating it on first use. */
+  static PreparedStatementCache of(Persistence persistence) {
+    return caches.computeIfAbsent(
+        persistence,
+        p -> {
+          PreparedStatementCache created = new PreparedStatementCache();
+          p.registerEventListener(created);
+          return created;
+        });
+  }
+
+  @Nullable
+  PreparedInfo get(String queryString, @Nullable String keyspace) {
+    return cache.getIfPresent(new Key(queryString, keyspace));
+  }
+
+  /**
+   * Returns the current version of the cache, to be passed to {@link #put} once the statement
+   * prepared after this call is ready.
+   */
+  synchronized long version() {
+    return version;
+  }
+
+  /**
+   * Caches a prepared statement, unless the cache was invalidated since {@code version} was read:
+   * the statement may then have been prepared against a schema that has changed.
+   */
+  synchronized void put(
+      String queryString, @Nullable String keyspace, PreparedInfo info, long version) {
+    if (version == this.version) {
+      cache.put(new Key(queryString, keyspace), info);
+    }
+  }
+
+  /**
+   * Invalidates all the entries that (may) depend on the provided keyspace, that is those whose
+   * query was prepared with it as default keyspace, whose metadata references it, or for which we
+   * don't know.
+   */
+  private synchronized void invalidate(String keyspace) {
+    version++;
+    cache
+        .asMap()
+        .entrySet()
+        .removeIf(
+            e ->
+                e.getValue().keyspace == null
+                    || e.getValue().keyspace.equals(keyspace)
+                    || keyspace.equals(e.getKey().keyspace));
+  }
+
+  @Override
+  public void onCreateKeyspace(String keyspace) {
+    invalidate(keyspace);
+  }
+
+  @Override
+  public void onCreateTable(String keyspace, String table) {
+    invalidate(keyspace);
+  }
+
+  @Override
+  public void onCreateType(String keyspace, String type) {
+    invalidate(keyspace);
+  }
+
+  @Override
+  public void onCreateFunction(String keyspace, String function, List<String> argumentTypes) {
+    invalidate(keyspace);
+  }
+
+  @Override
+  public void onCreateAggregate(String keyspace, String aggregate, List<String> argumentTypes) {
+    invalidate(keyspace);
+  }
+
+  @Override
+  public void onAlterKeyspace(String keyspace) {
+    invalidate(keyspace);
+  }
+
+  @Override
+  public void onAlterTable(String keyspace, String table) {
+    invalidate(keyspace);
+  }
+
+  @Override
+  public void onAlterType(String keyspace, String type) {
+    invalidate(keyspace);
+  }
+
+  @Override
+  public void onAlterFunction(String keyspace, String function, List<String> argumentTypes) {
+    invalidate(keyspace);
+  }
+
+  @Override
+  public void onAlterAggregate(String keyspace, String aggregate, List<String> argumentTypes) {
+    invalidate(keyspace);
+  }
+
+  @Override
+  public void onDropKeyspace(String keyspace) {
+    invalidate(keyspace);
+  }
+
+  @Override
+  public void onDropTable(String keyspace, String table) {
+    invalidate(keyspace);
+  }
+
+  @Override
+  public void onDropType(String keyspace, String type) {
+    invalidate(keyspace);
+  }
+
+  @Override
+  public void onDropFunction(String keyspace, String function, List<String> argumentTypes) {
+    invalidate(keyspace);
+  }
+
+  @Override
+  public void onDropAggregate(String keyspace, String aggregate, List<String> argumentTypes) {
+    invalidate(keyspace);
+  }
+
+  private static class Key {
+    private final String queryString;
+    @Nullable private final String keyspace;
+
+    private Key(String queryString, @Nullable String keyspace) {
+      this.queryString = queryString;
+      this.keyspace = keyspace;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return queryString.equals(that.queryString) && Objects.equals(keyspace, that.keyspace);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(queryString, keyspace);
+    }
+  }
+}
@@ -20,7 +20,9 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
 import javax.validation.constraints.NotNull;
+import org.reactivestreams.Publisher;
 
 public interface ResultSet extends Iterable<Row> {
   class Empty implements ResultSet {
@@ -61,6 +63,11 @@ public interface ResultSet extends Iterable<Row> {
       return null;
     }
 
+    @Override
+    public CompletableFuture<ResultSet> fetchNextPage() {
+      return CompletableFuture.completedFuture(this);
+    }
+
     @Override
     public boolean waitedForSchemaAgreement() {
       return waitedForSchemaAgreement;
@@ -105,6 +112,28 @@ public interface ResultSet extends Iterable<Row> {
 
   ByteBuffer getPagingState();
 
+  /**
+   * Fetches the next page of this result set without blocking.
+   *
+   * <p>The returned future completes with this result set once the rows of the next page have been
+   * appended to the fetched rows (see {@link #currentPageRows()}), or right away if all pages have
+   * already been fetched (that is, if {@link #getPagingState()} is {@code null}). Unlike the
+   * iteration methods, this is safe to use from a completion callback. The result set must not be
+   * otherwise accessed until the returned future completes.
+   */
+  CompletableFuture<ResultSet> fetchNextPage();
+
+  /**
+   * Returns a publisher of the rows of this result set not yet consumed, which fetches the
+   * following pages asynchronously as its subscriber requests rows.
+   *
+   * <p>The publisher supports a single subscriber, and the result set must not be otherwise
+   * accessed once it is subscribed to.
+   */
+  default Publisher<Row> publisher() {
+    return new RowPublisher(this);
+  }
+
   /** Returns true of this request waited for schema agreement. */
   default boolean waitedForSchemaAgreement() {
     return false;
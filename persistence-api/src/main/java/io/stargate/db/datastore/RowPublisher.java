@@ -0,0 +1,179 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.db.datastore;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * A {@link Publisher} of the rows of a {@link ResultSet}, backing {@link ResultSet#publisher()}.
+ *
+ * <p>Pages are fetched with {@link ResultSet#fetchNextPage()}, so no thread is ever blocked
+ * waiting on them. The next page is requested as soon as the subscriber demand exceeds the rows
+ * already buffered, which means it is usually fetched while the rows of the current page are still
+ * being processed. At most one page is fetched at a time.
+ */
+class RowPublisher implements Publisher<Row> {
+  private final ResultSet resultSet;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  RowPublisher(ResultSet resultSet) {
+    this.resultSet = resultSet;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super Row> subscriber) {
+    Objects.requireNonNull(subscriber);
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(
+          new Subscription() {
+            @Override
+            public void request(long n) {}
+
+            @Override
+            public void cancel() {}
+          });
+      subscriber.onError(
+          new IllegalStateException(
+              "The rows of a result set can only be published to a single subscriber"));
+      return;
+    }
+    subscriber.onSubscribe(new RowSubscription(subscriber));
+  }
+
+  private class RowSubscription implements Subscription {
+    private final Subscriber<? super Row> subscriber;
+    private final AtomicLong requested = new AtomicLong();
+    // Guards drain(), so that the subscriber is only ever signaled by one thread at a time.
+    private final AtomicInteger wip = new AtomicInteger();
+    // Only accessed within drain().
+    private final Deque<Row> buffered;
+
+    // Set by the thread completing a page fetch, and moved to 'buffered' within drain().
+    private volatile @Nullable List<Row> fetchedPage;
+    private volatile boolean fetching;
+    private volatile boolean cancelled;
+    private volatile @Nullable Throwable error;
+
+    private RowSubscription(Subscriber<? super Row> subscriber) {
+      this.subscriber = subscriber;
+      this.buffered = new ArrayDeque<>(resultSet.currentPageRows());
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        error = new IllegalArgumentException("Requested a non-positive number of rows: " + n);
+      } else {
+        requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      drain();
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        long demand = requested.get();
+        long emitted = 0;
+        while (true) {
+          if (cancelled) {
+            clear();
+            return;
+          }
+          Throwable e = error;
+          if (e != null) {
+            clear();
+            subscriber.onError(e);
+            return;
+          }
+          // Read the flag first: if no fetch is in progress, the page it fetched (if any) is
+          // guaranteed to be visible.
+          boolean idle = !fetching;
+          List<Row> page = fetchedPage;
+          if (page != null) {
+            fetchedPage = null;
+            buffered.addAll(page);
+          }
+          if (buffered.isEmpty() && idle && resultSet.getPagingState() == null) {
+            clear();
+            subscriber.onComplete();
+            return;
+          }
+          if (emitted == demand || buffered.isEmpty()) {
+            break;
+          }
+          subscriber.onNext(buffered.pollFirst());
+          emitted++;
+        }
+        if (emitted > 0 && demand != Long.MAX_VALUE) {
+          demand = requested.addAndGet(-emitted);
+        }
+        maybeFetchNextPage(demand);
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void maybeFetchNextPage(long demand) {
+      // A fetched page not moved to 'buffered' yet means drain() will run again shortly.
+      if (fetching
+          || fetchedPage != null
+          || buffered.size() >= demand
+          || resultSet.getPagingState() == null) {
+        return;
+      }
+      fetching = true;
+      resultSet
+          .fetchNextPage()
+          .whenComplete(
+              (rs, t) -> {
+                if (t == null) {
+                  fetchedPage = rs.currentPageRows();
+                } else {
+                  error =
+                      (t instanceof CompletionException && t.getCause() != null)
+                          ? t.getCause()
+                          : t;
+                }
+                fetching = false;
+                drain();
+              });
+    }
+
+    private void clear() {
+      buffered.clear();
+      fetchedPage = null;
+    }
+  }
+}
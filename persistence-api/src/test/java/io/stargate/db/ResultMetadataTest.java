@@ -0,0 +1,76 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.stargate.db.schema.Column;
+import io.stargate.db.schema.Column.Type;
+import io.stargate.db.schema.ImmutableColumn;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import org.apache.cassandra.stargate.utils.MD5Digest;
+import org.junit.jupiter.api.Test;
+
+public class ResultMetadataTest {
+  @Test
+  public void idDependsOnColumnSpecs() {
+    MD5Digest id = Result.ResultMetadata.computeResultMetadataId(columns(Type.Int));
+    assertThat(Result.ResultMetadata.computeResultMetadataId(columns(Type.Int))).isEqualTo(id);
+    assertThat(Result.ResultMetadata.computeResultMetadataId(columns(Type.Bigint)))
+        .isNotEqualTo(id);
+    assertThat(Result.ResultMetadata.EMPTY.resultMetadataId())
+        .isEqualTo(Result.ResultMetadata.computeResultMetadataId(Collections.emptyList()));
+  }
+
+  @Test
+  public void providedIdTakesPrecedence() {
+    MD5Digest provided = MD5Digest.compute("provided");
+    Result.ResultMetadata metadata = metadata(provided);
+    assertThat(metadata.resultMetadataId()).isEqualTo(provided);
+    assertThat(metadata(null).resultMetadataId())
+        .isEqualTo(Result.ResultMetadata.computeResultMetadataId(columns(Type.Int)));
+  }
+
+  @Test
+  public void metadataFlagsAreExclusive() {
+    Result.ResultMetadata metadata = metadata(null);
+
+    Result.ResultMetadata changed = metadata.withMetadataChanged();
+    assertThat(changed.flags)
+        .containsOnly(Result.Flag.HAS_MORE_PAGES, Result.Flag.METADATA_CHANGED);
+    assertThat(changed.resultMetadataId).isEqualTo(metadata.resultMetadataId());
+
+    Result.ResultMetadata skipped = changed.withoutColumns();
+    assertThat(skipped.flags).containsOnly(Result.Flag.HAS_MORE_PAGES, Result.Flag.NO_METADATA);
+    assertThat(skipped.columnCount).isEqualTo(2);
+    // The original is left untouched
+    assertThat(metadata.flags).containsOnly(Result.Flag.HAS_MORE_PAGES);
+  }
+
+  private static Result.ResultMetadata metadata(MD5Digest id) {
+    return new Result.ResultMetadata(
+        EnumSet.of(Result.Flag.HAS_MORE_PAGES), columns(Type.Int), id, null);
+  }
+
+  private static List<Column> columns(Type valueType) {
+    return Arrays.asList(
+        ImmutableColumn.builder().keyspace("ks").table("t").name("k").type(Type.Text).build(),
+        ImmutableColumn.builder().keyspace("ks").table("t").name("v").type(valueType).build());
+  }
+}
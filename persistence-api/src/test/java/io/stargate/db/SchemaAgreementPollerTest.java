@@ -0,0 +1,87 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class SchemaAgreementPollerTest {
+
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+  @AfterEach
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void completesOnceInAgreement() throws Exception {
+    AtomicInteger checks = new AtomicInteger();
+
+    CompletableFuture<Void> future =
+        SchemaAgreementPoller.poll(
+            () -> checks.incrementAndGet() >= 3, executor, 1, 10, TimeUnit.SECONDS);
+
+    future.get(10, TimeUnit.SECONDS);
+    assertThat(checks.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void doesNotBlockTheCaller() {
+    CompletableFuture<Void> future =
+        SchemaAgreementPoller.poll(() -> false, executor, 1, 10, TimeUnit.SECONDS);
+
+    assertThat(future).isNotDone();
+    future.cancel(false);
+  }
+
+  @Test
+  public void failsAfterTimeout() {
+    CompletableFuture<Void> future =
+        SchemaAgreementPoller.poll(() -> false, executor, 1, 50, TimeUnit.MILLISECONDS);
+
+    assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void failsIfCheckThrows() {
+    IllegalArgumentException failure = new IllegalArgumentException("no gossip state");
+    CompletableFuture<Void> future =
+        SchemaAgreementPoller.poll(
+            () -> {
+              throw failure;
+            },
+            executor,
+            1,
+            10,
+            TimeUnit.SECONDS);
+
+    assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCause(failure);
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.db.datastore;
+
+import com.datastax.oss.driver.api.core.ProtocolVersion;
+import io.stargate.db.schema.Column;
+import io.stargate.db.schema.Column.Type;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures by-name accesses on rows shaped like the Documents API ones (a key, 64 path columns, a
+ * leaf and 3 value columns), comparing the shared {@link ColumnIndex} with a linear scan of the
+ * columns.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=io.stargate.db.datastore.ArrayListBackedRowBenchmark} (or through your IDE).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArrayListBackedRowBenchmark {
+  private static final int PATH_COLUMNS = 64;
+  private static final ProtocolVersion VERSION = ProtocolVersion.DEFAULT;
+
+  private final List<Column> columns = new ArrayList<>();
+  private final String[] pathColumnNames = new String[PATH_COLUMNS];
+  private List<Row> rows;
+
+  @Setup
+  public void setup() {
+    columns.add(Column.create("key", Type.Text));
+    for (int i = 0; i < PATH_COLUMNS; i++) {
+      pathColumnNames[i] = "p" + i;
+      columns.add(Column.create(pathColumnNames[i], Type.Text));
+    }
+    columns.add(Column.create("leaf", Type.Text));
+    columns.add(Column.create("text_value", Type.Text));
+    columns.add(Column.create("dbl_value", Type.Double));
+    columns.add(Column.create("bool_value", Type.Boolean));
+
+    ColumnIndex index = new ColumnIndex(columns);
+    rows = new ArrayList<>(100);
+    for (int r = 0; r < 100; r++) {
+      rows.add(new ArrayListBackedRow(index, values(r), VERSION));
+    }
+  }
+
+  private List<ByteBuffer> values(int r) {
+    List<ByteBuffer> values = new ArrayList<>(columns.size());
+    for (Column column : columns) {
+      Object value;
+      if (column.type() == Type.Double) {
+        value = (double) r;
+      } else if (column.type() == Type.Boolean) {
+        value = r % 2 == 0;
+      } else {
+        value = column.name() + "-" + r;
+      }
+      values.add(column.type().codec().encode(value, VERSION));
+    }
+    return values;
+  }
+
+  @Benchmark
+  public void byNameWithSharedIndex(Blackhole bh) {
+    for (Row row : rows) {
+      for (String name : pathColumnNames) {
+        bh.consume(row.getString(name));
+      }
+      bh.consume(row.getDouble("dbl_value"));
+    }
+  }
+
+  @Benchmark
+  public void byNameWithLinearScan(Blackhole bh) {
+    for (Row row : rows) {
+      for (String name : pathColumnNames) {
+        bh.consume(row.getString(linearIndexOf(name)));
+      }
+      bh.consume(row.getDouble(linearIndexOf("dbl_value")));
+    }
+  }
+
+  @Benchmark
+  public void byIndex(Blackhole bh) {
+    for (Row row : rows) {
+      for (int i = 1; i <= PATH_COLUMNS; i++) {
+        bh.consume(row.getString(i));
+      }
+      bh.consume(row.getDouble(PATH_COLUMNS + 3));
+    }
+  }
+
+  // The lookup ArrayListBackedRow used before ColumnIndex
+  private int linearIndexOf(String name) {
+    for (int i = 0; i < columns.size(); i++) {
+      if (columns.get(i).name().equals(name)) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException(name);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(ArrayListBackedRowBenchmark.class.getSimpleName())
+                .build())
+        .run();
+  }
+}
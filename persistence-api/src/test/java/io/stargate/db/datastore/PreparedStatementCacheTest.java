@@ -0,0 +1,100 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.db.datastore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.stargate.db.Result;
+import io.stargate.db.datastore.PersistenceBackedPreparedStatement.PreparedInfo;
+import io.stargate.db.schema.Column;
+import io.stargate.db.schema.Column.Type;
+import io.stargate.db.schema.ImmutableColumn;
+import java.util.Collections;
+import java.util.EnumSet;
+import org.apache.cassandra.stargate.utils.MD5Digest;
+import org.junit.jupiter.api.Test;
+
+public class PreparedStatementCacheTest {
+  private static final String QUERY = "SELECT v FROM t WHERE k = ?";
+
+  private final PreparedStatementCache cache = new PreparedStatementCache();
+
+  @Test
+  public void returnsCachedStatement() {
+    PreparedInfo info = prepared("ks");
+    cache.put(QUERY, "ks", info, cache.version());
+
+    assertThat(cache.get(QUERY, "ks")).isSameAs(info);
+    assertThat(cache.get(QUERY, "other")).isNull();
+    assertThat(cache.get(QUERY, null)).isNull();
+  }
+
+  @Test
+  public void invalidatesOnSchemaChangeOfKeyspace() {
+    cache.put(QUERY, "ks", prepared("ks"), cache.version());
+    PreparedInfo other = prepared("other");
+    cache.put(QUERY, "other", other, cache.version());
+
+    cache.onAlterTable("ks", "t");
+
+    assertThat(cache.get(QUERY, "ks")).isNull();
+    assertThat(cache.get(QUERY, "other")).isSameAs(other);
+  }
+
+  @Test
+  public void invalidatesStatementsOfUnknownKeyspace() {
+    cache.put(QUERY, null, prepared(null), cache.version());
+
+    cache.onDropTable("ks", "t");
+
+    assertThat(cache.get(QUERY, null)).isNull();
+  }
+
+  @Test
+  public void doesNotCacheStatementPreparedDuringInvalidation() {
+    // The preparation starts, then the schema changes before it completes
+    long version = cache.version();
+    cache.onAlterTable("ks", "t");
+    cache.put(QUERY, "ks", prepared("ks"), version);
+
+    assertThat(cache.get(QUERY, "ks")).isNull();
+
+    // The next preparation is cached
+    PreparedInfo info = prepared("ks");
+    cache.put(QUERY, "ks", info, cache.version());
+    assertThat(cache.get(QUERY, "ks")).isSameAs(info);
+  }
+
+  private static PreparedInfo prepared(String keyspace) {
+    Column column =
+        ImmutableColumn.builder()
+            .keyspace(keyspace)
+            .table("t")
+            .name("k")
+            .type(Type.Int)
+            .kind(Column.Kind.PartitionKey)
+            .build();
+    return new PreparedInfo(
+        new Result.Prepared(
+            MD5Digest.compute(QUERY),
+            null,
+            null,
+            new Result.PreparedMetadata(
+                EnumSet.noneOf(Result.Flag.class),
+                Collections.singletonList(column),
+                new short[] {0})));
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright The Stargate Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.stargate.db.datastore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.datastax.oss.driver.api.core.ProtocolVersion;
+import io.stargate.db.schema.Column;
+import io.stargate.db.schema.Column.Type;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+public class RowPublisherTest {
+  private static final ColumnIndex COLUMNS =
+      new ColumnIndex(Collections.singletonList(Column.create("v", Type.Int)));
+
+  @Test
+  public void publishesAllPagesAccordingToDemand() {
+    PagedResultSet rs = new PagedResultSet(3, 3, 2);
+    TestSubscriber subscriber = new TestSubscriber();
+    rs.publisher().subscribe(subscriber);
+
+    subscriber.subscription.request(2);
+    assertThat(subscriber.values).containsExactly(0, 1);
+    // One row is still buffered, which covers the demand: no fetch yet.
+    assertThat(rs.pendingFetch).isNull();
+
+    subscriber.subscription.request(3);
+    assertThat(subscriber.values).containsExactly(0, 1, 2);
+    assertThat(rs.pendingFetch).isNotNull();
+
+    rs.completePendingFetch();
+    assertThat(subscriber.values).containsExactly(0, 1, 2, 3, 4);
+    assertThat(subscriber.completed).isFalse();
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertThat(subscriber.values).containsExactly(0, 1, 2, 3, 4, 5);
+    rs.completePendingFetch();
+    assertThat(subscriber.values).containsExactly(0, 1, 2, 3, 4, 5, 6, 7);
+    assertThat(subscriber.completed).isTrue();
+    assertThat(subscriber.error).isNull();
+  }
+
+  @Test
+  public void propagatesPageFetchFailures() {
+    PagedResultSet rs = new PagedResultSet(1, 1);
+    TestSubscriber subscriber = new TestSubscriber();
+    rs.publisher().subscribe(subscriber);
+
+    subscriber.subscription.request(10);
+    RuntimeException failure = new RuntimeException("page failed");
+    rs.pendingFetch.completeExceptionally(failure);
+
+    assertThat(subscriber.values).containsExactly(0);
+    assertThat(subscriber.error).isSameAs(failure);
+    assertThat(subscriber.completed).isFalse();
+  }
+
+  @Test
+  public void rejectsSecondSubscriber() {
+    Publisher<Row> publisher = new PagedResultSet(1).publisher();
+    publisher.subscribe(new TestSubscriber());
+
+    TestSubscriber second = new TestSubscriber();
+    publisher.subscribe(second);
+    assertThat(second.error).isInstanceOf(IllegalStateException.class);
+  }
+
+  private static Row row(int value) {
+    List<ByteBuffer> values =
+        Collections.singletonList(Type.Int.codec().encode(value, ProtocolVersion.DEFAULT));
+    return new ArrayListBackedRow(COLUMNS, values, ProtocolVersion.DEFAULT);
+  }
+
+  /** A result set whose pages are only delivered when the test completes the pending fetch. */
+  private static class PagedResultSet implements ResultSet {
+    private final Deque<List<Row>> remainingPages = new ArrayDeque<>();
+    private final Deque<Row> fetchedRows = new ArrayDeque<>();
+    private CompletableFuture<ResultSet> pendingFetch;
+
+    private PagedResultSet(int... pageSizes) {
+      int value = 0;
+      for (int size : pageSizes) {
+        List<Row> page = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+          page.add(row(value++));
+        }
+        remainingPages.add(page);
+      }
+      fetchedRows.addAll(remainingPages.poll());
+    }
+
+    void completePendingFetch() {
+      CompletableFuture<ResultSet> fetch = pendingFetch;
+      pendingFetch = null;
+      fetchedRows.addAll(remainingPages.poll());
+      fetch.complete(this);
+    }
+
+    @Override
+    public CompletableFuture<ResultSet> fetchNextPage() {
+      assertThat(pendingFetch).isNull();
+      pendingFetch = new CompletableFuture<>();
+      return pendingFetch;
+    }
+
+    @Override
+    public ByteBuffer getPagingState() {
+      return remainingPages.isEmpty() ? null : ByteBuffer.allocate(1);
+    }
+
+    @Override
+    public List<Row> currentPageRows() {
+      List<Row> rows = new ArrayList<>(fetchedRows);
+      fetchedRows.clear();
+      return rows;
+    }
+
+    @Override
+    public Iterator<Row> iterator() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Row one() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Row> rows() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean hasNoMoreFetchedRows() {
+      return fetchedRows.isEmpty();
+    }
+  }
+
+  private static class TestSubscriber implements Subscriber<Row> {
+    private final List<Integer> values = new ArrayList<>();
+    private Subscription subscription;
+    private Throwable error;
+    private boolean completed;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(Row row) {
+      values.add(row.getInt(0));
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      error = t;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+}
@@ -155,6 +155,7 @@ public class CassandraPersistenceActivator implements BundleActivator, ServiceLi
       File baseDir = Files.createTempDirectory("stargate-cassandra-3.11").toFile();
 
       cassandraDB.initialize(makeConfig(baseDir));
+      cassandraDB.registerMetrics(CassandraMetricsRegistry.actualRegistry);
     } catch (IOException e) {
       logger.error("Error initializing cassandra persistance", e);
       throw new IOError(e);
@@ -17,6 +17,8 @@ package io.stargate.db.cassandra.impl;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import io.stargate.db.BatchType;
 import io.stargate.db.Parameters;
@@ -32,11 +34,13 @@ import java.net.InetAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.cql3.ColumnSpecification;
 import org.apache.cassandra.cql3.QueryOptions;
@@ -90,6 +94,14 @@ public class Conversion {
   private static final NoSpamLogger noSpamLogger =
       NoSpamLogger.getLogger(LOG, 5L, TimeUnit.MINUTES);
 
+  // Result set columns converted by toResultMetadata, by internal column specifications. C*
+  // copies the result metadata for every execution of a statement, but the list of column
+  // specifications is shared by all those copies, so this lets us convert the columns once per
+  // (prepared) statement. Keys are weak and compared by identity, so entries go away with their
+  // statement. The cache is also cleared on schema changes, see invalidateResultColumns.
+  private static final Cache<List<ColumnSpecification>, List<Column>> resultColumnsCache =
+      CacheBuilder.newBuilder().weakKeys().build();
+
   // A number of constructors for classes related to QueryOptions but that are not accessible in C*
   // at the moment and need to be accessed through reflection.
 
@@ -376,21 +388,43 @@ public class Conversion {
     return e;
   }
 
-  public static Result.ResultMetadata toResultMetadata(
-      org.apache.cassandra.cql3.ResultSet.ResultMetadata metadata,
-      org.apache.cassandra.transport.ProtocolVersion version) {
-    List<Column> columns = new ArrayList<>();
-    if (metadata.names != null) {
-      metadata.names.forEach(
+  private static List<Column> toResultColumns(@Nullable List<ColumnSpecification> names) {
+    if (names == null) {
+      return Collections.emptyList();
+    }
+    List<Column> columns = resultColumnsCache.getIfPresent(names);
+    // C* may add (non-serialized) columns to the specifications while building a statement, so
+    // don't trust an entry that doesn't match anymore.
+    if (columns == null || columns.size() != names.size()) {
+      List<Column> converted = new ArrayList<>(names.size());
+      names.forEach(
           c ->
-              columns.add(
+              converted.add(
                   ImmutableColumn.builder()
                       .keyspace(c.ksName)
                       .table(c.cfName)
                       .name(c.name.toString())
                       .type(getTypeFromInternal(c.type))
                       .build()));
+      columns = Collections.unmodifiableList(converted);
+      resultColumnsCache.put(names, columns);
     }
+    return columns;
+  }
+
+  /**
+   * Clears the result set columns cached by {@link #toResultMetadata}, which must be done when the
+   * schema changes since the converted types may be outdated (a user type may have been altered,
+   * for instance).
+   */
+  public static void invalidateResultColumns() {
+    resultColumnsCache.invalidateAll();
+  }
+
+  public static Result.ResultMetadata toResultMetadata(
+      org.apache.cassandra.cql3.ResultSet.ResultMetadata metadata,
+      org.apache.cassandra.transport.ProtocolVersion version) {
+    List<Column> columns = toResultColumns(metadata.names);
 
     EnumSet<Result.Flag> flags = EnumSet.noneOf(Result.Flag.class);
 
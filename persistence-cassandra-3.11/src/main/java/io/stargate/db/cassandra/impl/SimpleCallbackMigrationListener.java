@@ -6,107 +6,109 @@ import org.apache.cassandra.service.MigrationListener;
 
 /**
  * Simple abstract {@link MigrationListener} implementation that funnels all the discrete schema
- * changes through a single no-argument callback (the {@link #onSchemaChange()}). For when we want
- * to do "something" on schema changes, but that something doesn't depend on the details of the
- * schema change.
+ * changes through two callbacks: {@link #onTableChange} for the creation, update and drop of a
+ * table, and {@link #onKeyspaceChange} for any other change. For when we want to do "something" on
+ * schema changes that only depends on which keyspace or table changed.
  */
 abstract class SimpleCallbackMigrationListener extends MigrationListener {
 
-  abstract void onSchemaChange();
+  abstract void onKeyspaceChange(String keyspace);
+
+  abstract void onTableChange(String keyspace, String table);
 
   @Override
   public void onCreateKeyspace(String keyspace) {
-    onSchemaChange();
+    onKeyspaceChange(keyspace);
   }
 
   @Override
   public void onCreateColumnFamily(String keyspace, String table) {
-    onSchemaChange();
+    onTableChange(keyspace, table);
   }
 
   @Override
   public void onCreateView(String keyspace, String view) {
-    onSchemaChange();
+    onKeyspaceChange(keyspace);
   }
 
   @Override
   public void onCreateUserType(String keyspace, String type) {
-    onSchemaChange();
+    onKeyspaceChange(keyspace);
   }
 
   @Override
   public void onCreateFunction(
       String keyspace, String function, List<AbstractType<?>> argumentTypes) {
-    onSchemaChange();
+    onKeyspaceChange(keyspace);
   }
 
   @Override
   public void onCreateAggregate(
       String keyspace, String aggregate, List<AbstractType<?>> argumentTypes) {
-    onSchemaChange();
+    onKeyspaceChange(keyspace);
   }
 
   @Override
   public void onUpdateKeyspace(String keyspace) {
-    onSchemaChange();
+    onKeyspaceChange(keyspace);
   }
 
   @Override
   public void onUpdateColumnFamily(String keyspace, String table, boolean affectsStatements) {
-    onSchemaChange();
+    onTableChange(keyspace, table);
   }
 
   @Override
   public void onUpdateView(String keyspace, String view, boolean affectsStatements) {
-    onSchemaChange();
+    onKeyspaceChange(keyspace);
   }
 
   @Override
   public void onUpdateUserType(String keyspace, String type) {
-    onSchemaChange();
+    onKeyspaceChange(keyspace);
   }
 
   @Override
   public void onUpdateFunction(
       String keyspace, String function, List<AbstractType<?>> argumentTypes) {
-    onSchemaChange();
+    onKeyspaceChange(keyspace);
   }
 
   @Override
   public void onUpdateAggregate(
       String keyspace, String aggregate, List<AbstractType<?>> argumentTypes) {
-    onSchemaChange();
+    onKeyspaceChange(keyspace);
   }
 
   @Override
   public void onDropKeyspace(String keyspace) {
-    onSchemaChange();
+    onKeyspaceChange(keyspace);
   }
 
   @Override
   public void onDropColumnFamily(String keyspace, String table) {
-    onSchemaChange();
+    onTableChange(keyspace, table);
   }
 
   @Override
   public void onDropView(String keyspace, String view) {
-    onSchemaChange();
+    onKeyspaceChange(keyspace);
   }
 
   @Override
   public void onDropUserType(String keyspace, String type) {
-    onSchemaChange();
+    onKeyspaceChange(keyspace);
   }
 
   @Override
   public void onDropFunction(
       String keyspace, String function, List<AbstractType<?>> argumentTypes) {
-    onSchemaChange();
+    onKeyspaceChange(keyspace);
   }
 
   @Override
   public void onDropAggregate(
       String keyspace, String aggregate, List<AbstractType<?>> argumentTypes) {
-    onSchemaChange();
+    onKeyspaceChange(keyspace);
   }
 }
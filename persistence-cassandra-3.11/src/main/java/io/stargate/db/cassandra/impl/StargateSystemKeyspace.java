@@ -28,6 +28,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.cassandra.concurrent.Stage;
 import org.apache.cassandra.concurrent.StageManager;
 import org.apache.cassandra.config.CFMetaData;
@@ -66,6 +67,9 @@ public class StargateSystemKeyspace {
 
   public static final UUID SCHEMA_VERSION = UUID.fromString("17846767-28a1-4acd-a967-f609ff1375f1");
 
+  // Incremented after every update of the tables, so that query results can be cached until then.
+  private static final AtomicLong contentVersion = new AtomicLong();
+
   public static final CFMetaData Local =
       compile(
           LOCAL_TABLE_NAME,
@@ -165,6 +169,15 @@ public class StargateSystemKeyspace {
         SystemKeyspace.getLocalHostId(),
         Collections.singleton(DatabaseDescriptor.getPartitioner().getMinimumToken().toString()),
         SCHEMA_VERSION);
+    contentVersion.incrementAndGet();
+  }
+
+  /**
+   * A version of the content of the tables, which changes every time they are updated. Results
+   * read from the tables remain valid as long as this doesn't change.
+   */
+  public static long contentVersion() {
+    return contentVersion.get();
   }
 
   public static boolean isSystemLocal(SelectStatement statement) {
@@ -197,17 +210,17 @@ public class StargateSystemKeyspace {
 
     String req = "INSERT INTO %s.%s (peer, %s) VALUES (?, ?)";
     return executorService.submit(
-        (Runnable)
-            () ->
-                executeInternal(
-                    String.format(req, SYSTEM_KEYSPACE_NAME, PEERS_TABLE_NAME, columnName),
-                    ep,
-                    value));
+        () -> {
+          executeInternal(
+              String.format(req, SYSTEM_KEYSPACE_NAME, PEERS_TABLE_NAME, columnName), ep, value);
+          contentVersion.incrementAndGet();
+        });
   }
 
   public static void removeEndpoint(InetAddress ep) {
     String req = "DELETE FROM %s.%s WHERE peer = ?";
     executeInternal(String.format(req, SYSTEM_KEYSPACE_NAME, PEERS_TABLE_NAME), ep);
+    contentVersion.incrementAndGet();
     forceBlockingFlush(PEERS_TABLE_NAME);
   }
 
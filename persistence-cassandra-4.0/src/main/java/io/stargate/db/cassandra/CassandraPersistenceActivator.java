@@ -137,6 +137,7 @@ public class CassandraPersistenceActivator implements BundleActivator, ServiceLi
       File baseDir = Files.createTempDirectory("stargate-cassandra-4.0").toFile();
 
       cassandraDB.initialize(makeConfig(baseDir));
+      cassandraDB.registerMetrics(CassandraMetricsRegistry.actualRegistry);
     } catch (IOException e) {
       logger.error("Error initializing cassandra persistence", e);
       throw new IOError(e);
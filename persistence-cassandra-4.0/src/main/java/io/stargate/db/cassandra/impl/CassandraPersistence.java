@@ -2,6 +2,7 @@ package io.stargate.db.cassandra.impl;
 
 import static org.apache.cassandra.concurrent.SharedExecutorPool.SHARED;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.Uninterruptibles;
 import io.stargate.db.Authenticator;
@@ -17,17 +18,19 @@ import io.stargate.db.Statement;
 import io.stargate.db.cassandra.impl.interceptors.DefaultQueryInterceptor;
 import io.stargate.db.cassandra.impl.interceptors.QueryInterceptor;
 import io.stargate.db.datastore.common.AbstractCassandraPersistence;
+import io.stargate.db.datastore.common.BoundedRequestExecutor;
 import java.io.IOException;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.cassandra.auth.AuthenticatedUser;
@@ -42,6 +45,8 @@ import org.apache.cassandra.exceptions.AuthenticationException;
 import org.apache.cassandra.gms.ApplicationState;
 import org.apache.cassandra.gms.EndpointState;
 import org.apache.cassandra.gms.Gossiper;
+import org.apache.cassandra.gms.IEndpointStateChangeSubscriber;
+import org.apache.cassandra.gms.VersionedValue;
 import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.schema.IndexMetadata;
 import org.apache.cassandra.schema.KeyspaceMetadata;
@@ -92,6 +97,7 @@ public class CassandraPersistence
           3 * 60000); // MigrationManager.MIGRATION_DELAY_IN_MS is private
 
   private LocalAwareExecutorService executor;
+  private BoundedRequestExecutor requestExecutor;
 
   private CassandraDaemon daemon;
   private Authenticator authenticator;
@@ -119,12 +125,19 @@ public class CassandraPersistence
   }
 
   @Override
-  protected void registerInternalSchemaListener(Runnable runOnSchemaChange) {
+  protected void registerInternalSchemaListener(SchemaChangeCallback callback) {
     schemaChangeListener =
         new SimpleCallbackMigrationListener() {
           @Override
-          void onSchemaChange() {
-            runOnSchemaChange.run();
+          void onKeyspaceChange(String keyspace) {
+            Conversion.invalidateResultColumns();
+            callback.onKeyspaceChange(keyspace);
+          }
+
+          @Override
+          void onTableChange(String keyspace, String table) {
+            Conversion.invalidateResultColumns();
+            callback.onTableChange(keyspace, table);
           }
         };
     org.apache.cassandra.schema.Schema.instance.registerListener(schemaChangeListener);
@@ -160,6 +173,11 @@ public class CassandraPersistence
             Integer.MAX_VALUE,
             "transport",
             "Native-Transport-Requests");
+    requestExecutor =
+        new BoundedRequestExecutor(
+            executor,
+            BoundedRequestExecutor.DEFAULT_MAX_QUEUED,
+            () -> DatabaseDescriptor.getRpcTimeout(TimeUnit.MILLISECONDS));
 
     // Use special gossip state "X10" to differentiate stargate nodes
     Gossiper.instance.addLocalApplicationState(
@@ -167,6 +185,8 @@ public class CassandraPersistence
 
     daemon.start();
 
+    Gossiper.instance.register(new SchemaAgreementNotifier());
+
     waitForSchema(STARTUP_DELAY_MS);
 
     authenticator = new AuthenticatorWrapper(DatabaseDescriptor.getAuthenticator());
@@ -230,11 +250,18 @@ public class CassandraPersistence
     return new CassandraConnection();
   }
 
+  @Override
+  public void registerMetrics(MetricRegistry registry) {
+    super.registerMetrics(registry);
+    requestExecutor.registerMetrics(registry);
+  }
+
   private <T extends Result> CompletableFuture<T> runOnExecutor(
-      Supplier<T> supplier, boolean captureWarnings) {
-    assert executor != null : "This persistence has not been initialized";
+      long queryStartNanoTime, Supplier<T> supplier, boolean captureWarnings) {
+    assert requestExecutor != null : "This persistence has not been initialized";
     CompletableFuture<T> future = new CompletableFuture<>();
-    executor.submit(
+    requestExecutor.execute(
+        queryStartNanoTime,
         () -> {
           if (captureWarnings) ClientWarn.instance.captureWarnings();
           try {
@@ -254,7 +281,8 @@ public class CassandraPersistence
             // Note that it's a no-op if we haven't called captureWarnings
             ClientWarn.instance.resetWarnings();
           }
-        });
+        },
+        future::completeExceptionally);
 
     return future;
   }
@@ -270,16 +298,79 @@ public class CassandraPersistence
     // Important: This must include all nodes including fat clients, otherwise we'll get write
     // errors
     // with INCOMPATIBLE_SCHEMA.
-    return Gossiper.instance.getLiveMembers().stream()
-            .filter(
-                ep -> {
-                  EndpointState epState = Gossiper.instance.getEndpointStateForEndpoint(ep);
-                  return epState != null && !Gossiper.instance.isDeadState(epState);
-                })
-            .map(Gossiper.instance::getSchemaVersion)
-            .collect(Collectors.toSet())
-            .size()
-        <= 1;
+
+    // This is called on every notification of gossip state change while someone is waiting on
+    // schema agreement, so we compare the versions to the first one rather than collect them.
+    boolean first = true;
+    UUID version = null;
+    for (org.apache.cassandra.locator.InetAddressAndPort ep : Gossiper.instance.getLiveMembers()) {
+      EndpointState epState = Gossiper.instance.getEndpointStateForEndpoint(ep);
+      if (epState == null || Gossiper.instance.isDeadState(epState)) {
+        continue;
+      }
+      UUID epVersion = Gossiper.instance.getSchemaVersion(ep);
+      if (first) {
+        version = epVersion;
+        first = false;
+      } else if (!Objects.equals(version, epVersion)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Notifies the schema agreement watcher of the gossip changes that can affect agreement: schema
+   * version changes, and nodes joining, leaving, going up or down.
+   */
+  private class SchemaAgreementNotifier implements IEndpointStateChangeSubscriber {
+    @Override
+    public void onJoin(
+        org.apache.cassandra.locator.InetAddressAndPort endpoint, EndpointState epState) {
+      onEndpointStateChange();
+    }
+
+    @Override
+    public void beforeChange(
+        org.apache.cassandra.locator.InetAddressAndPort endpoint,
+        EndpointState currentState,
+        ApplicationState newStateKey,
+        VersionedValue newValue) {}
+
+    @Override
+    public void onChange(
+        org.apache.cassandra.locator.InetAddressAndPort endpoint,
+        ApplicationState state,
+        VersionedValue value) {
+      if (state == ApplicationState.STATUS
+          || state == ApplicationState.STATUS_WITH_PORT
+          || state == ApplicationState.SCHEMA) {
+        onEndpointStateChange();
+      }
+    }
+
+    @Override
+    public void onAlive(
+        org.apache.cassandra.locator.InetAddressAndPort endpoint, EndpointState state) {
+      onEndpointStateChange();
+    }
+
+    @Override
+    public void onDead(
+        org.apache.cassandra.locator.InetAddressAndPort endpoint, EndpointState state) {
+      onEndpointStateChange();
+    }
+
+    @Override
+    public void onRemove(org.apache.cassandra.locator.InetAddressAndPort endpoint) {
+      onEndpointStateChange();
+    }
+
+    @Override
+    public void onRestart(
+        org.apache.cassandra.locator.InetAddressAndPort endpoint, EndpointState state) {
+      onEndpointStateChange();
+    }
   }
 
   /**
@@ -349,6 +440,7 @@ public class CassandraPersistence
     private <T extends Result> CompletableFuture<T> executeRequestOnExecutor(
         Parameters parameters, long queryStartNanoTime, Supplier<Request> requestSupplier) {
       return runOnExecutor(
+          queryStartNanoTime,
           () -> {
             QueryState queryState = new QueryState(clientState);
             Request request = requestSupplier.get();
@@ -396,9 +488,11 @@ public class CassandraPersistence
               String queryString = ((SimpleStatement) statement).queryString();
               return new QueryMessage(queryString, options);
             } else {
-              MD5Digest id = Conversion.toInternal(((BoundStatement) statement).preparedId());
-              // The 'resultMetadataId' is a protocol v5 feature we don't yet support
-              return new ExecuteMessage(id, null, options);
+              BoundStatement boundStatement = (BoundStatement) statement;
+              MD5Digest id = Conversion.toInternal(boundStatement.preparedId());
+              MD5Digest resultMetadataId =
+                  boundStatement.resultMetadataId().map(Conversion::toInternal).orElse(null);
+              return new ExecuteMessage(id, resultMetadataId, options);
             }
           });
     }
@@ -2,6 +2,8 @@ package io.stargate.db.cassandra.impl;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import io.stargate.db.BatchType;
 import io.stargate.db.Parameters;
@@ -13,11 +15,13 @@ import io.stargate.db.schema.ImmutableUserDefinedType;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import org.apache.cassandra.cql3.ColumnSpecification;
 import org.apache.cassandra.cql3.QueryHandler;
 import org.apache.cassandra.cql3.QueryOptions;
@@ -52,6 +56,13 @@ public class Conversion {
   private static final NoSpamLogger noSpamLogger =
       NoSpamLogger.getLogger(logger, 5L, TimeUnit.MINUTES);
 
+  // Result set columns converted by toResultMetadata, keyed by the list of internal column
+  // specifications, which all the executions of a prepared statement share. Keys are weak and
+  // compared by identity, so entries go away with their statement, and the cache is cleared on
+  // schema changes, see invalidateResultColumns.
+  private static final Cache<List<ColumnSpecification>, List<Column>> resultColumnsCache =
+      CacheBuilder.newBuilder().weakKeys().build();
+
   private static final Map<Class<? extends AbstractType>, Column.Type> TYPE_MAPPINGS;
 
   static {
@@ -289,21 +300,37 @@ public class Conversion {
     return e;
   }
 
-  public static Result.ResultMetadata toResultMetadata(
-      org.apache.cassandra.cql3.ResultSet.ResultMetadata metadata,
-      org.apache.cassandra.transport.ProtocolVersion version) {
-    List<Column> columns = new ArrayList<>();
-    if (metadata.names != null) {
-      metadata.names.forEach(
+  private static List<Column> toResultColumns(@Nullable List<ColumnSpecification> names) {
+    if (names == null) {
+      return Collections.emptyList();
+    }
+    List<Column> columns = resultColumnsCache.getIfPresent(names);
+    if (columns == null || columns.size() != names.size()) {
+      List<Column> converted = new ArrayList<>(names.size());
+      names.forEach(
           c ->
-              columns.add(
+              converted.add(
                   ImmutableColumn.builder()
                       .keyspace(c.ksName)
                       .table(c.cfName)
                       .name(c.name.toString())
                       .type(getTypeFromInternal(c.type))
                       .build()));
+      columns = Collections.unmodifiableList(converted);
+      resultColumnsCache.put(names, columns);
     }
+    return columns;
+  }
+
+  /** Clears the result set columns cached by {@link #toResultMetadata}, on schema changes. */
+  public static void invalidateResultColumns() {
+    resultColumnsCache.invalidateAll();
+  }
+
+  public static Result.ResultMetadata toResultMetadata(
+      org.apache.cassandra.cql3.ResultSet.ResultMetadata metadata,
+      org.apache.cassandra.transport.ProtocolVersion version) {
+    List<Column> columns = toResultColumns(metadata.names);
 
     EnumSet<Result.Flag> flags = EnumSet.noneOf(Result.Flag.class);
     metadata.getFlags().forEach(f -> flags.add(Result.Flag.fromId(f.ordinal() + 1)));
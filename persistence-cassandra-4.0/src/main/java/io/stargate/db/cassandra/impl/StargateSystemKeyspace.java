@@ -15,6 +15,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.cql3.CQLStatement;
 import org.apache.cassandra.cql3.QueryProcessor;
@@ -59,6 +60,9 @@ public class StargateSystemKeyspace {
 
   public static final UUID SCHEMA_VERSION = UUID.fromString("17846767-28a1-4acd-a967-f609ff1375f1");
 
+  // Incremented after every update of the tables, so that query results can be cached until then.
+  private static final AtomicLong contentVersion = new AtomicLong();
+
   public static final TableMetadata Local =
       parse(
               LOCAL_TABLE_NAME,
@@ -199,6 +203,15 @@ public class StargateSystemKeyspace {
         SystemKeyspace.getLocalHostId(),
         Collections.singleton(DatabaseDescriptor.getPartitioner().getMinimumToken().toString()),
         SCHEMA_VERSION);
+    contentVersion.incrementAndGet();
+  }
+
+  /**
+   * A version of the content of the tables, which changes every time they are updated. Results
+   * read from the tables remain valid as long as this doesn't change.
+   */
+  public static long contentVersion() {
+    return contentVersion.get();
   }
 
   public static boolean isSystemPeers(SelectStatement statement) {
@@ -242,6 +255,7 @@ public class StargateSystemKeyspace {
         ep.address,
         ep.port,
         value);
+    contentVersion.incrementAndGet();
   }
 
   public static synchronized void updatePeerNativeAddress(
@@ -258,6 +272,7 @@ public class StargateSystemKeyspace {
         ep.port,
         address.address,
         address.port);
+    contentVersion.incrementAndGet();
   }
 
   public static synchronized void removeEndpoint(InetAddressAndPort ep) {
@@ -268,6 +283,7 @@ public class StargateSystemKeyspace {
             "DELETE FROM %s.%s WHERE peer = ? AND peer_port = ?",
             SYSTEM_KEYSPACE_NAME, PEERS_V2_TABLE_NAME);
     executeInternal(req, ep.address, ep.port);
+    contentVersion.incrementAndGet();
     forceBlockingFlush(PEERS_TABLE_NAME, PEERS_V2_TABLE_NAME);
   }
 
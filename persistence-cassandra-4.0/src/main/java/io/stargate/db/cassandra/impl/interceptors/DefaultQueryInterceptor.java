@@ -7,14 +7,21 @@ import static io.stargate.db.cassandra.impl.StargateSystemKeyspace.isSystemPeers
 
 import com.google.common.collect.Sets;
 import io.stargate.db.cassandra.impl.StargateSystemKeyspace;
+import io.stargate.db.datastore.common.SystemQueryCache;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.Nullable;
 import org.apache.cassandra.cql3.CQLStatement;
+import org.apache.cassandra.cql3.ColumnIdentifier;
+import org.apache.cassandra.cql3.ColumnSpecification;
 import org.apache.cassandra.cql3.QueryOptions;
 import org.apache.cassandra.cql3.ResultSet;
+import org.apache.cassandra.cql3.restrictions.StatementRestrictions;
 import org.apache.cassandra.cql3.statements.SelectStatement;
 import org.apache.cassandra.gms.ApplicationState;
 import org.apache.cassandra.gms.EndpointState;
@@ -22,6 +29,7 @@ import org.apache.cassandra.gms.Gossiper;
 import org.apache.cassandra.gms.IEndpointStateChangeSubscriber;
 import org.apache.cassandra.gms.VersionedValue;
 import org.apache.cassandra.locator.InetAddressAndPort;
+import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.schema.Schema;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.service.IEndpointLifecycleSubscriber;
@@ -32,11 +40,17 @@ import org.apache.cassandra.transport.messages.ResultMessage;
  * A default interceptor implementation that returns only stargate nodes for `system.peers` queries,
  * but also returns only the same, single token for all stargate nodes (they all own the whole ring)
  * for both `system.local` and `system.peers` tables.
+ *
+ * <p>Drivers query those tables on every new connection and every refresh of their control
+ * connection, always with the same few queries, while the tables only change on gossip events. So
+ * the results of those queries are kept in memory, and only read again from the tables after they
+ * change (see {@link StargateSystemKeyspace#contentVersion()}).
  */
 public class DefaultQueryInterceptor implements QueryInterceptor, IEndpointStateChangeSubscriber {
 
   private final List<IEndpointLifecycleSubscriber> subscribers = new CopyOnWriteArrayList<>();
   private final Set<InetAddressAndPort> liveStargateNodes = Sets.newConcurrentHashSet();
+  private final SystemQueryCache cachedRows = new SystemQueryCache();
 
   @Override
   public void initialize() {
@@ -61,6 +75,18 @@ public class DefaultQueryInterceptor implements QueryInterceptor, IEndpointState
     TableMetadata tableMetadata = StargateSystemKeyspace.Local;
     if (isSystemPeers(selectStatement)) tableMetadata = StargateSystemKeyspace.Peers;
     else if (isSystemPeersV2(selectStatement)) tableMetadata = StargateSystemKeyspace.PeersV2;
+
+    // Read before executing, so that the result is invalidated if the tables change meanwhile.
+    long contentVersion = StargateSystemKeyspace.contentVersion();
+    List<Object> cacheKey = cacheKey(tableMetadata, selectStatement, options);
+    int pageSize = options.getPageSize();
+    if (cacheKey != null) {
+      List<List<ByteBuffer>> cached = cachedRows.get(cacheKey, contentVersion, pageSize);
+      if (cached != null) {
+        return new ResultMessage.Rows(new ResultSet(selectStatement.getResultMetadata(), cached));
+      }
+    }
+
     SelectStatement interceptStatement =
         new SelectStatement(
             tableMetadata,
@@ -75,10 +101,55 @@ public class DefaultQueryInterceptor implements QueryInterceptor, IEndpointState
             null);
 
     ResultMessage.Rows rows = interceptStatement.execute(state, options, queryStartNanoTime);
+    if (cacheKey != null) {
+      cachedRows.put(cacheKey, contentVersion, pageSize, rows.result.rows);
+    }
     return new ResultMessage.Rows(
         new ResultSet(selectStatement.getResultMetadata(), rows.result.rows));
   }
 
+  /**
+   * The key under which the result of a query is cached, or {@code null} if it isn't cached.
+   *
+   * <p>Only the queries that drivers issue are cached: selections of plain columns, restricted at
+   * most by partition key.
+   */
+  private static @Nullable List<Object> cacheKey(
+      TableMetadata table, SelectStatement statement, QueryOptions options) {
+    StatementRestrictions restrictions = statement.getRestrictions();
+    if (options.getPagingState() != null
+        || !statement.parameters.orderings.isEmpty()
+        || restrictions.hasClusteringColumnsRestrictions()
+        || restrictions.hasNonPrimaryKeyRestrictions()
+        || (restrictions.isKeyRange() && restrictions.hasPartitionKeyRestrictions())) {
+      return null;
+    }
+
+    List<ColumnMetadata> columns = statement.getSelection().getColumns();
+    List<ColumnSpecification> names = statement.getResultMetadata().names;
+    if (columns.size() != names.size()) {
+      return null;
+    }
+
+    List<Object> key = new ArrayList<>(columns.size() + 4);
+    key.add(table.name);
+    key.add(statement.parameters.isDistinct);
+    key.add(statement.getLimit(options));
+    for (int i = 0; i < columns.size(); i++) {
+      ColumnIdentifier column = columns.get(i).name;
+      // Aliases and function calls
+      if (!column.equals(names.get(i).name)) {
+        return null;
+      }
+      key.add(column);
+    }
+    key.add(
+        restrictions.isKeyRange()
+            ? Collections.emptyList()
+            : restrictions.getPartitionKeys(options));
+    return key;
+  }
+
   @Override
   public void register(IEndpointLifecycleSubscriber subscriber) {
     subscribers.add(subscriber);
@@ -1,5 +1,7 @@
 package io.stargate.db.datastore.common;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Joiner;
 import io.stargate.db.AuthenticatedUser;
 import io.stargate.db.ClientInfo;
@@ -8,6 +10,10 @@ import io.stargate.db.schema.Schema;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +47,12 @@ public abstract class AbstractCassandraPersistence<Config, K, T, C, U, I, V>
   // listener callback.
   private volatile Schema schema;
 
+  private final SchemaAgreementWatcher schemaAgreementWatcher =
+      new SchemaAgreementWatcher(() -> isInSchemaAgreement());
+
+  private final Timer fullSchemaConversions = new Timer();
+  private final Timer incrementalSchemaConversions = new Timer();
+
   protected AbstractCassandraPersistence(String name) {
     this.name = name;
     this.schemaConverter = newSchemaConverter();
@@ -53,18 +65,18 @@ public abstract class AbstractCassandraPersistence<Config, K, T, C, U, I, V>
   protected abstract Iterable<K> currentInternalSchema();
 
   /**
-   * Register an internal schema listener that runs the provided runnable every time the internal
-   * schema of the persistence layer changes.
+   * Register an internal schema listener that notifies the provided callback every time the
+   * internal schema of the persistence layer changes.
    *
    * <p>This is guaranteed to be called only once for each persistence instance, during
    * initialization. Implementations should usually keep track of the registered listener so they
    * can implement {@link #unregisterInternalSchemaListener()}.
    */
-  protected abstract void registerInternalSchemaListener(Runnable onSchemaChange);
+  protected abstract void registerInternalSchemaListener(SchemaChangeCallback callback);
 
   /**
    * Unregister the internal schema listener registered through {@link
-   * #registerInternalSchemaListener(Runnable)}, if necessary.
+   * #registerInternalSchemaListener(SchemaChangeCallback)}, if necessary.
    */
   protected abstract void unregisterInternalSchemaListener();
 
@@ -104,16 +116,89 @@ public abstract class AbstractCassandraPersistence<Config, K, T, C, U, I, V>
     }
 
     initializePersistence(config);
+    schemaAgreementWatcher.start();
+
+    long start = System.nanoTime();
+    schema = schemaConverter.convertCassandraSchema(currentInternalSchema());
+    fullSchemaConversions.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+    registerInternalSchemaListener(
+        new SchemaChangeCallback() {
+          @Override
+          public void onKeyspaceChange(String keyspace) {
+            K internal = internalKeyspace(keyspace);
+            updateSchema(s -> schemaConverter.updateKeyspace(s, keyspace, internal));
+          }
+
+          @Override
+          public void onTableChange(String keyspace, String table) {
+            K internal = internalKeyspace(keyspace);
+            updateSchema(
+                s ->
+                    internal == null
+                        ? schemaConverter.updateKeyspace(s, keyspace, null)
+                        : schemaConverter.updateTable(s, internal, table));
+          }
+        });
+  }
+
+  @Override
+  public void waitForSchemaAgreement() {
+    try {
+      waitForSchemaAgreementAsync(20, TimeUnit.SECONDS).join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      throw (cause instanceof RuntimeException)
+          ? ((RuntimeException) cause)
+          : new RuntimeException(cause);
+    }
+  }
 
-    schema = computeCurrentSchema();
-    registerInternalSchemaListener(() -> schema = computeCurrentSchema());
+  @Override
+  public CompletableFuture<Void> waitForSchemaAgreementAsync(long timeout, TimeUnit unit) {
+    return schemaAgreementWatcher.waitForAgreement(timeout, unit);
   }
 
-  private Schema computeCurrentSchema() {
-    return schemaConverter.convertCassandraSchema(currentInternalSchema());
+  /**
+   * Must be called by implementations every time the gossip state of a node changes in a way that
+   * may affect schema agreement (schema version change, node going up or down, ...), so that
+   * pending {@link #waitForSchemaAgreementAsync} futures are completed promptly.
+   */
+  protected void onEndpointStateChange() {
+    schemaAgreementWatcher.onStateChange();
+  }
+
+  // Schema changes are applied one at a time (C* notifies them serially anyway, but this ensures
+  // we never lose an update if that changes).
+  private synchronized void updateSchema(UnaryOperator<Schema> update) {
+    long start = System.nanoTime();
+    schema = update.apply(schema);
+    incrementalSchemaConversions.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    schemaAgreementWatcher.onStateChange();
+  }
+
+  private @Nullable K internalKeyspace(String name) {
+    for (K keyspace : currentInternalSchema()) {
+      if (schemaConverter.keyspaceName(keyspace).equals(name)) {
+        return keyspace;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Registers the metrics of this persistence layer in the provided registry.
+   *
+   * <p>Those are the timers of the conversions of the internal schema: the full conversion done on
+   * initialization, and the incremental ones done on every schema change.
+   */
+  public void registerMetrics(MetricRegistry registry) {
+    registry.register("schemaConversion.full", fullSchemaConversions);
+    registry.register("schemaConversion.incremental", incrementalSchemaConversions);
   }
 
   public final void destroy() {
+    schemaAgreementWatcher.stop();
     destroyPersistence();
     unregisterInternalSchemaListener();
   }
@@ -123,6 +208,19 @@ public abstract class AbstractCassandraPersistence<Config, K, T, C, U, I, V>
     return name();
   }
 
+  /** Callback for the changes of the internal schema of the persistence layer. */
+  protected interface SchemaChangeCallback {
+    /**
+     * Called when the provided keyspace changed in any way other than the ones notified through
+     * {@link #onTableChange}: the keyspace itself, or its user types, materialized views, functions
+     * and aggregates.
+     */
+    void onKeyspaceChange(String keyspace);
+
+    /** Called when the provided table was created, altered (including its indexes) or dropped. */
+    void onTableChange(String keyspace, String table);
+  }
+
   protected abstract static class AbstractConnection implements Connection {
     private final @Nullable ClientInfo clientInfo;
     private volatile @Nullable AuthenticatedUser loggedUser;
@@ -13,12 +13,14 @@ import io.stargate.db.schema.Schema;
 import io.stargate.db.schema.SecondaryIndex;
 import io.stargate.db.schema.Table;
 import io.stargate.db.schema.UserDefinedType;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.apache.cassandra.stargate.utils.Streams;
 import org.javatuples.Pair;
 import org.slf4j.Logger;
@@ -107,6 +109,68 @@ public abstract class AbstractCassandraSchemaConverter<K, T, C, U, I, V> {
     return Schema.create(Iterables.transform(cassandraKeyspaces, this::convertKeyspace));
   }
 
+  /**
+   * Returns a copy of the provided schema in which the keyspace named {@code keyspaceName} is
+   * replaced by the conversion of the provided internal keyspace, or removed if that internal
+   * keyspace is {@code null}. Other keyspaces are reused as is.
+   */
+  public Schema updateKeyspace(Schema schema, String keyspaceName, @Nullable K keyspace) {
+    return replaceKeyspace(
+        schema, keyspaceName, keyspace == null ? null : convertKeyspace(keyspace));
+  }
+
+  /**
+   * Returns a copy of the provided schema in which only the table {@code tableName} of the provided
+   * internal keyspace is converted again (or removed, if the internal keyspace does not have it
+   * anymore). All the other tables, and all other keyspaces, are reused as is.
+   *
+   * <p>This must only be used when nothing but that table changed (in particular, not its user
+   * types or materialized views). If the keyspace is not part of the provided schema yet, the whole
+   * keyspace is converted.
+   */
+  public Schema updateTable(Schema schema, K keyspace, String tableName) {
+    String name = keyspaceName(keyspace);
+    Keyspace current = schema.keyspace(name);
+    if (current == null) {
+      return updateKeyspace(schema, name, keyspace);
+    }
+
+    List<Table> tables = new ArrayList<>(current.tables().size() + 1);
+    for (Table table : current.tables()) {
+      if (!table.name().equals(tableName)) {
+        tables.add(table);
+      }
+    }
+    for (T table : tables(keyspace)) {
+      if (tableName(table).equals(tableName)) {
+        tables.add(convertTable(name, table, views(keyspace)));
+        break;
+      }
+    }
+    Keyspace updated =
+        Keyspace.create(
+            name,
+            tables,
+            current.userDefinedTypes(),
+            current.replication(),
+            current.durableWrites());
+    return replaceKeyspace(schema, name, updated);
+  }
+
+  private static Schema replaceKeyspace(
+      Schema schema, String keyspaceName, @Nullable Keyspace keyspace) {
+    List<Keyspace> keyspaces = new ArrayList<>(schema.keyspaces().size() + 1);
+    for (Keyspace k : schema.keyspaces()) {
+      if (!k.name().equals(keyspaceName)) {
+        keyspaces.add(k);
+      }
+    }
+    if (keyspace != null) {
+      keyspaces.add(keyspace);
+    }
+    return Schema.create(keyspaces);
+  }
+
   private Keyspace convertKeyspace(K keyspace) {
     String name = keyspaceName(keyspace);
     Stream<Table> tables = convertTables(name, tables(keyspace), views(keyspace));
@@ -0,0 +1,129 @@
+package io.stargate.db.datastore.common;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import org.apache.cassandra.stargate.exceptions.OverloadedException;
+
+/**
+ * Admits the requests of a persistence layer onto its executor, shedding them early when the
+ * persistence is overloaded.
+ *
+ * <p>Requests are shed, failing with an {@link OverloadedException}, in two cases:
+ *
+ * <ul>
+ *   <li>when submitted, if {@code maxQueued} requests are already waiting for an executor thread.
+ *       This doesn't rely on the executor's own queue bound, which would block the submitting
+ *       thread (usually a netty event loop) rather than reject the request.
+ *   <li>when about to run, if the request timeout has already elapsed since the request was
+ *       received. The client has given up on the request by then, so executing it would only
+ *       waste work that other, still live, requests are waiting for.
+ * </ul>
+ */
+public class BoundedRequestExecutor {
+  /** The default maximum number of requests waiting for an executor thread. */
+  public static final int DEFAULT_MAX_QUEUED =
+      Integer.getInteger("stargate.persistence.max_queued_requests", 8192);
+
+  private final Executor executor;
+  private final int maxQueued;
+  private final LongSupplier timeoutMillis;
+
+  private final AtomicInteger queued = new AtomicInteger();
+  private final Timer queueWait = new Timer();
+  private final Meter rejected = new Meter();
+  private final Meter expired = new Meter();
+
+  /**
+   * @param executor the executor running the requests.
+   * @param maxQueued the maximum number of requests waiting for an executor thread.
+   * @param timeoutMillis the request timeout of the persistence layer. It is read for every
+   *     request, so that changes to it are picked up.
+   */
+  public BoundedRequestExecutor(Executor executor, int maxQueued, LongSupplier timeoutMillis) {
+    this.executor = executor;
+    this.maxQueued = maxQueued;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Submits a request, unless it is shed.
+   *
+   * @param queryStartNanoTime when the request was received, as given by {@link System#nanoTime()}.
+   * @param task the execution of the request.
+   * @param onShed called, instead of {@code task}, if the request is shed. It can be called either
+   *     on the calling thread or on an executor thread.
+   */
+  public void execute(
+      long queryStartNanoTime, Runnable task, Consumer<OverloadedException> onShed) {
+    if (queued.incrementAndGet() > maxQueued) {
+      queued.decrementAndGet();
+      rejected.mark();
+      onShed.accept(
+          new OverloadedException(
+              String.format(
+                  "Too many requests queued (%d), cannot accept more requests at this point",
+                  maxQueued)));
+      return;
+    }
+
+    long submitNanoTime = System.nanoTime();
+    try {
+      executor.execute(() -> run(queryStartNanoTime, submitNanoTime, task, onShed));
+    } catch (RejectedExecutionException e) {
+      // The executor is shutting down
+      queued.decrementAndGet();
+      rejected.mark();
+      onShed.accept(new OverloadedException("Request rejected: " + e.getMessage()));
+    }
+  }
+
+  private void run(
+      long queryStartNanoTime,
+      long submitNanoTime,
+      Runnable task,
+      Consumer<OverloadedException> onShed) {
+    queued.decrementAndGet();
+    long now = System.nanoTime();
+    queueWait.update(now - submitNanoTime, TimeUnit.NANOSECONDS);
+
+    long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis.getAsLong());
+    if (now - queryStartNanoTime > timeoutNanos) {
+      expired.mark();
+      onShed.accept(
+          new OverloadedException(
+              String.format(
+                  "Request dropped after waiting more than its timeout (%d ms) to be executed",
+                  TimeUnit.NANOSECONDS.toMillis(timeoutNanos))));
+      return;
+    }
+    task.run();
+  }
+
+  /**
+   * Registers the metrics of this executor: the number of requests waiting for a thread, the time
+   * they wait, and the number of requests shed because too many were queued ({@code rejected}) or
+   * because they had already timed out ({@code expired}).
+   */
+  public void registerMetrics(MetricRegistry registry) {
+    registry.register("requests.queued", (Gauge<Integer>) queued::get);
+    registry.register("requests.queueWait", queueWait);
+    registry.register("requests.rejected", rejected);
+    registerExpiredMetric(registry);
+  }
+
+  /**
+   * Registers only the number of requests shed because they had already timed out, for executors
+   * running requests on the calling thread, which never queue them.
+   */
+  public void registerExpiredMetric(MetricRegistry registry) {
+    registry.register("requests.expired", expired);
+  }
+}
@@ -0,0 +1,129 @@
+package io.stargate.db.datastore.common;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import javax.annotation.Nullable;
+
+/**
+ * Waits for schema agreement on behalf of all the callers of a persistence layer.
+ *
+ * <p>Rather than having each waiter poll the persistence, the persistence notifies this watcher
+ * (through {@link #onStateChange()}) every time something that can affect schema agreement changes,
+ * typically the gossip state of a node (its schema version, or it going up or down). Agreement is
+ * then checked once, on a single dedicated thread, and all pending waiters are completed together
+ * if it is reached. Notifications received while a check is already pending are coalesced into
+ * that check, so a burst of gossip events only costs one. A coarse periodic check also runs while
+ * there are waiters, as a safety net should a notification be missed.
+ */
+public class SchemaAgreementWatcher {
+  private static final long RECHECK_INTERVAL_MS =
+      Long.getLong("stargate.schema_agreement_recheck_interval_ms", 1000);
+
+  private static final ScheduledExecutorService EXECUTOR =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder()
+              .setNameFormat("schema-agreement-watcher")
+              .setDaemon(true)
+              .build());
+
+  private final BooleanSupplier isInAgreement;
+  private final ScheduledExecutorService executor;
+  private final long recheckIntervalMs;
+  private final AtomicBoolean checkPending = new AtomicBoolean();
+  private final Set<CompletableFuture<Void>> waiters = ConcurrentHashMap.newKeySet();
+  private volatile @Nullable ScheduledFuture<?> periodicCheck;
+
+  /**
+   * @param isInAgreement checks whether the schema currently agrees across the cluster. It is only
+   *     called from the watcher thread, or from the threads calling {@link #waitForAgreement}.
+   */
+  public SchemaAgreementWatcher(BooleanSupplier isInAgreement) {
+    this(isInAgreement, EXECUTOR, RECHECK_INTERVAL_MS);
+  }
+
+  SchemaAgreementWatcher(
+      BooleanSupplier isInAgreement, ScheduledExecutorService executor, long recheckIntervalMs) {
+    this.isInAgreement = isInAgreement;
+    this.executor = executor;
+    this.recheckIntervalMs = recheckIntervalMs;
+  }
+
+  public void start() {
+    periodicCheck =
+        executor.scheduleWithFixedDelay(
+            this::checkAgreement, recheckIntervalMs, recheckIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  public void stop() {
+    ScheduledFuture<?> check = periodicCheck;
+    if (check != null) {
+      check.cancel(false);
+    }
+  }
+
+  /**
+   * Returns a future that completes once the schema agrees across the cluster, or completes
+   * exceptionally with an {@link IllegalStateException} after the provided timeout.
+   *
+   * <p>The future is completed on the watcher thread (unless agreement is already reached when this
+   * is called), so dependent actions should be quick or run on their own executor.
+   */
+  public CompletableFuture<Void> waitForAgreement(long timeout, TimeUnit unit) {
+    if (isInAgreement.getAsBoolean()) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    CompletableFuture<Void> waiter = new CompletableFuture<>();
+    waiters.add(waiter);
+    ScheduledFuture<?> timeoutTask =
+        executor.schedule(
+            () ->
+                waiter.completeExceptionally(
+                    new IllegalStateException(
+                        String.format(
+                            "Failed to reach schema agreement after %d seconds.",
+                            unit.toSeconds(timeout)))),
+            timeout,
+            unit);
+    waiter.whenComplete(
+        (v, t) -> {
+          waiters.remove(waiter);
+          timeoutTask.cancel(false);
+        });
+    // Agreement may have been reached between our initial check and the registration.
+    onStateChange();
+    return waiter;
+  }
+
+  /**
+   * Notifies the watcher that something that may affect schema agreement has changed. This is
+   * cheap if nobody is waiting or if a check is already pending, and never blocks the caller.
+   */
+  public void onStateChange() {
+    if (!waiters.isEmpty() && checkPending.compareAndSet(false, true)) {
+      executor.execute(
+          () -> {
+            // Cleared before checking, so that a change during the check triggers another one.
+            checkPending.set(false);
+            checkAgreement();
+          });
+    }
+  }
+
+  private void checkAgreement() {
+    if (waiters.isEmpty() || !isInAgreement.getAsBoolean()) {
+      return;
+    }
+    for (CompletableFuture<Void> waiter : waiters) {
+      waiter.complete(null);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package io.stargate.db.datastore.common;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.annotations.VisibleForTesting;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * The results of the queries on the {@code system.local} and {@code system.peers} tables that
+ * drivers issue, kept until the content of those tables changes.
+ *
+ * <p>A result is only returned for the content version of the tables it was read at, and stale
+ * results are dropped as soon as they are found. Queries are keyed by whatever identifies them for
+ * the query interceptor, bound values included, so the number of results kept is bounded ({@code
+ * stargate.system_query_cache_max_size}, 1000 by default) and the least used are evicted first.
+ */
+public class SystemQueryCache {
+  private static final int DEFAULT_MAX_SIZE =
+      Integer.getInteger("stargate.system_query_cache_max_size", 1000);
+
+  private final Cache<List<Object>, CachedRows> cachedRows;
+
+  public SystemQueryCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  @VisibleForTesting
+  SystemQueryCache(int maxSize) {
+    // Evict on the calling thread, as there is not much to do.
+    this.cachedRows = Caffeine.newBuilder().maximumSize(maxSize).executor(Runnable::run).build();
+  }
+
+  /**
+   * Returns a copy of the rows cached for a query, or {@code null} if there are none for the
+   * current content of the tables.
+   *
+   * @param pageSize the page size of the query in rows, or 0 if it isn't paged.
+   */
+  public @Nullable List<List<ByteBuffer>> get(List<Object> key, long contentVersion, int pageSize) {
+    CachedRows cached = cachedRows.getIfPresent(key);
+    if (cached == null) return null;
+
+    if (cached.contentVersion != contentVersion) {
+      cachedRows.asMap().remove(key, cached);
+      return null;
+    }
+    return cached.isComplete(pageSize) ? new ArrayList<>(cached.rows) : null;
+  }
+
+  /**
+   * Caches the rows of a query, unless they are a full page, which might not be the whole result.
+   *
+   * @param contentVersion the content version of the tables read before executing the query, so
+   *     that the result is invalidated if the tables changed meanwhile.
+   */
+  public void put(
+      List<Object> key, long contentVersion, int pageSize, List<List<ByteBuffer>> rows) {
+    CachedRows result = new CachedRows(contentVersion, new ArrayList<>(rows));
+    if (result.isComplete(pageSize)) cachedRows.put(key, result);
+  }
+
+  @VisibleForTesting
+  long size() {
+    cachedRows.cleanUp();
+    return cachedRows.estimatedSize();
+  }
+
+  private static class CachedRows {
+    private final long contentVersion;
+    private final List<List<ByteBuffer>> rows;
+
+    private CachedRows(long contentVersion, List<List<ByteBuffer>> rows) {
+      this.contentVersion = contentVersion;
+      this.rows = rows;
+    }
+
+    boolean isComplete(int pageSize) {
+      return pageSize <= 0 || rows.size() < pageSize;
+    }
+  }
+}
@@ -0,0 +1,330 @@
+package io.stargate.db.datastore.common;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.stargate.db.schema.Column;
+import io.stargate.db.schema.ImmutableColumn;
+import io.stargate.db.schema.Keyspace;
+import io.stargate.db.schema.Schema;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class AbstractCassandraSchemaConverterTest {
+
+  private final TestConverter converter = new TestConverter();
+
+  @Test
+  void createTableYieldsFullConversion() {
+    TestKeyspace before = keyspace("ks", table("t1", "a"));
+    TestKeyspace after = keyspace("ks", table("t1", "a"), table("t2", "a"));
+    TestKeyspace other = keyspace("other", table("t1", "a"));
+    Schema schema = converter.convertCassandraSchema(asList(before, other));
+
+    Schema updated = converter.updateTable(schema, after, "t2");
+
+    assertThat(updated).isEqualTo(converter.convertCassandraSchema(asList(after, other)));
+    assertThat(updated.keyspace("ks").table("t1")).isSameAs(schema.keyspace("ks").table("t1"));
+    assertThat(updated.keyspace("other")).isSameAs(schema.keyspace("other"));
+  }
+
+  @Test
+  void alterTableYieldsFullConversion() {
+    TestKeyspace before = keyspace("ks", table("t1", "a"), table("t2", "a"));
+    TestKeyspace after = keyspace("ks", table("t1", "a"), table("t2", "a", "b"));
+    TestKeyspace other = keyspace("other", table("t2", "a"));
+    Schema schema = converter.convertCassandraSchema(asList(before, other));
+
+    Schema updated = converter.updateTable(schema, after, "t2");
+
+    assertThat(updated).isEqualTo(converter.convertCassandraSchema(asList(after, other)));
+    assertThat(updated.keyspace("ks").table("t2").column("b")).isNotNull();
+    assertThat(updated.keyspace("ks").table("t1")).isSameAs(schema.keyspace("ks").table("t1"));
+    assertThat(updated.keyspace("other")).isSameAs(schema.keyspace("other"));
+  }
+
+  @Test
+  void dropTableYieldsFullConversion() {
+    TestKeyspace before = keyspace("ks", table("t1", "a"), table("t2", "a"));
+    TestKeyspace after = keyspace("ks", table("t1", "a"));
+    TestKeyspace other = keyspace("other", table("t2", "a"));
+    Schema schema = converter.convertCassandraSchema(asList(before, other));
+
+    Schema updated = converter.updateTable(schema, after, "t2");
+
+    assertThat(updated).isEqualTo(converter.convertCassandraSchema(asList(after, other)));
+    assertThat(updated.keyspace("ks").table("t2")).isNull();
+    assertThat(updated.keyspace("other")).isSameAs(schema.keyspace("other"));
+  }
+
+  @Test
+  void updateTablePreservesKeyspaceOptionsAndUserTypes() {
+    TestKeyspace before = keyspace("ks", table("t1", "a"));
+    before.durableWrites = false;
+    before.replication.put("dc1", "3");
+    before.userTypes.add(userType("address", "street", "city"));
+    TestKeyspace after = keyspace("ks", table("t1", "a"), table("t2", "a"));
+    after.durableWrites = false;
+    after.replication.put("dc1", "3");
+    after.userTypes.add(userType("address", "street", "city"));
+    Schema schema = converter.convertCassandraSchema(singletonList(before));
+
+    Keyspace updated = converter.updateTable(schema, after, "t2").keyspace("ks");
+
+    Keyspace original = schema.keyspace("ks");
+    assertThat(updated.replication()).isEqualTo(original.replication()).containsEntry("dc1", "3");
+    assertThat(updated.durableWrites()).isEqualTo(Optional.of(false));
+    assertThat(updated.userDefinedTypes()).isEqualTo(original.userDefinedTypes()).hasSize(1);
+    assertThat(updated.userDefinedType("address").columnMap()).containsKeys("street", "city");
+  }
+
+  @Test
+  void updateTableKeepsMaterializedViewsOfOtherTables() {
+    TestKeyspace before = keyspace("ks", table("t1", "a"));
+    before.views.add(new TestView(table("t1_by_a", "a"), "t1"));
+    TestKeyspace after = keyspace("ks", table("t1", "a"), table("t2", "a"));
+    after.views.add(new TestView(table("t1_by_a", "a"), "t1"));
+    Schema schema = converter.convertCassandraSchema(singletonList(before));
+
+    Schema updated = converter.updateTable(schema, after, "t2");
+
+    assertThat(updated).isEqualTo(converter.convertCassandraSchema(singletonList(after)));
+    assertThat(updated.keyspace("ks").materializedView("t1_by_a")).isNotNull();
+  }
+
+  @Test
+  void updateTableOfUnknownKeyspaceConvertsWholeKeyspace() {
+    TestKeyspace other = keyspace("other", table("t1", "a"));
+    TestKeyspace created = keyspace("ks", table("t1", "a"), table("t2", "a"));
+    Schema schema = converter.convertCassandraSchema(singletonList(other));
+
+    Schema updated = converter.updateTable(schema, created, "t2");
+
+    assertThat(updated).isEqualTo(converter.convertCassandraSchema(asList(other, created)));
+    assertThat(updated.keyspace("other")).isSameAs(schema.keyspace("other"));
+  }
+
+  @Test
+  void updateKeyspaceReplacesOnlyThatKeyspace() {
+    TestKeyspace before = keyspace("ks", table("t1", "a"));
+    TestKeyspace after = keyspace("ks", table("t1", "a"));
+    after.durableWrites = false;
+    after.replication.put("dc2", "1");
+    after.userTypes.add(userType("address", "street"));
+    TestKeyspace other = keyspace("other", table("t1", "a"));
+    Schema schema = converter.convertCassandraSchema(asList(before, other));
+
+    Schema updated = converter.updateKeyspace(schema, "ks", after);
+
+    assertThat(updated).isEqualTo(converter.convertCassandraSchema(asList(after, other)));
+    assertThat(updated.keyspace("ks").durableWrites()).isEqualTo(Optional.of(false));
+    assertThat(updated.keyspace("ks").replication()).containsEntry("dc2", "1");
+    assertThat(updated.keyspace("ks").userDefinedType("address")).isNotNull();
+    assertThat(updated.keyspace("other")).isSameAs(schema.keyspace("other"));
+  }
+
+  @Test
+  void updateKeyspaceRemovesDroppedKeyspace() {
+    TestKeyspace dropped = keyspace("ks", table("t1", "a"));
+    TestKeyspace other = keyspace("other", table("t1", "a"));
+    Schema schema = converter.convertCassandraSchema(asList(dropped, other));
+
+    Schema updated = converter.updateKeyspace(schema, "ks", null);
+
+    assertThat(updated).isEqualTo(converter.convertCassandraSchema(singletonList(other)));
+    assertThat(updated.keyspace("ks")).isNull();
+    assertThat(updated.keyspace("other")).isSameAs(schema.keyspace("other"));
+  }
+
+  private static TestKeyspace keyspace(String name, TestTable... tables) {
+    TestKeyspace keyspace = new TestKeyspace(name);
+    keyspace.tables.addAll(asList(tables));
+    return keyspace;
+  }
+
+  // The first column is the partition key, the other ones are regular columns.
+  private static TestTable table(String name, String... columns) {
+    TestTable table = new TestTable(name);
+    for (int i = 0; i < columns.length; i++) {
+      Column.Kind kind = i == 0 ? Column.Kind.PartitionKey : Column.Kind.Regular;
+      table.columns.add(new TestColumn(columns[i], Column.Type.Int, kind));
+    }
+    return table;
+  }
+
+  private static TestUserType userType(String name, String... fields) {
+    TestUserType userType = new TestUserType(name);
+    userType.fields.addAll(asList(fields));
+    return userType;
+  }
+
+  private static class TestKeyspace {
+    final String name;
+    final Map<String, String> replication = new HashMap<>();
+    boolean durableWrites = true;
+    final List<TestTable> tables = new ArrayList<>();
+    final List<TestUserType> userTypes = new ArrayList<>();
+    final List<TestView> views = new ArrayList<>();
+
+    TestKeyspace(String name) {
+      this.name = name;
+      replication.put("class", "NetworkTopologyStrategy");
+    }
+  }
+
+  private static class TestTable {
+    final String name;
+    final List<TestColumn> columns = new ArrayList<>();
+
+    TestTable(String name) {
+      this.name = name;
+    }
+  }
+
+  private static class TestColumn {
+    final String name;
+    final Column.ColumnType type;
+    final Column.Kind kind;
+
+    TestColumn(String name, Column.ColumnType type, Column.Kind kind) {
+      this.name = name;
+      this.type = type;
+      this.kind = kind;
+    }
+  }
+
+  private static class TestUserType {
+    final String name;
+    final List<String> fields = new ArrayList<>();
+
+    TestUserType(String name) {
+      this.name = name;
+    }
+  }
+
+  private static class TestView {
+    final TestTable table;
+    final String baseTable;
+
+    TestView(TestTable table, String baseTable) {
+      this.table = table;
+      this.baseTable = baseTable;
+    }
+  }
+
+  private static class TestConverter
+      extends AbstractCassandraSchemaConverter<
+          TestKeyspace, TestTable, TestColumn, TestUserType, Void, TestView> {
+
+    @Override
+    protected String keyspaceName(TestKeyspace keyspace) {
+      return keyspace.name;
+    }
+
+    @Override
+    protected Map<String, String> replicationOptions(TestKeyspace keyspace) {
+      return new HashMap<>(keyspace.replication);
+    }
+
+    @Override
+    protected boolean usesDurableWrites(TestKeyspace keyspace) {
+      return keyspace.durableWrites;
+    }
+
+    @Override
+    protected Iterable<TestTable> tables(TestKeyspace keyspace) {
+      return keyspace.tables;
+    }
+
+    @Override
+    protected Iterable<TestUserType> userTypes(TestKeyspace keyspace) {
+      return keyspace.userTypes;
+    }
+
+    @Override
+    protected Iterable<TestView> views(TestKeyspace keyspace) {
+      return keyspace.views;
+    }
+
+    @Override
+    protected String tableName(TestTable table) {
+      return table.name;
+    }
+
+    @Override
+    protected Iterable<TestColumn> columns(TestTable table) {
+      return table.columns;
+    }
+
+    @Override
+    protected String columnName(TestColumn column) {
+      return column.name;
+    }
+
+    @Override
+    protected Column.ColumnType columnType(TestColumn column) {
+      return column.type;
+    }
+
+    @Override
+    protected Column.Order columnClusteringOrder(TestColumn column) {
+      return null;
+    }
+
+    @Override
+    protected Column.Kind columnKind(TestColumn column) {
+      return column.kind;
+    }
+
+    @Override
+    protected Iterable<Void> secondaryIndexes(TestTable table) {
+      return emptyList();
+    }
+
+    @Override
+    protected String indexName(Void index) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected String indexTarget(Void index) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected List<Column> userTypeFields(TestUserType userType) {
+      List<Column> fields = new ArrayList<>(userType.fields.size());
+      for (String field : userType.fields) {
+        fields.add(
+            ImmutableColumn.builder()
+                .name(field)
+                .type(Column.Type.Text)
+                .kind(Column.Kind.Regular)
+                .build());
+      }
+      return Collections.unmodifiableList(fields);
+    }
+
+    @Override
+    protected String userTypeName(TestUserType userType) {
+      return userType.name;
+    }
+
+    @Override
+    protected TestTable asTable(TestView view) {
+      return view.table;
+    }
+
+    @Override
+    protected boolean isBaseTableOf(TestTable table, TestView view) {
+      return table.name.equals(view.baseTable);
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package io.stargate.db.datastore.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.cassandra.stargate.exceptions.OverloadedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BoundedRequestExecutorTest {
+
+  private static final long TIMEOUT_MILLIS = 10_000;
+
+  // The tasks submitted to the executor, run by runTasks()
+  private final List<Runnable> tasks = new ArrayList<>();
+  private final List<OverloadedException> shed = new ArrayList<>();
+  private final AtomicInteger ran = new AtomicInteger();
+  private final MetricRegistry registry = new MetricRegistry();
+
+  private BoundedRequestExecutor executor;
+
+  @BeforeEach
+  void setUp() {
+    executor =
+        new BoundedRequestExecutor(
+            tasks::add, BoundedRequestExecutor.DEFAULT_MAX_QUEUED, () -> TIMEOUT_MILLIS);
+    executor.registerMetrics(registry);
+  }
+
+  @Test
+  void admitsRequestsUpToMaxQueued() {
+    for (int i = 0; i < BoundedRequestExecutor.DEFAULT_MAX_QUEUED; i++) {
+      submit(System.nanoTime());
+    }
+    assertThat(shed).isEmpty();
+    assertThat(queued()).isEqualTo(BoundedRequestExecutor.DEFAULT_MAX_QUEUED);
+
+    submit(System.nanoTime());
+
+    assertThat(shed).hasSize(1);
+    assertThat(shed.get(0)).hasMessageContaining("Too many requests queued");
+    assertThat(tasks).hasSize(BoundedRequestExecutor.DEFAULT_MAX_QUEUED);
+    assertThat(queued()).isEqualTo(BoundedRequestExecutor.DEFAULT_MAX_QUEUED);
+    assertThat(registry.meter("requests.rejected").getCount()).isEqualTo(1);
+  }
+
+  @Test
+  void releasesSlotWhenRequestRuns() {
+    for (int i = 0; i < BoundedRequestExecutor.DEFAULT_MAX_QUEUED; i++) {
+      submit(System.nanoTime());
+    }
+    tasks.remove(0).run();
+    assertThat(queued()).isEqualTo(BoundedRequestExecutor.DEFAULT_MAX_QUEUED - 1);
+
+    submit(System.nanoTime());
+
+    assertThat(shed).isEmpty();
+    runTasks();
+    assertThat(ran.get()).isEqualTo(BoundedRequestExecutor.DEFAULT_MAX_QUEUED + 1);
+    assertThat(queued()).isZero();
+    assertThat(registry.timer("requests.queueWait").getCount())
+        .isEqualTo(BoundedRequestExecutor.DEFAULT_MAX_QUEUED + 1);
+  }
+
+  @Test
+  void releasesSlotWhenRequestFails() {
+    executor.execute(
+        System.nanoTime(),
+        () -> {
+          throw new IllegalStateException("failed");
+        },
+        shed::add);
+
+    assertThatThrownBy(() -> tasks.remove(0).run()).isInstanceOf(IllegalStateException.class);
+    assertThat(queued()).isZero();
+    assertThat(shed).isEmpty();
+  }
+
+  @Test
+  void releasesSlotWhenExecutorRejects() {
+    BoundedRequestExecutor shutDown =
+        new BoundedRequestExecutor(
+            task -> {
+              throw new RejectedExecutionException("shutting down");
+            },
+            1,
+            () -> TIMEOUT_MILLIS);
+
+    for (int i = 0; i < 2; i++) {
+      shutDown.execute(System.nanoTime(), ran::incrementAndGet, shed::add);
+    }
+
+    // Both are rejected by the executor, not by the queue bound of 1
+    assertThat(shed).hasSize(2).allMatch(e -> e.getMessage().contains("shutting down"));
+    assertThat(ran.get()).isZero();
+  }
+
+  @Test
+  void shedsRequestsPastTheirTimeout() {
+    long expiredStart = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS + 1);
+    submit(expiredStart);
+    submit(System.nanoTime());
+
+    runTasks();
+
+    assertThat(ran.get()).isEqualTo(1);
+    assertThat(shed).hasSize(1);
+    assertThat(shed.get(0)).hasMessageContaining("after waiting more than its timeout");
+    assertThat(queued()).isZero();
+    assertThat(registry.meter("requests.expired").getCount()).isEqualTo(1);
+    assertThat(registry.meter("requests.rejected").getCount()).isZero();
+  }
+
+  @Test
+  void registersOnlyExpiredMetricForInlineExecutors() {
+    MetricRegistry inlineRegistry = new MetricRegistry();
+    BoundedRequestExecutor inline =
+        new BoundedRequestExecutor(
+            Runnable::run, BoundedRequestExecutor.DEFAULT_MAX_QUEUED, () -> TIMEOUT_MILLIS);
+
+    inline.registerExpiredMetric(inlineRegistry);
+
+    assertThat(inlineRegistry.getNames()).containsExactly("requests.expired");
+  }
+
+  private void submit(long queryStartNanoTime) {
+    executor.execute(queryStartNanoTime, ran::incrementAndGet, shed::add);
+  }
+
+  private void runTasks() {
+    while (!tasks.isEmpty()) {
+      tasks.remove(0).run();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private int queued() {
+    return ((Gauge<Integer>) registry.getGauges().get("requests.queued")).getValue();
+  }
+}
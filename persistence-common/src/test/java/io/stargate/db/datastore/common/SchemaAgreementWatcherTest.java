@@ -0,0 +1,144 @@
+package io.stargate.db.datastore.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SchemaAgreementWatcherTest {
+
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+  private final AtomicBoolean inAgreement = new AtomicBoolean();
+  private final AtomicInteger checks = new AtomicInteger();
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void completesImmediatelyWhenInAgreement() {
+    inAgreement.set(true);
+
+    assertThat(watcher(TimeUnit.HOURS.toMillis(1)).waitForAgreement(10, TimeUnit.SECONDS))
+        .isCompleted();
+  }
+
+  @Test
+  void completesAllWaitersOnStateChange() throws Exception {
+    SchemaAgreementWatcher watcher = watcher(TimeUnit.HOURS.toMillis(1));
+    CompletableFuture<Void> first = watcher.waitForAgreement(10, TimeUnit.SECONDS);
+    CompletableFuture<Void> second = watcher.waitForAgreement(10, TimeUnit.SECONDS);
+    awaitExecutor();
+    assertThat(first).isNotDone();
+    assertThat(second).isNotDone();
+
+    inAgreement.set(true);
+    watcher.onStateChange();
+
+    first.get(10, TimeUnit.SECONDS);
+    second.get(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void coalescesStateChangesIntoOnePendingCheck() throws Exception {
+    SchemaAgreementWatcher watcher = watcher(TimeUnit.HOURS.toMillis(1));
+    CompletableFuture<Void> waiter = watcher.waitForAgreement(10, TimeUnit.SECONDS);
+    awaitExecutor();
+    int checksBefore = checks.get();
+
+    CountDownLatch blocked = new CountDownLatch(1);
+    executor.execute(() -> awaitUninterruptibly(blocked));
+    for (int i = 0; i < 100; i++) {
+      watcher.onStateChange();
+    }
+    blocked.countDown();
+    awaitExecutor();
+
+    assertThat(checks.get() - checksBefore).isEqualTo(1);
+    assertThat(waiter).isNotDone();
+  }
+
+  @Test
+  void checksAgainOnStateChangeAfterPendingCheckRan() throws Exception {
+    SchemaAgreementWatcher watcher = watcher(TimeUnit.HOURS.toMillis(1));
+    watcher.waitForAgreement(10, TimeUnit.SECONDS);
+    awaitExecutor();
+    int checksBefore = checks.get();
+
+    watcher.onStateChange();
+    awaitExecutor();
+    watcher.onStateChange();
+    awaitExecutor();
+
+    assertThat(checks.get() - checksBefore).isEqualTo(2);
+  }
+
+  @Test
+  void skipsChecksWhenNobodyWaits() throws Exception {
+    SchemaAgreementWatcher watcher = watcher(TimeUnit.HOURS.toMillis(1));
+
+    watcher.onStateChange();
+    awaitExecutor();
+
+    assertThat(checks.get()).isZero();
+  }
+
+  @Test
+  void failsWaiterAfterTimeout() {
+    SchemaAgreementWatcher watcher = watcher(TimeUnit.HOURS.toMillis(1));
+
+    CompletableFuture<Void> waiter = watcher.waitForAgreement(50, TimeUnit.MILLISECONDS);
+
+    assertThatThrownBy(() -> waiter.get(10, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void periodicCheckCompletesWaitersWithoutNotification() throws Exception {
+    SchemaAgreementWatcher watcher = watcher(10);
+    watcher.start();
+    try {
+      CompletableFuture<Void> waiter = watcher.waitForAgreement(10, TimeUnit.SECONDS);
+
+      inAgreement.set(true);
+
+      waiter.get(10, TimeUnit.SECONDS);
+    } finally {
+      watcher.stop();
+    }
+  }
+
+  private SchemaAgreementWatcher watcher(long recheckIntervalMs) {
+    return new SchemaAgreementWatcher(
+        () -> {
+          checks.incrementAndGet();
+          return inAgreement.get();
+        },
+        executor,
+        recheckIntervalMs);
+  }
+
+  // Waits until all the tasks submitted to the executor so far have run.
+  private void awaitExecutor() throws Exception {
+    executor.submit(() -> {}).get(10, TimeUnit.SECONDS);
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package io.stargate.db.datastore.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SystemQueryCacheTest {
+
+  private static final List<Object> LOCAL = key("SELECT * FROM system.local");
+  private static final List<Object> PEERS = key("SELECT * FROM system.peers");
+
+  private final SystemQueryCache cache = new SystemQueryCache(10);
+
+  @Test
+  void returnsRowsCachedForSameContentVersion() {
+    List<List<ByteBuffer>> rows = rows(3);
+    cache.put(LOCAL, 1, 0, rows);
+
+    assertThat(cache.get(LOCAL, 1, 0)).isEqualTo(rows);
+    assertThat(cache.get(LOCAL, 1, 100)).isEqualTo(rows);
+    assertThat(cache.get(PEERS, 1, 0)).isNull();
+  }
+
+  @Test
+  void returnsCopiesOfCachedRows() {
+    cache.put(LOCAL, 1, 0, rows(3));
+
+    cache.get(LOCAL, 1, 0).clear();
+
+    assertThat(cache.get(LOCAL, 1, 0)).hasSize(3);
+  }
+
+  @Test
+  void dropsRowsAfterContentVersionChanges() {
+    cache.put(LOCAL, 1, 0, rows(3));
+    cache.put(PEERS, 1, 0, rows(2));
+
+    assertThat(cache.get(LOCAL, 2, 0)).isNull();
+    // Stale, so dropped rather than kept until evicted
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.get(LOCAL, 1, 0)).isNull();
+
+    List<List<ByteBuffer>> rows = rows(4);
+    cache.put(LOCAL, 2, 0, rows);
+    assertThat(cache.get(LOCAL, 2, 0)).isEqualTo(rows);
+  }
+
+  @Test
+  void doesNotCacheFullPages() {
+    cache.put(LOCAL, 1, 3, rows(3));
+    assertThat(cache.get(LOCAL, 1, 0)).isNull();
+
+    cache.put(LOCAL, 1, 4, rows(3));
+    assertThat(cache.get(LOCAL, 1, 4)).hasSize(3);
+    // Not the whole result for a smaller page
+    assertThat(cache.get(LOCAL, 1, 2)).isNull();
+  }
+
+  @Test
+  void keepsAtMostMaxSizeResults() {
+    // Peers queried by bound address, as some drivers do
+    for (int i = 0; i < 100; i++) {
+      cache.put(
+          Arrays.asList("SELECT * FROM system.peers WHERE peer = ?", value("10.0.0." + i)),
+          1,
+          0,
+          rows(1));
+    }
+
+    assertThat(cache.size()).isLessThanOrEqualTo(10);
+  }
+
+  private static List<Object> key(String query) {
+    return Arrays.asList(query, Collections.emptyList());
+  }
+
+  private static List<List<ByteBuffer>> rows(int count) {
+    List<List<ByteBuffer>> rows = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      rows.add(Collections.singletonList(value("row-" + i)));
+    }
+    return rows;
+  }
+
+  private static ByteBuffer value(String value) {
+    return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+  }
+}
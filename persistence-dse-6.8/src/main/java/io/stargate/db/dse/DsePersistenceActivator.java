@@ -147,6 +147,7 @@ public class DsePersistenceActivator implements BundleActivator, ServiceListener
       baseDir = Files.createTempDirectory("stargate-dse").toFile();
 
       dseDB.initialize(makeConfig(baseDir));
+      dseDB.registerMetrics(CassandraMetricsRegistry.actualRegistry);
     } catch (IOException e) {
       throw new IOError(e);
     }
@@ -1,5 +1,6 @@
 package io.stargate.db.dse.impl;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.Uninterruptibles;
 import io.reactivex.Single;
@@ -14,20 +15,23 @@ import io.stargate.db.Result;
 import io.stargate.db.SimpleStatement;
 import io.stargate.db.Statement;
 import io.stargate.db.datastore.common.AbstractCassandraPersistence;
+import io.stargate.db.datastore.common.BoundedRequestExecutor;
 import io.stargate.db.dse.impl.interceptors.DefaultQueryInterceptor;
 import io.stargate.db.dse.impl.interceptors.ProxyProtocolQueryInterceptor;
 import io.stargate.db.dse.impl.interceptors.QueryInterceptor;
+import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.cassandra.auth.AuthenticatedUser;
@@ -42,6 +46,8 @@ import org.apache.cassandra.exceptions.AuthenticationException;
 import org.apache.cassandra.gms.ApplicationState;
 import org.apache.cassandra.gms.EndpointState;
 import org.apache.cassandra.gms.Gossiper;
+import org.apache.cassandra.gms.IEndpointStateChangeSubscriber;
+import org.apache.cassandra.gms.VersionedValue;
 import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.schema.IndexMetadata;
 import org.apache.cassandra.schema.KeyspaceMetadata;
@@ -91,6 +97,15 @@ public class DsePersistence
   private static final int STARTUP_DELAY_MS =
       Integer.getInteger("stargate.startup_delay_ms", 3 * MigrationManager.MIGRATION_DELAY_IN_MS);
 
+  // Requests are executed on the calling thread and then on TPC threads, so this only sheds the
+  // requests that expired before reaching the persistence (queued in the CQL request scheduler,
+  // for instance).
+  private final BoundedRequestExecutor requestExecutor =
+      new BoundedRequestExecutor(
+          Runnable::run,
+          BoundedRequestExecutor.DEFAULT_MAX_QUEUED,
+          DatabaseDescriptor::getRpcTimeout);
+
   private CassandraDaemon cassandraDaemon;
   private Authenticator authenticator;
   private QueryInterceptor interceptor;
@@ -102,6 +117,12 @@ public class DsePersistence
     super("DataStax Enterprise");
   }
 
+  @Override
+  public void registerMetrics(MetricRegistry registry) {
+    super.registerMetrics(registry);
+    requestExecutor.registerExpiredMetric(registry);
+  }
+
   private StargateQueryHandler stargateHandler() {
     return (StargateQueryHandler) ClientState.getCQLQueryHandler();
   }
@@ -117,13 +138,19 @@ public class DsePersistence
   }
 
   @Override
-  protected void registerInternalSchemaListener(Runnable runOnSchemaChange) {
-
+  protected void registerInternalSchemaListener(SchemaChangeCallback callback) {
     schemaChangeListener =
         new SimpleCallbackSchemaChangeListener() {
           @Override
-          void onSchemaChange() {
-            runOnSchemaChange.run();
+          void onKeyspaceChange(String keyspace) {
+            Conversion.invalidateResultColumns();
+            callback.onKeyspaceChange(keyspace);
+          }
+
+          @Override
+          void onTableChange(String keyspace, String table) {
+            Conversion.invalidateResultColumns();
+            callback.onTableChange(keyspace, table);
           }
         };
     org.apache.cassandra.schema.SchemaManager.instance.registerListener(schemaChangeListener);
@@ -179,6 +206,8 @@ public class DsePersistence
     Gossiper.instance.addLocalApplicationState(
         ApplicationState.X10, StorageService.instance.valueFactory.dsefsState("stargate"));
 
+    Gossiper.instance.register(new SchemaAgreementNotifier());
+
     waitForSchema(STARTUP_DELAY_MS);
 
     if (USE_PROXY_PROTOCOL) interceptor = new ProxyProtocolQueryInterceptor();
@@ -255,16 +284,70 @@ public class DsePersistence
     // Important: This must include all nodes including fat clients, otherwise we'll get write
     // errors
     // with INCOMPATIBLE_SCHEMA.
-    return Gossiper.instance.getLiveMembers().stream()
-            .filter(
-                ep -> {
-                  EndpointState epState = Gossiper.instance.getEndpointStateForEndpoint(ep);
-                  return epState != null && !Gossiper.instance.isDeadState(epState);
-                })
-            .map(Gossiper.instance::getSchemaVersion)
-            .collect(Collectors.toSet())
-            .size()
-        <= 1;
+
+    // This is called on every notification of gossip state change while someone is waiting on
+    // schema agreement, so we compare the versions to the first one rather than collect them.
+    boolean first = true;
+    UUID version = null;
+    for (InetAddress ep : Gossiper.instance.getLiveMembers()) {
+      EndpointState epState = Gossiper.instance.getEndpointStateForEndpoint(ep);
+      if (epState == null || Gossiper.instance.isDeadState(epState)) {
+        continue;
+      }
+      UUID epVersion = Gossiper.instance.getSchemaVersion(ep);
+      if (first) {
+        version = epVersion;
+        first = false;
+      } else if (!Objects.equals(version, epVersion)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Notifies the schema agreement watcher of the gossip changes that can affect agreement: schema
+   * version changes, and nodes joining, leaving, going up or down.
+   */
+  private class SchemaAgreementNotifier implements IEndpointStateChangeSubscriber {
+    @Override
+    public void onJoin(InetAddress endpoint, EndpointState epState) {
+      onEndpointStateChange();
+    }
+
+    @Override
+    public void beforeChange(
+        InetAddress endpoint,
+        EndpointState currentState,
+        ApplicationState newStateKey,
+        VersionedValue newValue) {}
+
+    @Override
+    public void onChange(InetAddress endpoint, ApplicationState state, VersionedValue value) {
+      if (state == ApplicationState.STATUS || state == ApplicationState.SCHEMA) {
+        onEndpointStateChange();
+      }
+    }
+
+    @Override
+    public void onAlive(InetAddress endpoint, EndpointState state) {
+      onEndpointStateChange();
+    }
+
+    @Override
+    public void onDead(InetAddress endpoint, EndpointState state) {
+      onEndpointStateChange();
+    }
+
+    @Override
+    public void onRemove(InetAddress endpoint) {
+      onEndpointStateChange();
+    }
+
+    @Override
+    public void onRestart(InetAddress endpoint, EndpointState state) {
+      onEndpointStateChange();
+    }
   }
 
   /**
@@ -364,7 +447,19 @@ public class DsePersistence
 
     private <T extends Result> CompletableFuture<T> executeRequest(
         Parameters parameters, long queryStartNanoTime, Supplier<Request> requestSupplier) {
+      CompletableFuture<T> future = new CompletableFuture<>();
+      requestExecutor.execute(
+          queryStartNanoTime,
+          () -> executeRequest(parameters, queryStartNanoTime, requestSupplier, future),
+          future::completeExceptionally);
+      return future;
+    }
 
+    private <T extends Result> void executeRequest(
+        Parameters parameters,
+        long queryStartNanoTime,
+        Supplier<Request> requestSupplier,
+        CompletableFuture<T> future) {
       try {
         if (parameters.protocolVersion().isGreaterOrEqualTo(ProtocolVersion.V4))
           ClientWarn.instance.captureWarnings();
@@ -377,7 +472,6 @@ public class DsePersistence
         request.setCustomPayload(parameters.customPayload().orElse(null));
         request.attach(fakeServerConnection);
 
-        CompletableFuture<T> future = new CompletableFuture<>();
         request
             .execute(queryState, queryStartNanoTime)
             .map(
@@ -410,11 +504,8 @@ public class DsePersistence
                   }
                   future.completeExceptionally(ex);
                 });
-        return future;
       } catch (Exception e) {
-        CompletableFuture<T> exceptionalFuture = new CompletableFuture<>();
-        exceptionalFuture.completeExceptionally(convertExceptionWithWarnings(e));
-        return exceptionalFuture;
+        future.completeExceptionally(convertExceptionWithWarnings(e));
       }
     }
 
@@ -439,10 +530,12 @@ public class DsePersistence
               String queryString = ((SimpleStatement) statement).queryString();
               return new QueryMessage(queryString, options);
             } else {
+              BoundStatement boundStatement = (BoundStatement) statement;
               org.apache.cassandra.utils.MD5Digest id =
-                  Conversion.toInternal(((BoundStatement) statement).preparedId());
-              // The 'resultMetadataId' is a protocol v5 feature we don't yet support
-              return new ExecuteMessage(id, null, options);
+                  Conversion.toInternal(boundStatement.preparedId());
+              org.apache.cassandra.utils.MD5Digest resultMetadataId =
+                  boundStatement.resultMetadataId().map(Conversion::toInternal).orElse(null);
+              return new ExecuteMessage(id, resultMetadataId, options);
             }
           });
     }
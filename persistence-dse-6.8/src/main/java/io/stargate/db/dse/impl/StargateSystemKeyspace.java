@@ -11,6 +11,7 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.cql3.CQLStatement;
 import org.apache.cassandra.cql3.QueryProcessor;
@@ -42,6 +43,8 @@ public class StargateSystemKeyspace {
 
   private final ConcurrentMap<InetAddress, StargatePeerInfo> peers = new ConcurrentHashMap<>();
   private final StargateLocalInfo local = new StargateLocalInfo();
+  // Incremented after every update of the views, so that query results can be cached until then.
+  private final AtomicLong contentVersion = new AtomicLong();
 
   public Map<InetAddress, StargatePeerInfo> getPeers() {
     return peers;
@@ -51,6 +54,14 @@ public class StargateSystemKeyspace {
     return local;
   }
 
+  /**
+   * A version of the content of the views, which changes every time they are updated. Results read
+   * from the views remain valid as long as this doesn't change.
+   */
+  public long contentVersion() {
+    return contentVersion.get();
+  }
+
   public void persistLocalMetadata() {
     local.setClusterName(DatabaseDescriptor.getClusterName());
     local.setReleaseVersion(ProductVersion.getReleaseVersion().toString());
@@ -69,6 +80,7 @@ public class StargateSystemKeyspace {
     local.setStoragePortSsl(DatabaseDescriptor.getSSLStoragePort());
     local.setJmxPort(DatabaseDescriptor.getJMXPort().orElse(null));
     local.setHostId(Nodes.local().get().getHostId());
+    contentVersion.incrementAndGet();
   }
 
   public static boolean isSystemLocal(SelectStatement statement) {
@@ -160,7 +172,7 @@ public class StargateSystemKeyspace {
 
     @Override
     public void onRemove(InetAddress endpoint) {
-      peers.remove(endpoint);
+      if (peers.remove(endpoint) != null) contentVersion.incrementAndGet();
     }
 
     @Override
@@ -215,6 +227,7 @@ public class StargateSystemKeyspace {
           updateDseState(value, endpoint, peer);
           break;
       }
+      contentVersion.incrementAndGet();
     }
   }
 
@@ -6,15 +6,18 @@ import static io.stargate.db.dse.impl.StargateSystemKeyspace.isSystemLocalOrPeer
 
 import com.google.common.collect.Sets;
 import io.reactivex.Single;
+import io.stargate.db.datastore.common.SystemQueryCache;
 import io.stargate.db.dse.impl.StargateSystemKeyspace;
 import java.net.InetAddress;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import org.apache.cassandra.cql3.CQLStatement;
 import org.apache.cassandra.cql3.QueryOptions;
+import org.apache.cassandra.cql3.QueryOptions.PagingOptions;
 import org.apache.cassandra.cql3.QueryProcessor;
 import org.apache.cassandra.cql3.ResultSet;
 import org.apache.cassandra.cql3.statements.SelectStatement;
@@ -31,10 +34,17 @@ import org.apache.cassandra.transport.messages.ResultMessage;
  * A default interceptor implementation that returns only stargate nodes for `system.peers` queries,
  * but also returns only the same, single token for all stargate nodes (they all own the whole ring)
  * for both `system.local` and `system.peers` tables.
+ *
+ * <p>Drivers query those tables on every new connection and every refresh of their control
+ * connection, always with the same few queries, while the tables only change on gossip events. So
+ * the results of those queries are kept in memory, by query string and bound values, and only read
+ * again (which also means parsing the query again) after the tables change (see {@link
+ * StargateSystemKeyspace#contentVersion()}).
  */
 public class DefaultQueryInterceptor implements QueryInterceptor, IEndpointStateChangeSubscriber {
   private final List<IEndpointLifecycleSubscriber> subscribers = new CopyOnWriteArrayList<>();
   private final Set<InetAddress> liveStargateNodes = Sets.newConcurrentHashSet();
+  private final SystemQueryCache cachedRows = new SystemQueryCache();
 
   @Override
   public void initialize() {
@@ -110,10 +120,23 @@ public class DefaultQueryInterceptor implements QueryInterceptor, IEndpointState
     for (IEndpointLifecycleSubscriber subscriber : subscribers) subscriber.onJoinCluster(endpoint);
   }
 
-  private static Single<ResultMessage> interceptSystemLocalOrPeers(
+  private Single<ResultMessage> interceptSystemLocalOrPeers(
       CQLStatement statement, QueryState state, QueryOptions options, long queryStartNanoTime) {
     SelectStatement selectStatement = ((SelectStatement) statement);
 
+    // Read before executing, so that the result is invalidated if the tables change meanwhile.
+    long contentVersion = StargateSystemKeyspace.instance.contentVersion();
+    int pageSize = cacheablePageSize(options);
+    List<Object> cacheKey =
+        pageSize < 0 ? null : Arrays.asList(selectStatement.queryString, options.getValues());
+    if (cacheKey != null) {
+      List<List<ByteBuffer>> cached = cachedRows.get(cacheKey, contentVersion, pageSize);
+      if (cached != null) {
+        return Single.just(
+            new ResultMessage.Rows(new ResultSet(selectStatement.getResultMetadata(), cached)));
+      }
+    }
+
     // Re-parse so that we can intercept and replace the keyspace.
     SelectStatement.Raw rawStatement =
         (SelectStatement.Raw) QueryProcessor.parseStatement(selectStatement.queryString);
@@ -123,8 +146,20 @@ public class DefaultQueryInterceptor implements QueryInterceptor, IEndpointState
     Single<ResultMessage.Rows> rows =
         interceptStatement.execute(state, options, queryStartNanoTime);
     return rows.map(
-        r ->
-            new ResultMessage.Rows(
-                new ResultSet(selectStatement.getResultMetadata(), r.result.rows)));
+        r -> {
+          if (cacheKey != null) {
+            cachedRows.put(cacheKey, contentVersion, pageSize, r.result.rows);
+          }
+          return new ResultMessage.Rows(
+              new ResultSet(selectStatement.getResultMetadata(), r.result.rows));
+        });
+  }
+
+  /** The page size of a query in rows, 0 if it isn't paged, or -1 if its result isn't cached. */
+  private static int cacheablePageSize(QueryOptions options) {
+    PagingOptions paging = options.getPagingOptions();
+    if (paging == null) return 0;
+    if (paging.state() != null || !paging.pageSize().isInRows()) return -1;
+    return paging.pageSize().inRows();
   }
 }
@@ -18,6 +18,7 @@ package io.stargate.web;
 import io.stargate.auth.AuthenticationService;
 import io.stargate.core.metrics.api.Metrics;
 import io.stargate.db.Persistence;
+import io.stargate.web.docsapi.dao.DeadLeafRepairQueue;
 import io.stargate.web.impl.WebImpl;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
@@ -101,6 +102,8 @@ public class RestApiActivator implements BundleActivator, ServiceListener {
 
   @Override
   public void stop(BundleContext context) {
+    DeadLeafRepairQueue.instance.shutdown();
+
     if (persistenceReference != null) {
       context.ungetService(persistenceReference);
     }
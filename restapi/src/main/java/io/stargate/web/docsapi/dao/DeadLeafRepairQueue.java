@@ -0,0 +1,255 @@
+package io.stargate.web.docsapi.dao;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.stargate.db.datastore.ResultSet;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deletes the dead leaves found when reading documents, in the background.
+ *
+ * <p>A document with dead leaves keeps them until they are deleted, so every read of a hot
+ * document finds, and would otherwise delete, the same leaves again. Instead, repairs are pending
+ * by document: the dead leaves found by a read are merged into the repair already pending for the
+ * same document, if any, and each repair is executed once, as an unlogged batch (all of its
+ * statements are on the document's partition). Only the reads made by the same role are merged,
+ * and a repair is executed with the {@link DocumentDB}, and so the permissions, of any one of them.
+ *
+ * <p>Repairs are executed one at a time on a dedicated thread, at most {@code
+ * stargate.document_dead_leaf_repairs_per_second} per second, and at most {@code
+ * stargate.document_dead_leaf_repair_queue_size} documents can be pending. Repairs submitted
+ * beyond that are dropped: the next read of the document will find the dead leaves again. So are
+ * the repairs submitted while the queue is not started, see {@link #start()} and {@link
+ * #shutdown()}.
+ */
+public class DeadLeafRepairQueue {
+  private static final Logger logger = LoggerFactory.getLogger(DeadLeafRepairQueue.class);
+
+  public static final DeadLeafRepairQueue instance =
+      new DeadLeafRepairQueue(
+          Integer.getInteger("stargate.document_dead_leaf_repair_queue_size", 10_000),
+          DeadLeafRepairQueue::newExecutor,
+          RateLimiter.create(
+              Double.parseDouble(
+                  System.getProperty("stargate.document_dead_leaf_repairs_per_second", "200"))),
+          () -> ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now()));
+
+  private final int maxPending;
+  private final Supplier<ExecutorService> executorFactory;
+  private final RateLimiter rateLimiter;
+  private final LongSupplier microsClock;
+  private final Map<RepairKey, Repair> pending = new ConcurrentHashMap<>();
+
+  // Null while the queue is not started
+  private volatile ExecutorService executor;
+  private boolean metricsRegistered;
+
+  private final Meter queued = new Meter();
+  private final Meter coalesced = new Meter();
+  private final Meter dropped = new Meter();
+  private final Meter executed = new Meter();
+  private final Meter failed = new Meter();
+
+  /**
+   * @param executorFactory creates the executor running the repairs, every time the queue starts.
+   * @param rateLimiter the limiter that each repair acquires a permit from before it is executed.
+   * @param microsClock the current time in microseconds, the timestamp of the deletions.
+   */
+  @VisibleForTesting
+  DeadLeafRepairQueue(
+      int maxPending,
+      Supplier<ExecutorService> executorFactory,
+      RateLimiter rateLimiter,
+      LongSupplier microsClock) {
+    this.maxPending = maxPending;
+    this.executorFactory = executorFactory;
+    this.rateLimiter = rateLimiter;
+    this.microsClock = microsClock;
+  }
+
+  private static ExecutorService newExecutor() {
+    return Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder()
+            .setNameFormat("document-dead-leaf-repair")
+            .setDaemon(true)
+            .build());
+  }
+
+  /** Starts executing repairs, if the queue isn't started already. */
+  public synchronized void start() {
+    if (executor == null) executor = executorFactory.get();
+  }
+
+  /** Stops executing repairs, dropping the pending ones. The queue can be started again. */
+  public synchronized void shutdown() {
+    if (executor == null) return;
+
+    executor.shutdownNow();
+    executor = null;
+    pending.clear();
+  }
+
+  public synchronized void registerMetrics(MetricRegistry metricRegistry) {
+    if (metricsRegistered) return;
+
+    String prefix = "DocumentDeadLeafRepairs";
+    metricRegistry.register(MetricRegistry.name(prefix, "Queued"), queued);
+    metricRegistry.register(MetricRegistry.name(prefix, "Coalesced"), coalesced);
+    metricRegistry.register(MetricRegistry.name(prefix, "Dropped"), dropped);
+    metricRegistry.register(MetricRegistry.name(prefix, "Executed"), executed);
+    metricRegistry.register(MetricRegistry.name(prefix, "Failed"), failed);
+    metricRegistry.register(MetricRegistry.name(prefix, "Pending"), (Gauge<Integer>) pending::size);
+
+    metricsRegistered = true;
+  }
+
+  /**
+   * Schedules the deletion of the dead leaves of a document, as of now.
+   *
+   * <p>If a repair is already pending for the document, the earliest of the two timestamps is kept,
+   * so that no write that happened after either read is deleted.
+   *
+   * @param db the instance to execute the deletion with, unless a repair of the document submitted
+   *     by the same role is already pending.
+   */
+  void submit(
+      DocumentDB db,
+      String keyspace,
+      String table,
+      String key,
+      Map<String, List<JsonNode>> deadLeaves) {
+    long microsTimestamp = microsClock.getAsLong();
+    ExecutorService executor = this.executor;
+    if (executor == null) {
+      dropped.mark();
+      return;
+    }
+
+    RepairKey id = new RepairKey(db.getRoleName(), keyspace, table, key);
+    boolean[] added = new boolean[1];
+    pending.compute(
+        id,
+        (k, repair) -> {
+          if (repair != null) {
+            repair.merge(microsTimestamp, deadLeaves);
+            coalesced.mark();
+            return repair;
+          }
+          if (pending.size() >= maxPending) {
+            dropped.mark();
+            return null;
+          }
+          added[0] = true;
+          return new Repair(db, microsTimestamp, deadLeaves);
+        });
+
+    if (added[0]) {
+      queued.mark();
+      try {
+        executor.execute(() -> execute(id));
+      } catch (RejectedExecutionException e) {
+        // Shut down meanwhile
+        pending.remove(id);
+        dropped.mark();
+      }
+    }
+  }
+
+  private void execute(RepairKey id) {
+    rateLimiter.acquire();
+    // Nothing can be merged into the repair anymore once it is removed
+    Repair repair = pending.remove(id);
+    if (repair == null) return; // Dropped by a shutdown
+
+    try {
+      repair.execute(id).join();
+      executed.mark();
+    } catch (Exception e) {
+      failed.mark();
+      logger.warn("Failed to delete the dead leaves of document {}", id, e);
+    }
+  }
+
+  private static class Repair {
+    final DocumentDB db;
+    long microsTimestamp;
+    final Map<String, List<JsonNode>> deadLeaves = new HashMap<>();
+
+    Repair(DocumentDB db, long microsTimestamp, Map<String, List<JsonNode>> deadLeaves) {
+      this.db = db;
+      this.microsTimestamp = microsTimestamp;
+      merge(microsTimestamp, deadLeaves);
+    }
+
+    void merge(long microsTimestamp, Map<String, List<JsonNode>> deadLeaves) {
+      this.microsTimestamp = Math.min(this.microsTimestamp, microsTimestamp);
+      for (Map.Entry<String, List<JsonNode>> entry : deadLeaves.entrySet()) {
+        List<JsonNode> nodes =
+            this.deadLeaves.computeIfAbsent(entry.getKey(), path -> new ArrayList<>());
+        for (JsonNode node : entry.getValue()) {
+          if (!nodes.contains(node)) nodes.add(node);
+        }
+      }
+    }
+
+    CompletableFuture<ResultSet> execute(RepairKey id) {
+      return db.deleteDeadLeaves(id.keyspace, id.table, id.key, microsTimestamp, deadLeaves);
+    }
+  }
+
+  /** A document, and the role its repair is executed as. */
+  private static class RepairKey {
+    final String roleName;
+    final String keyspace;
+    final String table;
+    final String key;
+
+    RepairKey(String roleName, String keyspace, String table, String key) {
+      this.roleName = roleName;
+      this.keyspace = keyspace;
+      this.table = table;
+      this.key = key;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof RepairKey)) return false;
+
+      RepairKey that = (RepairKey) other;
+      return Objects.equals(roleName, that.roleName)
+          && keyspace.equals(that.keyspace)
+          && table.equals(that.table)
+          && key.equals(that.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(roleName, keyspace, table, key);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s.%s/%s", keyspace, table, key);
+    }
+  }
+}
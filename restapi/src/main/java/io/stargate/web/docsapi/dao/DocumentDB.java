@@ -4,6 +4,7 @@ import com.datastax.oss.driver.api.core.servererrors.AlreadyExistsException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import io.stargate.db.BatchType;
 import io.stargate.db.datastore.DataStore;
 import io.stargate.db.datastore.PreparedStatement;
 import io.stargate.db.datastore.ResultSet;
@@ -13,9 +14,9 @@ import io.stargate.db.schema.Column;
 import io.stargate.db.schema.Column.Type;
 import io.stargate.db.schema.Keyspace;
 import io.stargate.web.docsapi.exception.DocumentAPIRequestException;
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import org.apache.cassandra.stargate.db.ConsistencyLevel;
@@ -41,7 +42,18 @@ public class DocumentDB {
   public static final String EMPTY_OBJECT_MARKER = "EMPTYOBJ-bccbeee1-6173-4120-8492-7d7bafaefb1f";
   public static final String EMPTY_ARRAY_MARKER = "EMPTYARRAY-9df4802a-c135-42d6-8be3-d23d9520a4e7";
 
+  private static final String INSERT_COLUMNS;
+  private static final String INSERT_BIND_MARKERS;
+
   final DataStore dataStore;
+  private final String roleName;
+
+  /**
+   * The statements prepared by this instance, by query string. The query strings embed the
+   * keyspace, collection and shape of the statement, so a document with many leaves only prepares
+   * its INSERT once and binds every leaf row against it.
+   */
+  private final Map<String, PreparedStatement> preparedStatements = new ConcurrentHashMap<>();
 
   static {
     allColumnNames = new ArrayList<>();
@@ -65,6 +77,9 @@ public class DocumentDB {
     allColumnNames.add("bool_value");
     allColumnTypes.add(Type.Boolean);
 
+    INSERT_COLUMNS = String.join(", ", allColumnNames);
+    INSERT_BIND_MARKERS = String.join(", :", allColumnNames);
+
     forbiddenCharacters = ImmutableList.of('[', ']', ',', '.', '\'', '*');
 
     if (MAX_ARRAY_LENGTH > 1000000) {
@@ -74,7 +89,18 @@ public class DocumentDB {
   }
 
   public DocumentDB(DataStore dataStore) {
+    this(dataStore, null);
+  }
+
+  /** @param roleName the role {@code dataStore} is logged in as, if any. */
+  public DocumentDB(DataStore dataStore, String roleName) {
     this.dataStore = dataStore;
+    this.roleName = roleName;
+  }
+
+  /** The role this instance executes its statements as, or {@code null} if it isn't logged in. */
+  public String getRoleName() {
+    return roleName;
   }
 
   public static List<String> getForbiddenCharactersMessage() {
@@ -87,6 +113,11 @@ public class DocumentDB {
     return forbiddenCharacters.stream().anyMatch(ch -> x.indexOf(ch) >= 0);
   }
 
+  /** The name of the column storing the path segment at the provided depth. */
+  public static String pathColumnName(int depth) {
+    return allPathColumnNames.get(depth);
+  }
+
   public static List<Column> allColumns() {
     List<Column> allColumns = new ArrayList<>(allColumnNames.size());
     for (int i = 0; i < allColumnNames.size(); i++) {
@@ -201,8 +232,33 @@ public class DocumentDB {
         .execute();
   }
 
+  /**
+   * Selects all the rows of a single document, without blocking.
+   *
+   * <p>The query is paged with the page size of this instance, but always starts from the first
+   * page: the paging state of this instance, if any, belongs to another query.
+   */
+  public CompletableFuture<ResultSet> executeSelectDocument(
+      String keyspace, String collection, String key) {
+    String statement =
+        String.format(
+            "SELECT %s, WRITETIME(leaf) FROM \"%s\".\"%s\" WHERE key = ?",
+            INSERT_COLUMNS, keyspace, collection);
+    logger.debug(statement);
+    return prepare(statement)
+        .execute(p -> p.toBuilder().pagingState(Optional.empty()).build(), key);
+  }
+
+  /**
+   * Prepares the provided statement, or returns it directly if this instance already prepared it.
+   *
+   * <p>Statements are only cached for the lifetime of this instance (typically a single request).
+   * Reuse across requests is handled by the data store, whose prepared statement cache is
+   * invalidated when the schema of the keyspace changes (including when a collection is dropped or
+   * altered).
+   */
   private PreparedStatement prepare(String statement) {
-    return dataStore.prepare(statement).join();
+    return preparedStatements.computeIfAbsent(statement, s -> dataStore.prepare(s).join());
   }
 
   public PreparedStatement.Bound getInsertStatement(
@@ -210,10 +266,7 @@ public class DocumentDB {
     String statement =
         String.format(
             "INSERT INTO \"%s\".\"%s\" (%s) VALUES (:%s) USING TIMESTAMP ?",
-            keyspaceName,
-            tableName,
-            String.join(", ", allColumnNames),
-            String.join(", :", allColumnNames));
+            keyspaceName, tableName, INSERT_COLUMNS, INSERT_BIND_MARKERS);
 
     logger.debug(statement);
     Object[] values = Arrays.copyOf(columnValues, columnValues.length + 1);
@@ -434,14 +487,18 @@ public class DocumentDB {
     getPrefixDeleteStatement(keyspace, table, key, microsSinceEpoch, pathToDelete).execute().join();
   }
 
+  /**
+   * Deletes the dead leaves of a document in the background, see {@link DeadLeafRepairQueue}. They
+   * are deleted as of now, so that leaves written after this call are kept.
+   */
   public void deleteDeadLeaves(
       String keyspaceName, String tableName, String key, Map<String, List<JsonNode>> deadLeaves) {
-    long now = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
-    deleteDeadLeaves(keyspaceName, tableName, key, now, deadLeaves);
+    DeadLeafRepairQueue.instance.submit(this, keyspaceName, tableName, key, deadLeaves);
   }
 
+  /** Deletes the dead leaves of a document, in an unlogged batch on the document's partition. */
   @VisibleForTesting
-  void deleteDeadLeaves(
+  CompletableFuture<ResultSet> deleteDeadLeaves(
       String keyspaceName,
       String tableName,
       String key,
@@ -486,8 +543,13 @@ public class DocumentDB {
       }
     }
 
-    // Fire this off in a future
-    dataStore.batch(statements, ConsistencyLevel.LOCAL_QUORUM);
+    if (statements.isEmpty()) {
+      return CompletableFuture.completedFuture(ResultSet.empty());
+    }
+    return dataStore.batch(
+        statements,
+        BatchType.UNLOGGED,
+        p -> p.withConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM));
   }
 
   public Map<String, Object> newBindMap(List<String> path) {
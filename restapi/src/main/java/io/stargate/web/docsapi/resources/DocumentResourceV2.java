@@ -2,6 +2,7 @@ package io.stargate.web.docsapi.resources;
 
 import com.datastax.oss.driver.api.core.NoNodeAvailableException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.stargate.auth.UnauthorizedException;
 import io.stargate.web.docsapi.dao.DocumentDB;
@@ -44,6 +45,7 @@ import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.PathSegment;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.slf4j.Logger;
@@ -541,23 +543,19 @@ public class DocumentResourceV2 {
             }
           }
 
-          JsonNode node;
           if (filters.isEmpty()) {
             DocumentDB db = dbFactory.getDocDataStoreForToken(authToken);
-            node = documentService.getJsonAtPath(db, namespace, collection, id, path);
-            if (node == null) {
+            JsonSerializable doc =
+                documentService.streamJsonAtPath(db, namespace, collection, id, path);
+            if (doc == null) {
               return Response.noContent().build();
             }
 
-            String json;
-            if (raw == null || !raw) {
-              json = mapper.writeValueAsString(new DocumentResponseWrapper<>(id, null, node));
-            } else {
-              json = mapper.writeValueAsString(node);
-            }
-
-            logger.debug(json);
-            return Response.ok(json).build();
+            // Written straight to the response, large documents are never held as a String
+            Object entity =
+                raw == null || !raw ? new DocumentResponseWrapper<>(id, null, doc) : doc;
+            StreamingOutput output = out -> mapper.writeValue(out, entity);
+            return Response.ok(output).build();
           } else {
             ByteBuffer pageState = null;
             if (pageStateParam != null) {
@@ -680,9 +678,6 @@ public class DocumentResourceV2 {
 
           int pageSize = DEFAULT_PAGE_SIZE;
 
-          ByteBuffer cloneState = pageState != null ? pageState.duplicate() : null;
-          DocumentDB db = dbFactory.getDocDataStoreForToken(authToken, pageSize, pageState);
-
           ImmutablePair<JsonNode, ByteBuffer> results;
 
           if (pageSizeParam > 20) {
@@ -692,25 +687,23 @@ public class DocumentResourceV2 {
             results =
                 documentService.getFullDocuments(
                     dbFactory,
-                    db,
                     authToken,
                     namespace,
                     collection,
                     selectionList,
-                    cloneState,
+                    pageState,
                     pageSize,
                     Math.max(1, pageSizeParam));
           } else {
             results =
                 documentService.getFullDocumentsFiltered(
                     dbFactory,
-                    db,
                     authToken,
                     namespace,
                     collection,
                     filters,
                     selectionList,
-                    cloneState,
+                    pageState,
                     pageSize,
                     Math.max(1, pageSizeParam));
           }
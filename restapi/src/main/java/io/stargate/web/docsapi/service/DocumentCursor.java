@@ -0,0 +1,121 @@
+package io.stargate.web.docsapi.service;
+
+import io.stargate.db.datastore.Row;
+import io.stargate.web.docsapi.exception.DocumentAPIRequestException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The position of a scan over the documents of a collection, as returned to clients in the {@code
+ * page-state} of a listing.
+ *
+ * <p>A Cassandra paging state can only resume at a page boundary, which rarely is a document
+ * boundary. So the cursor is the paging state of the page holding the row the scan stopped at,
+ * with where that row is in the page: the first row of the next document to return. When resuming,
+ * the rows before it are skipped, and the scan continues exactly where it stopped.
+ *
+ * <p>The rows of the resumed page may have changed in between. The row the scan stopped at is
+ * found by the key of its document first, then after the rows of the last document scanned, and
+ * only if both documents were deleted meanwhile, by its offset in the page.
+ */
+class DocumentCursor {
+  // Written first, so that page states of other formats are rejected
+  private static final byte VERSION = 1;
+
+  private final String lastKey;
+  private final String nextKey;
+  private final int nextRow;
+  private final ByteBuffer resumeState;
+
+  /**
+   * @param lastKey the key of the last document scanned.
+   * @param nextKey the key of the document of the row the scan stopped at.
+   * @param nextRow the index of that row in its page.
+   * @param resumeState the paging state that fetches the page holding that row, or {@code null} if
+   *     it is the first page.
+   */
+  DocumentCursor(String lastKey, String nextKey, int nextRow, ByteBuffer resumeState) {
+    this.lastKey = lastKey;
+    this.nextKey = nextKey;
+    this.nextRow = nextRow;
+    this.resumeState = resumeState;
+  }
+
+  String lastKey() {
+    return lastKey;
+  }
+
+  String nextKey() {
+    return nextKey;
+  }
+
+  int nextRow() {
+    return nextRow;
+  }
+
+  ByteBuffer resumeState() {
+    return resumeState == null ? null : resumeState.duplicate();
+  }
+
+  /** The index of the first row of the resumed page that was not scanned yet. */
+  int firstUnscannedRow(List<Row> page) {
+    for (int i = 0; i < page.size(); i++) {
+      if (page.get(i).getString("key").equals(nextKey)) return i;
+    }
+    for (int i = page.size() - 1; i >= 0; i--) {
+      if (page.get(i).getString("key").equals(lastKey)) return i + 1;
+    }
+    return Math.min(nextRow, page.size());
+  }
+
+  ByteBuffer encode() {
+    byte[] last = lastKey.getBytes(StandardCharsets.UTF_8);
+    byte[] next = nextKey.getBytes(StandardCharsets.UTF_8);
+    int stateSize = resumeState == null ? 0 : resumeState.remaining();
+    ByteBuffer buffer =
+        ByteBuffer.allocate(1 + 3 * Integer.BYTES + last.length + next.length + stateSize);
+    buffer.put(VERSION);
+    buffer.putInt(last.length).put(last);
+    buffer.putInt(next.length).put(next);
+    buffer.putInt(nextRow);
+    if (resumeState != null) {
+      buffer.put(resumeState.duplicate());
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  static DocumentCursor decode(ByteBuffer encoded) {
+    ByteBuffer buffer = encoded.duplicate();
+    if (!buffer.hasRemaining() || buffer.get() != VERSION) {
+      throw new DocumentAPIRequestException(
+          "Invalid page-state: it was not returned by this version of the API,"
+              + " restart the listing without it");
+    }
+
+    try {
+      String lastKey = readString(buffer);
+      String nextKey = readString(buffer);
+      int nextRow = buffer.getInt();
+      if (nextRow < 0) {
+        throw new DocumentAPIRequestException("Invalid page-state");
+      }
+      ByteBuffer resumeState = buffer.hasRemaining() ? buffer.slice() : null;
+      return new DocumentCursor(lastKey, nextKey, nextRow, resumeState);
+    } catch (BufferUnderflowException e) {
+      throw new DocumentAPIRequestException("Invalid page-state");
+    }
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0 || length > buffer.remaining()) {
+      throw new DocumentAPIRequestException("Invalid page-state");
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,56 @@
+package io.stargate.web.docsapi.service;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of the filtered searches of the Document API, which fetch each matching document with
+ * its own single-partition read.
+ *
+ * <p>For each search, the fan-out is the number of documents fetched, and the fetch time runs from
+ * the first read being sent to the last document being assembled. The latency of the individual
+ * reads is recorded separately, so that a slow search can be told apart from a slow partition.
+ */
+public final class DocumentSearchMetrics {
+  public static final DocumentSearchMetrics instance = new DocumentSearchMetrics();
+
+  private volatile boolean initialized = false;
+
+  private Histogram fanOuts;
+  private Timer fetches;
+  private Timer documentReads;
+
+  private DocumentSearchMetrics() {}
+
+  public synchronized void init(MetricRegistry metricRegistry) {
+    if (initialized) return;
+
+    fanOuts = metricRegistry.histogram(MetricRegistry.name("DocumentSearch", "FanOut"));
+    fetches = metricRegistry.timer(MetricRegistry.name("DocumentSearch", "Fetch"));
+    documentReads = metricRegistry.timer(MetricRegistry.name("DocumentSearch", "DocumentRead"));
+
+    initialized = true;
+  }
+
+  /**
+   * Records the fetch of the documents matched by a search.
+   *
+   * @param documents the number of documents fetched.
+   * @param durationNanos the time until all of them were assembled.
+   */
+  void recordFetch(int documents, long durationNanos) {
+    if (!initialized) return;
+
+    fanOuts.update(documents);
+    fetches.update(durationNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /** Records the read of all the rows of a single document. */
+  void recordDocumentRead(long latencyNanos) {
+    if (!initialized) return;
+
+    documentReads.update(latencyNanos, TimeUnit.NANOSECONDS);
+  }
+}
@@ -1,11 +1,10 @@
 package io.stargate.web.docsapi.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.*;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
-import com.google.gson.*;
 import io.stargate.auth.UnauthorizedException;
 import io.stargate.db.datastore.ResultSet;
 import io.stargate.db.datastore.Row;
@@ -14,7 +13,6 @@ import io.stargate.db.datastore.query.Where;
 import io.stargate.db.datastore.query.WhereCondition;
 import io.stargate.db.schema.Column;
 import io.stargate.web.docsapi.dao.DocumentDB;
-import io.stargate.web.docsapi.exception.DocumentAPIErrorHandlingStrategy;
 import io.stargate.web.docsapi.exception.DocumentAPIRequestException;
 import io.stargate.web.docsapi.service.filter.FilterCondition;
 import io.stargate.web.docsapi.service.filter.FilterOp;
@@ -25,48 +23,25 @@ import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.stream.Collectors;
 import javax.ws.rs.core.PathSegment;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.jsfr.json.JsonSurfer;
-import org.jsfr.json.JsonSurferGson;
-import org.jsfr.json.compiler.JsonPathCompiler;
-import org.jsfr.json.path.JsonPath;
-import org.jsfr.json.path.PathOperator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class DocumentService {
   private static final Logger logger = LoggerFactory.getLogger(DocumentService.class);
   private static final ObjectMapper mapper = new ObjectMapper();
-
-  /*
-   * Converts a JSON path string (e.g. "$.a.b.c[0]") into a JSON path string
-   * that only uses square brackets to denote pathing (e.g. "$['a']['b']['c'][0]".
-   * This is to allow escaping of certain characters, such as space, $, and @.
-   */
-  private String convertToBracketedPath(String path) {
-    String[] parts = path.split("\\.");
-    StringBuilder newPath = new StringBuilder();
-    for (int i = 0; i < parts.length; i++) {
-      String part = parts[i];
-      if (part.startsWith("$") && i == 0) {
-        newPath.append(part);
-      } else {
-        int indexOfBrace = part.indexOf('[');
-        if (indexOfBrace < 0) {
-          newPath.append("['").append(part).append("']");
-        } else {
-          String keyPart = part.substring(0, indexOfBrace);
-          String arrayPart = part.substring(indexOfBrace);
-          newPath.append("['").append(keyPart).append("']").append(arrayPart);
-        }
-      }
-    }
-    return newPath.toString();
-  }
+  private static final boolean STREAMING_READS =
+      Boolean.parseBoolean(System.getProperty("stargate.document_streaming_reads", "true"));
+  private static final int SEARCH_FETCH_PARALLELISM =
+      Math.max(1, Integer.getInteger("stargate.document_search_fetch_parallelism", 16));
 
   private String leftPadTo6(String value) {
     String padded = "";
@@ -89,148 +64,6 @@ public class DocumentService {
     return path;
   }
 
-  private boolean isEmptyObject(Object v) {
-    return v instanceof JsonElement
-        && ((JsonElement) v).isJsonObject()
-        && ((JsonObject) v).size() == 0;
-  }
-
-  private boolean isEmptyArray(Object v) {
-    return v instanceof JsonElement
-        && ((JsonElement) v).isJsonArray()
-        && ((JsonArray) v).size() == 0;
-  }
-
-  /**
-   * Transforms a JSON payload into a set of bind variables to send to Cassandra.
-   *
-   * @param surfer
-   * @param db
-   * @param path The path within the document that is being written to. If empty, writes to the root
-   *     of the document.
-   * @param key The name of the document that will be written
-   * @param payload a JSON object
-   * @param patching If this payload meant to be part of a PATCH request (this causes a small amount
-   *     of extra validation if true)
-   * @return The full bind variable list for the subsequent inserts, and all first-level keys, as an
-   *     ImmutablePair.
-   */
-  private ImmutablePair<List<Object[]>, List<String>> shredPayload(
-      JsonSurfer surfer,
-      DocumentDB db,
-      List<String> path,
-      String key,
-      String payload,
-      boolean patching) {
-    List<Object[]> bindVariableList = new ArrayList<>();
-    List<String> firstLevelKeys = new ArrayList<>();
-    surfer
-        .configBuilder()
-        .bind(
-            "$..*",
-            (v, parsingContext) -> {
-              String fieldName = parsingContext.getCurrentFieldName();
-              if (fieldName != null && (DocumentDB.containsIllegalChars(fieldName))) {
-                throw new DocumentAPIRequestException(
-                    String.format(
-                        "The characters %s are not permitted in JSON field names, invalid field %s",
-                        DocumentDB.getForbiddenCharactersMessage(), fieldName));
-              }
-
-              if (v instanceof JsonPrimitive
-                  || v instanceof JsonNull
-                  || isEmptyObject(v)
-                  || isEmptyArray(v)) {
-                JsonPath p =
-                    JsonPathCompiler.compile(convertToBracketedPath(parsingContext.getJsonPath()));
-                int i = path.size();
-                Map<String, Object> bindMap = db.newBindMap(path);
-
-                bindMap.put("key", key);
-
-                Iterator<PathOperator> it = p.iterator();
-                String leaf = null;
-                while (it.hasNext()) {
-                  if (i >= DocumentDB.MAX_DEPTH) {
-                    throw new DocumentAPIRequestException(
-                        String.format("Max depth of %s exceeded", DocumentDB.MAX_DEPTH));
-                  }
-
-                  PathOperator op = it.next();
-                  String pv = op.toString();
-
-                  if (pv.equals("$")) continue;
-
-                  // pv always starts with a square brace because of the above conversion
-                  String innerPath = pv.substring(1, pv.length() - 1);
-                  boolean isArrayElement = op.getType() == PathOperator.Type.ARRAY;
-                  if (isArrayElement) {
-                    if (i == path.size() && patching) {
-                      throw new DocumentAPIRequestException(
-                          "A patch operation must be done with a JSON object, not an array.");
-                    }
-
-                    int idx = Integer.parseInt(innerPath);
-                    if (idx > DocumentDB.MAX_ARRAY_LENGTH - 1) {
-                      throw new DocumentAPIRequestException(
-                          String.format(
-                              "Max array length of %s exceeded.", DocumentDB.MAX_ARRAY_LENGTH));
-                    }
-
-                    // left-pad the array element to 6 characters
-                    pv = "[" + leftPadTo6(innerPath) + "]";
-                  } else if (i == path.size()) {
-                    firstLevelKeys.add(innerPath);
-                    pv = innerPath;
-                  } else {
-                    pv = innerPath;
-                  }
-
-                  bindMap.put("p" + i++, pv);
-                  leaf = pv;
-                }
-
-                bindMap.put("leaf", leaf);
-
-                if (v instanceof JsonPrimitive) {
-                  JsonPrimitive value = (JsonPrimitive) v;
-
-                  if (value.isNumber()) {
-                    bindMap.put("dbl_value", value.getAsDouble());
-                    bindMap.put("bool_value", null);
-                    bindMap.put("text_value", null);
-                  } else if (value.isBoolean()) {
-                    bindMap.put("dbl_value", null);
-                    bindMap.put("bool_value", value.getAsBoolean());
-                    bindMap.put("text_value", null);
-                  } else {
-                    bindMap.put("dbl_value", null);
-                    bindMap.put("bool_value", null);
-                    bindMap.put("text_value", value.getAsString());
-                  }
-                } else if (isEmptyObject(v)) {
-                  bindMap.put("dbl_value", null);
-                  bindMap.put("bool_value", null);
-                  bindMap.put("text_value", DocumentDB.EMPTY_OBJECT_MARKER);
-                } else if (isEmptyArray(v)) {
-                  bindMap.put("dbl_value", null);
-                  bindMap.put("bool_value", null);
-                  bindMap.put("text_value", DocumentDB.EMPTY_ARRAY_MARKER);
-                } else {
-                  bindMap.put("dbl_value", null);
-                  bindMap.put("bool_value", null);
-                  bindMap.put("text_value", null);
-                }
-
-                logger.debug("{}", bindMap.values());
-                bindVariableList.add(bindMap.values().toArray());
-              }
-            })
-        .withErrorStrategy(new DocumentAPIErrorHandlingStrategy())
-        .buildAndSurf(payload);
-    return ImmutablePair.of(bindVariableList, firstLevelKeys);
-  }
-
   public void putAtPath(
       String authToken,
       String keyspace,
@@ -243,8 +76,6 @@ public class DocumentService {
       throws UnauthorizedException {
     DocumentDB db = dbFactory.getDocDataStoreForToken(authToken);
 
-    JsonSurfer surfer = JsonSurferGson.INSTANCE;
-
     boolean created = db.maybeCreateTable(keyspace, collection);
     // After creating the table, it can take up to 2 seconds for permissions cache to be updated,
     // but we can force the permissions refetch by logging in again.
@@ -261,7 +92,7 @@ public class DocumentService {
     }
 
     ImmutablePair<List<Object[]>, List<String>> shreddingResults =
-        shredPayload(surfer, db, convertedPath, id, payload, patching);
+        DocumentShredder.shred(convertedPath, id, payload, patching);
 
     List<Object[]> bindVariableList = shreddingResults.left;
     List<String> firstLevelKeys = shreddingResults.right;
@@ -287,6 +118,34 @@ public class DocumentService {
   public JsonNode getJsonAtPath(
       DocumentDB db, String keyspace, String collection, String id, List<PathSegment> path)
       throws ExecutionException, InterruptedException {
+    List<Row> rows = selectRowsAtPath(db, keyspace, collection, id, path);
+    if (rows.size() == 0) return null;
+
+    return jsonAtPath(db, keyspace, collection, id, path, rows);
+  }
+
+  /**
+   * Same as {@link #getJsonAtPath}, but when the rows of the document allow it, the returned JSON
+   * is written directly from the rows when serialized, instead of being built as a tree first.
+   *
+   * @return the JSON at the path, or null if there is none.
+   */
+  public JsonSerializable streamJsonAtPath(
+      DocumentDB db, String keyspace, String collection, String id, List<PathSegment> path)
+      throws ExecutionException, InterruptedException {
+    List<Row> rows = selectRowsAtPath(db, keyspace, collection, id, path);
+    if (rows.size() == 0) return null;
+
+    if (STREAMING_READS) {
+      StreamedDocument doc = StreamedDocument.of(rows, path.size());
+      if (doc != null) return doc;
+    }
+    return jsonAtPath(db, keyspace, collection, id, path, rows);
+  }
+
+  private List<Row> selectRowsAtPath(
+      DocumentDB db, String keyspace, String collection, String id, List<PathSegment> path)
+      throws ExecutionException, InterruptedException {
     List<Where<Object>> predicates = new ArrayList<>();
     predicates.add(
         ImmutableWhereCondition.builder()
@@ -295,29 +154,36 @@ public class DocumentService {
             .value(id)
             .build());
 
-    StringBuilder pathStr = new StringBuilder();
-
     for (int i = 0; i < path.size(); i++) {
-      String pathSegment = path.get(i).getPath();
-      String convertedPath = convertArrayPath(pathSegment);
       predicates.add(
           ImmutableWhereCondition.builder()
               .column("p" + i)
               .predicate(WhereCondition.Predicate.Eq)
-              .value(convertedPath)
+              .value(convertArrayPath(path.get(i).getPath()))
               .build());
+    }
 
-      if (!pathSegment.equals(convertedPath)) {
+    ResultSet r = db.executeSelect(keyspace, collection, predicates);
+    return r.rows();
+  }
+
+  private JsonNode jsonAtPath(
+      DocumentDB db,
+      String keyspace,
+      String collection,
+      String id,
+      List<PathSegment> path,
+      List<Row> rows) {
+    StringBuilder pathStr = new StringBuilder();
+    for (PathSegment segment : path) {
+      String pathSegment = segment.getPath();
+      if (!pathSegment.equals(convertArrayPath(pathSegment))) {
         pathStr.append("/").append(pathSegment, 1, pathSegment.length() - 1);
       } else {
         pathStr.append("/").append(pathSegment);
       }
     }
 
-    ResultSet r = db.executeSelect(keyspace, collection, predicates);
-    List<Row> rows = r.rows();
-
-    if (rows.size() == 0) return null;
     ImmutablePair<JsonNode, Map<String, List<JsonNode>>> result = convertToJsonDoc(rows, false);
     if (!result.right.isEmpty()) {
       logger.info(String.format("Deleting %d dead leaves", result.right.size()));
@@ -602,196 +468,240 @@ public class DocumentService {
     }
   }
 
-  private void updateExistenceForMap(
-      Map<String, Boolean> existsByDoc,
-      Map<String, Integer> countsByDoc,
-      List<Row> rows,
-      List<FilterCondition> filters) {
-    List<Row> filteredRows = applyInMemoryFilters(rows, filters, 1);
-    for (Row row : filteredRows) {
-      String key = row.getString("key");
-      if (!existsByDoc.getOrDefault(key, false)) {
-        existsByDoc.put(key, true);
-      }
-    }
-
-    for (Row row : rows) {
-      String key = row.getString("key");
-      int value = countsByDoc.getOrDefault(key, 0);
-      countsByDoc.put(key, value + 1);
-    }
+  /**
+   * This method gets all the rows for @param limit documents, in a single scan of the collection.
+   * This is NOT expected to perform well for large documents.
+   *
+   * @param pageState the page state returned by a previous call, to resume the scan after the
+   *     documents it returned, or null to start from the beginning of the collection.
+   * @return the documents, and the page state to get the next ones (null if there are none).
+   */
+  public ImmutablePair<JsonNode, ByteBuffer> getFullDocuments(
+      Db dbFactory,
+      String authToken,
+      String keyspace,
+      String collection,
+      List<String> fields,
+      ByteBuffer pageState,
+      int pageSize,
+      int limit)
+      throws ExecutionException, InterruptedException, UnauthorizedException {
+    return scanFullDocuments(
+        dbFactory, authToken, keyspace, collection, fields, pageState, pageSize, limit);
   }
 
   /**
-   * This method gets all the rows for @param limit documents, by fetching result sets sequentially
-   * and stringing them together. This is NOT expected to perform well for large documents.
+   * Same as {@link #getFullDocuments}, but only returns the documents that have a row matching the
+   * filters.
+   *
+   * <p>The keys of the matching documents are found first, by paging through the rows of the first
+   * filter's field (which are indexed) and applying the filters to them. Then each document is
+   * fetched with its own single-partition read, with up to {@code
+   * stargate.document_search_fetch_parallelism} reads in flight. The page state returned is a
+   * {@link DocumentCursor} over the rows of the filter's field.
    */
-  public ImmutablePair<JsonNode, ByteBuffer> getFullDocuments(
+  public ImmutablePair<JsonNode, ByteBuffer> getFullDocumentsFiltered(
       Db dbFactory,
-      DocumentDB db,
       String authToken,
       String keyspace,
       String collection,
+      List<FilterCondition> filters,
       List<String> fields,
-      ByteBuffer initialPagingState,
+      ByteBuffer pageState,
       int pageSize,
       int limit)
       throws ExecutionException, InterruptedException, UnauthorizedException {
-    ObjectNode docsResult = mapper.createObjectNode();
-    LinkedHashMap<String, List<Row>> rowsByDoc = new LinkedHashMap<>();
-
-    ImmutablePair<List<Row>, ByteBuffer> page;
-    do {
-      page =
-          searchRows(
-              keyspace,
-              collection,
-              db,
-              new ArrayList<>(),
-              new ArrayList<>(),
-              new ArrayList<>(),
-              false,
-              null);
-      addRowsToMap(rowsByDoc, page.left);
-      db = dbFactory.getDocDataStoreForToken(authToken, pageSize, page.right);
-    } while (rowsByDoc.keySet().size() <= limit && page.right != null);
-
-    // Either we've reached the end of all rows in the collection, or we have enough rows
-    // in memory to build the final result.
-    Set<String> docNames = rowsByDoc.keySet();
-    if (docNames.size() > limit) {
-      int totalSize = 0;
-      Iterator<Map.Entry<String, List<Row>>> iter = rowsByDoc.entrySet().iterator();
-      for (int i = 0; i < limit; i++) {
-        Map.Entry<String, List<Row>> e = iter.next();
-        totalSize += e.getValue().size();
-        List<Row> rows = new ArrayList<>();
-        for (Row row : e.getValue()) {
-          if (fields.isEmpty() || fields.contains(row.getString("p0"))) rows.add(row);
-        }
-        docsResult.set(e.getKey(), convertToJsonDoc(rows, false).left);
-      }
-      db = dbFactory.getDocDataStoreForToken(authToken, totalSize, initialPagingState);
-      ByteBuffer finalPagingState =
-          searchRows(
-                  keyspace,
-                  collection,
-                  db,
-                  new ArrayList<>(),
-                  new ArrayList<>(),
-                  new ArrayList<>(),
-                  false,
-                  null)
-              .right;
-      return ImmutablePair.of(docsResult, finalPagingState);
-    } else {
-      Iterator<Map.Entry<String, List<Row>>> iter = rowsByDoc.entrySet().iterator();
-      while (iter.hasNext()) {
-        Map.Entry<String, List<Row>> e = iter.next();
-        List<Row> rows = new ArrayList<>();
-        for (Row row : e.getValue()) {
-          if (fields.isEmpty() || fields.contains(row.getString("p0"))) rows.add(row);
+    DocumentCursor cursor = pageState == null ? null : DocumentCursor.decode(pageState);
+    ByteBuffer pageStart = cursor == null ? null : cursor.resumeState();
+    DocumentDB db = dbFactory.getDocDataStoreForToken(authToken, pageSize, pageStart);
+    List<Where<Object>> predicates =
+        Collections.singletonList(
+            ImmutableWhereCondition.builder()
+                .column("leaf")
+                .predicate(WhereCondition.Predicate.Eq)
+                .value(filters.get(0).getField())
+                .build());
+    ResultSet resultSet = db.executeSelect(keyspace, collection, predicates, true);
+
+    List<String> keys = new ArrayList<>();
+    ByteBuffer nextPageState = null;
+    String currentKey = null;
+    scan:
+    while (true) {
+      List<Row> page = resultSet.currentPageRows();
+      int first = cursor == null ? 0 : cursor.firstUnscannedRow(page);
+      cursor = null;
+
+      for (int i = first; i < page.size(); i++) {
+        Row row = page.get(i);
+        String key = row.getString("key");
+        if (!key.equals(currentKey)) {
+          if (keys.size() == limit) {
+            nextPageState = new DocumentCursor(currentKey, key, i, pageStart).encode();
+            break scan;
+          }
+          currentKey = key;
         }
-        docsResult.set(e.getKey(), convertToJsonDoc(rows, false).left);
+        boolean matched = !keys.isEmpty() && keys.get(keys.size() - 1).equals(key);
+        if (!matched && allFiltersMatch(row, filters)) keys.add(key);
       }
-      return ImmutablePair.of(docsResult, null);
+
+      ByteBuffer resultPageState = resultSet.getPagingState();
+      if (resultPageState == null) break;
+
+      pageStart = resultPageState;
+      resultSet.fetchNextPage().get();
+    }
+
+    ObjectNode docsResult = mapper.createObjectNode();
+    JsonNode[] docs = fetchFullDocuments(db, keyspace, collection, keys, fields);
+    for (int i = 0; i < docs.length; i++) {
+      docsResult.set(keys.get(i), docs[i]);
     }
+    return ImmutablePair.of(docsResult, nextPageState);
   }
 
   /**
-   * This method gets all the rows for @param limit documents, by fetching result sets sequentially
-   * and stringing them together. After getting all the data out, it will pare down the document to
-   * just the relevant result set, while maintaining page state. This is expected to be even more
-   * intensive than getFullDocuments.
+   * Scans the rows of the collection, page by page over a single result set, and builds each
+   * document as soon as the scan moves past its last row. The scan stops at the first row after
+   * the last document to return, and the page state returned is a {@link DocumentCursor} to resume
+   * from there.
    */
-  public ImmutablePair<JsonNode, ByteBuffer> getFullDocumentsFiltered(
+  private ImmutablePair<JsonNode, ByteBuffer> scanFullDocuments(
       Db dbFactory,
-      DocumentDB db,
       String authToken,
       String keyspace,
       String collection,
-      List<FilterCondition> filters,
       List<String> fields,
-      ByteBuffer initialPagingState,
+      ByteBuffer pageState,
       int pageSize,
       int limit)
       throws ExecutionException, InterruptedException, UnauthorizedException {
+    DocumentCursor cursor = pageState == null ? null : DocumentCursor.decode(pageState);
+    ByteBuffer pageStart = cursor == null ? null : cursor.resumeState();
+    DocumentDB db = dbFactory.getDocDataStoreForToken(authToken, pageSize, pageStart);
+    ResultSet resultSet = db.executeSelectAll(keyspace, collection);
+
     ObjectNode docsResult = mapper.createObjectNode();
-    LinkedHashMap<String, Boolean> existsByDoc = new LinkedHashMap<>();
-    LinkedHashMap<String, Integer> countsByDoc = new LinkedHashMap<>();
-
-    ImmutablePair<List<Row>, ByteBuffer> page;
-    do {
-      page =
-          searchRows(
-              keyspace,
-              collection,
-              db,
-              new ArrayList<>(),
-              new ArrayList<>(),
-              new ArrayList<>(),
-              false,
-              null);
-      updateExistenceForMap(existsByDoc, countsByDoc, page.left, filters);
-      db = dbFactory.getDocDataStoreForToken(authToken, pageSize, page.right);
-    } while (existsByDoc.keySet().size() <= limit && page.right != null);
-
-    // Either we've reached the end of all rows in the collection, or we have enough rows
-    // in memory to build the final result.
-    Set<String> docNames = existsByDoc.keySet();
-    ByteBuffer finalPagingState;
-    if (docNames.size() > limit) {
-      int totalSize = 0;
-      docNames = new HashSet<>();
-      Iterator<Map.Entry<String, Integer>> iter = countsByDoc.entrySet().iterator();
-      int i = 0;
-      while (i < limit) {
-        Map.Entry<String, Integer> e = iter.next();
-        totalSize += e.getValue();
-        if (existsByDoc.containsKey(e.getKey())) {
-          docNames.add(e.getKey());
-          i++;
+    String currentKey = null;
+    List<Row> currentRows = new ArrayList<>();
+    while (true) {
+      List<Row> page = resultSet.currentPageRows();
+      int first = cursor == null ? 0 : cursor.firstUnscannedRow(page);
+      cursor = null;
+
+      for (int i = first; i < page.size(); i++) {
+        Row row = page.get(i);
+        String key = row.getString("key");
+        if (!key.equals(currentKey)) {
+          if (currentKey != null) {
+            docsResult.set(currentKey, toFullDocument(currentRows, fields));
+            if (docsResult.size() == limit) {
+              return ImmutablePair.of(
+                  docsResult, new DocumentCursor(currentKey, key, i, pageStart).encode());
+            }
+          }
+          currentKey = key;
+          currentRows = new ArrayList<>();
         }
+        currentRows.add(row);
       }
-      db = dbFactory.getDocDataStoreForToken(authToken, totalSize, initialPagingState);
-      finalPagingState =
-          searchRows(
-                  keyspace,
-                  collection,
-                  db,
-                  new ArrayList<>(),
-                  new ArrayList<>(),
-                  new ArrayList<>(),
-                  false,
-                  null)
-              .right;
-    } else {
-      finalPagingState = null;
+
+      ByteBuffer nextPageState = resultSet.getPagingState();
+      if (nextPageState == null) break;
+
+      pageStart = nextPageState;
+      resultSet.fetchNextPage().get();
     }
 
-    List<Where<Object>> predicate =
-        ImmutableList.of(
-            ImmutableWhereCondition.builder()
-                .column("key")
-                .predicate(WhereCondition.Predicate.In)
-                .value(new ArrayList<>(docNames))
-                .build());
+    if (currentKey != null) {
+      docsResult.set(currentKey, toFullDocument(currentRows, fields));
+    }
+    return ImmutablePair.of(docsResult, null);
+  }
 
-    db = dbFactory.getDocDataStoreForToken(authToken);
-    List<Row> rows = db.executeSelect(keyspace, collection, predicate).rows();
-    Map<String, List<Row>> rowsByDoc = new HashMap<>();
-    for (Row row : rows) {
-      String key = row.getString("key");
-      List<Row> rowsAtKey = rowsByDoc.getOrDefault(key, new ArrayList<>());
-      if (fields.isEmpty() || fields.contains(row.getString("p0"))) rowsAtKey.add(row);
-      rowsByDoc.put(key, rowsAtKey);
+  /**
+   * Fetches the documents with the given keys, each with its own read. A bounded number of reads
+   * is kept in flight, and each document is built on this thread as soon as its rows arrive, while
+   * the other reads are still running.
+   *
+   * @return the documents, in the order of their keys.
+   */
+  private JsonNode[] fetchFullDocuments(
+      DocumentDB db, String keyspace, String collection, List<String> keys, List<String> fields)
+      throws ExecutionException, InterruptedException {
+    long start = System.nanoTime();
+    JsonNode[] docs = new JsonNode[keys.size()];
+    BlockingQueue<FetchedDocument> fetched = new LinkedBlockingQueue<>();
+
+    int sent = 0;
+    while (sent < Math.min(SEARCH_FETCH_PARALLELISM, keys.size())) {
+      fetchDocument(db, keyspace, collection, keys, sent++, fetched);
+    }
+    for (int received = 0; received < keys.size(); received++) {
+      FetchedDocument doc = fetched.take();
+      if (doc.error != null) {
+        // The reads still in flight complete into a queue that nobody reads anymore
+        throw new ExecutionException(doc.error);
+      }
+      if (sent < keys.size()) {
+        fetchDocument(db, keyspace, collection, keys, sent++, fetched);
+      }
+      docs[doc.index] = toFullDocument(doc.rows, fields);
     }
 
-    for (Map.Entry<String, List<Row>> entry : rowsByDoc.entrySet()) {
-      docsResult.set(entry.getKey(), convertToJsonDoc(entry.getValue(), false).left);
+    DocumentSearchMetrics.instance.recordFetch(keys.size(), System.nanoTime() - start);
+    return docs;
+  }
+
+  private void fetchDocument(
+      DocumentDB db,
+      String keyspace,
+      String collection,
+      List<String> keys,
+      int index,
+      BlockingQueue<FetchedDocument> fetched) {
+    long start = System.nanoTime();
+    db.executeSelectDocument(keyspace, collection, keys.get(index))
+        .thenCompose(this::fetchAllPages)
+        .whenComplete(
+            (resultSet, error) -> {
+              if (error == null) {
+                DocumentSearchMetrics.instance.recordDocumentRead(System.nanoTime() - start);
+                fetched.add(new FetchedDocument(index, resultSet.currentPageRows(), null));
+              } else {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                fetched.add(new FetchedDocument(index, null, cause));
+              }
+            });
+  }
+
+  /** Fetches the remaining pages of a result set, without blocking. */
+  private CompletableFuture<ResultSet> fetchAllPages(ResultSet resultSet) {
+    if (resultSet.getPagingState() == null) {
+      return CompletableFuture.completedFuture(resultSet);
+    }
+    return resultSet.fetchNextPage().thenCompose(this::fetchAllPages);
+  }
+
+  private static class FetchedDocument {
+    final int index;
+    final List<Row> rows;
+    final Throwable error;
+
+    FetchedDocument(int index, List<Row> rows, Throwable error) {
+      this.index = index;
+      this.rows = rows;
+      this.error = error;
     }
+  }
 
-    return ImmutablePair.of(docsResult, finalPagingState);
+  private JsonNode toFullDocument(List<Row> rows, List<String> fields) {
+    List<Row> selected = new ArrayList<>();
+    for (Row row : rows) {
+      if (fields.isEmpty() || fields.contains(row.getString("p0"))) selected.add(row);
+    }
+    return convertToJsonDoc(selected, false).left;
   }
 
   /**
@@ -968,18 +878,17 @@ public class DocumentService {
   }
 
   private String getParentPathFromRow(Row row) {
-    int i = 0;
     StringBuilder s = new StringBuilder();
-    boolean end = false;
     s.append(row.getString("key")).append("/");
-    while (i < DocumentDB.MAX_DEPTH && !end) {
-      String pathSegment = row.getString("p" + i);
-      String nextPathSegment = i + 1 < DocumentDB.MAX_DEPTH ? row.getString("p" + (i + 1)) : null;
-      end = (nextPathSegment == null || nextPathSegment.equals(""));
-      if (!end) {
-        s.append(pathSegment).append(".");
-        i++;
+    // Appends every path segment but the last non-empty one, reading each segment only once.
+    String pathSegment = row.getString(DocumentDB.pathColumnName(0));
+    for (int i = 1; i < DocumentDB.MAX_DEPTH; i++) {
+      String nextPathSegment = row.getString(DocumentDB.pathColumnName(i));
+      if (nextPathSegment == null || nextPathSegment.equals("")) {
+        break;
       }
+      s.append(pathSegment).append(".");
+      pathSegment = nextPathSegment;
     }
     return s.toString();
   }
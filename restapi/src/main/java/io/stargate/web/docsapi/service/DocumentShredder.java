@@ -0,0 +1,198 @@
+package io.stargate.web.docsapi.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.stargate.web.docsapi.dao.DocumentDB;
+import io.stargate.web.docsapi.exception.DocumentAPIRequestException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+
+/**
+ * Transforms a JSON payload into the rows of bind variables inserted by the Document API, in a
+ * single pass over a streaming parser.
+ *
+ * <p>Every leaf of the payload (a scalar, {@code null}, or an empty object or array) becomes one
+ * row, whose values are in the order of the insert columns: the key, the {@code p0} to {@code
+ * pN} path columns, the leaf name, and the text, double and boolean values. The path from the root
+ * of the payload to the current value is kept as a stack, so a row is just a copy of a template
+ * row with the path and value filled in. Field names, depth and array lengths are validated as
+ * they are read, and anything after the root value of the payload is rejected.
+ */
+class DocumentShredder {
+  private static final JsonFactory jsonFactory = new JsonFactory();
+
+  private static final int LEAF_INDEX = DocumentDB.MAX_DEPTH + 1;
+  private static final int TEXT_VALUE_INDEX = LEAF_INDEX + 1;
+  private static final int DBL_VALUE_INDEX = LEAF_INDEX + 2;
+  private static final int BOOL_VALUE_INDEX = LEAF_INDEX + 3;
+  private static final int ROW_LENGTH = LEAF_INDEX + 4;
+
+  // Most arrays are short, so their path segments are computed once
+  private static final String[] ARRAY_SEGMENTS = new String[1024];
+
+  static {
+    for (int i = 0; i < ARRAY_SEGMENTS.length; i++) {
+      ARRAY_SEGMENTS[i] = formatArraySegment(i);
+    }
+  }
+
+  private final Object[] template = new Object[ROW_LENGTH];
+  private final String[] segments = new String[DocumentDB.MAX_DEPTH];
+  private final int rootDepth;
+  private final boolean patching;
+
+  private final List<Object[]> rows = new ArrayList<>();
+  private final List<String> firstLevelKeys = new ArrayList<>();
+
+  private DocumentShredder(List<String> path, String key, boolean patching) {
+    this.rootDepth = path.size();
+    this.patching = patching;
+
+    template[0] = key;
+    for (int i = 0; i < DocumentDB.MAX_DEPTH; i++) {
+      template[i + 1] = i < path.size() ? path.get(i) : "";
+    }
+  }
+
+  /**
+   * Transforms a JSON payload into a set of bind variables to send to Cassandra.
+   *
+   * @param path The path within the document that is being written to. If empty, writes to the root
+   *     of the document.
+   * @param key The name of the document that will be written
+   * @param payload a JSON object
+   * @param patching If this payload meant to be part of a PATCH request (this causes a small amount
+   *     of extra validation if true)
+   * @return The full bind variable list for the subsequent inserts, and all first-level keys, as an
+   *     ImmutablePair.
+   */
+  static ImmutablePair<List<Object[]>, List<String>> shred(
+      List<String> path, String key, String payload, boolean patching) {
+    DocumentShredder shredder = new DocumentShredder(path, key, patching);
+    try (JsonParser parser = jsonFactory.createParser(payload)) {
+      JsonToken token = parser.nextToken();
+      // Like empty containers, a scalar is only a leaf when it isn't the root of the payload
+      if (token == JsonToken.START_OBJECT) {
+        shredder.shredObject(parser, shredder.rootDepth);
+      } else if (token == JsonToken.START_ARRAY) {
+        shredder.shredArray(parser, shredder.rootDepth);
+      }
+      if (token != null && parser.nextToken() != null) {
+        throw new JsonParseException(parser, "Unexpected content after the root value");
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e.getLocalizedMessage(), e);
+    }
+    return ImmutablePair.of(shredder.rows, shredder.firstLevelKeys);
+  }
+
+  /** Shreds an object whose {@code START_OBJECT} was just read, at the given depth. */
+  private void shredObject(JsonParser parser, int depth) throws IOException {
+    JsonToken token = parser.nextToken();
+    if (token == JsonToken.END_OBJECT) {
+      if (depth > rootDepth) addLeaf(depth, DocumentDB.EMPTY_OBJECT_MARKER, null, null);
+      return;
+    }
+
+    for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+      String fieldName = parser.getCurrentName();
+      if (DocumentDB.containsIllegalChars(fieldName)) {
+        throw new DocumentAPIRequestException(
+            String.format(
+                "The characters %s are not permitted in JSON field names, invalid field %s",
+                DocumentDB.getForbiddenCharactersMessage(), fieldName));
+      }
+      if (depth == rootDepth) firstLevelKeys.add(fieldName);
+
+      push(depth, fieldName);
+      shredValue(parser, parser.nextToken(), depth + 1);
+    }
+  }
+
+  /** Shreds an array whose {@code START_ARRAY} was just read, at the given depth. */
+  private void shredArray(JsonParser parser, int depth) throws IOException {
+    JsonToken token = parser.nextToken();
+    if (token == JsonToken.END_ARRAY) {
+      if (depth > rootDepth) addLeaf(depth, DocumentDB.EMPTY_ARRAY_MARKER, null, null);
+      return;
+    }
+
+    if (depth == rootDepth && patching) {
+      throw new DocumentAPIRequestException(
+          "A patch operation must be done with a JSON object, not an array.");
+    }
+
+    for (int index = 0; token != JsonToken.END_ARRAY; token = parser.nextToken(), index++) {
+      if (index > DocumentDB.MAX_ARRAY_LENGTH - 1) {
+        throw new DocumentAPIRequestException(
+            String.format("Max array length of %s exceeded.", DocumentDB.MAX_ARRAY_LENGTH));
+      }
+
+      push(depth, arraySegment(index));
+      shredValue(parser, token, depth + 1);
+    }
+  }
+
+  /** Shreds the value starting with {@code token}, whose path has {@code depth} segments. */
+  private void shredValue(JsonParser parser, JsonToken token, int depth) throws IOException {
+    switch (token) {
+      case START_OBJECT:
+        shredObject(parser, depth);
+        break;
+      case START_ARRAY:
+        shredArray(parser, depth);
+        break;
+      case VALUE_STRING:
+        addLeaf(depth, parser.getText(), null, null);
+        break;
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        addLeaf(depth, null, parser.getDoubleValue(), null);
+        break;
+      case VALUE_TRUE:
+        addLeaf(depth, null, null, true);
+        break;
+      case VALUE_FALSE:
+        addLeaf(depth, null, null, false);
+        break;
+      case VALUE_NULL:
+        addLeaf(depth, null, null, null);
+        break;
+      default:
+        throw new IllegalStateException("Unexpected JSON token " + token);
+    }
+  }
+
+  /** Sets the path segment at {@code depth}, that is the name of a value at depth + 1. */
+  private void push(int depth, String segment) {
+    if (depth >= DocumentDB.MAX_DEPTH) {
+      throw new DocumentAPIRequestException(
+          String.format("Max depth of %s exceeded", DocumentDB.MAX_DEPTH));
+    }
+    segments[depth] = segment;
+  }
+
+  private void addLeaf(int depth, String textValue, Double dblValue, Boolean boolValue) {
+    Object[] row = Arrays.copyOf(template, ROW_LENGTH);
+    System.arraycopy(segments, rootDepth, row, rootDepth + 1, depth - rootDepth);
+    row[LEAF_INDEX] = segments[depth - 1];
+    row[TEXT_VALUE_INDEX] = textValue;
+    row[DBL_VALUE_INDEX] = dblValue;
+    row[BOOL_VALUE_INDEX] = boolValue;
+    rows.add(row);
+  }
+
+  /** The path segment of an array element, left-padded to 6 digits (like {@code [000010]}). */
+  private static String arraySegment(int index) {
+    return index < ARRAY_SEGMENTS.length ? ARRAY_SEGMENTS[index] : formatArraySegment(index);
+  }
+
+  private static String formatArraySegment(int index) {
+    return String.format("[%06d]", index);
+  }
+}
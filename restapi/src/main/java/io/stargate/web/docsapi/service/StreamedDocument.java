@@ -0,0 +1,255 @@
+package io.stargate.web.docsapi.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import io.stargate.db.datastore.Row;
+import io.stargate.web.docsapi.dao.DocumentDB;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A document (or the part of it below some path) that is written directly from its rows to a
+ * {@link JsonGenerator}, without building the intermediate {@code JsonNode} tree of {@link
+ * DocumentService#convertToJsonDoc}.
+ *
+ * <p>Rows are read in clustering order, that is the order of their {@code p0} to {@code pN}
+ * columns, so the members of each object and array are contiguous: only the path of the current
+ * row needs to be tracked, and a container is closed as soon as a row leaves it. This only holds
+ * when the rows have no conflicts, such as a path that is both a leaf and an object, or both an
+ * object and an array, after a partial overwrite of the document. Those are resolved with the
+ * write times of the rows (and cleaned up as dead leaves) by the tree builder, so {@link #of}
+ * first checks the rows, and returns {@code null} if the tree builder must be used instead.
+ */
+class StreamedDocument implements JsonSerializable {
+  private final List<Row> rows;
+  private final int depth;
+
+  private StreamedDocument(List<Row> rows, int depth) {
+    this.rows = rows;
+    this.depth = depth;
+  }
+
+  /**
+   * @param rows the rows of the document, in clustering order.
+   * @param depth the length of the path that was queried: the first {@code depth} path columns of
+   *     all the rows are equal, and the JSON below them is written.
+   * @return the document, or {@code null} if the rows can't be written in a single pass.
+   */
+  static StreamedDocument of(List<Row> rows, int depth) {
+    try {
+      return new Writer(depth, null).write(rows) ? new StreamedDocument(rows, depth) : null;
+    } catch (IOException e) {
+      throw new AssertionError("No I/O without a generator", e);
+    }
+  }
+
+  @Override
+  public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+    if (!new Writer(depth, gen).write(rows)) {
+      // Should not happen, since the same rows were checked when this was created
+      throw new IllegalStateException("Document rows can't be written in a single pass");
+    }
+  }
+
+  @Override
+  public void serializeWithType(
+      JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+      throws IOException {
+    serialize(gen, serializers);
+  }
+
+  /**
+   * Walks the rows, writing them to a generator if there is one, and stops at the first row that
+   * conflicts with the previous ones.
+   */
+  private static class Writer {
+    private final int depth;
+    private final JsonGenerator gen;
+
+    // The open containers, from the root: whether they are arrays, and their last member
+    private final boolean[] arrays = new boolean[DocumentDB.MAX_DEPTH];
+    private final String[] lastMembers = new String[DocumentDB.MAX_DEPTH];
+    private final int[] nextIndexes = new int[DocumentDB.MAX_DEPTH];
+    private int open;
+
+    private final String[] path = new String[DocumentDB.MAX_DEPTH];
+    private int leaves;
+
+    Writer(int depth, JsonGenerator gen) {
+      this.depth = depth;
+      this.gen = gen;
+    }
+
+    boolean write(List<Row> rows) throws IOException {
+      for (Row row : rows) {
+        if (DocumentDB.ROOT_DOC_MARKER.equals(row.getString("leaf"))) {
+          continue;
+        }
+        if (!write(row)) {
+          return false;
+        }
+      }
+
+      while (open > 0) {
+        end();
+      }
+      if (leaves == 0) {
+        // An empty document is an empty object, but nothing below a path is no JSON at all
+        if (depth > 0) return false;
+
+        if (gen != null) {
+          gen.writeStartObject();
+          gen.writeEndObject();
+        }
+      }
+      return true;
+    }
+
+    private boolean write(Row row) throws IOException {
+      int length = 0;
+      for (int i = depth; i < DocumentDB.MAX_DEPTH; i++) {
+        String p = row.getString(DocumentDB.pathColumnName(i));
+        if (p == null || p.isEmpty()) break;
+        path[length++] = p;
+      }
+
+      if (length == 0) {
+        // A single value at the queried path
+        if (leaves > 0) return false;
+        writeValue(row);
+        leaves++;
+        return true;
+      }
+      if (open == 0 && leaves > 0) {
+        return false;
+      }
+
+      // Keep the containers that are shared with the previous row, close the others
+      int shared = 0;
+      if (open > 0) {
+        if (arrays[0] != isArraySegment(path[0])) return false;
+        shared = 1;
+        while (shared < open
+            && shared < length
+            && path[shared - 1].equals(lastMembers[shared - 1])) {
+          if (arrays[shared] != isArraySegment(path[shared])) return false;
+          shared++;
+        }
+      }
+      while (open > shared) {
+        end();
+      }
+
+      if (open == 0) {
+        start(path[0]);
+      }
+      while (open < length) {
+        if (!member(path[open - 1])) return false;
+        start(path[open]);
+      }
+      if (!member(path[length - 1])) return false;
+      writeValue(row);
+      leaves++;
+      return true;
+    }
+
+    private void start(String firstMember) throws IOException {
+      boolean array = isArraySegment(firstMember);
+      arrays[open] = array;
+      lastMembers[open] = null;
+      nextIndexes[open] = 0;
+      open++;
+      if (gen == null) return;
+
+      if (array) {
+        gen.writeStartArray();
+      } else {
+        gen.writeStartObject();
+      }
+    }
+
+    private void end() throws IOException {
+      open--;
+      if (gen == null) return;
+
+      if (arrays[open]) {
+        gen.writeEndArray();
+      } else {
+        gen.writeEndObject();
+      }
+    }
+
+    /** Starts the next member of the innermost container. */
+    private boolean member(String segment) throws IOException {
+      int container = open - 1;
+      if (isArraySegment(segment) != arrays[container]) return false;
+
+      if (arrays[container]) {
+        int index = arrayIndex(segment);
+        if (index < nextIndexes[container]) return false;
+
+        if (gen != null) {
+          // Like the tree builder, fill the elements that have no rows with nulls
+          for (int i = nextIndexes[container]; i < index; i++) {
+            gen.writeNull();
+          }
+        }
+        nextIndexes[container] = index + 1;
+      } else {
+        String last = lastMembers[container];
+        if (last != null && segment.compareTo(last) <= 0) return false;
+
+        if (gen != null) gen.writeFieldName(segment);
+      }
+      lastMembers[container] = segment;
+      return true;
+    }
+
+    private void writeValue(Row row) throws IOException {
+      if (gen == null) return;
+
+      if (!row.isNull("text_value")) {
+        String value = row.getString("text_value");
+        if (value.equals(DocumentDB.EMPTY_OBJECT_MARKER)) {
+          gen.writeStartObject();
+          gen.writeEndObject();
+        } else if (value.equals(DocumentDB.EMPTY_ARRAY_MARKER)) {
+          gen.writeStartArray();
+          gen.writeEndArray();
+        } else {
+          gen.writeString(value);
+        }
+      } else if (!row.isNull("bool_value")) {
+        gen.writeBoolean(row.getBoolean("bool_value"));
+      } else if (!row.isNull("dbl_value")) {
+        // Same as the tree builder: whole numbers are written as longs
+        double dv = row.getDouble("dbl_value");
+        long lv = (long) dv;
+        if ((double) lv == dv) gen.writeNumber(lv);
+        else gen.writeNumber(dv);
+      } else {
+        gen.writeNull();
+      }
+    }
+  }
+
+  private static boolean isArraySegment(String segment) {
+    return segment.startsWith("[");
+  }
+
+  /** The index of an array segment like {@code [000012]}, or -1 if it is malformed. */
+  private static int arrayIndex(String segment) {
+    int last = segment.length() - 1;
+    if (last < 2 || segment.charAt(last) != ']') return -1;
+
+    int index = 0;
+    for (int i = 1; i < last; i++) {
+      char c = segment.charAt(i);
+      if (c < '0' || c > '9' || index > (Integer.MAX_VALUE - 9) / 10) return -1;
+      index = index * 10 + (c - '0');
+    }
+    return index;
+  }
+}
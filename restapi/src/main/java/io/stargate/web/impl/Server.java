@@ -28,8 +28,10 @@ import io.stargate.core.metrics.api.Metrics;
 import io.stargate.db.Persistence;
 import io.stargate.web.RestApiActivator;
 import io.stargate.web.config.ApplicationConfiguration;
+import io.stargate.web.docsapi.dao.DeadLeafRepairQueue;
 import io.stargate.web.docsapi.resources.DocumentResourceV2;
 import io.stargate.web.docsapi.resources.NamespacesResource;
+import io.stargate.web.docsapi.service.DocumentSearchMetrics;
 import io.stargate.web.resources.ColumnResource;
 import io.stargate.web.resources.Db;
 import io.stargate.web.resources.HealthResource;
@@ -97,6 +99,9 @@ public class Server extends Application<ApplicationConfiguration> {
       final ApplicationConfiguration applicationConfiguration, final Environment environment)
       throws IOException {
     final Db db = new Db(persistence, authenticationService);
+    DocumentSearchMetrics.instance.init(environment.metrics());
+    DeadLeafRepairQueue.instance.registerMetrics(environment.metrics());
+    DeadLeafRepairQueue.instance.start();
 
     environment.getObjectMapper().configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
     environment.getObjectMapper().registerModule(new JavaTimeModule());
@@ -90,7 +90,9 @@ public class Db {
 
   public DocumentDB getDocDataStoreForToken(String token) throws UnauthorizedException {
     StoredCredentials storedCredentials = authenticationService.validateToken(token);
-    return new DocumentDB(DataStore.create(persistence, storedCredentials.getRoleName()));
+    return new DocumentDB(
+        DataStore.create(persistence, storedCredentials.getRoleName()),
+        storedCredentials.getRoleName());
   }
 
   public DocumentDB getDocDataStoreForToken(String token, int pageSize, ByteBuffer pageState)
@@ -100,6 +102,7 @@ public class Db {
         Parameters.builder().pageSize(pageSize).pagingState(Optional.ofNullable(pageState)).build();
 
     return new DocumentDB(
-        DataStore.create(persistence, storedCredentials.getRoleName(), parameters));
+        DataStore.create(persistence, storedCredentials.getRoleName(), parameters),
+        storedCredentials.getRoleName());
   }
 }
@@ -0,0 +1,281 @@
+package io.stargate.web.docsapi.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.RateLimiter;
+import io.stargate.db.BatchType;
+import io.stargate.db.Parameters;
+import io.stargate.db.datastore.DataStore;
+import io.stargate.db.datastore.PreparedStatement;
+import io.stargate.db.datastore.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import org.apache.cassandra.stargate.db.ConsistencyLevel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class DeadLeafRepairQueueTest {
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  private final AtomicLong micros = new AtomicLong(1000);
+  private final CountDownLatch blocked = new CountDownLatch(1);
+
+  private DeadLeafRepairQueue queue;
+  private ExecutorService executor;
+  private MetricRegistry registry;
+
+  @Before
+  public void setup() {
+    queue = queue(10, RateLimiter.create(1_000_000));
+  }
+
+  @After
+  public void shutdown() {
+    blocked.countDown();
+    queue.shutdown();
+  }
+
+  @Test
+  public void coalescesRepairsOfSameDocument() throws Exception {
+    DocumentDB db = db();
+    blockExecutor();
+
+    queue.submit(db, "ks", "t", "doc", deadLeaves("$.a", "{\"x\": 1}"));
+    queue.submit(db, "ks", "t", "doc", deadLeaves("$.a", "{\"y\": 1}", "$.b", "[1]"));
+    queue.submit(db, "ks", "t", "doc", deadLeaves("$.a", "{\"x\": 1}"));
+    queue.submit(db, "ks", "t", "other", deadLeaves("$.a", "{\"x\": 1}"));
+    unblockExecutor();
+
+    Map<String, List<JsonNode>> expected = deadLeaves("$.a", "{\"x\": 1}", "$.b", "[1]");
+    expected.get("$.a").add(mapper.readTree("{\"y\": 1}"));
+    verify(db).deleteDeadLeaves("ks", "t", "doc", 1000, expected);
+    verify(db).deleteDeadLeaves("ks", "t", "other", 1000, deadLeaves("$.a", "{\"x\": 1}"));
+    assertThat(count("Queued")).isEqualTo(2);
+    assertThat(count("Coalesced")).isEqualTo(2);
+    assertThat(count("Executed")).isEqualTo(2);
+  }
+
+  @Test
+  public void coalescesRepairsSubmittedThroughInstancesOfSameRole() throws Exception {
+    // As every request creates its own instance
+    DocumentDB first = db("alice");
+    DocumentDB second = db("alice");
+    blockExecutor();
+
+    queue.submit(first, "ks", "t", "doc", deadLeaves("$.a", "{\"x\": 1}"));
+    queue.submit(second, "ks", "t", "doc", deadLeaves("$.a", "{\"y\": 1}"));
+    unblockExecutor();
+
+    Map<String, List<JsonNode>> expected = deadLeaves("$.a", "{\"x\": 1}", "$.a", "{\"y\": 1}");
+    verify(first).deleteDeadLeaves("ks", "t", "doc", 1000, expected);
+    verify(second, never())
+        .deleteDeadLeaves(anyString(), anyString(), anyString(), anyLong(), anyMap());
+    assertThat(count("Coalesced")).isEqualTo(1);
+    assertThat(count("Executed")).isEqualTo(1);
+  }
+
+  @Test
+  public void doesNotCoalesceRepairsOfOtherRoles() throws Exception {
+    DocumentDB first = db("alice");
+    DocumentDB second = db("bob");
+    blockExecutor();
+
+    queue.submit(first, "ks", "t", "doc", deadLeaves("$.a", "{\"x\": 1}"));
+    queue.submit(second, "ks", "t", "doc", deadLeaves("$.a", "{\"y\": 1}"));
+    unblockExecutor();
+
+    // Each with the permissions of its own role
+    verify(first).deleteDeadLeaves("ks", "t", "doc", 1000, deadLeaves("$.a", "{\"x\": 1}"));
+    verify(second).deleteDeadLeaves("ks", "t", "doc", 1000, deadLeaves("$.a", "{\"y\": 1}"));
+    assertThat(count("Coalesced")).isZero();
+  }
+
+  @Test
+  public void keepsEarliestTimestampOfCoalescedRepairs() throws Exception {
+    DocumentDB db = db();
+    blockExecutor();
+
+    micros.set(2000);
+    queue.submit(db, "ks", "t", "doc", deadLeaves("$.a", "{\"x\": 1}"));
+    micros.set(1500);
+    queue.submit(db, "ks", "t", "doc", deadLeaves("$.a", "{\"x\": 1}"));
+    micros.set(3000);
+    queue.submit(db, "ks", "t", "doc", deadLeaves("$.a", "{\"x\": 1}"));
+    unblockExecutor();
+
+    verify(db).deleteDeadLeaves("ks", "t", "doc", 1500, deadLeaves("$.a", "{\"x\": 1}"));
+  }
+
+  @Test
+  public void dropsRepairsBeyondMaxPending() throws Exception {
+    queue = queue(2, RateLimiter.create(1_000_000));
+    DocumentDB db = db();
+    blockExecutor();
+
+    queue.submit(db, "ks", "t", "doc1", deadLeaves("$.a", "{\"x\": 1}"));
+    queue.submit(db, "ks", "t", "doc2", deadLeaves("$.a", "{\"x\": 1}"));
+    queue.submit(db, "ks", "t", "doc3", deadLeaves("$.a", "{\"x\": 1}"));
+    // Still merged into the pending repair
+    queue.submit(db, "ks", "t", "doc1", deadLeaves("$.b", "{\"x\": 1}"));
+    unblockExecutor();
+
+    verify(db, times(2))
+        .deleteDeadLeaves(anyString(), anyString(), anyString(), anyLong(), anyMap());
+    verify(db, never()).deleteDeadLeaves(eq("ks"), eq("t"), eq("doc3"), anyLong(), anyMap());
+    assertThat(count("Dropped")).isEqualTo(1);
+    assertThat(count("Coalesced")).isEqualTo(1);
+  }
+
+  @Test
+  public void keepsRepairsPendingWhileRateLimited() throws Exception {
+    // The first permit is immediate, the next one is 10 seconds later
+    queue = queue(10, RateLimiter.create(0.1));
+    DocumentDB db = db();
+
+    queue.submit(db, "ks", "t", "doc1", deadLeaves("$.a", "{\"x\": 1}"));
+    awaitExecutor();
+    queue.submit(db, "ks", "t", "doc2", deadLeaves("$.a", "{\"x\": 1}"));
+    TimeUnit.MILLISECONDS.sleep(200);
+    queue.submit(db, "ks", "t", "doc2", deadLeaves("$.b", "{\"x\": 1}"));
+
+    verify(db).deleteDeadLeaves(eq("ks"), eq("t"), eq("doc1"), anyLong(), anyMap());
+    verify(db, never()).deleteDeadLeaves(eq("ks"), eq("t"), eq("doc2"), anyLong(), anyMap());
+    assertThat(count("Coalesced")).isEqualTo(1);
+    assertThat(registry.getGauges().get("DocumentDeadLeafRepairs.Pending").getValue())
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void dropsRepairsWhenShutDown() throws Exception {
+    DocumentDB db = db();
+    blockExecutor();
+    queue.submit(db, "ks", "t", "doc", deadLeaves("$.a", "{\"x\": 1}"));
+
+    queue.shutdown();
+    queue.submit(db, "ks", "t", "other", deadLeaves("$.a", "{\"x\": 1}"));
+
+    verify(db, never())
+        .deleteDeadLeaves(anyString(), anyString(), anyString(), anyLong(), anyMap());
+    assertThat(count("Dropped")).isEqualTo(1);
+    assertThat(registry.getGauges().get("DocumentDeadLeafRepairs.Pending").getValue())
+        .isEqualTo(0);
+  }
+
+  @Test
+  public void registersMetricsOnce() {
+    queue.registerMetrics(registry);
+
+    assertThat(registry.getMeters()).containsKey("DocumentDeadLeafRepairs.Queued");
+  }
+
+  @Test
+  public void executesRepairsAsUnloggedLocalQuorumBatches() throws Exception {
+    DataStore dataStore = mock(DataStore.class);
+    PreparedStatement prepared = mock(PreparedStatement.class);
+    when(dataStore.prepare(anyString())).thenReturn(CompletableFuture.completedFuture(prepared));
+    when(prepared.bind(anyVararg())).thenReturn(mock(PreparedStatement.Bound.class));
+    when(dataStore.batch(any(List.class), any(BatchType.class), any(UnaryOperator.class)))
+        .thenReturn(CompletableFuture.completedFuture(ResultSet.empty()));
+
+    queue.submit(
+        new DocumentDB(dataStore), "ks", "t", "doc", deadLeaves("$.a", "{\"x\": 1}", "$.b", "[1]"));
+    awaitExecutor();
+
+    ArgumentCaptor<List> statements = ArgumentCaptor.forClass(List.class);
+    ArgumentCaptor<UnaryOperator> parameters = ArgumentCaptor.forClass(UnaryOperator.class);
+    verify(dataStore).batch(statements.capture(), eq(BatchType.UNLOGGED), parameters.capture());
+    assertThat(statements.getValue()).hasSize(2);
+    @SuppressWarnings("unchecked")
+    Parameters executed = (Parameters) parameters.getValue().apply(Parameters.defaults());
+    assertThat(executed.consistencyLevel()).isEqualTo(ConsistencyLevel.LOCAL_QUORUM);
+  }
+
+  private DeadLeafRepairQueue queue(int maxPending, RateLimiter rateLimiter) {
+    if (queue != null) queue.shutdown();
+
+    DeadLeafRepairQueue created =
+        new DeadLeafRepairQueue(
+            maxPending,
+            () -> executor = Executors.newSingleThreadExecutor(),
+            rateLimiter,
+            micros::get);
+    created.start();
+    registry = new MetricRegistry();
+    created.registerMetrics(registry);
+    return created;
+  }
+
+  private static DocumentDB db() {
+    return db("role");
+  }
+
+  private static DocumentDB db(String roleName) {
+    DocumentDB db = mock(DocumentDB.class);
+    when(db.getRoleName()).thenReturn(roleName);
+    when(db.deleteDeadLeaves(anyString(), anyString(), anyString(), anyLong(), anyMap()))
+        .thenReturn(CompletableFuture.completedFuture(ResultSet.empty()));
+    return db;
+  }
+
+  /** Dead leaves from alternating paths and JSON nodes. */
+  private static Map<String, List<JsonNode>> deadLeaves(String... pathsAndNodes) throws Exception {
+    Map<String, List<JsonNode>> deadLeaves = new HashMap<>();
+    for (int i = 0; i < pathsAndNodes.length; i += 2) {
+      deadLeaves
+          .computeIfAbsent(pathsAndNodes[i], path -> new ArrayList<>())
+          .add(mapper.readTree(pathsAndNodes[i + 1]));
+    }
+    return deadLeaves;
+  }
+
+  private long count(String meter) {
+    return registry.meter(MetricRegistry.name("DocumentDeadLeafRepairs", meter)).getCount();
+  }
+
+  // Keeps the repairs pending until unblockExecutor()
+  private void blockExecutor() {
+    executor.execute(
+        () -> {
+          try {
+            blocked.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+  }
+
+  private void unblockExecutor() throws Exception {
+    blocked.countDown();
+    awaitExecutor();
+  }
+
+  // Waits until all the tasks submitted to the executor so far have run.
+  private void awaitExecutor() throws Exception {
+    executor.submit(() -> {}).get(10, TimeUnit.SECONDS);
+  }
+}
@@ -20,6 +20,7 @@ import io.stargate.db.schema.Schema;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.UnaryOperator;
+import org.apache.cassandra.stargate.db.ConsistencyLevel;
 import org.apache.cassandra.stargate.transport.ProtocolVersion;
 import org.junit.Before;
 import org.junit.Test;
@@ -160,6 +161,26 @@ public class DocumentDBTest {
     assertThat(ds.getRecentStatements()).isEqualTo(expectedStmts);
   }
 
+  @Test
+  public void insertStatementPreparedOncePerBatch() {
+    List<String> path = ImmutableList.of("a", "b", "c");
+    List<Object[]> vars = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Map<String, Object> map = documentDB.newBindMap(path);
+      map.put("dbl_value", (double) i);
+      vars.add(map.values().toArray());
+    }
+    documentDB.deleteThenInsertBatch("keyspace", "table", "key", vars, path, 1L);
+    documentDB.deleteThenInsertBatch("keyspace", "table", "key", vars, path, 2L);
+
+    List<PreparedStatement.Bound> statements = ds.getRecentStatements();
+    assertThat(statements).hasSize(8);
+    // One DELETE and one INSERT, whatever the number of rows and batches
+    assertThat(ds.prepareCount).isEqualTo(2);
+    assertThat(statements.get(1).preparedStatement())
+        .isSameAs(statements.get(7).preparedStatement());
+  }
+
   @Test
   public void deletePatchedPathsThenInsertBatch() {
     ds = new TestDataStore();
@@ -234,6 +255,9 @@ public class DocumentDBTest {
     deadLeaves.get("$.b").add(arrayNode);
 
     documentDB.deleteDeadLeaves("keyspace", "table", "key", 1L, deadLeaves);
+    assertThat(ds.recentBatchType).isEqualTo(BatchType.UNLOGGED);
+    assertThat(ds.recentBatchParameters.consistencyLevel())
+        .isEqualTo(ConsistencyLevel.LOCAL_QUORUM);
 
     List<PreparedStatement.Bound> expectedStmts = new ArrayList<>();
     expectedStmts.add(
@@ -335,6 +359,9 @@ public class DocumentDBTest {
 
   private class TestDataStore implements DataStore {
     private final List<PreparedStatement.Bound> recentStatements = new ArrayList<>();
+    private BatchType recentBatchType;
+    private Parameters recentBatchParameters;
+    private int prepareCount;
 
     @Override
     public CompletableFuture<ResultSet> query(
@@ -344,6 +371,7 @@ public class DocumentDBTest {
 
     @Override
     public CompletableFuture<PreparedStatement> prepare(String s) {
+      prepareCount++;
       return CompletableFuture.completedFuture(new TestPreparedStatement(s, this));
     }
 
@@ -352,6 +380,8 @@ public class DocumentDBTest {
         List<Bound> statements, BatchType batchType, UnaryOperator<Parameters> parametersModifier) {
       System.out.println(statements);
       this.recentStatements.addAll(statements);
+      this.recentBatchType = batchType;
+      this.recentBatchParameters = parametersModifier.apply(Parameters.defaults());
       return CompletableFuture.completedFuture(ResultSet.empty());
     }
 
@@ -15,6 +15,8 @@ import io.stargate.web.docsapi.service.DocumentService;
 import io.stargate.web.docsapi.service.filter.FilterCondition;
 import io.stargate.web.docsapi.service.filter.SingleFilterCondition;
 import io.stargate.web.resources.Db;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
@@ -22,6 +24,7 @@ import java.util.concurrent.ExecutionException;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.PathSegment;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.junit.Before;
@@ -170,7 +173,7 @@ public class DocumentResourceV2Test {
   }
 
   @Test
-  public void getDoc() throws ExecutionException, InterruptedException, JsonProcessingException {
+  public void getDoc() throws ExecutionException, InterruptedException, IOException {
     HttpHeaders headers = mock(HttpHeaders.class);
     UriInfo ui = mock(UriInfo.class);
     String authToken = "auth_token";
@@ -186,7 +189,7 @@ public class DocumentResourceV2Test {
     mockedReturn.set("someData", BooleanNode.valueOf(true));
 
     PowerMockito.when(
-            documentServiceMock.getJsonAtPath(
+            documentServiceMock.streamJsonAtPath(
                 anyObject(), anyString(), anyString(), anyString(), anyObject()))
         .thenReturn(mockedReturn);
 
@@ -205,12 +208,11 @@ public class DocumentResourceV2Test {
             true);
 
     assertThat(r.getStatus()).isEqualTo(200);
-    assertThat(mapper.readTree((String) r.getEntity())).isEqualTo(mockedReturn);
+    assertThat(mapper.readTree(entity(r))).isEqualTo(mockedReturn);
   }
 
   @Test
-  public void getDocPath_rawTrue()
-      throws ExecutionException, InterruptedException, JsonProcessingException {
+  public void getDocPath_rawTrue() throws ExecutionException, InterruptedException, IOException {
     HttpHeaders headers = mock(HttpHeaders.class);
     UriInfo ui = mock(UriInfo.class);
     String authToken = "auth_token";
@@ -227,7 +229,7 @@ public class DocumentResourceV2Test {
     mockedReturn.set("someData", BooleanNode.valueOf(true));
 
     PowerMockito.when(
-            documentServiceMock.getJsonAtPath(
+            documentServiceMock.streamJsonAtPath(
                 anyObject(), anyString(), anyString(), anyString(), anyObject()))
         .thenReturn(mockedReturn);
 
@@ -247,7 +249,7 @@ public class DocumentResourceV2Test {
             true);
 
     assertThat(r.getStatus()).isEqualTo(200);
-    assertThat(mapper.readTree((String) r.getEntity())).isEqualTo(mockedReturn);
+    assertThat(mapper.readTree(entity(r))).isEqualTo(mockedReturn);
   }
 
   @Test
@@ -298,8 +300,7 @@ public class DocumentResourceV2Test {
   }
 
   @Test
-  public void getDocPath_rawFalse()
-      throws ExecutionException, InterruptedException, JsonProcessingException {
+  public void getDocPath_rawFalse() throws ExecutionException, InterruptedException, IOException {
     HttpHeaders headers = mock(HttpHeaders.class);
     UriInfo ui = mock(UriInfo.class);
     String authToken = "auth_token";
@@ -316,7 +317,7 @@ public class DocumentResourceV2Test {
     mockedReturn.set("someData", BooleanNode.valueOf(true));
 
     PowerMockito.when(
-            documentServiceMock.getJsonAtPath(
+            documentServiceMock.streamJsonAtPath(
                 anyObject(), anyString(), anyString(), anyString(), anyObject()))
         .thenReturn(mockedReturn);
 
@@ -339,7 +340,7 @@ public class DocumentResourceV2Test {
     ObjectNode expected = mapper.createObjectNode();
     expected.set("documentId", TextNode.valueOf(id));
     expected.set("data", mockedReturn);
-    assertThat(mapper.readTree((String) r.getEntity())).isEqualTo(expected);
+    assertThat(mapper.readTree(entity(r))).isEqualTo(expected);
   }
 
   @Test
@@ -357,7 +358,7 @@ public class DocumentResourceV2Test {
     List<PathSegment> path = new ArrayList<>();
 
     PowerMockito.when(
-            documentServiceMock.getJsonAtPath(
+            documentServiceMock.streamJsonAtPath(
                 anyObject(), anyString(), anyString(), anyString(), anyObject()))
         .thenReturn(null);
 
@@ -421,7 +422,6 @@ public class DocumentResourceV2Test {
 
     PowerMockito.when(
             documentServiceMock.getFullDocumentsFiltered(
-                anyObject(),
                 anyObject(),
                 anyString(),
                 anyString(),
@@ -480,7 +480,6 @@ public class DocumentResourceV2Test {
 
     PowerMockito.when(
             documentServiceMock.getFullDocumentsFiltered(
-                anyObject(),
                 anyObject(),
                 anyString(),
                 anyString(),
@@ -539,7 +538,6 @@ public class DocumentResourceV2Test {
 
     PowerMockito.when(
             documentServiceMock.getFullDocumentsFiltered(
-                anyObject(),
                 anyObject(),
                 anyString(),
                 anyString(),
@@ -703,7 +701,6 @@ public class DocumentResourceV2Test {
 
     PowerMockito.when(
             documentServiceMock.getFullDocuments(
-                anyObject(),
                 anyObject(),
                 anyString(),
                 anyString(),
@@ -758,4 +755,10 @@ public class DocumentResourceV2Test {
     assertThat(r.getStatus()).isEqualTo(400);
     assertThat((String) r.getEntity()).isEqualTo("The parameter `page-size` is limited to 20.");
   }
+
+  private static String entity(Response r) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((StreamingOutput) r.getEntity()).write(out);
+    return out.toString("UTF-8");
+  }
 }
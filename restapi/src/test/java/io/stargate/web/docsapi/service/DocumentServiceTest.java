@@ -7,16 +7,13 @@ import static org.mockito.Mockito.*;
 import com.datastax.oss.driver.api.core.ProtocolVersion;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.BooleanNode;
 import com.fasterxml.jackson.databind.node.IntNode;
 import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonNull;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonPrimitive;
 import io.stargate.auth.UnauthorizedException;
 import io.stargate.db.datastore.ArrayListBackedRow;
 import io.stargate.db.datastore.ResultSet;
@@ -33,12 +30,11 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.PathSegment;
 import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.jsfr.json.JsonSurfer;
-import org.jsfr.json.JsonSurferGson;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -50,15 +46,10 @@ import org.powermock.modules.junit4.PowerMockRunner;
 @PrepareForTest(DocumentService.class)
 public class DocumentServiceTest {
   private DocumentService service;
-  private Method convertToBracketedPath;
   private Method leftPadTo6;
   private Method convertArrayPath;
-  private Method isEmptyObject;
-  private Method isEmptyArray;
-  private Method shredPayload;
   private Method validateOpAndValue;
   private Method addRowsToMap;
-  private Method updateExistenceForMap;
   private Method getParentPathFromRow;
   private Method filterToSelectionSet;
   private Method applyInMemoryFilters;
@@ -73,37 +64,16 @@ public class DocumentServiceTest {
   public void setup() throws NoSuchMethodException {
     service = new DocumentService();
 
-    convertToBracketedPath =
-        DocumentService.class.getDeclaredMethod("convertToBracketedPath", String.class);
-    convertToBracketedPath.setAccessible(true);
     leftPadTo6 = DocumentService.class.getDeclaredMethod("leftPadTo6", String.class);
     leftPadTo6.setAccessible(true);
     convertArrayPath = DocumentService.class.getDeclaredMethod("convertArrayPath", String.class);
     convertArrayPath.setAccessible(true);
-    isEmptyObject = DocumentService.class.getDeclaredMethod("isEmptyObject", Object.class);
-    isEmptyObject.setAccessible(true);
-    isEmptyArray = DocumentService.class.getDeclaredMethod("isEmptyArray", Object.class);
-    isEmptyArray.setAccessible(true);
-    shredPayload =
-        DocumentService.class.getDeclaredMethod(
-            "shredPayload",
-            JsonSurfer.class,
-            DocumentDB.class,
-            List.class,
-            String.class,
-            String.class,
-            boolean.class);
-    shredPayload.setAccessible(true);
     validateOpAndValue =
         DocumentService.class.getDeclaredMethod(
             "validateOpAndValue", String.class, JsonNode.class, String.class);
     validateOpAndValue.setAccessible(true);
     addRowsToMap = DocumentService.class.getDeclaredMethod("addRowsToMap", Map.class, List.class);
     addRowsToMap.setAccessible(true);
-    updateExistenceForMap =
-        DocumentService.class.getDeclaredMethod(
-            "updateExistenceForMap", Map.class, Map.class, List.class, List.class);
-    updateExistenceForMap.setAccessible(true);
     getParentPathFromRow =
         DocumentService.class.getDeclaredMethod("getParentPathFromRow", Row.class);
     getParentPathFromRow.setAccessible(true);
@@ -150,42 +120,6 @@ public class DocumentServiceTest {
     searchRows.setAccessible(true);
   }
 
-  @Test
-  public void convertToBracketedPath() throws IllegalAccessException, InvocationTargetException {
-    String input = "$.a.b";
-    String res = (String) convertToBracketedPath.invoke(service, input);
-    assertThat(res).isEqualTo("$['a']['b']");
-
-    input = "a.b";
-    res = (String) convertToBracketedPath.invoke(service, input);
-    assertThat(res).isEqualTo("['a']['b']");
-
-    input = "$.$.c";
-    res = (String) convertToBracketedPath.invoke(service, input);
-    assertThat(res).isEqualTo("$['$']['c']");
-
-    input = "$.a.b[0].c";
-    res = (String) convertToBracketedPath.invoke(service, input);
-    assertThat(res).isEqualTo("$['a']['b'][0]['c']");
-
-    input = "$.a.I need some space.c";
-    res = (String) convertToBracketedPath.invoke(service, input);
-    assertThat(res).isEqualTo("$['a']['I need some space']['c']");
-
-    input = "$.a.0[0].c";
-    res = (String) convertToBracketedPath.invoke(service, input);
-    assertThat(res).isEqualTo("$['a']['0'][0]['c']");
-
-    input = "$.@.23.f";
-    res = (String) convertToBracketedPath.invoke(service, input);
-    assertThat(res).isEqualTo("$['@']['23']['f']");
-
-    // This should really never be sent to this function...but it does "work"
-    input = "$..a";
-    res = (String) convertToBracketedPath.invoke(service, input);
-    assertThat(res).isEqualTo("$['']['a']");
-  }
-
   @Test
   public void leftPadTo6() throws InvocationTargetException, IllegalAccessException {
     String result = (String) leftPadTo6.invoke(service, "");
@@ -246,652 +180,6 @@ public class DocumentServiceTest {
         .hasMessage("Max array length of 1000000 exceeded.");
   }
 
-  @Test
-  public void isEmptyObject() throws InvocationTargetException, IllegalAccessException {
-    assertThat(isEmptyObject.invoke(service, "a")).isEqualTo(false);
-    assertThat(isEmptyObject.invoke(service, (Object) null)).isEqualTo(false);
-    assertThat(isEmptyObject.invoke(service, JsonNull.INSTANCE)).isEqualTo(false);
-    assertThat(isEmptyObject.invoke(service, new JsonArray())).isEqualTo(false);
-    JsonArray nonEmptyArray = new JsonArray();
-    nonEmptyArray.add("something");
-    assertThat(isEmptyObject.invoke(service, nonEmptyArray)).isEqualTo(false);
-    JsonObject nonEmptyObj = new JsonObject();
-    nonEmptyObj.add("key", new JsonPrimitive("something"));
-    assertThat(isEmptyObject.invoke(service, nonEmptyObj)).isEqualTo(false);
-    assertThat(isEmptyObject.invoke(service, new JsonObject())).isEqualTo(true);
-  }
-
-  @Test
-  public void isEmptyArray() throws InvocationTargetException, IllegalAccessException {
-    assertThat(isEmptyArray.invoke(service, "a")).isEqualTo(false);
-    assertThat(isEmptyArray.invoke(service, (Object) null)).isEqualTo(false);
-    assertThat(isEmptyArray.invoke(service, JsonNull.INSTANCE)).isEqualTo(false);
-    JsonObject nonEmptyObj = new JsonObject();
-    nonEmptyObj.add("key", new JsonPrimitive("something"));
-    assertThat(isEmptyArray.invoke(service, nonEmptyObj)).isEqualTo(false);
-    assertThat(isEmptyArray.invoke(service, new JsonObject())).isEqualTo(false);
-    JsonArray nonEmptyArray = new JsonArray();
-    nonEmptyArray.add("something");
-    assertThat(isEmptyArray.invoke(service, nonEmptyArray)).isEqualTo(false);
-    assertThat(isEmptyArray.invoke(service, new JsonArray())).isEqualTo(true);
-  }
-
-  @Test
-  public void shredPayload_booleanLeaf() throws InvocationTargetException, IllegalAccessException {
-    DocumentDB dbMock = mock(DocumentDB.class);
-    when(dbMock.newBindMap(anyObject())).thenCallRealMethod();
-
-    List<String> path = new ArrayList<>();
-    String key = "eric";
-    String payload = "{\"cool\": {\"document\": true}}";
-    ImmutablePair<List<Object[]>, List<String>> shredResult =
-        (ImmutablePair<List<Object[]>, List<String>>)
-            shredPayload.invoke(
-                service, JsonSurferGson.INSTANCE, dbMock, path, key, payload, false);
-    List<Object[]> bindVariables = shredResult.left;
-    List<String> topLevelKeys = shredResult.right;
-    assertThat(bindVariables.size()).isEqualTo(1);
-    Object[] vars = bindVariables.get(0);
-    assertThat(vars.length).isEqualTo(69);
-    Object[] expected = {
-      "eric",
-      "cool",
-      "document",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "document",
-      null,
-      null,
-      true,
-    };
-    for (int i = 0; i < vars.length; i++) {
-      assertThat(vars[i]).isEqualTo(expected[i]);
-    }
-
-    assertThat(topLevelKeys.size()).isEqualTo(1);
-    assertThat(topLevelKeys.get(0)).isEqualTo("cool");
-  }
-
-  @Test
-  public void shredPayload_numberLeaf() throws InvocationTargetException, IllegalAccessException {
-    DocumentDB dbMock = mock(DocumentDB.class);
-    when(dbMock.newBindMap(anyObject())).thenCallRealMethod();
-
-    List<String> path = new ArrayList<>();
-    String key = "eric";
-    String payload = "{\"cool\": {\"document\": 3}}";
-    ImmutablePair<List<Object[]>, List<String>> shredResult =
-        (ImmutablePair<List<Object[]>, List<String>>)
-            shredPayload.invoke(
-                service, JsonSurferGson.INSTANCE, dbMock, path, key, payload, false);
-    List<Object[]> bindVariables = shredResult.left;
-    List<String> topLevelKeys = shredResult.right;
-    assertThat(bindVariables.size()).isEqualTo(1);
-    Object[] vars = bindVariables.get(0);
-    assertThat(vars.length).isEqualTo(69);
-    Object[] expected = {
-      "eric",
-      "cool",
-      "document",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "document",
-      null,
-      3.0,
-      null
-    };
-    for (int i = 0; i < vars.length; i++) {
-      assertThat(vars[i]).isEqualTo(expected[i]);
-    }
-
-    assertThat(topLevelKeys.size()).isEqualTo(1);
-    assertThat(topLevelKeys.get(0)).isEqualTo("cool");
-  }
-
-  @Test
-  public void shredPayload_stringLeaf() throws InvocationTargetException, IllegalAccessException {
-    DocumentDB dbMock = mock(DocumentDB.class);
-    when(dbMock.newBindMap(anyObject())).thenCallRealMethod();
-
-    List<String> path = new ArrayList<>();
-    String key = "eric";
-    String payload = "{\"cool\": {\"document\": \"leaf\"}}";
-    ImmutablePair<List<Object[]>, List<String>> shredResult =
-        (ImmutablePair<List<Object[]>, List<String>>)
-            shredPayload.invoke(
-                service, JsonSurferGson.INSTANCE, dbMock, path, key, payload, false);
-    List<Object[]> bindVariables = shredResult.left;
-    List<String> topLevelKeys = shredResult.right;
-    assertThat(bindVariables.size()).isEqualTo(1);
-    Object[] vars = bindVariables.get(0);
-    assertThat(vars.length).isEqualTo(69);
-    Object[] expected = {
-      "eric",
-      "cool",
-      "document",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "document",
-      "leaf",
-      null,
-      null
-    };
-    for (int i = 0; i < vars.length; i++) {
-      assertThat(vars[i]).isEqualTo(expected[i]);
-    }
-
-    assertThat(topLevelKeys.size()).isEqualTo(1);
-    assertThat(topLevelKeys.get(0)).isEqualTo("cool");
-  }
-
-  @Test
-  public void shredPayload_emptyObjectLeaf()
-      throws InvocationTargetException, IllegalAccessException {
-    DocumentDB dbMock = mock(DocumentDB.class);
-    when(dbMock.newBindMap(anyObject())).thenCallRealMethod();
-
-    List<String> path = new ArrayList<>();
-    String key = "eric";
-    String payload = "{\"cool\": {\"document\": {}}}";
-    ImmutablePair<List<Object[]>, List<String>> shredResult =
-        (ImmutablePair<List<Object[]>, List<String>>)
-            shredPayload.invoke(
-                service, JsonSurferGson.INSTANCE, dbMock, path, key, payload, false);
-    List<Object[]> bindVariables = shredResult.left;
-    List<String> topLevelKeys = shredResult.right;
-    assertThat(bindVariables.size()).isEqualTo(1);
-    Object[] vars = bindVariables.get(0);
-    assertThat(vars.length).isEqualTo(69);
-    Object[] expected = {
-      "eric",
-      "cool",
-      "document",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "document",
-      DocumentDB.EMPTY_OBJECT_MARKER,
-      null,
-      null,
-    };
-    for (int i = 0; i < vars.length; i++) {
-      assertThat(vars[i]).isEqualTo(expected[i]);
-    }
-
-    assertThat(topLevelKeys.size()).isEqualTo(1);
-    assertThat(topLevelKeys.get(0)).isEqualTo("cool");
-  }
-
-  @Test
-  public void shredPayload_emptyArrayLeaf()
-      throws InvocationTargetException, IllegalAccessException {
-    DocumentDB dbMock = mock(DocumentDB.class);
-    when(dbMock.newBindMap(anyObject())).thenCallRealMethod();
-
-    List<String> path = new ArrayList<>();
-    String key = "eric";
-    String payload = "{\"cool\": {\"document\": []}}";
-    ImmutablePair<List<Object[]>, List<String>> shredResult =
-        (ImmutablePair<List<Object[]>, List<String>>)
-            shredPayload.invoke(
-                service, JsonSurferGson.INSTANCE, dbMock, path, key, payload, false);
-    List<Object[]> bindVariables = shredResult.left;
-    List<String> topLevelKeys = shredResult.right;
-    assertThat(bindVariables.size()).isEqualTo(1);
-    Object[] vars = bindVariables.get(0);
-    assertThat(vars.length).isEqualTo(69);
-    Object[] expected = {
-      "eric",
-      "cool",
-      "document",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "document",
-      DocumentDB.EMPTY_ARRAY_MARKER,
-      null,
-      null
-    };
-    for (int i = 0; i < vars.length; i++) {
-      assertThat(vars[i]).isEqualTo(expected[i]);
-    }
-
-    assertThat(topLevelKeys.size()).isEqualTo(1);
-    assertThat(topLevelKeys.get(0)).isEqualTo("cool");
-  }
-
-  @Test
-  public void shredPayload_nullLeaf() throws InvocationTargetException, IllegalAccessException {
-    DocumentDB dbMock = mock(DocumentDB.class);
-    when(dbMock.newBindMap(anyObject())).thenCallRealMethod();
-
-    List<String> path = new ArrayList<>();
-    String key = "eric";
-    String payload = "{\"cool\": {\"document\": null}}";
-    ImmutablePair<List<Object[]>, List<String>> shredResult =
-        (ImmutablePair<List<Object[]>, List<String>>)
-            shredPayload.invoke(
-                service, JsonSurferGson.INSTANCE, dbMock, path, key, payload, false);
-    List<Object[]> bindVariables = shredResult.left;
-    List<String> topLevelKeys = shredResult.right;
-    assertThat(bindVariables.size()).isEqualTo(1);
-    Object[] vars = bindVariables.get(0);
-    assertThat(vars.length).isEqualTo(69);
-    Object[] expected = {
-      "eric",
-      "cool",
-      "document",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "",
-      "document",
-      null,
-      null,
-      null
-    };
-    for (int i = 0; i < vars.length; i++) {
-      assertThat(vars[i]).isEqualTo(expected[i]);
-    }
-
-    assertThat(topLevelKeys.size()).isEqualTo(1);
-    assertThat(topLevelKeys.get(0)).isEqualTo("cool");
-  }
-
-  @Test
-  public void shredPayload_invalidKeys() {
-    DocumentDB dbMock = mock(DocumentDB.class);
-    when(dbMock.newBindMap(anyObject())).thenCallRealMethod();
-
-    List<String> path = new ArrayList<>();
-    String key = "eric";
-    String payload = "{\"coo]\": {\"document\": null}}";
-    Throwable thrown =
-        catchThrowable(
-            () ->
-                shredPayload.invoke(
-                    service, JsonSurferGson.INSTANCE, dbMock, path, key, payload, false));
-    assertThat(thrown.getCause())
-        .isInstanceOf(DocumentAPIRequestException.class)
-        .hasMessageContaining("are not permitted in JSON field names, invalid field coo]");
-    ;
-  }
-
-  @Test
-  public void shredPayload_patchingArrayInvalid() {
-    DocumentDB dbMock = mock(DocumentDB.class);
-    when(dbMock.newBindMap(anyObject())).thenCallRealMethod();
-
-    List<String> path = new ArrayList<>();
-    String key = "eric";
-    String payload = "[1, 2, 3]";
-    Throwable thrown =
-        catchThrowable(
-            () ->
-                shredPayload.invoke(
-                    service, JsonSurferGson.INSTANCE, dbMock, path, key, payload, true));
-    assertThat(thrown.getCause())
-        .isInstanceOf(DocumentAPIRequestException.class)
-        .hasMessageContaining("A patch operation must be done with a JSON object, not an array.");
-    ;
-  }
-
   @Test
   public void putAtPath() throws UnauthorizedException {
     DocumentDB dbMock = mock(DocumentDB.class);
@@ -1064,6 +352,53 @@ public class DocumentServiceTest {
     verify(dbMock, times(1)).deleteDeadLeaves("ks", "collection", "id", deadLeaves);
   }
 
+  @Test
+  public void streamJsonAtPath()
+      throws ExecutionException, InterruptedException, JsonProcessingException {
+    DocumentDB dbMock = mock(DocumentDB.class);
+    ResultSet rsMock = mock(ResultSet.class);
+    when(dbMock.executeSelect(anyString(), anyString(), anyList())).thenReturn(rsMock);
+    when(rsMock.rows()).thenReturn(makeInitialRowData());
+
+    JsonSerializable result =
+        service.streamJsonAtPath(dbMock, "ks", "collection", "id", new ArrayList<>());
+
+    // Written from the rows, without a tree
+    assertThat(result).isNotInstanceOf(JsonNode.class);
+    assertThat(mapper.writeValueAsString(result))
+        .isEqualTo(
+            mapper
+                .readTree("{\"a\": {\"b\": {\"c\": true}}, \"d\": {\"e\": [3]}, \"f\": \"abc\"}")
+                .toString());
+    verify(dbMock, never()).deleteDeadLeaves(anyString(), anyString(), anyString(), anyMap());
+  }
+
+  @Test
+  public void streamJsonAtPath_withDeadLeaves()
+      throws ExecutionException, InterruptedException, JsonProcessingException {
+    DocumentDB dbMock = mock(DocumentDB.class);
+    ResultSet rsMock = mock(ResultSet.class);
+    when(dbMock.executeSelect(anyString(), anyString(), anyList())).thenReturn(rsMock);
+
+    // $.a.b.c is both a leaf and an object, in clustering order
+    List<Row> rows = makeInitialRowData();
+    rows.addAll(1, makeSecondRowData());
+    when(rsMock.rows()).thenReturn(rows);
+
+    JsonSerializable result =
+        service.streamJsonAtPath(dbMock, "ks", "collection", "id", new ArrayList<>());
+
+    // Falls back to the tree, which resolves the conflict
+    assertThat(result).isInstanceOf(JsonNode.class);
+    assertThat(result.toString())
+        .isEqualTo(
+            mapper
+                .readTree(
+                    "{\"a\": {\"b\": {\"c\": {\"d\": \"replaced\"}}}, \"d\": {\"e\": [3]}, \"f\": \"abc\"}")
+                .toString());
+    verify(dbMock, times(1)).deleteDeadLeaves(eq("ks"), eq("collection"), eq("id"), anyMap());
+  }
+
   @Test
   public void validateOpAndValue()
       throws JsonProcessingException, InvocationTargetException, IllegalAccessException {
@@ -1276,115 +611,167 @@ public class DocumentServiceTest {
   }
 
   @Test
-  public void updateExistenceForMap() throws InvocationTargetException, IllegalAccessException {
-    Map<String, Boolean> existenceByDoc = new HashMap<>();
-    Map<String, Integer> countsByDoc = new HashMap<>();
-    List<Row> rows = makeInitialRowData();
-    updateExistenceForMap.invoke(service, existenceByDoc, countsByDoc, rows, new ArrayList<>());
-    assertThat(existenceByDoc.get("1")).isTrue();
-    assertThat(countsByDoc.get("1")).isEqualTo(3);
+  public void getFullDocuments_lessThanLimit() throws Exception {
+    Db dbFactoryMock = mock(Db.class);
+    DocumentDB dbMock = mock(DocumentDB.class);
+    ResultSet rsMock = mock(ResultSet.class);
+    when(dbFactoryMock.getDocDataStoreForToken(anyString(), anyInt(), anyObject()))
+        .thenReturn(dbMock);
+    when(dbMock.executeSelectAll(anyString(), anyString())).thenReturn(rsMock);
+    when(rsMock.currentPageRows()).thenReturn(makeInitialRowData());
+
+    ImmutablePair<JsonNode, ByteBuffer> result =
+        service.getFullDocuments(
+            dbFactoryMock, "authToken", "keyspace", "collection", new ArrayList<>(), null, 100, 2);
+    assertThat(result.right).isNull();
+    assertThat(result.left.toString())
+        .isEqualTo(
+            mapper
+                .readTree(
+                    "{\"1\": {\"a\": {\"b\": {\"c\": true}}, \"d\": {\"e\": [3]}, \"f\": \"abc\"}}")
+                .toString());
   }
 
   @Test
-  public void getFullDocuments_lessThanLimit() throws Exception {
-    Db dbFactoryMock = PowerMockito.mock(Db.class);
-    DocumentDB dbMock = PowerMockito.mock(DocumentDB.class);
-    DocumentService serviceMock = PowerMockito.mock(DocumentService.class);
-    PowerMockito.when(dbFactoryMock.getDocDataStoreForToken(anyString(), anyInt(), anyObject()))
+  public void getFullDocuments_greaterThanLimit() throws Exception {
+    Db dbFactoryMock = mock(Db.class);
+    DocumentDB dbMock = mock(DocumentDB.class);
+    ResultSet rsMock = mock(ResultSet.class);
+    ByteBuffer secondPage = ByteBuffer.wrap(new byte[] {1, 2, 3});
+    when(dbFactoryMock.getDocDataStoreForToken(anyString(), anyInt(), anyObject()))
         .thenReturn(dbMock);
-    PowerMockito.when(
-            serviceMock,
-            "searchRows",
-            anyString(),
-            anyString(),
-            anyObject(),
-            anyList(),
-            anyList(),
-            anyList(),
-            anyBoolean(),
-            anyString())
-        .thenReturn(ImmutablePair.of(makeInitialRowData(), null));
-    PowerMockito.when(
-            serviceMock.getFullDocuments(
-                anyObject(),
-                anyObject(),
-                anyString(),
-                anyString(),
-                anyString(),
-                anyList(),
-                anyObject(),
-                anyInt(),
-                anyInt()))
-        .thenCallRealMethod();
-    PowerMockito.when(serviceMock, "addRowsToMap", anyMap(), anyList()).thenCallRealMethod();
-    PowerMockito.when(serviceMock.convertToJsonDoc(anyObject(), anyBoolean()))
-        .thenReturn(ImmutablePair.of(mapper.readTree("{\"a\": 1}"), new HashMap<>()));
+    when(dbMock.executeSelectAll(anyString(), anyString())).thenReturn(rsMock);
+    // The first document fills the first page, the second one is on the second page
+    when(rsMock.currentPageRows()).thenReturn(makeInitialRowData(), makeRowDataForSecondDoc());
+    when(rsMock.getPagingState()).thenReturn(secondPage, null);
+    when(rsMock.fetchNextPage()).thenReturn(CompletableFuture.completedFuture(rsMock));
 
     ImmutablePair<JsonNode, ByteBuffer> result =
-        serviceMock.getFullDocuments(
+        service.getFullDocuments(
+            dbFactoryMock, "authToken", "keyspace", "collection", new ArrayList<>(), null, 100, 1);
+    assertThat(result.left.size()).isEqualTo(1);
+    assertThat(result.left.has("1")).isTrue();
+
+    // Resumes from the page where the scan stopped, skipping what's left of the first document
+    DocumentCursor cursor = DocumentCursor.decode(result.right);
+    assertThat(cursor.lastKey()).isEqualTo("1");
+    assertThat(cursor.nextKey()).isEqualTo("2");
+    assertThat(cursor.nextRow()).isEqualTo(0);
+    assertThat(cursor.resumeState()).isEqualTo(secondPage);
+
+    List<Row> rows = makeInitialRowData();
+    rows.addAll(makeRowDataForSecondDoc());
+    reset(rsMock);
+    when(rsMock.currentPageRows()).thenReturn(rows);
+
+    result =
+        service.getFullDocuments(
             dbFactoryMock,
-            dbMock,
             "authToken",
             "keyspace",
             "collection",
             new ArrayList<>(),
-            null,
+            result.right,
             100,
             1);
+    verify(dbFactoryMock, times(1)).getDocDataStoreForToken("authToken", 100, secondPage);
     assertThat(result.right).isNull();
-    assertThat(result.left).isEqualTo(mapper.readTree("{\"1\": {\"a\": 1}}"));
+    assertThat(result.left.toString()).isEqualTo("{\"2\":[\"replaced\"]}");
   }
 
   @Test
-  public void getFullDocuments_greaterThanLimit() throws Exception {
-    Db dbFactoryMock = PowerMockito.mock(Db.class);
-    DocumentDB dbMock = PowerMockito.mock(DocumentDB.class);
-    DocumentService serviceMock = PowerMockito.mock(DocumentService.class);
-    List<Row> twoDocsRows = makeInitialRowData();
-    twoDocsRows.addAll(makeRowDataForSecondDoc());
-    PowerMockito.when(dbFactoryMock.getDocDataStoreForToken(anyString(), anyInt(), anyObject()))
+  public void getFullDocuments_resumesAfterDeletedDocument() throws Exception {
+    Db dbFactoryMock = mock(Db.class);
+    DocumentDB dbMock = mock(DocumentDB.class);
+    ResultSet rsMock = mock(ResultSet.class);
+    when(dbFactoryMock.getDocDataStoreForToken(anyString(), anyInt(), anyObject()))
         .thenReturn(dbMock);
-    PowerMockito.when(
-            serviceMock,
-            "searchRows",
-            anyString(),
-            anyString(),
-            anyObject(),
-            anyList(),
-            anyList(),
-            anyList(),
-            anyBoolean(),
-            anyString())
-        .thenReturn(ImmutablePair.of(twoDocsRows, null));
-    PowerMockito.when(
-            serviceMock.getFullDocuments(
-                anyObject(),
-                anyObject(),
-                anyString(),
-                anyString(),
-                anyString(),
-                anyList(),
-                anyObject(),
-                anyInt(),
-                anyInt()))
-        .thenCallRealMethod();
-    PowerMockito.when(serviceMock, "addRowsToMap", anyMap(), anyList()).thenCallRealMethod();
-    PowerMockito.when(serviceMock.convertToJsonDoc(anyObject(), anyBoolean()))
-        .thenReturn(ImmutablePair.of(mapper.readTree("{\"a\": 1}"), new HashMap<>()));
+    when(dbMock.executeSelectAll(anyString(), anyString())).thenReturn(rsMock);
+    // The previous call stopped at document 2, after document 1, which was deleted since
+    List<Row> rows = makeRowDataForArrayDoc("0");
+    rows.addAll(makeRowDataForArrayDoc("2"));
+    rows.addAll(makeRowDataForArrayDoc("3"));
+    when(rsMock.currentPageRows()).thenReturn(rows);
+    ByteBuffer pageState = new DocumentCursor("1", "2", 2, null).encode();
+
+    ImmutablePair<JsonNode, ByteBuffer> result =
+        service.getFullDocuments(
+            dbFactoryMock,
+            "authToken",
+            "keyspace",
+            "collection",
+            new ArrayList<>(),
+            pageState,
+            100,
+            1);
+
+    // Not document 0 again
+    assertThat(result.left.toString()).isEqualTo("{\"2\":[\"replaced\"]}");
+    DocumentCursor cursor = DocumentCursor.decode(result.right);
+    assertThat(cursor.nextKey()).isEqualTo("3");
+    assertThat(cursor.nextRow()).isEqualTo(2);
+  }
+
+  @Test
+  public void getFullDocuments_rejectsPageStateOfOtherFormat() {
+    // A raw paging state, as returned before page states were cursors
+    ByteBuffer pageState = ByteBuffer.wrap(new byte[] {0, 0, 0, 4, 1, 2, 3, 4});
+
+    Throwable thrown = catchThrowable(() -> DocumentCursor.decode(pageState));
+
+    assertThat(thrown)
+        .isInstanceOf(DocumentAPIRequestException.class)
+        .hasMessageContaining("Invalid page-state");
+  }
 
+  @Test
+  public void getFullDocumentsFiltered() throws Exception {
+    Db dbFactoryMock = mock(Db.class);
+    DocumentDB dbMock = mock(DocumentDB.class);
+    ResultSet rsMock = mock(ResultSet.class);
+    when(dbFactoryMock.getDocDataStoreForToken(anyString(), anyInt(), anyObject()))
+        .thenReturn(dbMock);
+    when(dbMock.executeSelect(anyString(), anyString(), anyObject(), anyBoolean()))
+        .thenReturn(rsMock);
+    // The rows of the filter's field, for a document that doesn't match and two that do
+    List<Row> rows = new ArrayList<>();
+    for (Row row : makeInitialRowData()) {
+      if ("[0]".equals(row.getString("leaf"))) rows.add(row);
+    }
+    rows.addAll(makeRowDataForSecondDoc());
+    Map<String, Object> thirdDoc = new HashMap<>();
+    thirdDoc.put("key", "3");
+    thirdDoc.put("p0", "[0]");
+    thirdDoc.put("leaf", "[0]");
+    thirdDoc.put("text_value", "replaced");
+    rows.add(makeRow(thirdDoc));
+    when(rsMock.currentPageRows()).thenReturn(rows);
+
+    ResultSet docMock = mock(ResultSet.class);
+    when(dbMock.executeSelectDocument("keyspace", "collection", "2"))
+        .thenReturn(CompletableFuture.completedFuture(docMock));
+    when(docMock.currentPageRows()).thenReturn(makeRowDataForSecondDoc());
+
+    List<FilterCondition> filters =
+        ImmutableList.of(new SingleFilterCondition(ImmutableList.of("[0]"), "$eq", "replaced"));
     ImmutablePair<JsonNode, ByteBuffer> result =
-        serviceMock.getFullDocuments(
+        service.getFullDocumentsFiltered(
             dbFactoryMock,
-            dbMock,
             "authToken",
             "keyspace",
             "collection",
+            filters,
             new ArrayList<>(),
             null,
             100,
             1);
-    assertThat(result.right).isNull();
-    assertThat(result.left).isEqualTo(mapper.readTree("{\"1\": {\"a\": 1}}"));
+    assertThat(result.left.toString()).isEqualTo("{\"2\":[\"replaced\"]}");
+    verify(dbMock, times(1)).executeSelectDocument(anyString(), anyString(), anyString());
+
+    // The search stopped at the row of the next document, in the first page
+    DocumentCursor cursor = DocumentCursor.decode(result.right);
+    assertThat(cursor.lastKey()).isEqualTo("2");
+    assertThat(cursor.resumeState()).isNull();
   }
 
   @Test
@@ -1845,10 +1232,14 @@ public class DocumentServiceTest {
   }
 
   private List<Row> makeRowDataForSecondDoc() {
+    return makeRowDataForArrayDoc("2");
+  }
+
+  private List<Row> makeRowDataForArrayDoc(String key) {
     List<Row> rows = new ArrayList<>();
     Map<String, Object> data1 = new HashMap<>();
 
-    data1.put("key", "2");
+    data1.put("key", key);
     data1.put("writetime(leaf)", 2L);
     data1.put("p0", "[0]");
     data1.put("text_value", "replaced");
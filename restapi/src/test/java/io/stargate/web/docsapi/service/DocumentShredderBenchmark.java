@@ -0,0 +1,282 @@
+package io.stargate.web.docsapi.service;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import io.stargate.web.docsapi.dao.DocumentDB;
+import io.stargate.web.docsapi.exception.DocumentAPIRequestException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.jsfr.json.ErrorHandlingStrategy;
+import org.jsfr.json.JsonSurferGson;
+import org.jsfr.json.ParsingContext;
+import org.jsfr.json.compiler.JsonPathCompiler;
+import org.jsfr.json.path.JsonPath;
+import org.jsfr.json.path.PathOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares {@link DocumentShredder} to the previous shredding of payloads, which bound a JsonPath
+ * listener on {@code $..*} and re-parsed the path of every leaf.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=io.stargate.web.docsapi.service.DocumentShredderBenchmark} (or through your
+ * IDE).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DocumentShredderBenchmark {
+  private static final List<String> PATH = Collections.singletonList("base");
+
+  public enum Shape {
+    /** A handful of fields, like a user profile. */
+    SMALL,
+    /** A thousand fields at the first level, and an array of a thousand numbers. */
+    WIDE,
+    /** Objects and arrays nested almost down to the maximum depth. */
+    DEEP
+  }
+
+  @Param({"SMALL", "WIDE", "DEEP"})
+  public Shape shape;
+
+  private String payload;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    payload = payload(shape);
+  }
+
+  @Benchmark
+  public ImmutablePair<List<Object[]>, List<String>> shred() {
+    return DocumentShredder.shred(PATH, "key", payload, false);
+  }
+
+  @Benchmark
+  public ImmutablePair<List<Object[]>, List<String>> legacyShred() {
+    return Legacy.shred(PATH, "key", payload, false);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(DocumentShredderBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+
+  private static String payload(Shape shape) {
+    StringBuilder payload = new StringBuilder();
+    switch (shape) {
+      case SMALL:
+        payload.append(
+            "{\"name\": \"Eric\", \"age\": 42, \"active\": true, \"nickname\": null,"
+                + " \"address\": {\"street\": \"1 Main St\", \"zip\": \"12345\"},"
+                + " \"tags\": [\"a\", \"b\", \"c\"], \"prefs\": {}}");
+        break;
+      case WIDE:
+        payload.append('{');
+        for (int i = 0; i < 1000; i++) {
+          payload.append("\"field").append(i).append("\": \"value").append(i).append("\", ");
+        }
+        payload.append("\"numbers\": [");
+        for (int i = 0; i < 1000; i++) {
+          payload.append(i > 0 ? ", " : "").append(i);
+        }
+        payload.append("]}");
+        break;
+      case DEEP:
+        int levels = (DocumentDB.MAX_DEPTH - PATH.size()) / 2;
+        for (int i = 0; i < levels; i++) {
+          payload.append("{\"level").append(i).append("\": \"leaf\", \"next\": [");
+        }
+        payload.append("true");
+        for (int i = 0; i < levels; i++) {
+          payload.append("]}");
+        }
+        break;
+      default:
+        throw new AssertionError(shape);
+    }
+    return payload.toString();
+  }
+
+  /** The shredding of payloads before {@link DocumentShredder}, kept for comparison. */
+  private static class Legacy {
+    private static final DocumentDB db = new DocumentDB(null);
+
+    static ImmutablePair<List<Object[]>, List<String>> shred(
+        List<String> path, String key, String payload, boolean patching) {
+      List<Object[]> bindVariableList = new ArrayList<>();
+      List<String> firstLevelKeys = new ArrayList<>();
+      JsonSurferGson.INSTANCE
+          .configBuilder()
+          .bind(
+              "$..*",
+              (v, parsingContext) -> {
+                String fieldName = parsingContext.getCurrentFieldName();
+                if (fieldName != null && (DocumentDB.containsIllegalChars(fieldName))) {
+                  throw new DocumentAPIRequestException(
+                      String.format(
+                          "The characters %s are not permitted in JSON field names,"
+                              + " invalid field %s",
+                          DocumentDB.getForbiddenCharactersMessage(), fieldName));
+                }
+
+                if (v instanceof JsonPrimitive
+                    || v instanceof JsonNull
+                    || isEmptyObject(v)
+                    || isEmptyArray(v)) {
+                  JsonPath p =
+                      JsonPathCompiler.compile(
+                          convertToBracketedPath(parsingContext.getJsonPath()));
+                  int i = path.size();
+                  Map<String, Object> bindMap = db.newBindMap(path);
+
+                  bindMap.put("key", key);
+
+                  Iterator<PathOperator> it = p.iterator();
+                  String leaf = null;
+                  while (it.hasNext()) {
+                    if (i >= DocumentDB.MAX_DEPTH) {
+                      throw new DocumentAPIRequestException(
+                          String.format("Max depth of %s exceeded", DocumentDB.MAX_DEPTH));
+                    }
+
+                    PathOperator op = it.next();
+                    String pv = op.toString();
+
+                    if (pv.equals("$")) continue;
+
+                    String innerPath = pv.substring(1, pv.length() - 1);
+                    if (op.getType() == PathOperator.Type.ARRAY) {
+                      if (i == path.size() && patching) {
+                        throw new DocumentAPIRequestException(
+                            "A patch operation must be done with a JSON object, not an array.");
+                      }
+
+                      int idx = Integer.parseInt(innerPath);
+                      if (idx > DocumentDB.MAX_ARRAY_LENGTH - 1) {
+                        throw new DocumentAPIRequestException(
+                            String.format(
+                                "Max array length of %s exceeded.", DocumentDB.MAX_ARRAY_LENGTH));
+                      }
+
+                      pv = String.format("[%06d]", idx);
+                    } else if (i == path.size()) {
+                      firstLevelKeys.add(innerPath);
+                      pv = innerPath;
+                    } else {
+                      pv = innerPath;
+                    }
+
+                    bindMap.put("p" + i++, pv);
+                    leaf = pv;
+                  }
+
+                  bindMap.put("leaf", leaf);
+
+                  String textValue = null;
+                  Double dblValue = null;
+                  Boolean boolValue = null;
+                  if (v instanceof JsonPrimitive) {
+                    JsonPrimitive value = (JsonPrimitive) v;
+                    if (value.isNumber()) {
+                      dblValue = value.getAsDouble();
+                    } else if (value.isBoolean()) {
+                      boolValue = value.getAsBoolean();
+                    } else {
+                      textValue = value.getAsString();
+                    }
+                  } else if (isEmptyObject(v)) {
+                    textValue = DocumentDB.EMPTY_OBJECT_MARKER;
+                  } else if (isEmptyArray(v)) {
+                    textValue = DocumentDB.EMPTY_ARRAY_MARKER;
+                  }
+                  bindMap.put("dbl_value", dblValue);
+                  bindMap.put("bool_value", boolValue);
+                  bindMap.put("text_value", textValue);
+
+                  bindVariableList.add(bindMap.values().toArray());
+                }
+              })
+          .withErrorStrategy(new ErrorStrategy())
+          .buildAndSurf(payload);
+      return ImmutablePair.of(bindVariableList, firstLevelKeys);
+    }
+
+    private static class ErrorStrategy implements ErrorHandlingStrategy {
+      @Override
+      public void handleParsingException(Exception e) {
+        if (e instanceof DocumentAPIRequestException) {
+          throw (DocumentAPIRequestException) e;
+        }
+        throw new RuntimeException(e.getLocalizedMessage(), e);
+      }
+
+      @Override
+      public void handleExceptionFromListener(Exception e, ParsingContext context) {
+        if (e instanceof DocumentAPIRequestException) {
+          throw (DocumentAPIRequestException) e;
+        }
+        throw new RuntimeException(e.getLocalizedMessage(), e);
+      }
+    }
+
+    private static String convertToBracketedPath(String path) {
+      String[] parts = path.split("\\.");
+      StringBuilder newPath = new StringBuilder();
+      for (int i = 0; i < parts.length; i++) {
+        String part = parts[i];
+        if (part.startsWith("$") && i == 0) {
+          newPath.append(part);
+        } else {
+          int indexOfBrace = part.indexOf('[');
+          if (indexOfBrace < 0) {
+            newPath.append("['").append(part).append("']");
+          } else {
+            String keyPart = part.substring(0, indexOfBrace);
+            String arrayPart = part.substring(indexOfBrace);
+            newPath.append("['").append(keyPart).append("']").append(arrayPart);
+          }
+        }
+      }
+      return newPath.toString();
+    }
+
+    private static boolean isEmptyObject(Object v) {
+      return v instanceof JsonElement
+          && ((JsonElement) v).isJsonObject()
+          && ((JsonObject) v).size() == 0;
+    }
+
+    private static boolean isEmptyArray(Object v) {
+      return v instanceof JsonElement
+          && ((JsonElement) v).isJsonArray()
+          && ((JsonArray) v).size() == 0;
+    }
+  }
+}
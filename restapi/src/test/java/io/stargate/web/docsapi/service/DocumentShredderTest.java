@@ -0,0 +1,672 @@
+package io.stargate.web.docsapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import io.stargate.web.docsapi.dao.DocumentDB;
+import io.stargate.web.docsapi.exception.DocumentAPIRequestException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.Test;
+
+public class DocumentShredderTest {
+  @Test
+  public void shredPayload_booleanLeaf() {
+    List<String> path = new ArrayList<>();
+    String key = "eric";
+    String payload = "{\"cool\": {\"document\": true}}";
+    ImmutablePair<List<Object[]>, List<String>> shredResult =
+        DocumentShredder.shred(path, key, payload, false);
+    List<Object[]> bindVariables = shredResult.left;
+    List<String> topLevelKeys = shredResult.right;
+    assertThat(bindVariables.size()).isEqualTo(1);
+    Object[] vars = bindVariables.get(0);
+    assertThat(vars.length).isEqualTo(69);
+    Object[] expected = {
+      "eric",
+      "cool",
+      "document",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "document",
+      null,
+      null,
+      true,
+    };
+    for (int i = 0; i < vars.length; i++) {
+      assertThat(vars[i]).isEqualTo(expected[i]);
+    }
+
+    assertThat(topLevelKeys.size()).isEqualTo(1);
+    assertThat(topLevelKeys.get(0)).isEqualTo("cool");
+  }
+
+  @Test
+  public void shredPayload_numberLeaf() {
+    List<String> path = new ArrayList<>();
+    String key = "eric";
+    String payload = "{\"cool\": {\"document\": 3}}";
+    ImmutablePair<List<Object[]>, List<String>> shredResult =
+        DocumentShredder.shred(path, key, payload, false);
+    List<Object[]> bindVariables = shredResult.left;
+    List<String> topLevelKeys = shredResult.right;
+    assertThat(bindVariables.size()).isEqualTo(1);
+    Object[] vars = bindVariables.get(0);
+    assertThat(vars.length).isEqualTo(69);
+    Object[] expected = {
+      "eric",
+      "cool",
+      "document",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "document",
+      null,
+      3.0,
+      null
+    };
+    for (int i = 0; i < vars.length; i++) {
+      assertThat(vars[i]).isEqualTo(expected[i]);
+    }
+
+    assertThat(topLevelKeys.size()).isEqualTo(1);
+    assertThat(topLevelKeys.get(0)).isEqualTo("cool");
+  }
+
+  @Test
+  public void shredPayload_stringLeaf() {
+    List<String> path = new ArrayList<>();
+    String key = "eric";
+    String payload = "{\"cool\": {\"document\": \"leaf\"}}";
+    ImmutablePair<List<Object[]>, List<String>> shredResult =
+        DocumentShredder.shred(path, key, payload, false);
+    List<Object[]> bindVariables = shredResult.left;
+    List<String> topLevelKeys = shredResult.right;
+    assertThat(bindVariables.size()).isEqualTo(1);
+    Object[] vars = bindVariables.get(0);
+    assertThat(vars.length).isEqualTo(69);
+    Object[] expected = {
+      "eric",
+      "cool",
+      "document",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "document",
+      "leaf",
+      null,
+      null
+    };
+    for (int i = 0; i < vars.length; i++) {
+      assertThat(vars[i]).isEqualTo(expected[i]);
+    }
+
+    assertThat(topLevelKeys.size()).isEqualTo(1);
+    assertThat(topLevelKeys.get(0)).isEqualTo("cool");
+  }
+
+  @Test
+  public void shredPayload_emptyObjectLeaf() {
+    List<String> path = new ArrayList<>();
+    String key = "eric";
+    String payload = "{\"cool\": {\"document\": {}}}";
+    ImmutablePair<List<Object[]>, List<String>> shredResult =
+        DocumentShredder.shred(path, key, payload, false);
+    List<Object[]> bindVariables = shredResult.left;
+    List<String> topLevelKeys = shredResult.right;
+    assertThat(bindVariables.size()).isEqualTo(1);
+    Object[] vars = bindVariables.get(0);
+    assertThat(vars.length).isEqualTo(69);
+    Object[] expected = {
+      "eric",
+      "cool",
+      "document",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "document",
+      DocumentDB.EMPTY_OBJECT_MARKER,
+      null,
+      null,
+    };
+    for (int i = 0; i < vars.length; i++) {
+      assertThat(vars[i]).isEqualTo(expected[i]);
+    }
+
+    assertThat(topLevelKeys.size()).isEqualTo(1);
+    assertThat(topLevelKeys.get(0)).isEqualTo("cool");
+  }
+
+  @Test
+  public void shredPayload_emptyArrayLeaf() {
+    List<String> path = new ArrayList<>();
+    String key = "eric";
+    String payload = "{\"cool\": {\"document\": []}}";
+    ImmutablePair<List<Object[]>, List<String>> shredResult =
+        DocumentShredder.shred(path, key, payload, false);
+    List<Object[]> bindVariables = shredResult.left;
+    List<String> topLevelKeys = shredResult.right;
+    assertThat(bindVariables.size()).isEqualTo(1);
+    Object[] vars = bindVariables.get(0);
+    assertThat(vars.length).isEqualTo(69);
+    Object[] expected = {
+      "eric",
+      "cool",
+      "document",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "document",
+      DocumentDB.EMPTY_ARRAY_MARKER,
+      null,
+      null
+    };
+    for (int i = 0; i < vars.length; i++) {
+      assertThat(vars[i]).isEqualTo(expected[i]);
+    }
+
+    assertThat(topLevelKeys.size()).isEqualTo(1);
+    assertThat(topLevelKeys.get(0)).isEqualTo("cool");
+  }
+
+  @Test
+  public void shredPayload_nullLeaf() {
+    List<String> path = new ArrayList<>();
+    String key = "eric";
+    String payload = "{\"cool\": {\"document\": null}}";
+    ImmutablePair<List<Object[]>, List<String>> shredResult =
+        DocumentShredder.shred(path, key, payload, false);
+    List<Object[]> bindVariables = shredResult.left;
+    List<String> topLevelKeys = shredResult.right;
+    assertThat(bindVariables.size()).isEqualTo(1);
+    Object[] vars = bindVariables.get(0);
+    assertThat(vars.length).isEqualTo(69);
+    Object[] expected = {
+      "eric",
+      "cool",
+      "document",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "",
+      "document",
+      null,
+      null,
+      null
+    };
+    for (int i = 0; i < vars.length; i++) {
+      assertThat(vars[i]).isEqualTo(expected[i]);
+    }
+
+    assertThat(topLevelKeys.size()).isEqualTo(1);
+    assertThat(topLevelKeys.get(0)).isEqualTo("cool");
+  }
+
+  @Test
+  public void shredPayload_invalidKeys() {
+    List<String> path = new ArrayList<>();
+    String key = "eric";
+    String payload = "{\"coo]\": {\"document\": null}}";
+    Throwable thrown = catchThrowable(() -> DocumentShredder.shred(path, key, payload, false));
+    assertThat(thrown)
+        .isInstanceOf(DocumentAPIRequestException.class)
+        .hasMessageContaining("are not permitted in JSON field names, invalid field coo]");
+  }
+
+  @Test
+  public void shredPayload_patchingArrayInvalid() {
+    List<String> path = new ArrayList<>();
+    String key = "eric";
+    String payload = "[1, 2, 3]";
+    Throwable thrown = catchThrowable(() -> DocumentShredder.shred(path, key, payload, true));
+    assertThat(thrown)
+        .isInstanceOf(DocumentAPIRequestException.class)
+        .hasMessageContaining("A patch operation must be done with a JSON object, not an array.");
+  }
+
+  @Test
+  public void shredPayload_nestedPaths() {
+    List<String> path = Collections.singletonList("base");
+    String payload =
+        "{\"I need some space\": {\"$\": [1, {\"@\": \"x\"}]}, \"b\": false, \"c\": [[]]}";
+    ImmutablePair<List<Object[]>, List<String>> shredResult =
+        DocumentShredder.shred(path, "eric", payload, false);
+
+    List<Object[]> bindVariables = shredResult.left;
+    assertThat(shredResult.right).containsExactly("I need some space", "b", "c");
+    assertThat(bindVariables).hasSize(4);
+    assertThat(pathOf(bindVariables.get(0)))
+        .containsExactly("base", "I need some space", "$", "[000000]");
+    assertThat(pathOf(bindVariables.get(1)))
+        .containsExactly("base", "I need some space", "$", "[000001]", "@");
+    assertThat(pathOf(bindVariables.get(2))).containsExactly("base", "b");
+    assertThat(pathOf(bindVariables.get(3))).containsExactly("base", "c", "[000000]");
+
+    int leaf = DocumentDB.MAX_DEPTH + 1;
+    assertThat(Arrays.copyOfRange(bindVariables.get(0), leaf, leaf + 4))
+        .containsExactly("[000000]", null, 1.0, null);
+    assertThat(Arrays.copyOfRange(bindVariables.get(1), leaf, leaf + 4))
+        .containsExactly("@", "x", null, null);
+    assertThat(Arrays.copyOfRange(bindVariables.get(2), leaf, leaf + 4))
+        .containsExactly("b", null, null, false);
+    assertThat(Arrays.copyOfRange(bindVariables.get(3), leaf, leaf + 4))
+        .containsExactly("[000000]", DocumentDB.EMPTY_ARRAY_MARKER, null, null);
+  }
+
+  @Test
+  public void shredPayload_rootOnly() {
+    List<String> path = new ArrayList<>();
+    for (String payload : Arrays.asList("{}", "[]", "3", "\"leaf\"", "null")) {
+      assertThat(DocumentShredder.shred(path, "eric", payload, false).left).isEmpty();
+    }
+  }
+
+  @Test
+  public void shredPayload_maxDepth() {
+    StringBuilder payload = new StringBuilder();
+    for (int i = 0; i < DocumentDB.MAX_DEPTH; i++) payload.append("{\"a\": ");
+    payload.append("1");
+    for (int i = 0; i < DocumentDB.MAX_DEPTH; i++) payload.append("}");
+
+    assertThat(DocumentShredder.shred(new ArrayList<>(), "eric", payload.toString(), false).left)
+        .hasSize(1);
+    Throwable thrown =
+        catchThrowable(
+            () ->
+                DocumentShredder.shred(
+                    Collections.singletonList("base"), "eric", payload.toString(), false));
+    assertThat(thrown)
+        .isInstanceOf(DocumentAPIRequestException.class)
+        .hasMessage(String.format("Max depth of %s exceeded", DocumentDB.MAX_DEPTH));
+  }
+
+  @Test
+  public void shredPayload_trailingContent() {
+    List<String> path = new ArrayList<>();
+    List<String> payloads =
+        Arrays.asList("{\"a\": 1} {\"b\": 2}", "[1] [2]", "{\"a\": 1}}", "3 4", "{} x");
+    for (String payload : payloads) {
+      Throwable thrown = catchThrowable(() -> DocumentShredder.shred(path, "eric", payload, false));
+      assertThat(thrown)
+          .as(payload)
+          .isExactlyInstanceOf(RuntimeException.class)
+          .hasCauseInstanceOf(JsonParseException.class);
+    }
+  }
+
+  @Test
+  public void shredPayload_trailingWhitespace() {
+    ImmutablePair<List<Object[]>, List<String>> shredResult =
+        DocumentShredder.shred(new ArrayList<>(), "eric", "{\"a\": 1}\n  \n", false);
+
+    assertThat(shredResult.left).hasSize(1);
+    assertThat(shredResult.right).containsExactly("a");
+  }
+
+  /** The non-empty path columns of a row of bind variables. */
+  private static List<Object> pathOf(Object[] bindVariables) {
+    List<Object> path = new ArrayList<>();
+    for (int i = 1; i <= DocumentDB.MAX_DEPTH && !"".equals(bindVariables[i]); i++) {
+      path.add(bindVariables[i]);
+    }
+    return path;
+  }
+}